@@ -13,6 +13,7 @@ export default function ArticleTable({
   articles,
   currentUser,
   testIdPrefix = "ArticleTable",
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -25,7 +26,7 @@ export default function ArticleTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/articles/all"],
+    ["/api/articles/page"],
   );
   // Stryker restore all
 
@@ -68,5 +69,12 @@ export default function ArticleTable({
     );
   }
 
-  return <OurTable data={articles} columns={columns} testid={testIdPrefix} />;
+  return (
+    <OurTable
+      data={articles}
+      columns={columns}
+      testid={testIdPrefix}
+      serverSide={serverSide}
+    />
+  );
 }
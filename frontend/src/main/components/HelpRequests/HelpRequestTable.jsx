@@ -13,6 +13,7 @@ export default function HelpRequestTable({
   requests,
   currentUser,
   testIdPrefix = "HelpRequestTable",
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -25,7 +26,7 @@ export default function HelpRequestTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/helprequest/all"],
+    ["/api/helprequest/page"],
   );
   // Stryker restore all
 
@@ -73,5 +74,12 @@ export default function HelpRequestTable({
     );
   }
 
-  return <OurTable data={requests} columns={columns} testid={testIdPrefix} />;
+  return (
+    <OurTable
+      data={requests}
+      columns={columns}
+      testid={testIdPrefix}
+      serverSide={serverSide}
+    />
+  );
 }
@@ -9,7 +9,11 @@ import {
 import { useNavigate } from "react-router";
 import { hasRole } from "main/utils/useCurrentUser";
 
-export default function MenuItemReviewTable({ menuItemReviews, currentUser }) {
+export default function MenuItemReviewTable({
+  menuItemReviews,
+  currentUser,
+  serverSide,
+}) {
   const navigate = useNavigate();
 
   const editCallback = (cell) => {
@@ -21,7 +25,7 @@ export default function MenuItemReviewTable({ menuItemReviews, currentUser }) {
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/menuitemreview/all"],
+    ["/api/menuitemreview/page"],
   );
   // Stryker restore all
 
@@ -71,6 +75,7 @@ export default function MenuItemReviewTable({ menuItemReviews, currentUser }) {
       data={menuItemReviews}
       columns={columns}
       testid={"MenuItemReviewTable"}
+      serverSide={serverSide}
     />
   );
 }
@@ -9,7 +9,9 @@ import {
 import { Button } from "react-bootstrap";
 import SortCaret from "main/components/Common/SortCaret";
 
-function OurTable({ data, columns, testid = "testid" }) {
+// When serverSide (see usePagedBackend) is given, data is one page of the
+// table, and the server sorts the rows and chooses the page.
+function OurTable({ data, columns, testid = "testid", serverSide = null }) {
   const memoizedData = useMemo(() => data, [data]);
   const memoizedColumns = useMemo(() => columns, [columns]);
 
@@ -18,8 +20,51 @@ function OurTable({ data, columns, testid = "testid" }) {
     columns: memoizedColumns,
     getCoreRowModel: getCoreRowModel(),
     getSortedRowModel: getSortedRowModel(),
+    ...(serverSide && {
+      manualPagination: true,
+      manualSorting: true,
+      pageCount: serverSide.pageCount,
+      state: {
+        pagination: serverSide.pagination,
+        sorting: serverSide.sorting,
+      },
+      onPaginationChange: serverSide.onPaginationChange,
+      onSortingChange: serverSide.onSortingChange,
+    }),
   });
 
+  return (
+    <>
+      <OurTableRows table={table} testid={testid} />
+      {serverSide && (
+        <div className="d-flex align-items-center gap-2">
+          <Button
+            variant="secondary"
+            onClick={() => table.previousPage()}
+            disabled={!table.getCanPreviousPage()}
+            data-testid={`${testid}-previous-page`}
+          >
+            Previous
+          </Button>
+          <span data-testid={`${testid}-page-number`}>
+            Page {serverSide.pagination.pageIndex + 1} of{" "}
+            {Math.max(serverSide.pageCount, 1)}
+          </span>
+          <Button
+            variant="secondary"
+            onClick={() => table.nextPage()}
+            disabled={!table.getCanNextPage()}
+            data-testid={`${testid}-next-page`}
+          >
+            Next
+          </Button>
+        </div>
+      )}
+    </>
+  );
+}
+
+function OurTableRows({ table, testid }) {
   return (
     <table className="table table-striped table-bordered" data-testid={testid}>
       <thead>
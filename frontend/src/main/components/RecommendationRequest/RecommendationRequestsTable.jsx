@@ -12,6 +12,7 @@ import { hasRole } from "main/utils/useCurrentUser";
 export default function RecommendationRequestsTable({
   recommendationRequests,
   currentUser,
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -24,7 +25,7 @@ export default function RecommendationRequestsTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/recommendationrequests/all"],
+    ["/api/recommendationrequests/page"],
   );
   // Stryker restore all
 
@@ -68,6 +69,7 @@ export default function RecommendationRequestsTable({
       data={recommendationRequests}
       columns={columns}
       testid={"RecommendationRequestsTable"}
+      serverSide={serverSide}
     />
   );
 }
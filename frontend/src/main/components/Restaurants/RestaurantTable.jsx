@@ -13,6 +13,7 @@ export default function RestaurantTable({
   restaurants,
   currentUser,
   testIdPrefix = "RestaurantTable",
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -25,7 +26,7 @@ export default function RestaurantTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/restaurants/all"],
+    ["/api/restaurants/page"],
   );
   // Stryker restore all
 
@@ -58,6 +59,11 @@ export default function RestaurantTable({
   }
 
   return (
-    <OurTable data={restaurants} columns={columns} testid={testIdPrefix} />
+    <OurTable
+      data={restaurants}
+      columns={columns}
+      testid={testIdPrefix}
+      serverSide={serverSide}
+    />
   );
 }
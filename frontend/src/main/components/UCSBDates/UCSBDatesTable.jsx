@@ -9,7 +9,7 @@ import {
 import { useNavigate } from "react-router";
 import { hasRole } from "main/utils/useCurrentUser";
 
-export default function UCSBDatesTable({ dates, currentUser }) {
+export default function UCSBDatesTable({ dates, currentUser, serverSide }) {
   const navigate = useNavigate();
 
   const editCallback = (cell) => {
@@ -21,7 +21,7 @@ export default function UCSBDatesTable({ dates, currentUser }) {
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/ucsbdates/all"],
+    ["/api/ucsbdates/page"],
   );
   // Stryker restore all
 
@@ -58,5 +58,12 @@ export default function UCSBDatesTable({ dates, currentUser }) {
     );
   }
 
-  return <OurTable data={dates} columns={columns} testid={"UCSBDatesTable"} />;
+  return (
+    <OurTable
+      data={dates}
+      columns={columns}
+      testid={"UCSBDatesTable"}
+      serverSide={serverSide}
+    />
+  );
 }
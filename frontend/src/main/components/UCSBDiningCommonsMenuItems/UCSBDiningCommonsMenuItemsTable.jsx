@@ -12,6 +12,7 @@ import { hasRole } from "main/utils/useCurrentUser";
 export default function UCSBDiningCommonsMenuItemsTable({
   items,
   currentUser,
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -24,7 +25,7 @@ export default function UCSBDiningCommonsMenuItemsTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/ucsbdiningcommonsmenuitems/all"],
+    ["/api/ucsbdiningcommonsmenuitems/page"],
   );
   // Stryker restore all
 
@@ -76,6 +77,7 @@ export default function UCSBDiningCommonsMenuItemsTable({
       data={items}
       columns={columns}
       testid={"UCSBDiningCommonsMenuItemsTable"}
+      serverSide={serverSide}
     />
   );
 }
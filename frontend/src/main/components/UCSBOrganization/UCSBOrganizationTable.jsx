@@ -13,6 +13,7 @@ export default function UCSBOrganizationTable({
   organizations,
   currentUser,
   testIdPrefix = "UCSBOrganizationTable",
+  serverSide,
 }) {
   const navigate = useNavigate();
 
@@ -25,7 +26,7 @@ export default function UCSBOrganizationTable({
   const deleteMutation = useBackendMutation(
     cellToAxiosParamsDelete,
     { onSuccess: onDeleteSuccess },
-    ["/api/ucsborganization/all"],
+    ["/api/ucsborganization/page"],
   );
   // Stryker restore all
 
@@ -62,6 +63,11 @@ export default function UCSBOrganizationTable({
   }
 
   return (
-    <OurTable data={organizations} columns={columns} testid={testIdPrefix} />
+    <OurTable
+      data={organizations}
+      columns={columns}
+      testid={testIdPrefix}
+      serverSide={serverSide}
+    />
   );
 }
@@ -25,7 +25,7 @@ export default function ArticleCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/articles/all"], // mutation makes this key stale so that pages relying on it reload
+    ["/api/articles/page"], // mutation makes this key stale so that pages relying on it reload
   );
 
   const { isSuccess } = mutation;
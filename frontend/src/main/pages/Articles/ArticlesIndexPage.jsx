@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import ArticlesTable from "main/components/Articles/ArticleTable";
@@ -9,17 +9,7 @@ import { Button } from "react-bootstrap";
 export default function ArticlesIndexPage() {
   const currentUser = useCurrentUser();
 
-  const {
-    data: articles,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/articles/all"],
-    { method: "GET", url: "/api/articles/all" },
-    // Stryker disable next-line all : don't test default value of empty list
-    [],
-  );
+  const { rows: articles, serverSide } = usePagedBackend("/api/articles/page");
 
   const createButton = () => {
     if (hasRole(currentUser, "ROLE_ADMIN")) {
@@ -40,7 +30,11 @@ export default function ArticlesIndexPage() {
       <div className="pt-2">
         {createButton()}
         <h1>Articles</h1>
-        <ArticlesTable articles={articles} currentUser={currentUser} />
+        <ArticlesTable
+          articles={articles}
+          currentUser={currentUser}
+          serverSide={serverSide}
+        />
       </div>
     </BasicLayout>
   );
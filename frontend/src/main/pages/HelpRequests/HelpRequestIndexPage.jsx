@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import HelpRequestTable from "main/components/HelpRequests/HelpRequestTable";
@@ -9,16 +9,8 @@ import { Button } from "react-bootstrap";
 export default function HelpRequestIndexPage() {
   const currentUser = useCurrentUser();
 
-  const {
-    data: requests,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/helprequest/all"],
-    { method: "GET", url: "/api/helprequest/all" },
-    // Stryker disable next-line all : don't test default value of empty list
-    [],
+  const { rows: requests, serverSide } = usePagedBackend(
+    "/api/helprequest/page",
   );
 
   const createButton = () => {
@@ -40,7 +32,11 @@ export default function HelpRequestIndexPage() {
       <div className="pt-2">
         {createButton()}
         <h1>Help Requests</h1>
-        <HelpRequestTable requests={requests} currentUser={currentUser} />
+        <HelpRequestTable
+          requests={requests}
+          currentUser={currentUser}
+          serverSide={serverSide}
+        />
       </div>
     </BasicLayout>
   );
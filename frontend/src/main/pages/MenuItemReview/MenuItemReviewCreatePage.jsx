@@ -27,7 +27,7 @@ export default function MenuItemReviewCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/menuitemreview/all"],
+    ["/api/menuitemreview/page"],
   );
 
   const { isSuccess } = mutation;
@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import MenuItemReviewTable from "main/components/MenuItemReviews/MenuItemReviewTable";
@@ -23,15 +23,8 @@ export default function MenuItemReviewIndexPage() {
     }
   };
 
-  const {
-    data: menuItemReviews,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/menuitemreview/all"],
-    { method: "GET", url: "/api/menuitemreview/all" },
-    [],
+  const { rows: menuItemReviews, serverSide } = usePagedBackend(
+    "/api/menuitemreview/page",
   );
 
   return (
@@ -42,6 +35,7 @@ export default function MenuItemReviewIndexPage() {
         <MenuItemReviewTable
           menuItemReviews={menuItemReviews}
           currentUser={currentUser}
+          serverSide={serverSide}
         />
       </div>
     </BasicLayout>
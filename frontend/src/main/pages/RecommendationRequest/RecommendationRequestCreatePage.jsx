@@ -29,7 +29,7 @@ export default function RecommendationRequestCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/recommendationrequests/all"],
+    ["/api/recommendationrequests/page"],
   );
 
   const { isSuccess } = mutation;
@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import RecommendationRequestsTable from "main/components/RecommendationRequest/RecommendationRequestsTable";
@@ -23,16 +23,8 @@ export default function RecommendationRequestIndexPage() {
     }
   };
 
-  const {
-    data: recommendationRequests,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/recommendationrequests/all"],
-    { method: "GET", url: "/api/recommendationrequests/all" },
-    // Stryker disable next-line all : don't test value of empty list
-    [],
+  const { rows: recommendationRequests, serverSide } = usePagedBackend(
+    "/api/recommendationrequests/page",
   );
 
   return (
@@ -43,6 +35,7 @@ export default function RecommendationRequestIndexPage() {
         <RecommendationRequestsTable
           recommendationRequests={recommendationRequests}
           currentUser={currentUser}
+          serverSide={serverSide}
         />
       </div>
     </BasicLayout>
@@ -24,7 +24,7 @@ export default function RestaurantCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/restaurants/all"], // mutation makes this key stale so that pages relying on it reload
+    ["/api/restaurants/page"], // mutation makes this key stale so that pages relying on it reload
   );
 
   const { isSuccess } = mutation;
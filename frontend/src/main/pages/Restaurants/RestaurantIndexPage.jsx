@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import RestaurantTable from "main/components/Restaurants/RestaurantTable";
@@ -9,16 +9,8 @@ import { Button } from "react-bootstrap";
 export default function RestaurantIndexPage() {
   const currentUser = useCurrentUser();
 
-  const {
-    data: restaurants,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/restaurants/all"],
-    { method: "GET", url: "/api/restaurants/all" },
-    // Stryker disable next-line all : don't test default value of empty list
-    [],
+  const { rows: restaurants, serverSide } = usePagedBackend(
+    "/api/restaurants/page",
   );
 
   const createButton = () => {
@@ -40,7 +32,11 @@ export default function RestaurantIndexPage() {
       <div className="pt-2">
         {createButton()}
         <h1>Restaurants</h1>
-        <RestaurantTable restaurants={restaurants} currentUser={currentUser} />
+        <RestaurantTable
+          restaurants={restaurants}
+          currentUser={currentUser}
+          serverSide={serverSide}
+        />
       </div>
     </BasicLayout>
   );
@@ -23,7 +23,7 @@ export default function UCSBDatesCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/ucsbdates/all"],
+    ["/api/ucsbdates/page"],
   );
 
   const { isSuccess } = mutation;
@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import UCSBDatesTable from "main/components/UCSBDates/UCSBDatesTable";
@@ -23,23 +23,18 @@ export default function UCSBDatesIndexPage() {
     }
   };
 
-  const {
-    data: dates,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/ucsbdates/all"],
-    { method: "GET", url: "/api/ucsbdates/all" },
-    [],
-  );
+  const { rows: dates, serverSide } = usePagedBackend("/api/ucsbdates/page");
 
   return (
     <BasicLayout>
       <div className="pt-2">
         {createButton()}
         <h1>UCSBDates</h1>
-        <UCSBDatesTable dates={dates} currentUser={currentUser} />
+        <UCSBDatesTable
+          dates={dates}
+          currentUser={currentUser}
+          serverSide={serverSide}
+        />
       </div>
     </BasicLayout>
   );
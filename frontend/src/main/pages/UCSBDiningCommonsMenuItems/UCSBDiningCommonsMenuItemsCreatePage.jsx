@@ -27,7 +27,7 @@ export default function UCSBDiningCommonsMenuItemsCreatePage({
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/ucsbdiningcommonsmenuitems/all"],
+    ["/api/ucsbdiningcommonsmenuitems/page"],
   );
 
   const { isSuccess } = mutation;
@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import UCSBDiningCommonsMenuItemsTable from "main/components/UCSBDiningCommonsMenuItems/UCSBDiningCommonsMenuItemsTable";
@@ -23,15 +23,8 @@ export default function UCSBDiningCommonsMenuItemsIndexPage() {
     }
   };
 
-  const {
-    data: items,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/ucsbdiningcommonsmenuitems/all"],
-    { method: "GET", url: "/api/ucsbdiningcommonsmenuitems/all" },
-    [],
+  const { rows: items, serverSide } = usePagedBackend(
+    "/api/ucsbdiningcommonsmenuitems/page",
   );
 
   return (
@@ -42,6 +35,7 @@ export default function UCSBDiningCommonsMenuItemsIndexPage() {
         <UCSBDiningCommonsMenuItemsTable
           items={items}
           currentUser={currentUser}
+          serverSide={serverSide}
         />
       </div>
     </BasicLayout>
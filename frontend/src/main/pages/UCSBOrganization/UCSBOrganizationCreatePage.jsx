@@ -26,7 +26,7 @@ export default function UCSBOrganizationCreatePage({ storybook = false }) {
     objectToAxiosParams,
     { onSuccess },
     // Stryker disable next-line all : hard to set up test for caching
-    ["/api/ucsborganization/all"], // mutation makes this key stale so that pages relying on it reload
+    ["/api/ucsborganization/page"], // mutation makes this key stale so that pages relying on it reload
   );
 
   const { isSuccess } = mutation;
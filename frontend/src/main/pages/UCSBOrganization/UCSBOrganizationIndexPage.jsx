@@ -1,5 +1,5 @@
 import React from "react";
-import { useBackend } from "main/utils/useBackend";
+import { usePagedBackend } from "main/utils/useBackend";
 
 import BasicLayout from "main/layouts/BasicLayout/BasicLayout";
 import UCSBOrganizationTable from "main/components/UCSBOrganization/UCSBOrganizationTable";
@@ -9,16 +9,8 @@ import { Button } from "react-bootstrap";
 export default function UCSBOrganizationIndexPage() {
   const currentUser = useCurrentUser();
 
-  const {
-    data: organizations,
-    error: _error,
-    status: _status,
-  } = useBackend(
-    // Stryker disable next-line all : don't test internal caching of React Query
-    ["/api/ucsborganization/all"],
-    { method: "GET", url: "/api/ucsborganization/all" },
-    // Stryker disable next-line all : don't test default value of empty list
-    [],
+  const { rows: organizations, serverSide } = usePagedBackend(
+    "/api/ucsborganization/page",
   );
 
   const createButton = () => {
@@ -43,6 +35,7 @@ export default function UCSBOrganizationIndexPage() {
         <UCSBOrganizationTable
           organizations={organizations}
           currentUser={currentUser}
+          serverSide={serverSide}
         />
       </div>
     </BasicLayout>
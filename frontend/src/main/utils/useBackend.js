@@ -1,3 +1,4 @@
+import { useState } from "react";
 import { useQuery, useMutation, useQueryClient } from "@tanstack/react-query";
 import axios from "axios";
 import { toast } from "react-toastify";
@@ -50,6 +51,43 @@ export function useBackend(
   });
 }
 
+// Fetches one page of a table from a /page endpoint, e.g. "/api/articles/page".
+// Returns the rows of the page, and the props that let OurTable ask for
+// other pages and sort orders (pass them as its serverSide prop).
+export function usePagedBackend(url, pageSize = 20) {
+  const [pagination, setPagination] = useState({ pageIndex: 0, pageSize });
+  const [sorting, setSorting] = useState([]);
+
+  const params = {
+    page: pagination.pageIndex,
+    size: pagination.pageSize,
+    sort: sorting.map((s) => `${s.id},${s.desc ? "desc" : "asc"}`),
+  };
+  const { data } = useBackend(
+    // Stryker disable next-line all : don't test internal caching of React Query
+    [url, params],
+    // indexes: null sends the sort order as sort=a&sort=b, as Spring expects
+    { method: "GET", url, params, paramsSerializer: { indexes: null } },
+    // Stryker disable next-line all : don't test default value of empty page
+    { content: [], page: { totalPages: 0 } },
+  );
+
+  return {
+    rows: data.content,
+    serverSide: {
+      pageCount: data.page.totalPages,
+      pagination,
+      onPaginationChange: setPagination,
+      sorting,
+      onSortingChange: (updater) => {
+        setSorting(updater);
+        // a new sort order starts again at the first page
+        setPagination((p) => ({ ...p, pageIndex: 0 }));
+      },
+    },
+  };
+}
+
 const wrappedParams = async (params) => {
   return await (
     await axios(params)
@@ -141,4 +141,79 @@ describe("OurTable tests", () => {
     expect(screen.getByText("Alice")).toBeInTheDocument();
     expect(screen.getByText("30")).toBeInTheDocument();
   });
+
+  test("with serverSide, shows the page and asks the server for other pages", () => {
+    const onPaginationChange = vi.fn();
+    const onSortingChange = vi.fn();
+    render(
+      <OurTable
+        columns={columns}
+        data={threeRows}
+        serverSide={{
+          pageCount: 3,
+          pagination: { pageIndex: 1, pageSize: 3 },
+          onPaginationChange,
+          sorting: [],
+          onSortingChange,
+        }}
+      />,
+    );
+
+    expect(screen.getByTestId("testid-page-number")).toHaveTextContent(
+      "Page 2 of 3",
+    );
+    expect(screen.getByTestId("testid-previous-page")).toBeEnabled();
+    expect(screen.getByTestId("testid-next-page")).toBeEnabled();
+
+    fireEvent.click(screen.getByTestId("testid-next-page"));
+    const next = onPaginationChange.mock.calls[0][0];
+    expect(next({ pageIndex: 1, pageSize: 3 })).toEqual({
+      pageIndex: 2,
+      pageSize: 3,
+    });
+
+    fireEvent.click(screen.getByTestId("testid-previous-page"));
+    const previous = onPaginationChange.mock.calls[1][0];
+    expect(previous({ pageIndex: 1, pageSize: 3 })).toEqual({
+      pageIndex: 0,
+      pageSize: 3,
+    });
+  });
+
+  test("with serverSide, asks the server to sort instead of sorting the page", () => {
+    const onSortingChange = vi.fn();
+    render(
+      <OurTable
+        columns={columns}
+        data={threeRows}
+        serverSide={{
+          pageCount: 0,
+          pagination: { pageIndex: 0, pageSize: 20 },
+          onPaginationChange: vi.fn(),
+          sorting: [{ id: "col1", desc: true }],
+          onSortingChange,
+        }}
+      />,
+    );
+
+    expect(screen.getByTestId("testid-page-number")).toHaveTextContent(
+      "Page 1 of 1",
+    );
+    expect(screen.getByTestId("testid-previous-page")).toBeDisabled();
+    expect(screen.getByTestId("testid-next-page")).toBeDisabled();
+    expect(screen.getByTestId("testid-cell-row-0-col-col1")).toHaveTextContent(
+      "Hello",
+    );
+    expect(
+      screen.getByTestId("testid-header-col1-sort-carets"),
+    ).toHaveTextContent("🔽");
+
+    fireEvent.click(screen.getByTestId("testid-header-col2-sort-header"));
+    expect(onSortingChange).toHaveBeenCalled();
+  });
+
+  test("without serverSide, there are no page buttons", () => {
+    render(<OurTable columns={columns} data={threeRows} />);
+    expect(screen.queryByTestId("testid-next-page")).not.toBeInTheDocument();
+  });
 });
@@ -9,6 +9,7 @@ import { apiCurrentUserFixtures } from "fixtures/currentUserFixtures";
 import { systemInfoFixtures } from "fixtures/systemInfoFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("ArticlesIndexPage tests", () => {
 
   test("Renders with Create Button for admin user", async () => {
     setupAdminUser();
-    axiosMock.onGet("/api/articles/all").reply(200, []);
+    axiosMock.onGet("/api/articles/page").reply(200, pageOf([]));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -71,8 +72,8 @@ describe("ArticlesIndexPage tests", () => {
   test("renders three articles correctly for regular user", async () => {
     setupUserOnly();
     axiosMock
-      .onGet("/api/articles/all")
-      .reply(200, articleFixtures.threeArticles);
+      .onGet("/api/articles/page")
+      .reply(200, pageOf(articleFixtures.threeArticles));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -117,7 +118,7 @@ describe("ArticlesIndexPage tests", () => {
   test("renders empty table when backend unavailable, user only", async () => {
     setupUserOnly();
 
-    axiosMock.onGet("/api/articles/all").timeout();
+    axiosMock.onGet("/api/articles/page").timeout();
 
     const restoreConsole = mockConsole();
 
@@ -135,7 +136,7 @@ describe("ArticlesIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/articles/all",
+      "Error communicating with backend via GET on /api/articles/page",
     );
     restoreConsole();
   });
@@ -144,8 +145,8 @@ describe("ArticlesIndexPage tests", () => {
     setupAdminUser();
 
     axiosMock
-      .onGet("/api/articles/all")
-      .reply(200, articleFixtures.threeArticles);
+      .onGet("/api/articles/page")
+      .reply(200, pageOf(articleFixtures.threeArticles));
     axiosMock
       .onDelete("/api/articles")
       .reply(200, "Article with id 8 was deleted");
@@ -9,6 +9,7 @@ import { apiCurrentUserFixtures } from "fixtures/currentUserFixtures";
 import { systemInfoFixtures } from "fixtures/systemInfoFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("HelpRequestIndexPage tests", () => {
 
   test("Renders with Create Button for admin user", async () => {
     setupAdminUser();
-    axiosMock.onGet("/api/helprequest/all").reply(200, []);
+    axiosMock.onGet("/api/helprequest/page").reply(200, pageOf([]));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -71,8 +72,8 @@ describe("HelpRequestIndexPage tests", () => {
   test("renders three requests correctly for regular user", async () => {
     setupUserOnly();
     axiosMock
-      .onGet("/api/helprequest/all")
-      .reply(200, helpRequestFixtures.threeRequests);
+      .onGet("/api/helprequest/page")
+      .reply(200, pageOf(helpRequestFixtures.threeRequests));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -115,7 +116,7 @@ describe("HelpRequestIndexPage tests", () => {
   test("renders empty table when backend unavailable, user only", async () => {
     setupUserOnly();
 
-    axiosMock.onGet("/api/helprequest/all").timeout();
+    axiosMock.onGet("/api/helprequest/page").timeout();
 
     const restoreConsole = mockConsole();
 
@@ -133,7 +134,7 @@ describe("HelpRequestIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/helprequest/all",
+      "Error communicating with backend via GET on /api/helprequest/page",
     );
     restoreConsole();
   });
@@ -142,8 +143,8 @@ describe("HelpRequestIndexPage tests", () => {
     setupAdminUser();
 
     axiosMock
-      .onGet("/api/helprequest/all")
-      .reply(200, helpRequestFixtures.threeRequests);
+      .onGet("/api/helprequest/page")
+      .reply(200, pageOf(helpRequestFixtures.threeRequests));
     axiosMock
       .onDelete("/api/helprequest")
       .reply(200, "Help Request with id 1 was deleted");
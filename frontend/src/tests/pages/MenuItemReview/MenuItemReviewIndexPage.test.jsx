@@ -9,6 +9,7 @@ import { menuItemReviewFixtures } from "fixtures/menuItemReviewFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
 import mockConsole from "tests/testutils/mockConsole";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("MenuItemReviewIndexPage tests", () => {
     // arrange
     setupAdminUser();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/menuitemreview/all").reply(200, []);
+    axiosMock.onGet("/api/menuitemreview/page").reply(200, pageOf([]));
 
     // act
     render(
@@ -75,8 +76,8 @@ describe("MenuItemReviewIndexPage tests", () => {
     setupUserOnly();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/menuitemreview/all")
-      .reply(200, menuItemReviewFixtures.threeMenuItemReviews);
+      .onGet("/api/menuitemreview/page")
+      .reply(200, pageOf(menuItemReviewFixtures.threeMenuItemReviews));
 
     // act
     render(
@@ -108,7 +109,7 @@ describe("MenuItemReviewIndexPage tests", () => {
     // arrange
     setupUserOnly();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/menuitemreview/all").timeout();
+    axiosMock.onGet("/api/menuitemreview/page").timeout();
     const restoreConsole = mockConsole();
 
     // act
@@ -127,7 +128,7 @@ describe("MenuItemReviewIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/menuitemreview/all",
+      "Error communicating with backend via GET on /api/menuitemreview/page",
     );
     restoreConsole();
 
@@ -141,8 +142,8 @@ describe("MenuItemReviewIndexPage tests", () => {
     setupAdminUser();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/menuitemreview/all")
-      .reply(200, menuItemReviewFixtures.threeMenuItemReviews);
+      .onGet("/api/menuitemreview/page")
+      .reply(200, pageOf(menuItemReviewFixtures.threeMenuItemReviews));
     axiosMock
       .onDelete("/api/menuitemreview")
       .reply(200, "MenuItemReview with id 1 was deleted");
@@ -11,6 +11,7 @@ import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
 
 import { within } from "@testing-library/react"; //NEW
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -52,7 +53,7 @@ describe("RecommendationRequestIndexPage tests", () => {
 
   test("Renders with Create Button for admin user", async () => {
     setupAdminUser();
-    axiosMock.onGet("/api/recommendationrequests/all").reply(200, []);
+    axiosMock.onGet("/api/recommendationrequests/page").reply(200, pageOf([]));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -75,8 +76,11 @@ describe("RecommendationRequestIndexPage tests", () => {
   test("renders three recommendation requests correctly for regular user", async () => {
     setupUserOnly();
     axiosMock
-      .onGet("/api/recommendationrequests/all")
-      .reply(200, recommendationRequestFixtures.threeRecommendationRequests);
+      .onGet("/api/recommendationrequests/page")
+      .reply(
+        200,
+        pageOf(recommendationRequestFixtures.threeRecommendationRequests),
+      );
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -144,7 +148,7 @@ describe("RecommendationRequestIndexPage tests", () => {
   test("renders empty table when backend unavailable, user only", async () => {
     setupUserOnly();
 
-    axiosMock.onGet("/api/recommendationrequests/all").timeout();
+    axiosMock.onGet("/api/recommendationrequests/page").timeout();
 
     const restoreConsole = mockConsole();
 
@@ -162,7 +166,7 @@ describe("RecommendationRequestIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/recommendationrequests/all",
+      "Error communicating with backend via GET on /api/recommendationrequests/page",
     );
     restoreConsole();
   });
@@ -171,8 +175,11 @@ describe("RecommendationRequestIndexPage tests", () => {
     setupAdminUser();
 
     axiosMock
-      .onGet("/api/recommendationrequests/all")
-      .reply(200, recommendationRequestFixtures.threeRecommendationRequests);
+      .onGet("/api/recommendationrequests/page")
+      .reply(
+        200,
+        pageOf(recommendationRequestFixtures.threeRecommendationRequests),
+      );
     axiosMock
       .onDelete("/api/recommendationrequests")
       .reply(200, "RecommendationRequest with id 1 was deleted");
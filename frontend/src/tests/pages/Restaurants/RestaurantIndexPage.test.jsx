@@ -9,6 +9,7 @@ import { apiCurrentUserFixtures } from "fixtures/currentUserFixtures";
 import { systemInfoFixtures } from "fixtures/systemInfoFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("RestaurantIndexPage tests", () => {
 
   test("Renders with Create Button for admin user", async () => {
     setupAdminUser();
-    axiosMock.onGet("/api/restaurants/all").reply(200, []);
+    axiosMock.onGet("/api/restaurants/page").reply(200, pageOf([]));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -71,8 +72,8 @@ describe("RestaurantIndexPage tests", () => {
   test("renders three restaurants correctly for regular user", async () => {
     setupUserOnly();
     axiosMock
-      .onGet("/api/restaurants/all")
-      .reply(200, restaurantFixtures.threeRestaurants);
+      .onGet("/api/restaurants/page")
+      .reply(200, pageOf(restaurantFixtures.threeRestaurants));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -117,7 +118,7 @@ describe("RestaurantIndexPage tests", () => {
   test("renders empty table when backend unavailable, user only", async () => {
     setupUserOnly();
 
-    axiosMock.onGet("/api/restaurants/all").timeout();
+    axiosMock.onGet("/api/restaurants/page").timeout();
 
     const restoreConsole = mockConsole();
 
@@ -135,7 +136,7 @@ describe("RestaurantIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/restaurants/all",
+      "Error communicating with backend via GET on /api/restaurants/page",
     );
     restoreConsole();
   });
@@ -144,8 +145,8 @@ describe("RestaurantIndexPage tests", () => {
     setupAdminUser();
 
     axiosMock
-      .onGet("/api/restaurants/all")
-      .reply(200, restaurantFixtures.threeRestaurants);
+      .onGet("/api/restaurants/page")
+      .reply(200, pageOf(restaurantFixtures.threeRestaurants));
     axiosMock
       .onDelete("/api/restaurants")
       .reply(200, "Restaurant with id 1 was deleted");
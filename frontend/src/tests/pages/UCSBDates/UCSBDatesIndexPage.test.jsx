@@ -9,6 +9,7 @@ import { ucsbDatesFixtures } from "fixtures/ucsbDatesFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
 import mockConsole from "tests/testutils/mockConsole";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("UCSBDatesIndexPage tests", () => {
     // arrange
     setupAdminUser();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/ucsbdates/all").reply(200, []);
+    axiosMock.onGet("/api/ucsbdates/page").reply(200, pageOf([]));
 
     // act
     render(
@@ -75,8 +76,8 @@ describe("UCSBDatesIndexPage tests", () => {
     setupUserOnly();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/ucsbdates/all")
-      .reply(200, ucsbDatesFixtures.threeDates);
+      .onGet("/api/ucsbdates/page")
+      .reply(200, pageOf(ucsbDatesFixtures.threeDates));
 
     // act
     render(
@@ -108,7 +109,7 @@ describe("UCSBDatesIndexPage tests", () => {
     // arrange
     setupUserOnly();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/ucsbdates/all").timeout();
+    axiosMock.onGet("/api/ucsbdates/page").timeout();
     const restoreConsole = mockConsole();
 
     // act
@@ -127,7 +128,7 @@ describe("UCSBDatesIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/ucsbdates/all",
+      "Error communicating with backend via GET on /api/ucsbdates/page",
     );
     restoreConsole();
 
@@ -141,8 +142,8 @@ describe("UCSBDatesIndexPage tests", () => {
     setupAdminUser();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/ucsbdates/all")
-      .reply(200, ucsbDatesFixtures.threeDates);
+      .onGet("/api/ucsbdates/page")
+      .reply(200, pageOf(ucsbDatesFixtures.threeDates));
     axiosMock
       .onDelete("/api/ucsbdates")
       .reply(200, "UCSBDate with id 1 was deleted");
@@ -9,6 +9,7 @@ import { UCSBDiningCommonsMenuItemsFixtures } from "fixtures/UCSBDiningCommonsMe
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
 import mockConsole from "tests/testutils/mockConsole";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,9 @@ describe("UCSBDiningCommonsMenuItemsIndexPage tests", () => {
     // arrange
     setupAdminUser();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/ucsbdiningcommonsmenuitems/all").reply(200, []);
+    axiosMock
+      .onGet("/api/ucsbdiningcommonsmenuitems/page")
+      .reply(200, pageOf([]));
 
     // act
     render(
@@ -80,8 +83,8 @@ describe("UCSBDiningCommonsMenuItemsIndexPage tests", () => {
     setupUserOnly();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/ucsbdiningcommonsmenuitems/all")
-      .reply(200, UCSBDiningCommonsMenuItemsFixtures.threeItems);
+      .onGet("/api/ucsbdiningcommonsmenuitems/page")
+      .reply(200, pageOf(UCSBDiningCommonsMenuItemsFixtures.threeItems));
 
     // act
     render(
@@ -115,7 +118,7 @@ describe("UCSBDiningCommonsMenuItemsIndexPage tests", () => {
     // arrange
     setupUserOnly();
     const queryClient = new QueryClient();
-    axiosMock.onGet("/api/ucsbdiningcommonsmenuitems/all").timeout();
+    axiosMock.onGet("/api/ucsbdiningcommonsmenuitems/page").timeout();
     const restoreConsole = mockConsole();
 
     // act
@@ -134,7 +137,7 @@ describe("UCSBDiningCommonsMenuItemsIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/ucsbdiningcommonsmenuitems/all",
+      "Error communicating with backend via GET on /api/ucsbdiningcommonsmenuitems/page",
     );
     restoreConsole();
 
@@ -148,8 +151,8 @@ describe("UCSBDiningCommonsMenuItemsIndexPage tests", () => {
     setupAdminUser();
     const queryClient = new QueryClient();
     axiosMock
-      .onGet("/api/ucsbdiningcommonsmenuitems/all")
-      .reply(200, UCSBDiningCommonsMenuItemsFixtures.threeItems);
+      .onGet("/api/ucsbdiningcommonsmenuitems/page")
+      .reply(200, pageOf(UCSBDiningCommonsMenuItemsFixtures.threeItems));
     axiosMock
       .onDelete("/api/ucsbdiningcommonsmenuitems")
       .reply(200, "UCSBDiningCommonsMenuItems with id 1 was deleted");
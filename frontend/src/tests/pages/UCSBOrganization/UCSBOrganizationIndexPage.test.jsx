@@ -9,6 +9,7 @@ import { apiCurrentUserFixtures } from "fixtures/currentUserFixtures";
 import { systemInfoFixtures } from "fixtures/systemInfoFixtures";
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
+import { pageOf } from "tests/testutils/pageOf";
 
 const mockToast = vi.fn();
 vi.mock("react-toastify", async (importOriginal) => {
@@ -50,7 +51,7 @@ describe("UCSBOrganizationIndexPage tests", () => {
 
   test("Renders with Create Button for admin user", async () => {
     setupAdminUser();
-    axiosMock.onGet("/api/ucsborganization/all").reply(200, []);
+    axiosMock.onGet("/api/ucsborganization/page").reply(200, pageOf([]));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -71,8 +72,8 @@ describe("UCSBOrganizationIndexPage tests", () => {
   test("renders three organization correctly for regular user", async () => {
     setupUserOnly();
     axiosMock
-      .onGet("/api/ucsborganization/all")
-      .reply(200, ucsbOrganizationFixtures.threeOrganization);
+      .onGet("/api/ucsborganization/page")
+      .reply(200, pageOf(ucsbOrganizationFixtures.threeOrganization));
 
     render(
       <QueryClientProvider client={queryClient}>
@@ -119,7 +120,7 @@ describe("UCSBOrganizationIndexPage tests", () => {
   test("renders empty table when backend unavailable, user only", async () => {
     setupUserOnly();
 
-    axiosMock.onGet("/api/ucsborganization/all").timeout();
+    axiosMock.onGet("/api/ucsborganization/page").timeout();
 
     const restoreConsole = mockConsole();
 
@@ -137,7 +138,7 @@ describe("UCSBOrganizationIndexPage tests", () => {
 
     const errorMessage = console.error.mock.calls[0][0];
     expect(errorMessage).toMatch(
-      "Error communicating with backend via GET on /api/ucsborganization/all",
+      "Error communicating with backend via GET on /api/ucsborganization/page",
     );
     restoreConsole();
   });
@@ -146,8 +147,8 @@ describe("UCSBOrganizationIndexPage tests", () => {
     setupAdminUser();
 
     axiosMock
-      .onGet("/api/ucsborganization/all")
-      .reply(200, ucsbOrganizationFixtures.threeOrganization);
+      .onGet("/api/ucsborganization/page")
+      .reply(200, pageOf(ucsbOrganizationFixtures.threeOrganization));
     axiosMock
       .onDelete("/api/ucsborganization")
       .reply(200, "Organization with orgCode WPC was deleted");
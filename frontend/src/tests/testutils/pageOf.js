@@ -0,0 +1,12 @@
+// The body of a response from a /page endpoint that holds all of the rows
+export function pageOf(rows) {
+  return {
+    content: rows,
+    page: {
+      size: 20,
+      number: 0,
+      totalElements: rows.length,
+      totalPages: 1,
+    },
+  };
+}
@@ -3,7 +3,11 @@ import { renderHook, waitFor, act } from "@testing-library/react";
 
 import axios from "axios";
 import AxiosMockAdapter from "axios-mock-adapter";
-import { useBackend, useBackendMutation } from "main/utils/useBackend";
+import {
+  useBackend,
+  useBackendMutation,
+  usePagedBackend,
+} from "main/utils/useBackend";
 
 import mockConsole from "tests/testutils/mockConsole";
 
@@ -114,6 +118,62 @@ describe("utils/useBackend tests", () => {
       expect(mockToast).not.toHaveBeenCalled();
     });
   });
+  describe("utils/useBackend usePagedBackend tests", () => {
+    test("usePagedBackend fetches the page and sort order of the table", async () => {
+      const queryClient = new QueryClient({
+        defaultOptions: { queries: { retry: false } },
+      });
+      const wrapper = ({ children }) => (
+        <QueryClientProvider client={queryClient}>
+          {children}
+        </QueryClientProvider>
+      );
+
+      var axiosMock = new AxiosMockAdapter(axios);
+      axiosMock.onGet("/api/articles/page").reply(200, {
+        content: [{ id: 1 }],
+        page: { size: 20, number: 0, totalElements: 41, totalPages: 3 },
+      });
+
+      const { result } = renderHook(
+        () => usePagedBackend("/api/articles/page"),
+        { wrapper },
+      );
+
+      expect(result.current.rows).toEqual([]);
+      await waitFor(() => expect(result.current.rows).toEqual([{ id: 1 }]));
+      expect(result.current.serverSide.pageCount).toBe(3);
+      expect(axiosMock.history.get[0].params).toEqual({
+        page: 0,
+        size: 20,
+        sort: [],
+      });
+
+      act(() => {
+        result.current.serverSide.onPaginationChange({
+          pageIndex: 2,
+          pageSize: 20,
+        });
+      });
+      await waitFor(() => expect(axiosMock.history.get.length).toBe(2));
+      expect(axiosMock.history.get[1].params.page).toBe(2);
+
+      act(() => {
+        result.current.serverSide.onSortingChange([
+          { id: "title", desc: true },
+        ]);
+      });
+      await waitFor(() => expect(axiosMock.history.get.length).toBe(3));
+      expect(axiosMock.history.get[2].params).toEqual({
+        page: 0,
+        size: 20,
+        sort: ["title,desc"],
+      });
+      expect(result.current.serverSide.sorting).toEqual([
+        { id: "title", desc: true },
+      ]);
+    });
+  });
   describe("utils/useBackend useBackendMutation tests", () => {
     test("useBackendMutation handles success correctly", async () => {
       // See: https://react-query.tanstack.com/guides/testing#turn-off-retries
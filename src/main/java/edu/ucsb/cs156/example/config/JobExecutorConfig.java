@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configures the executor that runs jobs launched through JobService.
+ *
+ * <p>The JobScheduler starts at most app.jobs.executor.max-concurrent jobs at once on this executor
+ * and keeps at most app.jobs.executor.queue-capacity more waiting; jobs submitted beyond that are
+ * rejected (JobService marks them "rejected") instead of piling up. With
+ * app.jobs.executor.virtual-threads=true each job runs on a virtual thread, which suits jobs that
+ * spend most of their time waiting on I/O; the concurrency and queue limits still apply.
+ */
+@Configuration
+public class JobExecutorConfig {
+
+  public static final String JOB_EXECUTOR = "jobExecutor";
+
+  @Bean(name = JOB_EXECUTOR)
+  public ThreadPoolTaskExecutor jobExecutor(
+      @Value("${app.jobs.executor.max-concurrent:4}") int maxConcurrent,
+      @Value("${app.jobs.executor.queue-capacity:100}") int queueCapacity,
+      @Value("${app.jobs.executor.virtual-threads:false}") boolean virtualThreads) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(maxConcurrent);
+    executor.setMaxPoolSize(maxConcurrent);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setVirtualThreads(virtualThreads);
+    executor.setThreadNamePrefix("job-");
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    return executor;
+  }
+}
@@ -3,34 +3,51 @@ package edu.ucsb.cs156.example.config;
 import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
 import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminRoleResolver;
+import edu.ucsb.cs156.example.services.AuthAuditLogger;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfToken;
@@ -48,13 +65,22 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
-@Slf4j
 public class SecurityConfig {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<>();
+  @Autowired UserProvisioningService userProvisioningService;
 
-  @Autowired UserRepository userRepository;
+  @Autowired AdminRoleResolver adminRoleResolver;
+
+  @Autowired SessionTokenService sessionTokenService;
+
+  @Autowired AuthAuditLogger authAuditLogger;
+
+  /**
+   * "servlet" keeps the login in the HttpSession; "token" keeps it in a signed cookie (see
+   * SessionTokenService), so that several servers can share the load without sticky sessions.
+   */
+  @Value("${app.session.mode:servlet}")
+  private String sessionMode;
 
   /**
    * The `filterChain` method in this Java code configures various security settings for an HTTP
@@ -70,22 +96,68 @@ public class SecurityConfig {
             handling -> handling.authenticationEntryPoint(new Http403ForbiddenEntryPoint()))
         .oauth2Login(
             oauth2 ->
-                oauth2.userInfoEndpoint(
-                    userInfo -> userInfo.userAuthoritiesMapper(this.userAuthoritiesMapper())))
+                oauth2
+                    .userInfoEndpoint(
+                        userInfo -> userInfo.userAuthoritiesMapper(this.userAuthoritiesMapper()))
+                    .successHandler(this.loginSuccessHandler())
+                    .failureHandler(this.loginFailureHandler()))
         .csrf(
             csrf ->
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                     .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        // the actuator endpoints expose the internals of the server, e.g. its metrics
+        .authorizeHttpRequests(
+            auth ->
+                auth.requestMatchers(antMatcher("/actuator/**"))
+                    .hasRole("ADMIN")
+                    .anyRequest()
+                    .permitAll())
         .logout(
             logout ->
                 logout
                     .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
+                    .addLogoutHandler(
+                        (request, response, authentication) -> {
+                          if (authentication != null) {
+                            authAuditLogger.record(
+                                AuthAuditLogger.Event.LOGOUT, "email", email(authentication));
+                          }
+                        })
                     .logoutSuccessUrl("/"));
+    if (tokenSessions()) {
+      configureTokenSessions(http);
+    }
     return http.build();
   }
 
+  private boolean tokenSessions() {
+    return "token".equals(sessionMode);
+  }
+
+  /**
+   * The `configureTokenSessions` method replaces every use of the HttpSession: the login is kept in
+   * the session token cookie, which SessionTokenFilter reads on each request, and the OAuth2
+   * authorization request is kept in a cookie while the user logs in.
+   */
+  private void configureTokenSessions(HttpSecurity http) throws Exception {
+    if (!sessionTokenService.isConfigured()) {
+      throw new IllegalStateException("app.session.mode=token requires app.session.token.secret");
+    }
+    http.sessionManagement(
+            session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .oauth2Login(
+            oauth2 ->
+                oauth2.authorizationEndpoint(
+                    authorization ->
+                        authorization.authorizationRequestRepository(
+                            new CookieAuthorizationRequestRepository(sessionTokenService))))
+        .addFilterBefore(
+            new SessionTokenFilter(sessionTokenService, authAuditLogger),
+            BasicAuthenticationFilter.class)
+        .logout(logout -> logout.deleteCookies(SessionTokenService.TOKEN_COOKIE));
+  }
+
   /**
    * The `webSecurityCustomizer` method is used to configure web security in Java, specifically
    * ignoring requests to the "/h2-console/**" path.
@@ -95,23 +167,68 @@ public class SecurityConfig {
     return web -> web.ignoring().requestMatchers(antMatcher("/h2-console/**"));
   }
 
+  /**
+   * The `loginSuccessHandler` method stores the user in the database once per OAuth2 login, before
+   * redirecting them as Spring would by default, so that later requests only read the user. With
+   * token sessions, it also sets the session token cookie.
+   */
+  private AuthenticationSuccessHandler loginSuccessHandler() {
+    AuthenticationSuccessHandler redirect = new SavedRequestAwareAuthenticationSuccessHandler();
+    return (request, response, authentication) -> {
+      OAuth2AuthenticationToken token = (OAuth2AuthenticationToken) authentication;
+      User user = userProvisioningService.provision(token.getPrincipal());
+      authAuditLogger.record(
+          AuthAuditLogger.Event.LOGIN_SUCCEEDED,
+          "email",
+          user.getEmail(),
+          "roles",
+          AuthorityUtils.authorityListToSet(authentication.getAuthorities()).stream()
+              .filter(authority -> authority.startsWith("ROLE_"))
+              .sorted()
+              .toList());
+      if (tokenSessions()) {
+        SessionCookies.set(
+            request,
+            response,
+            SessionTokenService.TOKEN_COOKIE,
+            sessionTokenService.issue(user, token),
+            sessionTokenService.getTokenTtl());
+      }
+      redirect.onAuthenticationSuccess(request, response, authentication);
+    };
+  }
+
+  /**
+   * The `loginFailureHandler` method records failed OAuth2 logins before redirecting to the login
+   * page, as Spring would by default.
+   */
+  private AuthenticationFailureHandler loginFailureHandler() {
+    AuthenticationFailureHandler redirect =
+        new SimpleUrlAuthenticationFailureHandler("/login?error");
+    return (request, response, exception) -> {
+      authAuditLogger.record(AuthAuditLogger.Event.LOGIN_FAILED, "reason", exception.getMessage());
+      redirect.onAuthenticationFailure(request, response, exception);
+    };
+  }
+
+  private static String email(Authentication authentication) {
+    return authentication instanceof OAuth2AuthenticationToken token
+        ? token.getPrincipal().getAttribute("email")
+        : authentication.getName();
+  }
+
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
       Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
-
       authorities.forEach(
           authority -> {
-            log.info("********** authority={}", authority);
             mappedAuthorities.add(authority);
             if (authority instanceof OAuth2UserAuthority oauth2UserAuthority) {
               Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-              log.info("********** userAttributes={}", userAttributes);
-
               mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_USER"));
 
               String email = (String) userAttributes.get("email");
-              if (getAdmin(email)) {
+              if (adminRoleResolver.isAdmin(email)) {
                 mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
               }
 
@@ -120,25 +237,9 @@ public class SecurityConfig {
               }
             }
           });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
       return mappedAuthorities;
     };
   }
-
-  /**
-   * This method checks if the given email belongs to an admin user either from a predefined list or
-   * by querying the user repository.
-   *
-   * @param email email address of the user
-   * @return whether the user with the given email is an admin
-   */
-  public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
-  }
 }
 
 final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeHandler {
@@ -193,3 +294,121 @@ final class CsrfCookieFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 }
+
+/** Reads and writes the HttpOnly cookies that hold the session token and authorization request. */
+final class SessionCookies {
+  private SessionCookies() {}
+
+  static Optional<String> get(HttpServletRequest request, String name) {
+    Cookie[] cookies = request.getCookies();
+    return cookies == null
+        ? Optional.empty()
+        : Arrays.stream(cookies)
+            .filter(cookie -> cookie.getName().equals(name))
+            .map(Cookie::getValue)
+            .findFirst();
+  }
+
+  static void set(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      String name,
+      String value,
+      Duration maxAge) {
+    // Lax, so that the cookies are sent when the OAuth2 provider redirects back to us
+    ResponseCookie cookie =
+        ResponseCookie.from(name, value)
+            .path("/")
+            .httpOnly(true)
+            .secure(request.isSecure())
+            .sameSite("Lax")
+            .maxAge(maxAge)
+            .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+
+  static void clear(HttpServletRequest request, HttpServletResponse response, String name) {
+    set(request, response, name, "", Duration.ZERO);
+  }
+}
+
+/** Authenticates each request from its session token, if it has one, without an HttpSession. */
+final class SessionTokenFilter extends OncePerRequestFilter {
+  private final SessionTokenService sessionTokenService;
+  private final AuthAuditLogger authAuditLogger;
+
+  SessionTokenFilter(SessionTokenService sessionTokenService, AuthAuditLogger authAuditLogger) {
+    this.sessionTokenService = sessionTokenService;
+    this.authAuditLogger = authAuditLogger;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Optional<String> token = SessionCookies.get(request, SessionTokenService.TOKEN_COOKIE);
+    if (token.isPresent()) {
+      sessionTokenService
+          .authenticate(token.get())
+          .ifPresentOrElse(
+              authentication ->
+                  SecurityContextHolder.getContext().setAuthentication(authentication),
+              () ->
+                  authAuditLogger.record(
+                      AuthAuditLogger.Event.SESSION_TOKEN_REJECTED,
+                      "remoteAddr",
+                      request.getRemoteAddr()));
+    }
+    filterChain.doFilter(request, response);
+  }
+}
+
+/**
+ * Keeps the OAuth2 authorization request in a signed cookie instead of the HttpSession, so that the
+ * redirect back from the OAuth2 provider may reach any server.
+ */
+final class CookieAuthorizationRequestRepository
+    implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+  private final SessionTokenService sessionTokenService;
+
+  CookieAuthorizationRequestRepository(SessionTokenService sessionTokenService) {
+    this.sessionTokenService = sessionTokenService;
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+    String state = request.getParameter(OAuth2ParameterNames.STATE);
+    if (state == null) {
+      return null;
+    }
+    return SessionCookies.get(request, SessionTokenService.AUTHORIZATION_REQUEST_COOKIE)
+        .flatMap(sessionTokenService::readAuthorizationRequest)
+        .filter(authorizationRequest -> state.equals(authorizationRequest.getState()))
+        .orElse(null);
+  }
+
+  @Override
+  public void saveAuthorizationRequest(
+      OAuth2AuthorizationRequest authorizationRequest,
+      HttpServletRequest request,
+      HttpServletResponse response) {
+    if (authorizationRequest == null) {
+      SessionCookies.clear(request, response, SessionTokenService.AUTHORIZATION_REQUEST_COOKIE);
+      return;
+    }
+    SessionCookies.set(
+        request,
+        response,
+        SessionTokenService.AUTHORIZATION_REQUEST_COOKIE,
+        sessionTokenService.issueAuthorizationRequest(authorizationRequest),
+        SessionTokenService.AUTHORIZATION_REQUEST_TTL);
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(
+      HttpServletRequest request, HttpServletResponse response) {
+    OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+    SessionCookies.clear(request, response, SessionTokenService.AUTHORIZATION_REQUEST_COOKIE);
+    return authorizationRequest;
+  }
+}
@@ -1,20 +1,82 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.entities.Versioned;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.errors.PreconditionFailedException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
+import edu.ucsb.cs156.example.repositories.TableRepository;
+import edu.ucsb.cs156.example.repositories.VersionedTableRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.TableExporter;
+import edu.ucsb.cs156.example.services.TableVersions;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private TableVersions tableVersions;
+
+  @Autowired private TableExporter tableExporter;
+
+  @Autowired private BulkService bulkService;
+
+  /** The tag of the ETag of a version of a row (see rowResponse). */
+  private static final Pattern VERSION_TAG = Pattern.compile("\\d{1,18}");
+
+  /**
+   * The header of a response to a GET of all the rows of a table that holds only the first
+   * app.api.all-max-rows rows (see allRowsResponse).
+   */
+  public static final String TRUNCATED_HEADER = "X-Result-Truncated";
+
+  @Value("${app.api.all-max-rows:1000}")
+  private int allMaxRows;
+
+  @Value("${spring.data.web.pageable.max-page-size:100}")
+  private int maxPageSize;
+
+  /**
+   * The sort key of the last row on a page of a listing by timestamp, newest first.
+   *
+   * @param time the timestamp of the row
+   * @param id the id of the row, which orders rows with the same timestamp
+   */
+  protected record TimeCursor(LocalDateTime time, long id) {}
+
   /**
    * This method returns the current user.
    *
@@ -24,6 +86,288 @@ public abstract class ApiController {
     return currentUserService.getCurrentUser();
   }
 
+  /**
+   * This method answers a GET of a whole table. The response carries a weak ETag for the version of
+   * the table; if the If-None-Match of the request matches it, the response is 304 Not Modified and
+   * the table is not read.
+   *
+   * @param <T> the type of the response body
+   * @param request the request
+   * @param table the entity class of the table
+   * @param body reads the table
+   * @return the response, or null if it is 304 Not Modified
+   */
+  protected <T> ResponseEntity<T> tableResponse(
+      WebRequest request, Class<?> table, Supplier<T> body) {
+    // the ETag is taken before the table is read, so that it is never newer than the body
+    String eTag = tableVersions.getETag(table);
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(eTag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(body.get());
+  }
+
+  /**
+   * This method answers a GET of all the rows of a table, of which at most app.api.all-max-rows are
+   * returned. If the table has more, the response carries the header X-Result-Truncated: true, and
+   * the table must be read one page at a time instead (see pageResponse).
+   *
+   * @param <T> the entity type
+   * @param request the request
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the response, or null if it is 304 Not Modified
+   */
+  protected <T> ResponseEntity<Iterable<T>> allRowsResponse(
+      WebRequest request, Class<T> table, TableRepository<T, ?> repository) {
+    ResponseEntity<Slice<T>> slice =
+        tableResponse(request, table, () -> repository.findSliceBy(PageRequest.ofSize(allMaxRows)));
+    if (slice == null) {
+      return null;
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok().headers(slice.getHeaders());
+    if (slice.getBody().hasNext()) {
+      response.header(TRUNCATED_HEADER, "true");
+    }
+    return response.body(slice.getBody().getContent());
+  }
+
+  /**
+   * This method answers a GET of one page of a table, sorted and filtered as the request asks.
+   *
+   * @param <T> the entity type
+   * @param request the request
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @param pageable the page, its size and the sort order
+   * @param parameters the parameters of the request, which may filter by field values (see
+   *     FieldFilter)
+   * @return the response, or null if it is 304 Not Modified
+   */
+  protected <T> ResponseEntity<PagedModel<T>> pageResponse(
+      WebRequest request,
+      Class<T> table,
+      TableRepository<T, ?> repository,
+      Pageable pageable,
+      Map<String, String> parameters) {
+    FieldFilter.checkSort(table, pageable.getSort());
+    FieldFilter<T> filter = FieldFilter.of(table, parameters);
+    return tableResponse(
+        request, table, () -> new PagedModel<>(repository.findAll(filter, pageable)));
+  }
+
+  /**
+   * This method answers a GET of one page of a table listed by timestamp, newest first. The next
+   * page is found by seeking past the (timestamp, id) of the last row of this page, so that a page
+   * deep into the table costs as much as the first one.
+   *
+   * @param <T> the entity type
+   * @param request the request
+   * @param table the entity class of the table
+   * @param cursor the nextCursor of the previous page, or null for the first page
+   * @param size the number of rows per page, at most spring.data.web.pageable.max-page-size
+   * @param newest reads the newest rows
+   * @param olderThan reads the rows that come after a given sort key
+   * @param sortKey returns the sort key of a row
+   * @return the response, or null if it is 304 Not Modified
+   * @throws InvalidCursorException if the cursor is not one the server handed out
+   */
+  protected <T> ResponseEntity<CursorPage<T>> newestFirstResponse(
+      WebRequest request,
+      Class<T> table,
+      String cursor,
+      int size,
+      Function<Limit, List<T>> newest,
+      BiFunction<TimeCursor, Limit, List<T>> olderThan,
+      Function<T, TimeCursor> sortKey) {
+    int pageSize = Math.clamp(size, 1, maxPageSize);
+    Limit limit = Limit.of(pageSize + 1);
+    TimeCursor last =
+        cursor == null
+            ? null
+            : CursorPage.decodeCursor(
+                cursor,
+                key -> new TimeCursor(LocalDateTime.parse(key.get(0)), Long.parseLong(key.get(1))));
+    return tableResponse(
+        request,
+        table,
+        () ->
+            CursorPage.of(
+                last == null ? newest.apply(limit) : olderThan.apply(last, limit),
+                pageSize,
+                row -> {
+                  TimeCursor key = sortKey.apply(row);
+                  return List.of(key.time(), key.id());
+                }));
+  }
+
+  /**
+   * This method answers a GET of an export of a whole table. The rows are written to the response
+   * while they are read from the database, after the request thread has been released.
+   *
+   * @param <T> the entity type
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @param format the format of the export
+   * @return the response, which is downloaded as a file named after the table
+   */
+  protected <T> ResponseEntity<StreamingResponseBody> exportResponse(
+      Class<T> table, TableRepository<T, ?> repository, TableExporter.Format format) {
+    ContentDisposition attachment =
+        ContentDisposition.attachment()
+            .filename(table.getSimpleName() + "." + format.getExtension())
+            .build();
+    return ResponseEntity.ok()
+        .contentType(format.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION, attachment.toString())
+        .body(out -> tableExporter.write(out, repository, format));
+  }
+
+  /**
+   * This method creates the rows of a bulk request (see BulkService).
+   *
+   * @param <T> the entity type
+   * @param body the rows, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each row, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  protected <T> List<BulkResult> bulkCreate(
+      InputStream body, Class<T> table, TableRepository<T, ?> repository) throws IOException {
+    return bulkService.create(body, table, repository);
+  }
+
+  /**
+   * This method replaces the rows of a bulk request (see BulkService).
+   *
+   * @param <T> the entity type
+   * @param body the rows, with their ids, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each row, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  protected <T> List<BulkResult> bulkUpdate(
+      InputStream body, Class<T> table, TableRepository<T, ?> repository) throws IOException {
+    return bulkService.update(body, table, repository);
+  }
+
+  /**
+   * This method deletes the rows of a bulk request (see BulkService).
+   *
+   * @param <T> the entity type
+   * @param body the ids of the rows, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  protected <T> List<BulkResult> bulkDelete(
+      InputStream body, Class<T> table, TableRepository<T, ?> repository) throws IOException {
+    return bulkService.delete(body, table, repository);
+  }
+
+  /**
+   * This method answers a GET of one row. The response carries the version of the row as its ETag,
+   * which a client can send back in If-Match to update or delete the row only if no one else has
+   * changed it since.
+   *
+   * @param <T> the entity type
+   * @param row the row
+   * @return the response
+   */
+  protected <T extends Versioned> ResponseEntity<T> rowResponse(T row) {
+    return ResponseEntity.ok().eTag(Long.toString(row.getVersion())).body(row);
+  }
+
+  /**
+   * This method replaces the fields of a row with one statement, without reading it first. If the
+   * request has an If-Match, the row is only updated if it still has one of the versions it lists.
+   * The row is then read again, so that the response carries it as it was stored, with its new
+   * version as its ETag.
+   *
+   * @param <T> the entity type
+   * @param <ID> the type of the id of the entity
+   * @param incoming the new values of the fields, with the id of the row
+   * @param table the entity class of the table
+   * @param id the id of the row
+   * @param ifMatch the If-Match of the request, or null
+   * @param repository the repository of the table
+   * @return the response, whose body is the row as it was stored
+   * @throws EntityNotFoundException if no row has that id and the request has no If-Match
+   * @throws PreconditionFailedException if the request has an If-Match that the row does not match
+   */
+  protected <T extends Versioned, ID> ResponseEntity<T> updateRow(
+      T incoming,
+      Class<T> table,
+      ID id,
+      String ifMatch,
+      VersionedTableRepository<T, ID> repository) {
+    changeRow(table, id, ifMatch, versions -> repository.updateRow(incoming, versions));
+    // the statement does not return the row; it may have been deleted since
+    return rowResponse(
+        repository.findById(id).orElseThrow(() -> new EntityNotFoundException(table, id)));
+  }
+
+  /**
+   * This method deletes a row with one statement, without reading it first. If the request has an
+   * If-Match, the row is only deleted if it still has one of the versions it lists.
+   *
+   * @param <T> the entity type
+   * @param <ID> the type of the id of the entity
+   * @param table the entity class of the table
+   * @param id the id of the row
+   * @param ifMatch the If-Match of the request, or null
+   * @param repository the repository of the table
+   * @throws EntityNotFoundException if no row has that id and the request has no If-Match
+   * @throws PreconditionFailedException if the request has an If-Match that the row does not match
+   */
+  protected <T extends Versioned, ID> void deleteRow(
+      Class<T> table, ID id, String ifMatch, VersionedTableRepository<T, ID> repository) {
+    changeRow(table, id, ifMatch, versions -> repository.deleteRow(id, versions));
+  }
+
+  /**
+   * Returns the versions that an If-Match asks for: null if there is no If-Match or it is *, which
+   * any row matches. Otherwise the If-Match is a list of ETags, which are compared strongly (RFC
+   * 9110, section 13.1.1): only the strong ETags of versions (see rowResponse) can match a row.
+   */
+  private static List<Long> expectedVersions(String ifMatch) {
+    if (ifMatch == null) {
+      return null;
+    }
+    List<ETag> eTags = ETag.parse(ifMatch);
+    if (eTags.stream().anyMatch(ETag::isWildcard)) {
+      return null;
+    }
+    return eTags.stream()
+        .filter(eTag -> !eTag.weak() && VERSION_TAG.matcher(eTag.tag()).matches())
+        .map(eTag -> Long.parseLong(eTag.tag()))
+        .distinct()
+        .toList();
+  }
+
+  /**
+   * Updates or deletes one row with a statement that is given the versions that the If-Match asks
+   * for, and bumps the version of the table, since such statements do not call entity listeners
+   * (see TableVersionListener). A row that does not exist does not match any If-Match either.
+   */
+  private void changeRow(
+      Class<?> table, Object id, String ifMatch, Function<List<Long>, Integer> statement) {
+    List<Long> versions = expectedVersions(ifMatch);
+    // an If-Match without a strong ETag of a version matches no row, so nothing is run
+    if ((versions != null && versions.isEmpty()) || statement.apply(versions) == 0) {
+      throw ifMatch == null
+          ? new EntityNotFoundException(table, id)
+          : new PreconditionFailedException(table, id, ifMatch);
+    }
+    tableVersions.changed(table);
+  }
+
   /**
    * This method returns a generic message.
    *
@@ -47,4 +391,32 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles the InvalidCursorException and the InvalidPageRequestException.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({InvalidCursorException.class, InvalidPageRequestException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  /**
+   * This method handles the PreconditionFailedException.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({PreconditionFailedException.class})
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailedException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
@@ -3,24 +3,40 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for Articles */
 @Tag(name = "Articles")
@@ -34,32 +50,151 @@ public class ArticlesController extends ApiController {
   /**
    * List all Articles
    *
+   * @param request the request
    * @return an iterable of Articles
    */
   @Operation(summary = "List all articles")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Article> allArticles() {
-    Iterable<Article> articles = articleRepository.findAll();
-    return articles;
+  public ResponseEntity<Iterable<Article>> allArticles(WebRequest request) {
+    return allRowsResponse(request, Article.class, articleRepository);
+  }
+
+  /**
+   * List one page of articles, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of articles, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<Article>> pageOfArticles(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, Article.class, articleRepository, pageable, filters);
+  }
+
+  /**
+   * List articles, newest dateAdded first, one page at a time
+   *
+   * @param request the request
+   * @param cursor the nextCursor of the previous page, or null for the first page
+   * @param size the number of articles per page
+   * @return the page
+   */
+  @Operation(
+      summary =
+          "List articles, newest first, one page at a time; pass nextCursor back as cursor for the next page")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/cursor")
+  public ResponseEntity<CursorPage<Article>> cursorOfArticles(
+      WebRequest request,
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "number of articles per page")
+          @RequestParam(defaultValue = "20")
+          int size) {
+    return newestFirstResponse(
+        request,
+        Article.class,
+        cursor,
+        size,
+        articleRepository::findNewest,
+        (last, limit) -> articleRepository.findOlderThan(last.time(), last.id(), limit),
+        article -> new TimeCursor(article.getDateAdded(), article.getId()));
+  }
+
+  /**
+   * Export all articles, written to the response one at a time while they are read from the
+   * database
+   *
+   * @param format NDJSON for one article per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all articles, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportArticles(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(Article.class, articleRepository, format);
+  }
+
+  /**
+   * Create many articles in one request
+   *
+   * @param body the articles, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the articles, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Create many articles from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateArticles(InputStream body) throws IOException {
+    return bulkCreate(body, Article.class, articleRepository);
+  }
+
+  /**
+   * Update many articles in one request
+   *
+   * @param body the articles, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the articles, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Update many articles, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateArticles(InputStream body) throws IOException {
+    return bulkUpdate(body, Article.class, articleRepository);
+  }
+
+  /**
+   * Delete many articles in one request
+   *
+   * @param body the ids of the articles, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Delete many articles, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteArticles(InputStream body) throws IOException {
+    return bulkDelete(body, Article.class, articleRepository);
   }
 
   /**
    * Get a single article by id
    *
    * @param id the id of the article
-   * @return a Article
+   * @return the article, with its version as its ETag
    */
   @Operation(summary = "Get a single article")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Article getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Article> getById(@Parameter(name = "id") @RequestParam Long id) {
     Article article =
         articleRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
-    return article;
+    return rowResponse(article);
   }
 
   /**
@@ -102,18 +237,17 @@ public class ArticlesController extends ApiController {
    * Delete a article
    *
    * @param id the id of the article to delete
+   * @param ifMatch the ETag of the version of the article to delete, or null to delete it whatever
+   *     its version
    * @return a message indicating the article was deleted
    */
   @Operation(summary = "Delete a article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteArticle(@Parameter(name = "id") @RequestParam Long id) {
-    Article article =
-        articleRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
-
-    articleRepository.delete(article);
+  public Object deleteArticle(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(Article.class, id, ifMatch, articleRepository);
     return genericMessage("Article with id %s deleted".formatted(id));
   }
 
@@ -121,28 +255,19 @@ public class ArticlesController extends ApiController {
    * Update a single article
    *
    * @param id id of the article to update
+   * @param ifMatch the ETag of the version of the article that was edited, or null to update it
+   *     whatever its version
    * @param incoming the new article
-   * @return the updated article object
+   * @return the updated article as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single article")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public Article updateArticle(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid Article incoming) {
-
-    Article article =
-        articleRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
-
-    article.setTitle(incoming.getTitle());
-    article.setUrl(incoming.getUrl());
-    article.setExplanation(incoming.getExplanation());
-    article.setEmail(incoming.getEmail());
-    article.setDateAdded(incoming.getDateAdded());
-
-    articleRepository.save(article);
-
-    return article;
+  public ResponseEntity<Article> updateArticle(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid Article incoming) {
+    incoming.setId(id);
+    return updateRow(incoming, Article.class, id, ifMatch, articleRepository);
   }
 }
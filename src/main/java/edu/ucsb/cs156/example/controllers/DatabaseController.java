@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.DatabasePoolStatus;
+import edu.ucsb.cs156.example.services.DatabasePoolMonitor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/** This is a REST controller for reporting on the database, for admins. */
+@Tag(name = "Database")
+@RequestMapping("/api/admin/database")
+@RestController
+public class DatabaseController extends ApiController {
+
+  @Autowired private DatabasePoolMonitor databasePoolMonitor;
+
+  /**
+   * This method reports on the pool of database connections. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @return how busy the pool is, and whether requests are waiting for connections
+   */
+  @Operation(summary = "Get how busy the pool of database connections is")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/pool")
+  public DatabasePoolStatus getPoolStatus() {
+    return databasePoolMonitor.getStatus();
+  }
+}
@@ -1,160 +1,286 @@
-package edu.ucsb.cs156.example.controllers;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import edu.ucsb.cs156.example.entities.HelpRequest;
-import edu.ucsb.cs156.example.errors.EntityNotFoundException;
-import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
-import io.swagger.v3.oas.annotations.Operation;
-import io.swagger.v3.oas.annotations.Parameter;
-import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.validation.Valid;
-import java.time.LocalDateTime;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.web.bind.annotation.DeleteMapping;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
-
-/** This is a REST controller for HelpRequest */
-@Tag(name = "HelpRequest")
-@RequestMapping("/api/helprequest")
-@RestController
-@Slf4j
-public class HelpRequestController extends ApiController {
-
-  @Autowired HelpRequestRepository helpRequestRepository;
-
-  /**
-   * List all help requests
-   *
-   * @return an iterable of HelpRequest
-   */
-  @Operation(summary = "List all help requests")
-  @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("/all")
-  public Iterable<HelpRequest> allHelpRequests() {
-    Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
-    return helpRequests;
-  }
-
-  /**
-   * Get a single date by id
-   *
-   * @param id the id of the request
-   * @return a HelpRequest
-   */
-  @Operation(summary = "Get a single request")
-  @PreAuthorize("hasRole('ROLE_USER')")
-  @GetMapping("")
-  public HelpRequest getById(@Parameter(name = "id") @RequestParam Long id) {
-    HelpRequest helpRequest =
-        helpRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-    return helpRequest;
-  }
-
-  /**
-   * Create a new help request
-   *
-   * @param requesterEmail
-   * @param teamId
-   * @param tableOrBreakoutRoom
-   * @param requestTime
-   * @param explanation
-   * @param solved
-   * @return
-   */
-  @Operation(summary = "Create a new help request")
-  @PreAuthorize("hasRole('ROLE_ADMIN')")
-  @PostMapping("/post")
-  public HelpRequest postHelpRequest(
-      @Parameter(name = "requesterEmail") @RequestParam String requesterEmail,
-      @Parameter(name = "teamId") @RequestParam String teamId,
-      @Parameter(name = "tableOrBreakoutRoom") @RequestParam String tableOrBreakoutRoom,
-      @Parameter(name = "explanation") @RequestParam String explanation,
-      @Parameter(name = "solved") @RequestParam boolean solved,
-      @Parameter(
-              name = "requestTime",
-              description =
-                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)")
-          @RequestParam("requestTime")
-          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-          LocalDateTime requestTime)
-      throws JsonProcessingException {
-
-    // For an explanation of @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-    // See: https://www.baeldung.com/spring-date-parameters
-
-    log.info("requestTime={}", requestTime);
-
-    HelpRequest helpRequest = new HelpRequest();
-    helpRequest.setRequesterEmail(requesterEmail);
-    helpRequest.setTeamId(teamId);
-    helpRequest.setTableOrBreakoutRoom(tableOrBreakoutRoom);
-    helpRequest.setRequestTime(requestTime);
-    helpRequest.setExplanation(explanation);
-    helpRequest.setSolved(solved);
-
-    HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
-
-    return savedHelpRequest;
-  }
-
-  /**
-   * Delete a HelpRequest
-   *
-   * @param id the id of the request to delete
-   * @return a message indicating the date was deleted
-   */
-  @Operation(summary = "Delete a HelpRequest")
-  @PreAuthorize("hasRole('ROLE_ADMIN')")
-  @DeleteMapping("")
-  public Object deleteHelpRequest(@Parameter(name = "id") @RequestParam Long id) {
-    HelpRequest helpRequest =
-        helpRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-    helpRequestRepository.delete(helpRequest);
-    return genericMessage("HelpRequest with id %s deleted".formatted(id));
-  }
-
-  /**
-   * Update a single date
-   *
-   * @param id id of the date to update
-   * @param incoming the new date
-   * @return the updated date object
-   */
-  @Operation(summary = "Update a single request")
-  @PreAuthorize("hasRole('ROLE_ADMIN')")
-  @PutMapping("")
-  public HelpRequest updateHelpRequest(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid HelpRequest incoming) {
-
-    HelpRequest helpRequest =
-        helpRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-    helpRequest.setRequesterEmail(incoming.getRequesterEmail());
-    helpRequest.setTeamId(incoming.getTeamId());
-    helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-    helpRequest.setRequestTime(incoming.getRequestTime());
-    helpRequest.setExplanation(incoming.getExplanation());
-    helpRequest.setSolved(incoming.getSolved());
-
-    helpRequestRepository.save(helpRequest);
-
-    return helpRequest;
-  }
-}
+package edu.ucsb.cs156.example.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/** This is a REST controller for HelpRequest */
+@Tag(name = "HelpRequest")
+@RequestMapping("/api/helprequest")
+@RestController
+@Slf4j
+public class HelpRequestController extends ApiController {
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  /**
+   * List all help requests
+   *
+   * @param request the request
+   * @return an iterable of HelpRequest
+   */
+  @Operation(summary = "List all help requests")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/all")
+  public ResponseEntity<Iterable<HelpRequest>> allHelpRequests(WebRequest request) {
+    return allRowsResponse(request, HelpRequest.class, helpRequestRepository);
+  }
+
+  /**
+   * List one page of help requests, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of help requests, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<HelpRequest>> pageOfHelpRequests(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, HelpRequest.class, helpRequestRepository, pageable, filters);
+  }
+
+  /**
+   * List help requests, newest requestTime first, one page at a time
+   *
+   * @param request the request
+   * @param cursor the nextCursor of the previous page, or null for the first page
+   * @param size the number of help requests per page
+   * @return the page
+   */
+  @Operation(
+      summary =
+          "List help requests, newest first, one page at a time; pass nextCursor back as cursor for the next page")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/cursor")
+  public ResponseEntity<CursorPage<HelpRequest>> cursorOfHelpRequests(
+      WebRequest request,
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "number of help requests per page")
+          @RequestParam(defaultValue = "20")
+          int size) {
+    return newestFirstResponse(
+        request,
+        HelpRequest.class,
+        cursor,
+        size,
+        helpRequestRepository::findNewest,
+        (last, limit) -> helpRequestRepository.findOlderThan(last.time(), last.id(), limit),
+        helpRequest -> new TimeCursor(helpRequest.getRequestTime(), helpRequest.getId()));
+  }
+
+  /**
+   * Export all help requests, written to the response one at a time while they are read from the
+   * database
+   *
+   * @param format NDJSON for one help request per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all help requests, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportHelpRequests(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(HelpRequest.class, helpRequestRepository, format);
+  }
+
+  /**
+   * Create many help requests in one request
+   *
+   * @param body the help requests, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the help requests, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many help requests from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateHelpRequests(InputStream body) throws IOException {
+    return bulkCreate(body, HelpRequest.class, helpRequestRepository);
+  }
+
+  /**
+   * Update many help requests in one request
+   *
+   * @param body the help requests, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the help requests, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Update many help requests, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateHelpRequests(InputStream body) throws IOException {
+    return bulkUpdate(body, HelpRequest.class, helpRequestRepository);
+  }
+
+  /**
+   * Delete many help requests in one request
+   *
+   * @param body the ids of the help requests, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Delete many help requests, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteHelpRequests(InputStream body) throws IOException {
+    return bulkDelete(body, HelpRequest.class, helpRequestRepository);
+  }
+
+  /**
+   * Get a single date by id
+   *
+   * @param id the id of the request
+   * @return the help request, with its version as its ETag
+   */
+  @Operation(summary = "Get a single request")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("")
+  public ResponseEntity<HelpRequest> getById(@Parameter(name = "id") @RequestParam Long id) {
+    HelpRequest helpRequest =
+        helpRequestRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+
+    return rowResponse(helpRequest);
+  }
+
+  /**
+   * Create a new help request
+   *
+   * @param requesterEmail
+   * @param teamId
+   * @param tableOrBreakoutRoom
+   * @param requestTime
+   * @param explanation
+   * @param solved
+   * @return
+   */
+  @Operation(summary = "Create a new help request")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/post")
+  public HelpRequest postHelpRequest(
+      @Parameter(name = "requesterEmail") @RequestParam String requesterEmail,
+      @Parameter(name = "teamId") @RequestParam String teamId,
+      @Parameter(name = "tableOrBreakoutRoom") @RequestParam String tableOrBreakoutRoom,
+      @Parameter(name = "explanation") @RequestParam String explanation,
+      @Parameter(name = "solved") @RequestParam boolean solved,
+      @Parameter(
+              name = "requestTime",
+              description =
+                  "date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)")
+          @RequestParam("requestTime")
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime requestTime)
+      throws JsonProcessingException {
+
+    // For an explanation of @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    // See: https://www.baeldung.com/spring-date-parameters
+
+    log.info("requestTime={}", requestTime);
+
+    HelpRequest helpRequest = new HelpRequest();
+    helpRequest.setRequesterEmail(requesterEmail);
+    helpRequest.setTeamId(teamId);
+    helpRequest.setTableOrBreakoutRoom(tableOrBreakoutRoom);
+    helpRequest.setRequestTime(requestTime);
+    helpRequest.setExplanation(explanation);
+    helpRequest.setSolved(solved);
+
+    HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+
+    return savedHelpRequest;
+  }
+
+  /**
+   * Delete a HelpRequest
+   *
+   * @param id the id of the request to delete
+   * @param ifMatch the ETag of the version of the help request to delete, or null to delete it
+   *     whatever its version
+   * @return a message indicating the date was deleted
+   */
+  @Operation(summary = "Delete a HelpRequest")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object deleteHelpRequest(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(HelpRequest.class, id, ifMatch, helpRequestRepository);
+    return genericMessage("HelpRequest with id %s deleted".formatted(id));
+  }
+
+  /**
+   * Update a single date
+   *
+   * @param id id of the date to update
+   * @param ifMatch the ETag of the version of the help request that was edited, or null to update
+   *     it whatever its version
+   * @param incoming the new date
+   * @return the updated help request as it was stored, with its new version as its ETag
+   */
+  @Operation(summary = "Update a single request")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("")
+  public ResponseEntity<HelpRequest> updateHelpRequest(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid HelpRequest incoming) {
+    incoming.setId(id);
+    return updateRow(incoming, HelpRequest.class, id, ifMatch, helpRequestRepository);
+  }
+}
@@ -5,22 +5,36 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.models.JobLogStats;
+import edu.ucsb.cs156.example.models.JobSummary;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
@@ -31,14 +45,45 @@ public class JobsController extends ApiController {
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogService jobLogService;
+
+  @Autowired private JobScheduler jobScheduler;
+
+  @Autowired private JobRetentionService jobRetentionService;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  private static final int MAX_PAGE_SIZE = 100;
+
+  // sort key of the last job on a page of /api/jobs/all
+  private record JobCursor(ZonedDateTime createdAt, long id) {}
+
+  @Operation(
+      summary =
+          "List jobs, newest first, one page at a time; pass nextCursor back as cursor for the next page")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public CursorPage<JobSummary> allJobs(
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "number of jobs per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int size) {
+
+    int pageSize = Math.clamp(size, 1, MAX_PAGE_SIZE);
+    Limit limit = Limit.of(pageSize + 1);
+    List<JobSummary> jobs;
+    if (cursor == null) {
+      jobs = jobsRepository.findSummaries(limit);
+    } else {
+      JobCursor last =
+          CursorPage.decodeCursor(
+              cursor,
+              key -> new JobCursor(ZonedDateTime.parse(key.get(0)), Long.parseLong(key.get(1))));
+      jobs = jobsRepository.findSummariesBefore(last.createdAt(), last.id(), limit);
+    }
+    return CursorPage.of(jobs, pageSize, job -> List.of(job.getCreatedAt(), job.getId()));
   }
 
   @Operation(summary = "Delete all job records")
@@ -49,6 +94,15 @@ public class JobsController extends ApiController {
     return Map.of("message", "All jobs deleted");
   }
 
+  @Operation(
+      summary =
+          "Compress the logs of old jobs and delete expired jobs now, instead of waiting for the nightly run")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/retention")
+  public Map<String, String> runJobRetention() {
+    return Map.of("message", jobRetentionService.runRetention());
+  }
+
   @Operation(summary = "Get a specific Job Log by ID if it is in the database")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("")
@@ -59,6 +113,7 @@ public class JobsController extends ApiController {
     Job job =
         jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
 
+    job.setLog(jobService.getJobLogs(job));
     return job;
   }
 
@@ -78,10 +133,35 @@ public class JobsController extends ApiController {
   @PostMapping("/launch/testjob")
   public Job launchTestJob(
       @Parameter(name = "fail") @RequestParam Boolean fail,
-      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs) {
+      @Parameter(name = "sleepMs") @RequestParam Integer sleepMs,
+      @Parameter(name = "priority", description = "HIGH, NORMAL or LOW")
+          @RequestParam(defaultValue = "NORMAL")
+          JobPriority priority,
+      @Parameter(
+              name = "timeoutMs",
+              description = "stop the job after this many ms (0 for no limit; default from config)")
+          @RequestParam(required = false)
+          Long timeoutMs) {
 
     TestJob testJob = TestJob.builder().fail(fail).sleepMs(sleepMs).build();
-    return jobService.runAsJob(testJob);
+    if (timeoutMs == null) {
+      return jobService.runAsJob(testJob, priority);
+    }
+    return jobService.runAsJob(testJob, priority, timeoutMs);
+  }
+
+  @Operation(summary = "Cancel a queued or running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/{id}/cancel")
+  public Map<String, String> cancelJob(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    if (!jobService.cancelJob(id)) {
+      return Map.of("message", String.format("Job with id %d is not queued or running", id));
+    }
+    return Map.of("message", String.format("Job with id %d cancelled", id));
   }
 
   @Operation(summary = "Get long job logs")
@@ -91,4 +171,39 @@ public class JobsController extends ApiController {
 
     return jobService.getJobLogs(id);
   }
+
+  @Operation(
+      summary =
+          "Stream the log lines and status changes of a job as server-sent events, until the job finishes")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJob(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "fromLine", description = "number of the first log line to send")
+          @RequestParam(defaultValue = "0")
+          int fromLine,
+      @Parameter(hidden = true) @RequestHeader(value = "Last-Event-ID", required = false)
+          Integer lastEventId) {
+
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    // a reconnecting EventSource sends the number of the last line it received
+    int fromLineNumber = lastEventId == null ? fromLine : Math.max(fromLine, lastEventId + 1);
+    return jobService.streamJob(id, fromLineNumber);
+  }
+
+  @Operation(summary = "Get statistics on the buffered writing of job logs")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/logs/metrics")
+  public JobLogStats getJobLogStats() {
+    return jobLogService.getStats();
+  }
+
+  @Operation(summary = "Get the number of running and queued jobs")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/executor")
+  public JobExecutorStatus getJobExecutorStatus() {
+    return jobScheduler.getStatus();
+  }
 }
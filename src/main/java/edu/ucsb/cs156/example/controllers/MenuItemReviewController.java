@@ -3,24 +3,40 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.CursorPage;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "MenuItemReview")
 @RequestMapping("/api/menuitemreview")
@@ -33,9 +49,130 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "List all menu item reviews")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<MenuItemReview> allMenuItemReviews() {
-    Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-    return reviews;
+  public ResponseEntity<Iterable<MenuItemReview>> allMenuItemReviews(WebRequest request) {
+    return allRowsResponse(request, MenuItemReview.class, menuItemReviewRepository);
+  }
+
+  /**
+   * List one page of menu item reviews, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of menu item reviews, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<MenuItemReview>> pageOfMenuItemReviews(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, MenuItemReview.class, menuItemReviewRepository, pageable, filters);
+  }
+
+  /**
+   * List menu item reviews, newest dateReviewed first, one page at a time
+   *
+   * @param request the request
+   * @param cursor the nextCursor of the previous page, or null for the first page
+   * @param size the number of menu item reviews per page
+   * @return the page
+   */
+  @Operation(
+      summary =
+          "List menu item reviews, newest first, one page at a time; pass nextCursor back as cursor for the next page")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/cursor")
+  public ResponseEntity<CursorPage<MenuItemReview>> cursorOfMenuItemReviews(
+      WebRequest request,
+      @Parameter(name = "cursor", description = "nextCursor of the previous page")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(name = "size", description = "number of menu item reviews per page")
+          @RequestParam(defaultValue = "20")
+          int size) {
+    return newestFirstResponse(
+        request,
+        MenuItemReview.class,
+        cursor,
+        size,
+        menuItemReviewRepository::findNewest,
+        (last, limit) -> menuItemReviewRepository.findOlderThan(last.time(), last.id(), limit),
+        review -> new TimeCursor(review.getDateReviewed(), review.getId()));
+  }
+
+  /**
+   * Export all menu item reviews, written to the response one at a time while they are read from
+   * the database
+   *
+   * @param format NDJSON for one menu item review per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(
+      summary = "Export all menu item reviews, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportMenuItemReviews(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(MenuItemReview.class, menuItemReviewRepository, format);
+  }
+
+  /**
+   * Create many menu item reviews in one request
+   *
+   * @param body the menu item reviews, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the menu item reviews, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many menu item reviews from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateMenuItemReviews(InputStream body) throws IOException {
+    return bulkCreate(body, MenuItemReview.class, menuItemReviewRepository);
+  }
+
+  /**
+   * Update many menu item reviews in one request
+   *
+   * @param body the menu item reviews, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the menu item reviews, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Update many menu item reviews, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateMenuItemReviews(InputStream body) throws IOException {
+    return bulkUpdate(body, MenuItemReview.class, menuItemReviewRepository);
+  }
+
+  /**
+   * Delete many menu item reviews in one request
+   *
+   * @param body the ids of the menu item reviews, as a JSON array or one per line (NDJSON)
+   * @return the review, with its version as its ETag
+   */
+  @Operation(
+      summary = "Delete many menu item reviews, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteMenuItemReviews(InputStream body) throws IOException {
+    return bulkDelete(body, MenuItemReview.class, menuItemReviewRepository);
   }
 
   @Operation(summary = "Create a new MenuItemReview")
@@ -91,69 +228,50 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Get a single menu item review")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public MenuItemReview getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<MenuItemReview> getById(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview menuItemReview1 =
         menuItemReviewRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-    return menuItemReview1;
+    return rowResponse(menuItemReview1);
   }
 
   /**
    * Update a single menuitemreview
    *
    * @param id id of the menuitemreview to update
+   * @param ifMatch the ETag of the version of the review that was edited, or null to update it
+   *     whatever its version
    * @param incoming the new menuitemreview
-   * @return the updated date object
+   * @return the updated review as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public MenuItemReview updateMenuItemReview(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid MenuItemReview incoming) {
-
-    MenuItemReview menuItemReview1 =
-        menuItemReviewRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-    /*
-
-      private long itemId;
-      private String reviewerEmail;
-      private int stars;
-      private LocalDateTime dateReviewed;
-      private String comments;
-    */
-
-    menuItemReview1.setItemId(incoming.getItemId());
-    menuItemReview1.setReviewerEmail(incoming.getReviewerEmail());
-    menuItemReview1.setStars(incoming.getStars());
-    menuItemReview1.setComments(incoming.getComments());
-    menuItemReview1.setDateReviewed(incoming.getDateReviewed());
-
-    menuItemReviewRepository.save(menuItemReview1);
-
-    return menuItemReview1;
+  public ResponseEntity<MenuItemReview> updateMenuItemReview(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid MenuItemReview incoming) {
+    incoming.setId(id);
+    return updateRow(incoming, MenuItemReview.class, id, ifMatch, menuItemReviewRepository);
   }
 
   /**
    * Delete a menuitemreview
    *
    * @param id the id of the menuitemreview to delete
+   * @param ifMatch the ETag of the version of the review to delete, or null to delete it whatever
+   *     its version
    * @return a message indicating the menuitemreview was deleted
    */
   @Operation(summary = "Delete a MenuItemReview")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteMenuItemReview(@Parameter(name = "id") @RequestParam Long id) {
-    MenuItemReview menuItemReview1 =
-        menuItemReviewRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-    menuItemReviewRepository.delete(menuItemReview1);
+  public Object deleteMenuItemReview(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(MenuItemReview.class, id, ifMatch, menuItemReviewRepository);
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
 }
@@ -3,24 +3,39 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for RecommendationRequests */
 @Tag(name = "RecommendationRequests")
@@ -34,34 +49,130 @@ public class RecommendationRequestsController extends ApiController {
   /**
    * List all recommendation requests
    *
+   * @param request the request
    * @return an iterable of recommendation requests
    */
   @Operation(summary = "List all recommendation requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<RecommendationRequest> allRecommendationRequests() {
-    Iterable<RecommendationRequest> recommendationRequests =
-        recommendationRequestRepository.findAll();
-    return recommendationRequests;
+  public ResponseEntity<Iterable<RecommendationRequest>> allRecommendationRequests(
+      WebRequest request) {
+    return allRowsResponse(request, RecommendationRequest.class, recommendationRequestRepository);
+  }
+
+  /**
+   * List one page of recommendation requests, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(
+      summary = "List one page of recommendation requests, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<RecommendationRequest>> pageOfRecommendationRequests(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(
+        request, RecommendationRequest.class, recommendationRequestRepository, pageable, filters);
+  }
+
+  /**
+   * Export all recommendation requests, written to the response one at a time while they are read
+   * from the database
+   *
+   * @param format NDJSON for one recommendation request per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(
+      summary = "Export all recommendation requests, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportRecommendationRequests(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(RecommendationRequest.class, recommendationRequestRepository, format);
+  }
+
+  /**
+   * Create many recommendation requests in one request
+   *
+   * @param body the recommendation requests, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the recommendation requests, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many recommendation requests from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateRecommendationRequests(InputStream body) throws IOException {
+    return bulkCreate(body, RecommendationRequest.class, recommendationRequestRepository);
+  }
+
+  /**
+   * Update many recommendation requests in one request
+   *
+   * @param body the recommendation requests, with their ids, as a JSON array or one per line
+   *     (NDJSON)
+   * @return the result for each of the recommendation requests, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Update many recommendation requests, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateRecommendationRequests(InputStream body) throws IOException {
+    return bulkUpdate(body, RecommendationRequest.class, recommendationRequestRepository);
+  }
+
+  /**
+   * Delete many recommendation requests in one request
+   *
+   * @param body the ids of the recommendation requests, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Delete many recommendation requests, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteRecommendationRequests(InputStream body) throws IOException {
+    return bulkDelete(body, RecommendationRequest.class, recommendationRequestRepository);
   }
 
   /**
    * Look up a single RecommendationRequest by id.
    *
    * @param id the id of the RecommendationRequest to retrieve
-   * @return the matching RecommendationRequest as JSON
-   * @throws edu.ucsb.cs156.example.errors.EntityNotFoundException if no record with that id exists
+   * @return the recommendation request, with its version as its ETag
    */
   @Operation(summary = "Get a single recommendationRequest")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public RecommendationRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<RecommendationRequest> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     RecommendationRequest recommendationRequest =
         recommendationRequestRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
-    return recommendationRequest;
+    return rowResponse(recommendationRequest);
   }
 
   /**
@@ -117,19 +228,17 @@ public class RecommendationRequestsController extends ApiController {
    * Delete a RecommendationRequest
    *
    * @param id the id of the request to delete
+   * @param ifMatch the ETag of the version of the recommendation request to delete, or null to
+   *     delete it whatever its version
    * @return a message indicating the request was deleted
    */
   @Operation(summary = "Delete a recommendation request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteRecommendationRequest(@Parameter(name = "id") @RequestParam Long id) {
-
-    RecommendationRequest rr =
-        recommendationRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-    recommendationRequestRepository.delete(rr);
+  public Object deleteRecommendationRequest(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(RecommendationRequest.class, id, ifMatch, recommendationRequestRepository);
     return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
   }
 
@@ -137,34 +246,21 @@ public class RecommendationRequestsController extends ApiController {
    * Update an existing RecommendationRequest identified by id.
    *
    * @param id the id of the RecommendationRequest to update
+   * @param ifMatch the ETag of the version of the recommendation request that was edited, or null
+   *     to update it whatever its version
    * @param incoming the new field values for this RecommendationRequest (code, requesterEmail,
    *     professorEmail, explanation, dateRequested, dateNeeded, done)
-   * @return the updated RecommendationRequest, after saving
-   * @throws edu.ucsb.cs156.example.errors.EntityNotFoundException if no RecommendationRequest with
-   *     that id exists
+   * @return the updated recommendation request as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single recommendation request")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public RecommendationRequest updateRecommendationRequest(
+  public ResponseEntity<RecommendationRequest> updateRecommendationRequest(
       @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid RecommendationRequest incoming) {
-
-    RecommendationRequest rr =
-        recommendationRequestRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-    rr.setCode(incoming.getCode());
-    rr.setRequesterEmail(incoming.getRequesterEmail());
-    rr.setProfessorEmail(incoming.getProfessorEmail());
-    rr.setExplanation(incoming.getExplanation());
-    rr.setDateRequested(incoming.getDateRequested());
-    rr.setDateNeeded(incoming.getDateNeeded());
-    rr.setDone(incoming.getDone());
-
-    recommendationRequestRepository.save(rr);
-
-    return rr;
+    incoming.setId(id);
+    return updateRow(
+        incoming, RecommendationRequest.class, id, ifMatch, recommendationRequestRepository);
   }
 }
@@ -2,21 +2,36 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for Restaurants */
 @Tag(name = "Restaurants")
@@ -29,32 +44,121 @@ public class RestaurantsController extends ApiController {
   /**
    * This method returns a list of all restaurants.
    *
+   * @param request the request
    * @return a list of all restaurants
    */
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
-    Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-    return restaurants;
+  public ResponseEntity<Iterable<Restaurant>> allRestaurants(WebRequest request) {
+    return allRowsResponse(request, Restaurant.class, restaurantRepository);
+  }
+
+  /**
+   * List one page of restaurants, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of restaurants, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<Restaurant>> pageOfRestaurants(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, Restaurant.class, restaurantRepository, pageable, filters);
+  }
+
+  /**
+   * Export all restaurants, written to the response one at a time while they are read from the
+   * database
+   *
+   * @param format NDJSON for one restaurant per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all restaurants, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportRestaurants(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(Restaurant.class, restaurantRepository, format);
+  }
+
+  /**
+   * Create many restaurants in one request
+   *
+   * @param body the restaurants, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the restaurants, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many restaurants from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateRestaurants(InputStream body) throws IOException {
+    return bulkCreate(body, Restaurant.class, restaurantRepository);
+  }
+
+  /**
+   * Update many restaurants in one request
+   *
+   * @param body the restaurants, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the restaurants, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Update many restaurants, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateRestaurants(InputStream body) throws IOException {
+    return bulkUpdate(body, Restaurant.class, restaurantRepository);
+  }
+
+  /**
+   * Delete many restaurants in one request
+   *
+   * @param body the ids of the restaurants, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Delete many restaurants, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteRestaurants(InputStream body) throws IOException {
+    return bulkDelete(body, Restaurant.class, restaurantRepository);
   }
 
   /**
    * This method returns a single restaurant.
    *
    * @param id id of the restaurant to get
-   * @return a single restaurant
+   * @return the restaurant, with its version as its ETag
    */
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Restaurant> getById(@Parameter(name = "id") @RequestParam Long id) {
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-    return restaurant;
+    return rowResponse(restaurant);
   }
 
   /**
@@ -83,18 +187,17 @@ public class RestaurantsController extends ApiController {
    * Deletes a restaurant. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param id id of the restaurant to delete
+   * @param ifMatch the ETag of the version of the restaurant to delete, or null to delete it
+   *     whatever its version
    * @return a message indicating that the restaurant was deleted
    */
   @Operation(summary = "Delete a Restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteRestaurant(@Parameter(name = "id") @RequestParam Long id) {
-    Restaurant restaurant =
-        restaurantRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-    restaurantRepository.delete(restaurant);
+  public Object deleteRestaurant(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(Restaurant.class, id, ifMatch, restaurantRepository);
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
@@ -102,25 +205,19 @@ public class RestaurantsController extends ApiController {
    * Update a single restaurant. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param id id of the restaurant to update
+   * @param ifMatch the ETag of the version of the restaurant that was edited, or null to update it
+   *     whatever its version
    * @param incoming the new restaurant contents
-   * @return the updated restaurant object
+   * @return the updated restaurant as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single restaurant")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public Restaurant updateRestaurant(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid Restaurant incoming) {
-
-    Restaurant restaurant =
-        restaurantRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-    restaurant.setName(incoming.getName());
-    restaurant.setDescription(incoming.getDescription());
-
-    restaurantRepository.save(restaurant);
-
-    return restaurant;
+  public ResponseEntity<Restaurant> updateRestaurant(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid Restaurant incoming) {
+    incoming.setId(id);
+    return updateRow(incoming, Restaurant.class, id, ifMatch, restaurantRepository);
   }
 }
@@ -4,7 +4,10 @@ import edu.ucsb.cs156.example.models.SystemInfo;
 import edu.ucsb.cs156.example.services.SystemInfoService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,6 +18,10 @@ import org.springframework.web.bind.annotation.RestController;
  * <p>It allows frontend access to some of the global values set in the backend of the application,
  * some of which are set by environment variables.
  *
+ * <p>The system information does not change while the application runs, so responses carry a strong
+ * ETag and may be cached for five minutes; after that, the client gets a 304 Not Modified if it
+ * sends the ETag back in If-None-Match.
+ *
  * <p>For more information see the SystemInfoService and SystemInfo classes.
  *
  * @see edu.ucsb.cs156.example.services.SystemInfoService
@@ -34,7 +41,11 @@ public class SystemInfoController extends ApiController {
    */
   @Operation(summary = "Get global information about the application")
   @GetMapping("")
-  public SystemInfo getSystemInfo() {
-    return systemInfoService.getSystemInfo();
+  public ResponseEntity<SystemInfo> getSystemInfo() {
+    // Spring answers 304 Not Modified when If-None-Match matches the ETag
+    return ResponseEntity.ok()
+        .eTag(systemInfoService.getSystemInfoETag())
+        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+        .body(systemInfoService.getSystemInfo());
   }
 }
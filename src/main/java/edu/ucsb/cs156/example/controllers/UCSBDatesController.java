@@ -3,24 +3,39 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -34,32 +49,121 @@ public class UCSBDatesController extends ApiController {
   /**
    * List all UCSB dates
    *
+   * @param request the request
    * @return an iterable of UCSBDate
    */
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
-    Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-    return dates;
+  public ResponseEntity<Iterable<UCSBDate>> allUCSBDates(WebRequest request) {
+    return allRowsResponse(request, UCSBDate.class, ucsbDateRepository);
+  }
+
+  /**
+   * List one page of UCSB dates, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of UCSB dates, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<UCSBDate>> pageOfUCSBDates(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, UCSBDate.class, ucsbDateRepository, pageable, filters);
+  }
+
+  /**
+   * Export all UCSB dates, written to the response one at a time while they are read from the
+   * database
+   *
+   * @param format NDJSON for one UCSB date per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all UCSB dates, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUCSBDates(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(UCSBDate.class, ucsbDateRepository, format);
+  }
+
+  /**
+   * Create many UCSB dates in one request
+   *
+   * @param body the UCSB dates, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the UCSB dates, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many UCSB dates from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateUCSBDates(InputStream body) throws IOException {
+    return bulkCreate(body, UCSBDate.class, ucsbDateRepository);
+  }
+
+  /**
+   * Update many UCSB dates in one request
+   *
+   * @param body the UCSB dates, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the UCSB dates, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Update many UCSB dates, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateUCSBDates(InputStream body) throws IOException {
+    return bulkUpdate(body, UCSBDate.class, ucsbDateRepository);
+  }
+
+  /**
+   * Delete many UCSB dates in one request
+   *
+   * @param body the ids of the UCSB dates, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Delete many UCSB dates, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteUCSBDates(InputStream body) throws IOException {
+    return bulkDelete(body, UCSBDate.class, ucsbDateRepository);
   }
 
   /**
    * Get a single date by id
    *
    * @param id the id of the date
-   * @return a UCSBDate
+   * @return the date, with its version as its ETag
    */
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDate> getById(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    return ucsbDate;
+    return rowResponse(ucsbDate);
   }
 
   /**
@@ -104,18 +208,17 @@ public class UCSBDatesController extends ApiController {
    * Delete a UCSBDate
    *
    * @param id the id of the date to delete
+   * @param ifMatch the ETag of the version of the date to delete, or null to delete it whatever its
+   *     version
    * @return a message indicating the date was deleted
    */
   @Operation(summary = "Delete a UCSBDate")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteUCSBDate(@Parameter(name = "id") @RequestParam Long id) {
-    UCSBDate ucsbDate =
-        ucsbDateRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-    ucsbDateRepository.delete(ucsbDate);
+  public Object deleteUCSBDate(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(UCSBDate.class, id, ifMatch, ucsbDateRepository);
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
@@ -123,26 +226,19 @@ public class UCSBDatesController extends ApiController {
    * Update a single date
    *
    * @param id id of the date to update
+   * @param ifMatch the ETag of the version of the date that was edited, or null to update it
+   *     whatever its version
    * @param incoming the new date
-   * @return the updated date object
+   * @return the updated date as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single date")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBDate updateUCSBDate(
-      @Parameter(name = "id") @RequestParam Long id, @RequestBody @Valid UCSBDate incoming) {
-
-    UCSBDate ucsbDate =
-        ucsbDateRepository
-            .findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-    ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-    ucsbDate.setName(incoming.getName());
-    ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
-
-    ucsbDateRepository.save(ucsbDate);
-
-    return ucsbDate;
+  public ResponseEntity<UCSBDate> updateUCSBDate(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody @Valid UCSBDate incoming) {
+    incoming.setId(id);
+    return updateRow(incoming, UCSBDate.class, id, ifMatch, ucsbDateRepository);
   }
 }
@@ -2,22 +2,37 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBDiningCommons */
 @Tag(name = "UCSBDiningCommons")
@@ -31,32 +46,122 @@ public class UCSBDiningCommonsController extends ApiController {
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
+   * @param request the request
    * @return a list of all ucsbdiningcommons
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-    return commons;
+  public ResponseEntity<Iterable<UCSBDiningCommons>> allCommonss(WebRequest request) {
+    return allRowsResponse(request, UCSBDiningCommons.class, ucsbDiningCommonsRepository);
+  }
+
+  /**
+   * List one page of dining commons, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of dining commons, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<UCSBDiningCommons>> pageOfUCSBDiningCommons(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(
+        request, UCSBDiningCommons.class, ucsbDiningCommonsRepository, pageable, filters);
+  }
+
+  /**
+   * Export all dining commons, written to the response one at a time while they are read from the
+   * database
+   *
+   * @param format NDJSON for one dining commons per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all dining commons, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUCSBDiningCommons(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(UCSBDiningCommons.class, ucsbDiningCommonsRepository, format);
+  }
+
+  /**
+   * Create many dining commons in one request
+   *
+   * @param body the dining commons, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the dining commons, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Create many dining commons from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateUCSBDiningCommons(InputStream body) throws IOException {
+    return bulkCreate(body, UCSBDiningCommons.class, ucsbDiningCommonsRepository);
+  }
+
+  /**
+   * Update many dining commons in one request
+   *
+   * @param body the dining commons, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the dining commons, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Update many dining commons, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateUCSBDiningCommons(InputStream body) throws IOException {
+    return bulkUpdate(body, UCSBDiningCommons.class, ucsbDiningCommonsRepository);
+  }
+
+  /**
+   * Delete many dining commons in one request
+   *
+   * @param body the ids of the dining commons, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Delete many dining commons, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteUCSBDiningCommons(InputStream body) throws IOException {
+    return bulkDelete(body, UCSBDiningCommons.class, ucsbDiningCommonsRepository);
   }
 
   /**
    * This method returns a single diningcommons.
    *
    * @param code code of the diningcommons
-   * @return a single diningcommons
+   * @return the dining commons, with its version as its ETag
    */
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public ResponseEntity<UCSBDiningCommons> getById(
+      @Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-    return commons;
+    return rowResponse(commons);
   }
 
   /**
@@ -101,18 +206,17 @@ public class UCSBDiningCommonsController extends ApiController {
    * Delete a diningcommons. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param code code of the commons
+   * @param ifMatch the ETag of the version of the dining commons to delete, or null to delete it
+   *     whatever its version
    * @return a message indiciating the commons was deleted
    */
   @Operation(summary = "Delete a UCSBDiningCommons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteCommons(@Parameter(name = "code") @RequestParam String code) {
-    UCSBDiningCommons commons =
-        ucsbDiningCommonsRepository
-            .findById(code)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-    ucsbDiningCommonsRepository.delete(commons);
+  public Object deleteCommons(
+      @Parameter(name = "code") @RequestParam String code,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(UCSBDiningCommons.class, code, ifMatch, ucsbDiningCommonsRepository);
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -120,30 +224,19 @@ public class UCSBDiningCommonsController extends ApiController {
    * Update a single diningcommons. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param code code of the diningcommons
+   * @param ifMatch the ETag of the version of the dining commons that was edited, or null to update
+   *     it whatever its version
    * @param incoming the new commons contents
-   * @return the updated commons object
+   * @return the updated dining commons as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single commons")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBDiningCommons updateCommons(
+  public ResponseEntity<UCSBDiningCommons> updateCommons(
       @Parameter(name = "code") @RequestParam String code,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid UCSBDiningCommons incoming) {
-
-    UCSBDiningCommons commons =
-        ucsbDiningCommonsRepository
-            .findById(code)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-    commons.setName(incoming.getName());
-    commons.setHasSackMeal(incoming.getHasSackMeal());
-    commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-    commons.setHasDiningCam(incoming.getHasDiningCam());
-    commons.setLatitude(incoming.getLatitude());
-    commons.setLongitude(incoming.getLongitude());
-
-    ucsbDiningCommonsRepository.save(commons);
-
-    return commons;
+    incoming.setCode(code);
+    return updateRow(incoming, UCSBDiningCommons.class, code, ifMatch, ucsbDiningCommonsRepository);
   }
 }
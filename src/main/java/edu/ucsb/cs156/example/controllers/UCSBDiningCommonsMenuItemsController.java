@@ -2,22 +2,37 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 // ** This is a REST controller for UCSBDiningCommonsMenuItems */
 @Tag(name = "UCSBDiningCommonsMenuItems")
@@ -31,31 +46,139 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
   /**
    * List all menu items
    *
+   * @param request the request
    * @return an iterable of UCSBDiningCommonsMenuItems
    */
   @Operation(summary = "List all items")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItems> allItems() {
-    Iterable<UCSBDiningCommonsMenuItems> items = UCSBDiningCommonsMenuItemsRepository.findAll();
-    return items;
+  public ResponseEntity<Iterable<UCSBDiningCommonsMenuItems>> allItems(WebRequest request) {
+    return allRowsResponse(
+        request, UCSBDiningCommonsMenuItems.class, UCSBDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * List one page of dining commons menu items, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(
+      summary = "List one page of dining commons menu items, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<UCSBDiningCommonsMenuItems>> pageOfUCSBDiningCommonsMenuItems(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(
+        request,
+        UCSBDiningCommonsMenuItems.class,
+        UCSBDiningCommonsMenuItemsRepository,
+        pageable,
+        filters);
+  }
+
+  /**
+   * Export all dining commons menu items, written to the response one at a time while they are read
+   * from the database
+   *
+   * @param format NDJSON for one dining commons menu item per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(
+      summary =
+          "Export all dining commons menu items, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUCSBDiningCommonsMenuItems(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(
+        UCSBDiningCommonsMenuItems.class, UCSBDiningCommonsMenuItemsRepository, format);
+  }
+
+  /**
+   * Create many dining commons menu items in one request
+   *
+   * @param body the dining commons menu items, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the dining commons menu items, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Create many dining commons menu items from a JSON array or NDJSON; ids are assigned by the server")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateUCSBDiningCommonsMenuItems(InputStream body)
+      throws IOException {
+    return bulkCreate(body, UCSBDiningCommonsMenuItems.class, UCSBDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * Update many dining commons menu items in one request
+   *
+   * @param body the dining commons menu items, with their ids, as a JSON array or one per line
+   *     (NDJSON)
+   * @return the result for each of the dining commons menu items, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Update many dining commons menu items, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateUCSBDiningCommonsMenuItems(InputStream body)
+      throws IOException {
+    return bulkUpdate(body, UCSBDiningCommonsMenuItems.class, UCSBDiningCommonsMenuItemsRepository);
+  }
+
+  /**
+   * Delete many dining commons menu items in one request
+   *
+   * @param body the ids of the dining commons menu items, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary =
+          "Delete many dining commons menu items, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteUCSBDiningCommonsMenuItems(InputStream body)
+      throws IOException {
+    return bulkDelete(body, UCSBDiningCommonsMenuItems.class, UCSBDiningCommonsMenuItemsRepository);
   }
 
   /**
    * Get a single item by id
    *
    * @param id the id of the item
-   * @return a item
+   * @return the menu item, with its version as its ETag
    */
   @Operation(summary = "Get a single item")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommonsMenuItems getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDiningCommonsMenuItems> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItems =
         UCSBDiningCommonsMenuItemsRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id));
 
-    return UCSBDiningCommonsMenuItems;
+    return rowResponse(UCSBDiningCommonsMenuItems);
   }
 
   /**
@@ -88,44 +211,42 @@ public class UCSBDiningCommonsMenuItemsController extends ApiController {
    * Update a single item
    *
    * @param id id of the item to update
+   * @param ifMatch the ETag of the version of the menu item that was edited, or null to update it
+   *     whatever its version
    * @param incoming the new item
-   * @return the updated item
+   * @return the updated menu item as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single item")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBDiningCommonsMenuItems updateUCSBDiningCommonsMenuItems(
+  public ResponseEntity<UCSBDiningCommonsMenuItems> updateUCSBDiningCommonsMenuItems(
       @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid UCSBDiningCommonsMenuItems incoming) {
-
-    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItems =
-        UCSBDiningCommonsMenuItemsRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id));
-
-    UCSBDiningCommonsMenuItems.setDiningCommonsCode(incoming.getDiningCommonsCode());
-    UCSBDiningCommonsMenuItems.setName(incoming.getName());
-    UCSBDiningCommonsMenuItems.setStation(incoming.getStation());
-
-    UCSBDiningCommonsMenuItemsRepository.save(UCSBDiningCommonsMenuItems);
-
-    return UCSBDiningCommonsMenuItems;
+    incoming.setId(id);
+    return updateRow(
+        incoming,
+        UCSBDiningCommonsMenuItems.class,
+        id,
+        ifMatch,
+        UCSBDiningCommonsMenuItemsRepository);
   }
 
   /**
    * Delete a UCSBDate
    *
    * @param id the id of the date to delete
+   * @param ifMatch the ETag of the version of the menu item to delete, or null to delete it
+   *     whatever its version
    * @return a message indicating the date was deleted
    */
   @Operation(summary = "Delete a UCSBDiningCommonsMenuItems")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteUCSBDiningCommonsMenuItems(@Parameter(name = "id") @RequestParam Long id) {
-    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItems =
-        UCSBDiningCommonsMenuItemsRepository.findById(id)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItems.class, id));
-
-    UCSBDiningCommonsMenuItemsRepository.delete(UCSBDiningCommonsMenuItems);
+  public Object deleteUCSBDiningCommonsMenuItems(
+      @Parameter(name = "id") @RequestParam Long id,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(UCSBDiningCommonsMenuItems.class, id, ifMatch, UCSBDiningCommonsMenuItemsRepository);
     return genericMessage("UCSBDiningCommonsMenuItems with id %s deleted".formatted(id));
   }
 }
@@ -2,22 +2,37 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for UCSBOrganization */
 @Tag(name = "UCSBOrganization")
@@ -31,14 +46,105 @@ public class UCSBOrganizationController extends ApiController {
   /**
    * THis method returns a list of all ucsborganizations.
    *
+   * @param request the request
    * @return a list of all ucsborganizations
    */
   @Operation(summary = "List all ucsb organizations")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBOrganization> allOrganization() {
-    Iterable<UCSBOrganization> organization = ucsbOrganizationRepository.findAll();
-    return organization;
+  public ResponseEntity<Iterable<UCSBOrganization>> allOrganization(WebRequest request) {
+    return allRowsResponse(request, UCSBOrganization.class, ucsbOrganizationRepository);
+  }
+
+  /**
+   * List one page of UCSB organizations, sorted and filtered by the values of their fields
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by
+   * @return the page
+   */
+  @Operation(summary = "List one page of UCSB organizations, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<UCSBOrganization>> pageOfUCSBOrganizations(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(
+        request, UCSBOrganization.class, ucsbOrganizationRepository, pageable, filters);
+  }
+
+  /**
+   * Export all UCSB organizations, written to the response one at a time while they are read from
+   * the database
+   *
+   * @param format NDJSON for one UCSB organization per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(
+      summary = "Export all UCSB organizations, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUCSBOrganizations(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(UCSBOrganization.class, ucsbOrganizationRepository, format);
+  }
+
+  /**
+   * Create many UCSB organizations in one request
+   *
+   * @param body the UCSB organizations, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the UCSB organizations, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(summary = "Create many UCSB organizations from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkCreateUCSBOrganizations(InputStream body) throws IOException {
+    return bulkCreate(body, UCSBOrganization.class, ucsbOrganizationRepository);
+  }
+
+  /**
+   * Update many UCSB organizations in one request
+   *
+   * @param body the UCSB organizations, with their ids, as a JSON array or one per line (NDJSON)
+   * @return the result for each of the UCSB organizations, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Update many UCSB organizations, given with their ids, from a JSON array or NDJSON")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkUpdateUCSBOrganizations(InputStream body) throws IOException {
+    return bulkUpdate(body, UCSBOrganization.class, ucsbOrganizationRepository);
+  }
+
+  /**
+   * Delete many UCSB organizations in one request
+   *
+   * @param body the ids of the UCSB organizations, as a JSON array or one per line (NDJSON)
+   * @return the result for each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @Operation(
+      summary = "Delete many UCSB organizations, given by a JSON array or NDJSON of their ids")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public List<BulkResult> bulkDeleteUCSBOrganizations(InputStream body) throws IOException {
+    return bulkDelete(body, UCSBOrganization.class, ucsbOrganizationRepository);
   }
 
   /**
@@ -73,64 +179,57 @@ public class UCSBOrganizationController extends ApiController {
    * This method returns a single organization.
    *
    * @param orgCode code of the organization
-   * @return a single organization
+   * @return the organization, with its version as its ETag
    */
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBOrganization getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
+  public ResponseEntity<UCSBOrganization> getById(
+      @Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
         ucsbOrganizationRepository
             .findById(orgCode)
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
-    return organization;
+    return rowResponse(organization);
   }
 
   /**
    * Update a single Organization. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param orgCode code of the organization
+   * @param ifMatch the ETag of the version of the organization that was edited, or null to update
+   *     it whatever its version
    * @param incoming the new organization contents
-   * @return the updated organization object
+   * @return the updated organization as it was stored, with its new version as its ETag
    */
   @Operation(summary = "Update a single organization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
-  public UCSBOrganization updateOrganization(
+  public ResponseEntity<UCSBOrganization> updateOrganization(
       @Parameter(name = "orgCode") @RequestParam String orgCode,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
       @RequestBody @Valid UCSBOrganization incoming) {
-
-    UCSBOrganization organization =
-        ucsbOrganizationRepository
-            .findById(orgCode)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
-
-    organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-    organization.setOrgTranslation(incoming.getOrgTranslation());
-    organization.setInactive(incoming.getInactive());
-
-    ucsbOrganizationRepository.save(organization);
-
-    return organization;
+    incoming.setOrgCode(orgCode);
+    return updateRow(
+        incoming, UCSBOrganization.class, orgCode, ifMatch, ucsbOrganizationRepository);
   }
 
   /**
    * Delete an organization. Accessible only to users with the role "ROLE_ADMIN".
    *
    * @param orgCode code of the organization
+   * @param ifMatch the ETag of the version of the organization to delete, or null to delete it
+   *     whatever its version
    * @return a message indiciating the organization was deleted
    */
   @Operation(summary = "Delete a UCSBOrganization")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
-  public Object deleteOrganization(@Parameter(name = "orgCode") @RequestParam String orgCode) {
-    UCSBOrganization organization =
-        ucsbOrganizationRepository
-            .findById(orgCode)
-            .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
-
-    ucsbOrganizationRepository.delete(organization);
+  public Object deleteOrganization(
+      @Parameter(name = "orgCode") @RequestParam String orgCode,
+      @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    deleteRow(UCSBOrganization.class, orgCode, ifMatch, ucsbOrganizationRepository);
     return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
   }
 }
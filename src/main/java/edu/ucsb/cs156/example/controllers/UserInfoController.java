@@ -1,28 +1,78 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.services.UserCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
-/** This is a REST controller for getting information about the current user. */
+/**
+ * This is a REST controller for getting information about the current user.
+ *
+ * <p>While the User of the current user is in the UserCache, responses carry an ETag made from that
+ * User and the user's roles. A request whose If-None-Match matches it gets a 304 Not Modified
+ * without the current user being looked up again.
+ */
 @Tag(name = "Current User Information")
 @RequestMapping("/api/currentUser")
 @RestController
 public class UserInfoController extends ApiController {
 
+  @Autowired private UserCache userCache;
+
   /**
    * This method returns the current user.
    *
+   * @param request the request (injected by Spring)
    * @return the current user
    */
   @Operation(summary = "Get information about current user")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public CurrentUser getCurrentUser() {
-    return super.getCurrentUser();
+  public ResponseEntity<CurrentUser> getCurrentUser(WebRequest request) {
+    Optional<String> eTag = currentUserETag();
+    if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+      // checkNotModified has already set the status to 304 Not Modified
+      return null;
+    }
+    CurrentUser currentUser = super.getCurrentUser();
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+    // looking up the current user has put their User in the cache
+    currentUserETag().ifPresent(response::eTag);
+    return response.body(currentUser);
+  }
+
+  private Optional<String> currentUserETag() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (!(authentication instanceof OAuth2AuthenticationToken token)) {
+      return Optional.empty();
+    }
+    String roles =
+        String.join(
+            ",",
+            AuthorityUtils.authorityListToSet(token.getAuthorities()).stream().sorted().toList());
+    return userCache
+        .getIfPresent(token.getPrincipal().getAttribute("email"))
+        .map(
+            user ->
+                "\""
+                    + DigestUtils.md5DigestAsHex(
+                        (user + "|" + roles).getBytes(StandardCharsets.UTF_8))
+                    + "\"");
   }
 }
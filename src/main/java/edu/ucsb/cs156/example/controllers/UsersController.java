@@ -1,17 +1,24 @@
 package edu.ucsb.cs156.example.controllers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.TableExporter;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PagedModel;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This is a REST controller for getting information about the users.
@@ -24,20 +31,55 @@ import org.springframework.web.bind.annotation.RestController;
 public class UsersController extends ApiController {
   @Autowired UserRepository userRepository;
 
-  @Autowired ObjectMapper mapper;
-
   /**
    * This method returns a list of all users. Accessible only to users with the role "ROLE_ADMIN".
    *
+   * @param request the request
    * @return a list of all users
-   * @throws JsonProcessingException if there is an error processing the JSON
    */
   @Operation(summary = "Get a list of all users")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("")
-  public ResponseEntity<String> users() throws JsonProcessingException {
-    Iterable<User> users = userRepository.findAll();
-    String body = mapper.writeValueAsString(users);
-    return ResponseEntity.ok().body(body);
+  public ResponseEntity<Iterable<User>> users(WebRequest request) {
+    return allRowsResponse(request, User.class, userRepository);
+  }
+
+  /**
+   * This method returns one page of users, sorted and filtered by the values of their fields.
+   * Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param request the request
+   * @param pageable the page, its size and the sort order
+   * @param filters values of fields to filter by, e.g. email=gaucho
+   * @return the page
+   */
+  @Operation(summary = "Get one page of users, sorted and filtered by field values")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/page")
+  public ResponseEntity<PagedModel<User>> pageOfUsers(
+      WebRequest request,
+      @ParameterObject Pageable pageable,
+      @Parameter(
+              description =
+                  "values of fields to filter by; text fields match if they contain the value")
+          @RequestParam
+          Map<String, String> filters) {
+    return pageResponse(request, User.class, userRepository, pageable, filters);
+  }
+
+  /**
+   * Export all users, written to the response one at a time while they are read from the database
+   *
+   * @param format NDJSON for one user per line, or JSON for one array
+   * @return the export
+   */
+  @Operation(summary = "Export all users, as NDJSON (one per line) or as one JSON array")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @Parameter(name = "format", description = "NDJSON or JSON")
+          @RequestParam(defaultValue = "NDJSON")
+          TableExporter.Format format) {
+    return exportResponse(User.class, userRepository, format);
   }
 }
@@ -1,9 +1,13 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,9 +20,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "articles")
-public class Article {
+@EntityListeners(TableVersionListener.class)
+public class Article implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ARTICLES_SEQ")
+  @SequenceGenerator(name = "ARTICLES_SEQ", sequenceName = "ARTICLES_SEQ", allocationSize = 50)
   private long id;
 
   private String title;
@@ -26,4 +32,6 @@ public class Article {
   private String explanation;
   private String email;
   private LocalDateTime dateAdded;
+
+  @Version @JsonIgnore private long version;
 }
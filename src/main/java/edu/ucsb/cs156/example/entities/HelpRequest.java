@@ -1,9 +1,13 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,9 +20,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "helprequests")
-public class HelpRequest {
+@EntityListeners(TableVersionListener.class)
+public class HelpRequest implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "HELPREQUESTS_SEQ")
+  @SequenceGenerator(
+      name = "HELPREQUESTS_SEQ",
+      sequenceName = "HELPREQUESTS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String requesterEmail;
@@ -27,4 +36,6 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
+
+  @Version @JsonIgnore private long version;
 }
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
 import jakarta.persistence.*;
 import java.time.ZonedDateTime;
 import lombok.*;
@@ -16,7 +17,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class Job {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "JOBS_SEQ")
+  @SequenceGenerator(name = "JOBS_SEQ", sequenceName = "JOBS_SEQ", allocationSize = 50)
   private long id;
 
   @JsonIgnore
@@ -29,10 +31,37 @@ public class Job {
 
   private String status;
 
+  // Set for jobs whose work is a PersistentJob: its class and its JSON, so that
+  // JobRecoveryService can run the job again after a restart
+  private String jobType;
+
+  @Column(columnDefinition = "TEXT")
+  private String jobParams;
+
+  @Enumerated(EnumType.STRING)
+  private JobPriority priority;
+
+  private long timeoutMs; // 0 means no limit
+  private int attempts; // number of times the job has been started
+
+  // Updated regularly while the job is queued or running on a server; a queued or running job
+  // whose heartbeat stops is picked up by JobRecoveryService
+  private ZonedDateTime heartbeatAt;
+
+  // Only used by jobs created before log lines were stored in job_log_lines;
+  // see JobLogLine and JobService.getJobLogs
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
       length = 1048576) // needed for long strings, i.e. log entries longer than 255
   // characters
   private String log;
+
+  // Set once JobRetentionService has compacted the log of an old job: the full log, gzipped,
+  // replacing both log and the job's rows in job_log_lines
+  @JsonIgnore private byte[] logGzip;
+
+  // Number of lines of the log that are in log or logGzip rather than in job_log_lines, so that
+  // the jobs listing can count the lines without reading the log
+  @JsonIgnore private int logLineCount;
 }
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of a job's log.
+ *
+ * <p>Lines are only ever appended, so writing a line costs the same regardless of how long the log
+ * already is. The full log is reassembled by reading the lines of a job in order of lineNumber.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_lines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "JOB_LOG_LINES_SEQ")
+  @SequenceGenerator(
+      name = "JOB_LOG_LINES_SEQ",
+      sequenceName = "JOB_LOG_LINES_SEQ",
+      allocationSize = 50)
+  private long id;
+
+  private long jobId;
+  private int lineNumber;
+
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String message;
+}
@@ -1,9 +1,13 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,9 +19,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "menuitemreview")
-public class MenuItemReview {
+@EntityListeners(TableVersionListener.class)
+public class MenuItemReview implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MENUITEMREVIEW_SEQ")
+  @SequenceGenerator(
+      name = "MENUITEMREVIEW_SEQ",
+      sequenceName = "MENUITEMREVIEW_SEQ",
+      allocationSize = 50)
   private long id;
 
   private long itemId;
@@ -25,4 +34,6 @@ public class MenuItemReview {
   private int stars;
   private LocalDateTime dateReviewed;
   private String comments;
+
+  @Version @JsonIgnore private long version;
 }
@@ -1,9 +1,13 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,9 +20,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "RecommendationRequests")
-public class RecommendationRequest {
+@EntityListeners(TableVersionListener.class)
+public class RecommendationRequest implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "RECOMMENDATION_REQUESTS_SEQ")
+  @SequenceGenerator(
+      name = "RECOMMENDATION_REQUESTS_SEQ",
+      sequenceName = "RECOMMENDATION_REQUESTS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String code;
@@ -28,4 +37,6 @@ public class RecommendationRequest {
   private LocalDateTime dateRequested;
   private LocalDateTime dateNeeded;
   private boolean done;
+
+  @Version @JsonIgnore private long version;
 }
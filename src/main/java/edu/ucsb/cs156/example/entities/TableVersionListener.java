@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.TableVersions;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This is a JPA entity listener that bumps the version of an entity's table in TableVersions
+ * whenever one of its rows is inserted, updated or deleted.
+ */
+@Component
+public class TableVersionListener {
+  @Autowired private TableVersions tableVersions;
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void rowChanged(Object entity) {
+    tableVersions.changed(entity.getClass());
+  }
+}
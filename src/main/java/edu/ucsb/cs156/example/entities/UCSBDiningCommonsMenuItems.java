@@ -1,9 +1,13 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,12 +19,19 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsbdiningcommonsmenuitems")
-public class UCSBDiningCommonsMenuItems {
+@EntityListeners(TableVersionListener.class)
+public class UCSBDiningCommonsMenuItems implements Versioned {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "UCSBDININGCOMMONSMENUITEMS_SEQ")
+  @SequenceGenerator(
+      name = "UCSBDININGCOMMONSMENUITEMS_SEQ",
+      sequenceName = "UCSBDININGCOMMONSMENUITEMS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String diningCommonsCode;
   private String name;
   private String station;
+
+  @Version @JsonIgnore private long version;
 }
@@ -1,7 +1,10 @@
 package edu.ucsb.cs156.example.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,9 +15,12 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ucsborganization")
-public class UCSBOrganization {
+@EntityListeners(TableVersionListener.class)
+public class UCSBOrganization implements Versioned {
   @Id private String orgCode;
   private String orgTranslationShort;
   private String orgTranslation;
   private boolean inactive;
+
+  @Version @JsonIgnore private long version;
 }
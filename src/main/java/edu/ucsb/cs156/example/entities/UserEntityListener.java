@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.services.UserChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * This is a JPA entity listener that publishes a UserChangedEvent whenever a User is inserted,
+ * updated or deleted, whichever code path made the change. Hibernate gets it from the Spring
+ * context, so it can be injected.
+ */
+@Component
+public class UserEntityListener {
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  @PostPersist
+  @PostUpdate
+  public void userSaved(User user) {
+    eventPublisher.publishEvent(new UserChangedEvent(user.getEmail(), user.getAdmin()));
+  }
+
+  @PostRemove
+  public void userRemoved(User user) {
+    eventPublisher.publishEvent(new UserChangedEvent(user.getEmail(), false));
+  }
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.entities;
+
+/**
+ * This is implemented by the entities whose rows have a version, which every update of a row adds
+ * one to. The version of a row is sent as its ETag, so that a client can update or delete the row
+ * only if no one else has changed it since the client read it (see ApiController).
+ */
+public interface Versioned {
+  /**
+   * @return the version of the row
+   */
+  long getVersion();
+
+  /**
+   * @param version the version of the row
+   */
+  void setVersion(long version);
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException that is used to indicate that a request for
+ * a page of a table sorts or filters by a field that the table does not have, or filters by a value
+ * that does not fit the field.
+ */
+public class InvalidPageRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public InvalidPageRequestException(String message) {
+    super(message);
+  }
+}
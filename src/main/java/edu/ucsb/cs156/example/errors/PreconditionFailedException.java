@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException that is used to indicate that the If-Match
+ * of a request is not the ETag of the current version of the row it would change.
+ */
+public class PreconditionFailedException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param entityType the class of the entity, e.g. Restaurant.class
+   * @param id the id of the row
+   * @param ifMatch the If-Match of the request
+   */
+  public PreconditionFailedException(Class<?> entityType, Object id, String ifMatch) {
+    super(
+        "%s with id %s does not match If-Match %s"
+            .formatted(entityType.getSimpleName(), id, ifMatch));
+  }
+}
@@ -1,13 +1,17 @@
 package edu.ucsb.cs156.example.jobs;
 
 import edu.ucsb.cs156.example.services.jobs.JobContext;
-import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.PersistentJob;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @Builder
-public class TestJob implements JobContextConsumer {
+@Jacksonized
+@Getter
+public class TestJob implements PersistentJob {
 
   private boolean fail;
   private int sleepMs;
@@ -24,4 +28,9 @@ public class TestJob implements JobContextConsumer {
     }
     ctx.log("Goodbye from test job!");
   }
+
+  @Override
+  public boolean idempotent() {
+    return true;
+  }
 }
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class for the result of one item of a bulk request. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkResult {
+
+  /** What happened to an item. */
+  public enum Status {
+    CREATED,
+    UPDATED,
+    DELETED,
+    INVALID, // the item could not be read, or breaks a rule of the request; nothing was written
+    NOT_FOUND, // there is no row with the id of the item
+    FAILED // the database refused the item
+  }
+
+  private int index; // position of the item in the request, from 0
+  private Status status;
+  private Object id; // id of the row, if known
+  private String message; // why the item was not written
+}
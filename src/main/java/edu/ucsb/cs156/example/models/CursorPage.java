@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.errors.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for one page of a keyset-paginated listing.
+ *
+ * <p>The cursor is an opaque string that encodes the sort key of the last item on the page. The
+ * client passes it back to get the next page, which the server finds with an indexed "sort key is
+ * past the cursor" condition instead of an OFFSET.
+ *
+ * @param <T> type of the items
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CursorPage<T> {
+  private List<T> content;
+  private int size; // requested page size
+  private String nextCursor; // null on the last page
+
+  private static final String SEPARATOR = "|";
+
+  /**
+   * Builds a page from the result of a query that asked for one item more than the page size. If
+   * that extra item was found, there is a next page, and its cursor points after the last item of
+   * this page.
+   *
+   * @param rows the rows found, at most size + 1
+   * @param size the page size
+   * @param sortKey returns the sort key of an item, as values to put in the cursor
+   * @return the page
+   */
+  public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, List<?>> sortKey) {
+    if (rows.size() <= size) {
+      return new CursorPage<>(rows, size, null);
+    }
+    List<T> content = rows.subList(0, size);
+    return new CursorPage<>(content, size, encodeCursor(sortKey.apply(content.get(size - 1))));
+  }
+
+  /**
+   * @param values the values of the sort key
+   * @return an opaque, URL-safe cursor
+   */
+  public static String encodeCursor(List<?> values) {
+    String key = values.stream().map(Object::toString).collect(Collectors.joining(SEPARATOR));
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param cursor a cursor made by encodeCursor
+   * @param parser turns the values of the sort key back into a key
+   * @return the key
+   * @throws InvalidCursorException if the cursor cannot be decoded or parsed
+   */
+  public static <K> K decodeCursor(String cursor, Function<List<String>, K> parser) {
+    try {
+      String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      return parser.apply(Arrays.asList(key.split("\\" + SEPARATOR, -1)));
+    } catch (RuntimeException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
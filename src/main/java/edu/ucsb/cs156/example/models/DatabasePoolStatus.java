@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that reports on the pool of database connections.
+ *
+ * <p>A request that waits for a connection (threadsAwaitingConnection, acquireMaxMs) is waiting on
+ * the database, not on the CPU: the pool is saturated, and either the database is slow (usageMeanMs
+ * is high) or the pool is too small for the load.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DatabasePoolStatus {
+  private String poolName;
+  private int maximumPoolSize;
+  private int minimumIdle;
+  private long connectionTimeoutMs;
+  private long leakDetectionThresholdMs; // 0 if leak detection is off
+  private int activeConnections; // connections in use
+  private int idleConnections;
+  private int totalConnections;
+  private int threadsAwaitingConnection; // threads waiting for a connection right now
+  private double utilization; // activeConnections / maximumPoolSize
+  private boolean saturated; // every connection is in use, or a thread is waiting for one
+  private long connectionsAcquired; // since startup
+  private double acquireMeanMs; // mean time a thread waited for a connection
+  private double acquireMaxMs; // longest time a thread waited for a connection, recently
+  private double usageMeanMs; // mean time a connection was in use before it was returned
+  private long connectionTimeouts; // threads that gave up waiting for a connection since startup
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class that reports on the executor that runs jobs. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobExecutorStatus {
+  private int maxConcurrent;
+  private int maxRunningPerUser;
+  private int runningJobs;
+  private int queueSize; // jobs waiting for a free slot
+  private int queueCapacity;
+  private boolean virtualThreads;
+  private long rejectedJobs; // jobs rejected since startup because the queue was full
+}
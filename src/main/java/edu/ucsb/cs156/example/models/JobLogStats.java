@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class that reports on the buffered writing of job log lines. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobLogStats {
+  private int openWriters;
+  private int bufferedLines;
+  private long linesAppended;
+  private long linesWritten;
+  private long linesDropped; // lines discarded because a buffer was full or a flush failed
+  private long flushes;
+  private double linesPerSecond; // lines appended per second, over the last flush interval
+  private double averageFlushMillis;
+  private double maxFlushMillis;
+}
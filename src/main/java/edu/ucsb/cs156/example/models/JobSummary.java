@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that summarizes a job for the jobs listing, without its log.
+ *
+ * <p>It is built directly by a query in JobsRepository, so the log is never loaded.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private long id;
+  private String status;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private Long createdById; // null for jobs not started by a user
+  private long logLines; // number of lines in the log; fetch the log itself with /api/jobs?id=
+}
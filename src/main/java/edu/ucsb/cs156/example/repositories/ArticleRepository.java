@@ -1,9 +1,71 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Article;
-import org.springframework.data.repository.CrudRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The ArticlesRepository is a repository for Articles entities. */
 @Repository
-public interface ArticleRepository extends CrudRepository<Article, Long> {}
+public interface ArticleRepository extends VersionedTableRepository<Article, Long> {
+
+  /**
+   * This method returns the newest articles. Those without a dateAdded are left out.
+   *
+   * @param limit maximum number of articles to return
+   * @return the articles, newest first
+   */
+  @Query(
+      """
+      select a from articles a where a.dateAdded is not null
+      order by a.dateAdded desc, a.id desc
+      """)
+  List<Article> findNewest(Limit limit);
+
+  /**
+   * This method returns the articles that come after a given one in the listing (newest first). It
+   * seeks on the (dateAdded, id) index instead of skipping rows.
+   *
+   * @param dateAdded dateAdded of the last row of the previous page
+   * @param id id of the last row of the previous page
+   * @param limit maximum number of articles to return
+   * @return the articles, newest first
+   */
+  @Query(
+      """
+      select a from articles a
+      where a.dateAdded < :dateAdded or (a.dateAdded = :dateAdded and a.id < :id)
+      order by a.dateAdded desc, a.id desc
+      """)
+  List<Article> findOlderThan(LocalDateTime dateAdded, long id, Limit limit);
+
+  /**
+   * This method replaces the fields of an article with one statement, without reading it first, and
+   * adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update articles a set
+        a.title = :#{#incoming.title},
+        a.url = :#{#incoming.url},
+        a.explanation = :#{#incoming.explanation},
+        a.email = :#{#incoming.email},
+        a.dateAdded = :#{#incoming.dateAdded},
+        a.version = a.version + 1
+      where a.id = :#{#incoming.id} and (:versions is null or a.version in :versions)
+      """)
+  int updateRow(Article incoming, Collection<Long> versions);
+}
@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * This is a Specification that keeps the rows of a table whose fields have the values given in the
+ * parameters of a request, e.g. ?title=marlowe&amp;size=20.
+ *
+ * <p>A String field matches if it contains the value, ignoring case; a number, boolean or enum
+ * field matches if it equals the value. Parameters that choose the page (page, size and sort) and
+ * parameters with an empty value are ignored.
+ *
+ * @param <T> the entity type
+ */
+public class FieldFilter<T> implements Specification<T> {
+
+  private static final Set<String> PAGE_PARAMETERS = Set.of("page", "size", "sort");
+
+  private static final ConversionService conversionService =
+      DefaultConversionService.getSharedInstance();
+
+  private final Map<String, Object> values;
+
+  private FieldFilter(Map<String, Object> values) {
+    this.values = values;
+  }
+
+  /**
+   * Builds the filter for the parameters of a request.
+   *
+   * @param <T> the entity type
+   * @param table the entity class of the table
+   * @param parameters the parameters of the request
+   * @return the filter
+   * @throws InvalidPageRequestException if a parameter names a field that the table does not have
+   *     or cannot be filtered by, or has a value that does not fit the field
+   */
+  public static <T> FieldFilter<T> of(Class<T> table, Map<String, String> parameters) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    parameters.forEach(
+        (name, value) -> {
+          if (PAGE_PARAMETERS.contains(name) || value.isEmpty()) {
+            return;
+          }
+          Class<?> type = fieldType(table, name);
+          if (type != String.class && !conversionService.canConvert(String.class, type)) {
+            throw new InvalidPageRequestException("Cannot filter by field: %s".formatted(name));
+          }
+          try {
+            values.put(name, conversionService.convert(value, type));
+          } catch (ConversionException e) {
+            throw new InvalidPageRequestException(
+                "Invalid value for field %s: %s".formatted(name, value));
+          }
+        });
+    return new FieldFilter<>(values);
+  }
+
+  /**
+   * Checks that a table has the fields that a request sorts by.
+   *
+   * @param table the entity class of the table
+   * @param sort the sort order of the request
+   * @throws InvalidPageRequestException if the table does not have one of the fields
+   */
+  public static void checkSort(Class<?> table, Sort sort) {
+    sort.forEach(order -> fieldType(table, order.getProperty()));
+  }
+
+  private static Class<?> fieldType(Class<?> table, String name) {
+    try {
+      return table.getDeclaredField(name).getType();
+    } catch (NoSuchFieldException e) {
+      throw new InvalidPageRequestException("Unknown field: %s".formatted(name));
+    }
+  }
+
+  /**
+   * @return the values to filter by, by field name
+   */
+  public Map<String, Object> getValues() {
+    return values;
+  }
+
+  @Override
+  public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+    return builder.and(
+        values.entrySet().stream()
+            .map(
+                entry ->
+                    entry.getValue() instanceof String value
+                        ? builder.like(
+                            builder.lower(root.<String>get(entry.getKey())),
+                            "%" + escapeLike(value.toLowerCase()) + "%",
+                            '\\')
+                        : builder.equal(root.get(entry.getKey()), entry.getValue()))
+            .toArray(Predicate[]::new));
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
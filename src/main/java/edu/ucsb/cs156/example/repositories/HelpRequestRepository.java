@@ -1,9 +1,72 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
-import org.springframework.data.repository.CrudRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The HelpRequestRepository is a repository for HelpRequest entities. */
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {}
+public interface HelpRequestRepository extends VersionedTableRepository<HelpRequest, Long> {
+
+  /**
+   * This method returns the newest help requests. Those without a requestTime are left out.
+   *
+   * @param limit maximum number of help requests to return
+   * @return the help requests, newest first
+   */
+  @Query(
+      """
+      select h from helprequests h where h.requestTime is not null
+      order by h.requestTime desc, h.id desc
+      """)
+  List<HelpRequest> findNewest(Limit limit);
+
+  /**
+   * This method returns the help requests that come after a given one in the listing (newest
+   * first). It seeks on the (requestTime, id) index instead of skipping rows.
+   *
+   * @param requestTime requestTime of the last row of the previous page
+   * @param id id of the last row of the previous page
+   * @param limit maximum number of help requests to return
+   * @return the help requests, newest first
+   */
+  @Query(
+      """
+      select h from helprequests h
+      where h.requestTime < :requestTime or (h.requestTime = :requestTime and h.id < :id)
+      order by h.requestTime desc, h.id desc
+      """)
+  List<HelpRequest> findOlderThan(LocalDateTime requestTime, long id, Limit limit);
+
+  /**
+   * This method replaces the fields of a help request with one statement, without reading it first,
+   * and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update helprequests h set
+        h.requesterEmail = :#{#incoming.requesterEmail},
+        h.teamId = :#{#incoming.teamId},
+        h.tableOrBreakoutRoom = :#{#incoming.tableOrBreakoutRoom},
+        h.requestTime = :#{#incoming.requestTime},
+        h.explanation = :#{#incoming.explanation},
+        h.solved = :#{#incoming.solved},
+        h.version = h.version + 1
+      where h.id = :#{#incoming.id} and (:versions is null or h.version in :versions)
+      """)
+  int updateRow(HelpRequest incoming, Collection<Long> versions);
+}
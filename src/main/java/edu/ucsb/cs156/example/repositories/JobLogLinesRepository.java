@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobLogLinesRepository is a repository for JobLogLine entities. */
+@Repository
+public interface JobLogLinesRepository extends CrudRepository<JobLogLine, Long> {
+  /**
+   * This method streams the log lines of a job in order. It must be called inside a transaction,
+   * and the stream must be closed by the caller.
+   *
+   * @param jobId id of the job
+   * @return stream of the job's log lines, ordered by line number
+   */
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  Stream<JobLogLine> streamByJobIdOrderByLineNumberAsc(long jobId);
+
+  /**
+   * This method streams the log lines of a job from a given line on, in order. It must be called
+   * inside a transaction, and the stream must be closed by the caller.
+   *
+   * @param jobId id of the job
+   * @param lineNumber number of the first line to return
+   * @return stream of the job's log lines, ordered by line number
+   */
+  @QueryHints({
+    @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HINT_READ_ONLY, value = "true")
+  })
+  Stream<JobLogLine> streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+      long jobId, int lineNumber);
+
+  /**
+   * This method deletes all log lines of a job in one statement.
+   *
+   * @param jobId id of the job
+   * @return number of lines deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from job_log_lines l where l.jobId = :jobId")
+  int deleteByJobId(long jobId);
+
+  long countByJobId(long jobId);
+}
@@ -1,8 +1,156 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long> {
+
+  String SUMMARY =
+      """
+      select new edu.ucsb.cs156.example.models.JobSummary(
+        j.id, j.status, j.createdAt, j.updatedAt, u.id,
+        j.logLineCount + (select count(l) from job_log_lines l where l.jobId = j.id))
+      from jobs j left join j.createdBy u
+      """;
+
+  /**
+   * This method returns the newest jobs, without their logs.
+   *
+   * @param limit maximum number of jobs to return
+   * @return summaries of the jobs, newest first
+   */
+  @Query(SUMMARY + "order by j.createdAt desc, j.id desc")
+  List<JobSummary> findSummaries(Limit limit);
+
+  /**
+   * This method returns the jobs that come after a given job in the listing (newest first), without
+   * their logs. It seeks on the (created_at, id) index instead of skipping rows.
+   *
+   * @param createdAt createdAt of the last job of the previous page
+   * @param id id of the last job of the previous page
+   * @param limit maximum number of jobs to return
+   * @return summaries of the jobs, newest first
+   */
+  @Query(
+      SUMMARY
+          + """
+          where j.createdAt < :createdAt or (j.createdAt = :createdAt and j.id < :id)
+          order by j.createdAt desc, j.id desc
+          """)
+  List<JobSummary> findSummariesBefore(ZonedDateTime createdAt, long id, Limit limit);
+
+  /**
+   * This method returns the ids of jobs with one of the given statuses that were created before a
+   * given time.
+   *
+   * @param statuses the statuses
+   * @param before the time
+   * @param limit maximum number of ids to return
+   * @return ids of the jobs, oldest first
+   */
+  @Query(
+      """
+      select j.id from jobs j
+      where j.status in :statuses and j.createdAt < :before
+      order by j.createdAt, j.id
+      """)
+  List<Long> findIdsCreatedBefore(Collection<String> statuses, ZonedDateTime before, Limit limit);
+
+  /**
+   * This method returns the ids of the oldest jobs with one of the given statuses.
+   *
+   * @param statuses the statuses
+   * @param limit maximum number of ids to return
+   * @return ids of the jobs, oldest first
+   */
+  @Query("select j.id from jobs j where j.status in :statuses order by j.createdAt, j.id")
+  List<Long> findOldestIds(Collection<String> statuses, Limit limit);
+
+  long countByStatusIn(Collection<String> statuses);
+
+  /**
+   * This method returns jobs created before a given time whose log has not been compacted yet and
+   * is not empty.
+   *
+   * @param statuses statuses of the jobs
+   * @param before the time
+   * @param afterId only jobs with a greater id are returned
+   * @param limit maximum number of jobs to return
+   * @return the jobs, ordered by id
+   */
+  @Query(
+      """
+      select j from jobs j
+      where j.status in :statuses and j.createdAt < :before and j.id > :afterId
+        and j.logGzip is null
+        and (j.log is not null or exists (select l.id from job_log_lines l where l.jobId = j.id))
+      order by j.id
+      """)
+  List<Job> findJobsToCompact(
+      Collection<String> statuses, ZonedDateTime before, long afterId, Limit limit);
+
+  /**
+   * This method deletes jobs in one statement. Their log lines are deleted by the database (ON
+   * DELETE CASCADE).
+   *
+   * @param ids ids of the jobs
+   * @return number of jobs deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from jobs j where j.id in :ids")
+  int deleteByIds(Collection<Long> ids);
+
+  /**
+   * This method returns jobs with one of the given statuses whose heartbeat is older than a given
+   * time, i.e. queued or running jobs whose server has stopped.
+   *
+   * @param statuses the statuses
+   * @param before the time
+   * @param limit maximum number of jobs to return
+   * @return the jobs, ordered by id
+   */
+  @Query(
+      """
+      select j from jobs j
+      where j.status in :statuses and j.heartbeatAt < :before
+      order by j.id
+      """)
+  List<Job> findStaleJobs(Collection<String> statuses, ZonedDateTime before, Limit limit);
+
+  /**
+   * This method sets the heartbeat of jobs in one statement.
+   *
+   * @param ids ids of the jobs
+   * @param now the new heartbeat
+   * @return number of jobs updated
+   */
+  @Transactional
+  @Modifying
+  @Query("update jobs j set j.heartbeatAt = :now where j.id in :ids")
+  int updateHeartbeats(Collection<Long> ids, ZonedDateTime now);
+
+  /**
+   * This method sets the heartbeat of a job, but only if it has not changed since the job was read.
+   * Of several servers that try to take over the same stale job, only one succeeds.
+   *
+   * @param id id of the job
+   * @param heartbeatAt the heartbeat the job was read with
+   * @param now the new heartbeat
+   * @return 1 if the job was taken over, 0 otherwise
+   */
+  @Transactional
+  @Modifying
+  @Query("update jobs j set j.heartbeatAt = :now where j.id = :id and j.heartbeatAt = :heartbeatAt")
+  int claimStaleJob(long id, ZonedDateTime heartbeatAt, ZonedDateTime now);
+}
@@ -1,8 +1,70 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
-import org.springframework.data.repository.CrudRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository extends VersionedTableRepository<MenuItemReview, Long> {
+
+  /**
+   * This method returns the newest reviews. Those without a dateReviewed are left out.
+   *
+   * @param limit maximum number of reviews to return
+   * @return the reviews, newest first
+   */
+  @Query(
+      """
+      select r from menuitemreview r where r.dateReviewed is not null
+      order by r.dateReviewed desc, r.id desc
+      """)
+  List<MenuItemReview> findNewest(Limit limit);
+
+  /**
+   * This method returns the reviews that come after a given one in the listing (newest first). It
+   * seeks on the (dateReviewed, id) index instead of skipping rows.
+   *
+   * @param dateReviewed dateReviewed of the last row of the previous page
+   * @param id id of the last row of the previous page
+   * @param limit maximum number of reviews to return
+   * @return the reviews, newest first
+   */
+  @Query(
+      """
+      select r from menuitemreview r
+      where r.dateReviewed < :dateReviewed or (r.dateReviewed = :dateReviewed and r.id < :id)
+      order by r.dateReviewed desc, r.id desc
+      """)
+  List<MenuItemReview> findOlderThan(LocalDateTime dateReviewed, long id, Limit limit);
+
+  /**
+   * This method replaces the fields of a menu item review with one statement, without reading it
+   * first, and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update menuitemreview r set
+        r.itemId = :#{#incoming.itemId},
+        r.reviewerEmail = :#{#incoming.reviewerEmail},
+        r.stars = :#{#incoming.stars},
+        r.dateReviewed = :#{#incoming.dateReviewed},
+        r.comments = :#{#incoming.comments},
+        r.version = r.version + 1
+      where r.id = :#{#incoming.id} and (:versions is null or r.version in :versions)
+      """)
+  int updateRow(MenuItemReview incoming, Collection<Long> versions);
+}
@@ -1,10 +1,40 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The RecommendationRequestRepository is a repository for RecomendationRequest entities */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends VersionedTableRepository<RecommendationRequest, Long> {
+  /**
+   * This method replaces the fields of a recommendation request with one statement, without reading
+   * it first, and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update RecommendationRequests r set
+        r.code = :#{#incoming.code},
+        r.requesterEmail = :#{#incoming.requesterEmail},
+        r.professorEmail = :#{#incoming.professorEmail},
+        r.explanation = :#{#incoming.explanation},
+        r.dateRequested = :#{#incoming.dateRequested},
+        r.dateNeeded = :#{#incoming.dateNeeded},
+        r.done = :#{#incoming.done},
+        r.version = r.version + 1
+      where r.id = :#{#incoming.id} and (:versions is null or r.version in :versions)
+      """)
+  int updateRow(RecommendationRequest incoming, Collection<Long> versions);
+}
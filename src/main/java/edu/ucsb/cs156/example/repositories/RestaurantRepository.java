@@ -1,9 +1,34 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The RestaurantRepository is a repository for Restaurant entities */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {}
+public interface RestaurantRepository extends VersionedTableRepository<Restaurant, Long> {
+  /**
+   * This method replaces the fields of a restaurant with one statement, without reading it first,
+   * and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update restaurants r set
+        r.name = :#{#incoming.name},
+        r.description = :#{#incoming.description},
+        r.version = r.version + 1
+      where r.id = :#{#incoming.id} and (:versions is null or r.version in :versions)
+      """)
+  int updateRow(Restaurant incoming, Collection<Long> versions);
+}
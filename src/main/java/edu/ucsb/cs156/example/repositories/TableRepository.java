@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.repositories;
+
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+/**
+ * The TableRepository is the base of the repositories of tables that are listed one page at a time,
+ * sorted and filtered by the values of their fields (see FieldFilter), or exported whole (see
+ * TableExporter).
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the id of the entity
+ */
+@NoRepositoryBean
+public interface TableRepository<T, ID>
+    extends CrudRepository<T, ID>, PagingAndSortingRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+  /** Number of rows that streamAll fetches from the database at a time. */
+  String STREAM_FETCH_SIZE = "500";
+
+  /**
+   * This method reads one slice of the rows of the table. Unlike findAll(Pageable), it does not
+   * count the rows of the table; it reads one row more than the slice holds to tell whether there
+   * are more.
+   *
+   * @param pageable the slice and its size
+   * @return the rows of the slice
+   */
+  Slice<T> findSliceBy(Pageable pageable);
+
+  /**
+   * This method reads all the rows of the table through a forward-only database cursor, fetching
+   * STREAM_FETCH_SIZE rows at a time. It must be called in a transaction, and the stream must be
+   * closed.
+   *
+   * @return the rows, read-only
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select e from #{#entityName} e")
+  Stream<T> streamAll();
+}
@@ -1,10 +1,36 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommonsMenuItems entities */
 @Repository
 public interface UCSBDiningCommonsMenuItemsRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItems, Long> {}
+    extends VersionedTableRepository<UCSBDiningCommonsMenuItems, Long> {
+  /**
+   * This method replaces the fields of a dining commons menu item with one statement, without
+   * reading it first, and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update ucsbdiningcommonsmenuitems m set
+        m.diningCommonsCode = :#{#incoming.diningCommonsCode},
+        m.name = :#{#incoming.name},
+        m.station = :#{#incoming.station},
+        m.version = m.version + 1
+      where m.id = :#{#incoming.id} and (:versions is null or m.version in :versions)
+      """)
+  int updateRow(UCSBDiningCommonsMenuItems incoming, Collection<Long> versions);
+}
@@ -1,9 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /** The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {}
+public interface UCSBDiningCommonsRepository
+    extends VersionedTableRepository<UCSBDiningCommons, String> {
+  /**
+   * This method replaces the fields of a dining commons with one statement, without reading it
+   * first, and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the code of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that code and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update ucsbdiningcommons c set
+        c.name = :#{#incoming.name},
+        c.hasSackMeal = :#{#incoming.hasSackMeal},
+        c.hasTakeOutMeal = :#{#incoming.hasTakeOutMeal},
+        c.hasDiningCam = :#{#incoming.hasDiningCam},
+        c.latitude = :#{#incoming.latitude},
+        c.longitude = :#{#incoming.longitude},
+        c.version = c.version + 1
+      where c.code = :#{#incoming.code} and (:versions is null or c.version in :versions)
+      """)
+  int updateRow(UCSBDiningCommons incoming, Collection<Long> versions);
+}
@@ -1,8 +1,35 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {}
+public interface UCSBOrganizationRepository
+    extends VersionedTableRepository<UCSBOrganization, String> {
+  /**
+   * This method replaces the fields of an organization with one statement, without reading it
+   * first, and adds one to its version.
+   *
+   * @param incoming the new values of the fields, with the orgCode of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that orgCode and one of
+   *     those versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      """
+      update ucsborganization o set
+        o.orgTranslationShort = :#{#incoming.orgTranslationShort},
+        o.orgTranslation = :#{#incoming.orgTranslation},
+        o.inactive = :#{#incoming.inactive},
+        o.version = o.version + 1
+      where o.orgCode = :#{#incoming.orgCode} and (:versions is null or o.version in :versions)
+      """)
+  int updateRow(UCSBOrganization incoming, Collection<Long> versions);
+}
@@ -1,13 +1,14 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /** The UserRepository is a repository for User entities. */
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends TableRepository<User, Long> {
   /**
    * This method returns a User entity with a given email.
    *
@@ -15,4 +16,12 @@ public interface UserRepository extends CrudRepository<User, Long> {
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns the email addresses of the users that are admins.
+   *
+   * @return list of email addresses
+   */
+  @Query("SELECT u.email FROM users u WHERE u.admin = true")
+  List<String> findAdminEmails();
 }
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.Versioned;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The VersionedTableRepository is the base of the repositories of tables whose rows have a version
+ * (see Versioned).
+ *
+ * <p>Its deleteRow and updateRow change one row with one statement instead of reading it first, and
+ * only if the row still has a version the client read. Such statements do not call entity
+ * listeners, so the caller records the change in TableVersions itself.
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the id of the entity
+ */
+@NoRepositoryBean
+public interface VersionedTableRepository<T extends Versioned, ID> extends TableRepository<T, ID> {
+
+  /**
+   * This method deletes a row with one statement, without reading it first.
+   *
+   * @param id id of the row to delete
+   * @param versions the versions of which the row must have one, or null to delete it whatever its
+   *     version
+   * @return the number of rows deleted: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  @Transactional
+  @Modifying
+  @Query(
+      "delete from #{#entityName} e where id(e) = :id and (:versions is null or e.version in :versions)")
+  int deleteRow(ID id, Collection<Long> versions);
+
+  /**
+   * This method replaces the fields of a row with one statement, without reading it first, and adds
+   * one to its version. Each repository declares it with the statement for the fields of its table.
+   *
+   * @param incoming the new values of the fields, with the id of the row to update
+   * @param versions the versions of which the row must have one, or null to update it whatever its
+   *     version
+   * @return the number of rows updated: 1, or 0 if there is no row with that id and one of those
+   *     versions
+   */
+  int updateRow(T incoming, Collection<Long> versions);
+}
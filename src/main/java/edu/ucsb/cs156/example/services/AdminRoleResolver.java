@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that decides whether an email belongs to an admin, without querying the
+ * database.
+ *
+ * <p>An email belongs to an admin if it is in app.admin.emails or its User is an admin. The emails
+ * of admin Users are loaded when the application starts and every app.admin.refresh-interval-ms
+ * after that, and kept up to date in between from UserChangedEvent, so a user who is made an admin
+ * here gets the role on their next login. The periodic reload picks up changes made elsewhere, e.g.
+ * by another server.
+ */
+@Service
+public class AdminRoleResolver {
+  @Autowired private UserRepository userRepository;
+
+  @Value("${app.admin.emails}")
+  private final Set<String> configuredAdminEmails = new HashSet<>();
+
+  private volatile Set<String> adminUserEmails = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param email email address of a user
+   * @return whether the user with the given email is an admin
+   */
+  public boolean isAdmin(String email) {
+    return configuredAdminEmails.contains(email) || adminUserEmails.contains(email);
+  }
+
+  /**
+   * @param email email address of a user
+   * @return whether the email is in app.admin.emails, so that its User must be made an admin
+   */
+  public boolean isConfiguredAdmin(String email) {
+    return configuredAdminEmails.contains(email);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    refresh();
+  }
+
+  /** Reloads the emails of the Users that are admins. */
+  @Scheduled(
+      fixedDelayString = "${app.admin.refresh-interval-ms:600000}",
+      initialDelayString = "${app.admin.refresh-interval-ms:600000}")
+  public void refresh() {
+    Set<String> emails = ConcurrentHashMap.newKeySet();
+    emails.addAll(userRepository.findAdminEmails());
+    adminUserEmails = emails;
+  }
+
+  /** Updates the admin emails once the change has committed, so a rollback does not grant it. */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void userChanged(UserChangedEvent event) {
+    if (event.admin()) {
+      adminUserEmails.add(event.email());
+    } else {
+      adminUserEmails.remove(event.email());
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that writes one structured log line per authentication event to the logger
+ * "audit.auth", instead of dumping users and authorities on every request.
+ *
+ * <p>Events are logged at app.audit.auth.level. Of each kind of event, a fraction
+ * app.audit.auth.sample-rate is kept, and at most app.audit.auth.max-events-per-minute are logged
+ * per minute; the next line that is logged says how many were suppressed. Nothing is formatted for
+ * an event that is not logged.
+ */
+@Slf4j(topic = "audit.auth")
+@Service
+public class AuthAuditLogger {
+
+  /** The kinds of authentication events. */
+  public enum Event {
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    LOGOUT,
+    USER_CREATED,
+    ADMIN_GRANTED,
+    SESSION_TOKEN_REJECTED
+  }
+
+  private static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  @Value("${app.audit.auth.level:INFO}")
+  private Level level;
+
+  @Value("${app.audit.auth.sample-rate:1.0}")
+  private double sampleRate;
+
+  @Value("${app.audit.auth.max-events-per-minute:60}")
+  private int maxEventsPerMinute;
+
+  private final Map<Event, RateWindow> windows = new ConcurrentHashMap<>();
+
+  /** Counts the events of one kind logged in the current minute. */
+  private final class RateWindow {
+    private long startNanos;
+    private int logged = 0;
+    private long suppressed = 0;
+
+    private RateWindow(long nowNanos) {
+      startNanos = nowNanos;
+    }
+
+    /**
+     * @return the number of events suppressed since the last one that was logged, or -1 if this
+     *     event must be suppressed
+     */
+    private synchronized long acquire(long nowNanos) {
+      if (nowNanos - startNanos >= WINDOW_NANOS) {
+        startNanos = nowNanos;
+        logged = 0;
+      }
+      if (logged >= maxEventsPerMinute) {
+        suppressed++;
+        return -1;
+      }
+      logged++;
+      long suppressedBefore = suppressed;
+      suppressed = 0;
+      return suppressedBefore;
+    }
+  }
+
+  /**
+   * Logs an authentication event, unless it is sampled out or the rate limit for its kind is
+   * reached.
+   *
+   * @param event the kind of event
+   * @param keyValues details of the event, as alternating keys and values
+   */
+  public void record(Event event, Object... keyValues) {
+    if (!log.isEnabledForLevel(level)
+        || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+      return;
+    }
+    long nowNanos = System.nanoTime();
+    long suppressed =
+        windows.computeIfAbsent(event, e -> new RateWindow(nowNanos)).acquire(nowNanos);
+    if (suppressed < 0) {
+      return;
+    }
+
+    LoggingEventBuilder builder = log.atLevel(level).addKeyValue("event", event);
+    StringBuilder message = new StringBuilder("event=").append(event);
+    for (int i = 0; i + 1 < keyValues.length; i += 2) {
+      String key = String.valueOf(keyValues[i]);
+      builder.addKeyValue(key, keyValues[i + 1]);
+      message.append(' ').append(key).append('=').append(keyValues[i + 1]);
+    }
+    if (suppressed > 0) {
+      builder.addKeyValue("suppressed", suppressed);
+      message.append(" suppressed=").append(suppressed);
+    }
+    builder.log(message.toString());
+  }
+}
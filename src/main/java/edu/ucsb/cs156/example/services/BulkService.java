@@ -0,0 +1,309 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Versioned;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkResult.Status;
+import edu.ucsb.cs156.example.repositories.TableRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * This is a service that creates, updates or deletes many rows of a table in one request.
+ *
+ * <p>The items of a request are read one at a time, from a JSON array or from NDJSON (one item per
+ * line), and written app.api.bulk.chunk-size at a time, each chunk in one transaction whose
+ * statements Hibernate sends in JDBC batches. An item that cannot be read, has a field the entity
+ * does not have, or breaks a rule of the request is reported as INVALID and skipped. If the
+ * database refuses a chunk, its items are written again one per transaction, so that only the items
+ * it refuses are reported as FAILED.
+ */
+@Slf4j
+@Service
+public class BulkService {
+
+  @Autowired private ObjectMapper mapper;
+
+  // resolved on first use, so that the service can be created without a database in tests
+  @Lazy @Autowired private EntityManager entityManager;
+
+  @Lazy @Autowired private PlatformTransactionManager transactionManager;
+
+  @Value("${app.api.bulk.chunk-size:500}")
+  private int chunkSize;
+
+  /** An item of a request, with its position in the request. */
+  private record Item<V>(int index, V value) {}
+
+  /** Writes a chunk of items in the current transaction. */
+  @FunctionalInterface
+  private interface ChunkWriter<V> {
+    List<BulkResult> write(List<Item<V>> items);
+  }
+
+  /**
+   * Creates rows. Ids that the database generates must not be given; other ids must be.
+   *
+   * @param <T> the entity type
+   * @param body the items, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each item, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  public <T> List<BulkResult> create(
+      InputStream body, Class<T> table, TableRepository<T, ?> repository) throws IOException {
+    Field idField = idField(table);
+    boolean generatedId = idField.isAnnotationPresent(GeneratedValue.class);
+    return process(
+        body,
+        table,
+        value -> {
+          boolean unset = isUnset(ReflectionUtils.getField(idField, value));
+          if (generatedId && !unset) {
+            return "id must not be given; it is assigned when the row is created";
+          }
+          if (!generatedId && unset) {
+            return "id must be given";
+          }
+          return null;
+        },
+        items -> {
+          for (Item<T> item : items) {
+            if (generatedId) {
+              // a chunk that is written again must get new ids
+              ReflectionUtils.setField(idField, item.value(), unsetId(idField));
+            }
+            entityManager.persist(item.value());
+          }
+          return items.stream()
+              .map(
+                  item ->
+                      result(item, Status.CREATED, ReflectionUtils.getField(idField, item.value())))
+              .toList();
+        });
+  }
+
+  /**
+   * Replaces rows with the items that have their ids, whatever the versions of the rows.
+   *
+   * @param <T> the entity type
+   * @param <ID> the type of the id of the entity
+   * @param body the items, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each item, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  public <T, ID> List<BulkResult> update(
+      InputStream body, Class<T> table, TableRepository<T, ID> repository) throws IOException {
+    Field idField = idField(table);
+    return process(
+        body,
+        table,
+        value -> isUnset(ReflectionUtils.getField(idField, value)) ? "id must be given" : null,
+        items -> {
+          Map<Object, T> found =
+              findRows(repository, items, value -> ReflectionUtils.getField(idField, value))
+                  .stream()
+                  .collect(
+                      Collectors.toMap(row -> ReflectionUtils.getField(idField, row), row -> row));
+          return items.stream()
+              .map(
+                  item -> {
+                    Object id = ReflectionUtils.getField(idField, item.value());
+                    T row = found.get(id);
+                    if (row == null) {
+                      return result(item, Status.NOT_FOUND, id);
+                    }
+                    if (row instanceof Versioned stored) {
+                      // the item replaces the row whatever its version, as a PUT without If-Match
+                      // does; merge would refuse an item whose version is not that of the row
+                      ((Versioned) item.value()).setVersion(stored.getVersion());
+                    }
+                    entityManager.merge(item.value());
+                    return result(item, Status.UPDATED, id);
+                  })
+              .toList();
+        });
+  }
+
+  /**
+   * Deletes rows.
+   *
+   * @param <T> the entity type
+   * @param <ID> the type of the id of the entity
+   * @param body the ids of the rows, as a JSON array or NDJSON
+   * @param table the entity class of the table
+   * @param repository the repository of the table
+   * @return the result of each id, in the order of the request
+   * @throws IOException if the request cannot be read
+   */
+  @SuppressWarnings("unchecked")
+  public <T, ID> List<BulkResult> delete(
+      InputStream body, Class<T> table, TableRepository<T, ID> repository) throws IOException {
+    Field idField = idField(table);
+    return process(
+        body,
+        (Class<Object>) ClassUtils.resolvePrimitiveIfNecessary(idField.getType()),
+        id -> null,
+        items -> {
+          List<T> rows = findRows(repository, items, id -> id);
+          Set<Object> found = ids(idField, rows);
+          rows.forEach(entityManager::remove);
+          return items.stream()
+              .map(
+                  item ->
+                      result(
+                          item,
+                          found.contains(item.value()) ? Status.DELETED : Status.NOT_FOUND,
+                          item.value()))
+              .toList();
+        });
+  }
+
+  /**
+   * Reads the items of a request and writes them one chunk at a time.
+   *
+   * @param check returns why an item is invalid, or null if it is valid
+   */
+  private <V> List<BulkResult> process(
+      InputStream body, Class<V> type, Function<V, String> check, ChunkWriter<V> writer)
+      throws IOException {
+    List<BulkResult> results = new ArrayList<>();
+    List<Item<V>> chunk = new ArrayList<>();
+    try (MappingIterator<V> values =
+        mapper
+            .readerFor(type)
+            .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readValues(body)) {
+      for (int index = 0; ; index++) {
+        V value;
+        try {
+          if (!values.hasNextValue()) {
+            break;
+          }
+          value = values.nextValue();
+        } catch (DatabindException e) {
+          // the item is well-formed JSON, so the next one can still be read
+          results.add(invalid(index, "Cannot read item: " + e.getOriginalMessage()));
+          continue;
+        } catch (JsonProcessingException e) {
+          results.add(invalid(index, "Cannot read request: " + e.getOriginalMessage()));
+          break;
+        }
+        String problem = check.apply(value);
+        if (problem != null) {
+          results.add(invalid(index, problem));
+          continue;
+        }
+        chunk.add(new Item<>(index, value));
+        if (chunk.size() == chunkSize) {
+          results.addAll(writeChunk(chunk, writer));
+          chunk = new ArrayList<>();
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      results.addAll(writeChunk(chunk, writer));
+    }
+    results.sort(Comparator.comparingInt(BulkResult::getIndex));
+    return results;
+  }
+
+  private <V> List<BulkResult> writeChunk(List<Item<V>> chunk, ChunkWriter<V> writer) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try {
+      return transaction.execute(status -> writer.write(chunk));
+    } catch (DataAccessException | TransactionException | PersistenceException e) {
+      log.info(
+          "Bulk write of {} items failed, writing them one at a time: {}",
+          chunk.size(),
+          NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+    }
+    List<BulkResult> results = new ArrayList<>();
+    for (Item<V> item : chunk) {
+      try {
+        results.addAll(transaction.execute(status -> writer.write(List.of(item))));
+      } catch (DataAccessException | TransactionException | PersistenceException e) {
+        results.add(
+            BulkResult.builder()
+                .index(item.index())
+                .status(Status.FAILED)
+                .message(NestedExceptionUtils.getMostSpecificCause(e).getMessage())
+                .build());
+      }
+    }
+    return results;
+  }
+
+  /** Reads the rows with the ids of the given items, with one query. */
+  @SuppressWarnings("unchecked")
+  private static <T, ID, V> List<T> findRows(
+      TableRepository<T, ID> repository, List<Item<V>> items, Function<V, Object> id) {
+    List<ID> ids = items.stream().map(item -> (ID) id.apply(item.value())).toList();
+    return StreamSupport.stream(repository.findAllById(ids).spliterator(), false).toList();
+  }
+
+  private static Set<Object> ids(Field idField, List<?> rows) {
+    return rows.stream()
+        .map(row -> ReflectionUtils.getField(idField, row))
+        .collect(Collectors.toSet());
+  }
+
+  private static BulkResult result(Item<?> item, Status status, Object id) {
+    return BulkResult.builder().index(item.index()).status(status).id(id).build();
+  }
+
+  private static BulkResult invalid(int index, String message) {
+    return BulkResult.builder().index(index).status(Status.INVALID).message(message).build();
+  }
+
+  private static Field idField(Class<?> table) {
+    Field idField =
+        Arrays.stream(table.getDeclaredFields())
+            .filter(field -> field.isAnnotationPresent(Id.class))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException(table + " has no @Id field"));
+    ReflectionUtils.makeAccessible(idField);
+    return idField;
+  }
+
+  private static boolean isUnset(Object id) {
+    return id == null || (id instanceof Number number && number.longValue() == 0);
+  }
+
+  private static Object unsetId(Field idField) {
+    return idField.getType().isPrimitive() ? 0L : null;
+  }
+}
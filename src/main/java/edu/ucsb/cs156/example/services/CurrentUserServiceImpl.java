@@ -3,13 +3,8 @@ package edu.ucsb.cs156.example.services;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,7 +19,6 @@ import org.springframework.stereotype.Service;
  *
  * <p>This is the version of the service used in production.
  */
-@Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
@@ -32,8 +26,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
 
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  @Autowired private UserCache userCache;
+
+  @Autowired private UserProvisioningService userProvisioningService;
 
   /**
    * This method returns the current user as a User object.
@@ -41,17 +36,16 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * @return the current user
    */
   public CurrentUser getCurrentUser() {
-    CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
-    return cu;
+    return CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
   }
 
   /**
    * This method obtains the current user that is logged in with OAuth2, if any. The parameters are
    * automatically injected by Spring.
    *
-   * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * <p>The user is stored in the database when they log in (see UserProvisioningService), so this
+   * method only reads it. A session that started before the user was stored, e.g. one that outlived
+   * a database reset, stores the user here instead.
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -61,47 +55,14 @@ public class CurrentUserServiceImpl extends CurrentUserService {
       SecurityContext securityContext, Authentication authentication) {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
     String email = oAuthUser.getAttribute("email");
-    String googleSub = oAuthUser.getAttribute("sub");
-    String pictureUrl = oAuthUser.getAttribute("picture");
-    String fullName = oAuthUser.getAttribute("name");
-    String givenName = oAuthUser.getAttribute("given_name");
-    String familyName = oAuthUser.getAttribute("family_name");
-    boolean emailVerified = oAuthUser.getAttribute("email_verified");
-    String locale = oAuthUser.getAttribute("locale");
-    String hostedDomain = oAuthUser.getAttribute("hd");
-
-    java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
-
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
-
-    User u =
-        User.builder()
-            .googleSub(googleSub)
-            .email(email)
-            .pictureUrl(pictureUrl)
-            .fullName(fullName)
-            .givenName(givenName)
-            .familyName(familyName)
-            .emailVerified(emailVerified)
-            .locale(locale)
-            .hostedDomain(hostedDomain)
-            .admin(adminEmails.contains(email))
-            .build();
-    userRepository.save(u);
-    return u;
+    return userRepository
+        .findByEmail(email)
+        .orElseGet(() -> userProvisioningService.provision(oAuthUser));
   }
 
   /**
-   * This method returns the current user as a User object.
+   * This method returns the current user as a User object. The user is looked up in the database
+   * only when it is not in the UserCache.
    *
    * @return the current user
    */
@@ -109,8 +70,10 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     SecurityContext securityContext = SecurityContextHolder.getContext();
     Authentication authentication = securityContext.getAuthentication();
 
-    if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+    if (authentication instanceof OAuth2AuthenticationToken token) {
+      String email = token.getPrincipal().getAttribute("email");
+      return userCache.get(
+          email, () -> getOAuth2AuthenticatedUser(securityContext, authentication));
     }
     return null;
   }
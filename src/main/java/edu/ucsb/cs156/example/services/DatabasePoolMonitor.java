@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import edu.ucsb.cs156.example.models.DatabasePoolStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that reports on the pool of database connections (see
+ * spring.datasource.hikari.* in the application properties).
+ *
+ * <p>The counts of connections come from the pool itself; the times it took to get connections and
+ * how long they were used come from the metrics that the pool records in Micrometer, which are also
+ * exported as hikaricp_connections_* at /actuator/prometheus.
+ */
+@Service
+public class DatabasePoolMonitor {
+
+  @Autowired private HikariDataSource dataSource;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  /**
+   * @return how busy the pool is right now, and how long connections took to get since startup
+   */
+  public DatabasePoolStatus getStatus() {
+    String poolName = dataSource.getPoolName();
+    DatabasePoolStatus.DatabasePoolStatusBuilder status =
+        DatabasePoolStatus.builder()
+            .poolName(poolName)
+            .maximumPoolSize(dataSource.getMaximumPoolSize())
+            .minimumIdle(dataSource.getMinimumIdle())
+            .connectionTimeoutMs(dataSource.getConnectionTimeout())
+            .leakDetectionThresholdMs(dataSource.getLeakDetectionThreshold());
+
+    // the pool is started when the first connection is taken
+    HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+    if (pool != null) {
+      int active = pool.getActiveConnections();
+      int waiting = pool.getThreadsAwaitingConnection();
+      status
+          .activeConnections(active)
+          .idleConnections(pool.getIdleConnections())
+          .totalConnections(pool.getTotalConnections())
+          .threadsAwaitingConnection(waiting)
+          .utilization((double) active / dataSource.getMaximumPoolSize())
+          .saturated(waiting > 0 || active >= dataSource.getMaximumPoolSize());
+    }
+
+    Timer acquire =
+        meterRegistry.find("hikaricp.connections.acquire").tag("pool", poolName).timer();
+    if (acquire != null) {
+      status
+          .connectionsAcquired(acquire.count())
+          .acquireMeanMs(acquire.mean(TimeUnit.MILLISECONDS))
+          .acquireMaxMs(acquire.max(TimeUnit.MILLISECONDS));
+    }
+    Timer usage = meterRegistry.find("hikaricp.connections.usage").tag("pool", poolName).timer();
+    if (usage != null) {
+      status.usageMeanMs(usage.mean(TimeUnit.MILLISECONDS));
+    }
+    Counter timeouts =
+        meterRegistry.find("hikaricp.connections.timeout").tag("pool", poolName).counter();
+    if (timeouts != null) {
+      status.connectionTimeouts((long) timeouts.count());
+    }
+    return status.build();
+  }
+}
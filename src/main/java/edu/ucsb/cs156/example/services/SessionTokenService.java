@@ -0,0 +1,221 @@
+package edu.ucsb.cs156.example.services;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import edu.ucsb.cs156.example.entities.User;
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * This is a service that issues and checks the signed tokens that replace the HttpSession when
+ * app.session.mode is "token", so that any server can authenticate any request without sticky
+ * sessions.
+ *
+ * <p>A session token is a JWT signed with HS256 using app.session.token.secret, which must be the
+ * same on every server. It holds the id, email and roles of the user, and the profile that the
+ * OAuth2 provider gave at login, so that a user whose row is missing (e.g. after a database reset)
+ * is stored again as completely as at login. It is valid for app.session.token.ttl-ms. Whether the
+ * user is an admin is decided again on every request (see AdminRoleResolver), so that an admin who
+ * is demoted loses the role at once. While a user logs in, the OAuth2 authorization request is kept
+ * in a short-lived token of the same kind.
+ */
+@Slf4j
+@Service
+public class SessionTokenService {
+  /** Name of the cookie that holds the session token. */
+  public static final String TOKEN_COOKIE = "SESSION_TOKEN";
+
+  /** Name of the cookie that holds the OAuth2 authorization request during a login. */
+  public static final String AUTHORIZATION_REQUEST_COOKIE = "OAUTH2_AUTHORIZATION_REQUEST";
+
+  /** How long a user may take to log in with the OAuth2 provider. */
+  public static final Duration AUTHORIZATION_REQUEST_TTL = Duration.ofMinutes(5);
+
+  /**
+   * The attributes of the OAuth2 login that are kept in the token (see UserProvisioningService).
+   */
+  private static final List<String> PROFILE_ATTRIBUTES =
+      List.of(
+          "sub", "name", "given_name", "family_name", "picture", "email_verified", "locale", "hd");
+
+  private static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+  @Autowired private AdminRoleResolver adminRoleResolver;
+
+  @Value("${app.session.token.secret:}")
+  private String secret;
+
+  @Value("${app.session.token.ttl-ms:43200000}")
+  private long ttlMs;
+
+  private JwtEncoder jwtEncoder;
+
+  private JwtDecoder jwtDecoder;
+
+  @PostConstruct
+  public void init() {
+    if (secret.isBlank()) {
+      return;
+    }
+    byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+    if (key.length < 32) {
+      throw new IllegalStateException("app.session.token.secret must be at least 32 bytes long");
+    }
+    SecretKey secretKey = new SecretKeySpec(key, "HmacSHA256");
+    jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(secretKey));
+    jwtDecoder = NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+  }
+
+  /**
+   * @return whether app.session.token.secret is set, so that tokens can be issued
+   */
+  public boolean isConfigured() {
+    return jwtEncoder != null;
+  }
+
+  public Duration getTokenTtl() {
+    return Duration.ofMillis(ttlMs);
+  }
+
+  /**
+   * Issues the session token of a user who has just logged in.
+   *
+   * @param user the stored user
+   * @param authentication the authentication of the login, whose ROLE_ authorities and profile are
+   *     kept
+   * @return the token
+   */
+  public String issue(User user, OAuth2AuthenticationToken authentication) {
+    List<String> roles =
+        authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .filter(authority -> authority.startsWith("ROLE_"))
+            .toList();
+    JwtClaimsSet.Builder claims =
+        JwtClaimsSet.builder()
+            .subject(Long.toString(user.getId()))
+            .claim("email", user.getEmail())
+            .claim("roles", roles)
+            .claim("registration", authentication.getAuthorizedClientRegistrationId());
+    Map<String, Object> attributes = authentication.getPrincipal().getAttributes();
+    Map<String, Object> profile = new HashMap<>();
+    PROFILE_ATTRIBUTES.stream()
+        .filter(attribute -> attributes.get(attribute) != null)
+        .forEach(attribute -> profile.put(attribute, attributes.get(attribute)));
+    return encode(claims.claim("profile", profile), getTokenTtl());
+  }
+
+  /**
+   * Rebuilds the authentication of a request from its session token. The user has ROLE_ADMIN only
+   * if AdminRoleResolver says they are an admin now, whatever the token says.
+   *
+   * @param token the token
+   * @return the authentication, whose principal has the attributes "id" and "email", and those of
+   *     the profile of the login, or empty if the token is not valid or has expired
+   */
+  public Optional<OAuth2AuthenticationToken> authenticate(String token) {
+    return decode(token)
+        .map(
+            jwt -> {
+              String email = jwt.getClaimAsString("email");
+              List<GrantedAuthority> authorities = new ArrayList<>();
+              jwt.getClaimAsStringList("roles").stream()
+                  .filter(role -> !role.equals(ADMIN_ROLE))
+                  .forEach(role -> authorities.add(new SimpleGrantedAuthority(role)));
+              if (adminRoleResolver.isAdmin(email)) {
+                authorities.add(new SimpleGrantedAuthority(ADMIN_ROLE));
+              }
+              // tokens issued before the profile was kept have none
+              Map<String, Object> attributes =
+                  jwt.hasClaim("profile")
+                      ? new HashMap<>(jwt.getClaimAsMap("profile"))
+                      : new HashMap<>();
+              attributes.put("id", Long.valueOf(jwt.getSubject()));
+              attributes.put("email", email);
+              return new OAuth2AuthenticationToken(
+                  new DefaultOAuth2User(authorities, attributes, "email"),
+                  authorities,
+                  jwt.getClaimAsString("registration"));
+            });
+  }
+
+  /**
+   * @param authorizationRequest the authorization request of a login that is starting
+   * @return a token holding the request, valid for AUTHORIZATION_REQUEST_TTL
+   */
+  public String issueAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest) {
+    byte[] serialized = SerializationUtils.serialize(authorizationRequest);
+    return encode(
+        JwtClaimsSet.builder()
+            .claim("request", Base64.getUrlEncoder().withoutPadding().encodeToString(serialized)),
+        AUTHORIZATION_REQUEST_TTL);
+  }
+
+  /**
+   * @param token a token returned by issueAuthorizationRequest
+   * @return the authorization request, or empty if the token is not valid or has expired
+   */
+  public Optional<OAuth2AuthorizationRequest> readAuthorizationRequest(String token) {
+    // the request is only deserialized once the signature shows that this server serialized it
+    return decode(token)
+        .map(jwt -> Base64.getUrlDecoder().decode(jwt.getClaimAsString("request")))
+        .map(SessionTokenService::deserializeAuthorizationRequest);
+  }
+
+  private static OAuth2AuthorizationRequest deserializeAuthorizationRequest(byte[] serialized) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+      return (OAuth2AuthorizationRequest) in.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Cannot read OAuth2 authorization request", e);
+    }
+  }
+
+  private String encode(JwtClaimsSet.Builder claims, Duration ttl) {
+    Instant now = Instant.now();
+    JwtClaimsSet claimsSet = claims.issuedAt(now).expiresAt(now.plus(ttl)).build();
+    return jwtEncoder
+        .encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claimsSet))
+        .getTokenValue();
+  }
+
+  private Optional<Jwt> decode(String token) {
+    try {
+      return Optional.of(jwtDecoder.decode(token));
+    } catch (JwtException e) {
+      log.debug("Rejected session token: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+}
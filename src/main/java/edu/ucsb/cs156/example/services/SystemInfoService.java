@@ -16,4 +16,12 @@ public abstract class SystemInfoService {
    * @return the system information
    */
   public abstract SystemInfo getSystemInfo();
+
+  /**
+   * This method returns a strong ETag for the system information, which changes only when the
+   * system information does.
+   *
+   * @return the ETag, including its quotes
+   */
+  public abstract String getSystemInfoETag();
 }
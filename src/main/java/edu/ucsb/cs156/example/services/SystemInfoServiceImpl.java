@@ -1,14 +1,20 @@
 package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
 /**
  * This is a service for getting information about the system.
  *
+ * <p>The system information only depends on property values, so it is built once, when the
+ * application starts.
+ *
  * <p>This class relies on property values. For hints on testing, see: <a href=
  * "https://www.baeldung.com/spring-boot-testing-configurationproperties">https://www.baeldung.com/spring-boot-testing-configurationproperties</a>
  */
@@ -35,18 +41,17 @@ public class SystemInfoServiceImpl extends SystemInfoService {
   @Value("${git.commit.id.abbrev:unknown}")
   private String commitId;
 
+  private SystemInfo systemInfo;
+
+  private String systemInfoETag;
+
   public static String githubUrl(String repo, String commit) {
     return commit != null && repo != null ? repo + "/commit/" + commit : null;
   }
 
-  /**
-   * This method returns the system information.
-   *
-   * @see edu.ucsb.cs156.example.models.SystemInfo
-   * @return the system information
-   */
-  public SystemInfo getSystemInfo() {
-    SystemInfo si =
+  @PostConstruct
+  public void init() {
+    systemInfo =
         SystemInfo.builder()
             .springH2ConsoleEnabled(this.springH2ConsoleEnabled)
             .showSwaggerUILink(this.showSwaggerUILink)
@@ -56,7 +61,24 @@ public class SystemInfoServiceImpl extends SystemInfoService {
             .commitId(this.commitId)
             .githubUrl(githubUrl(this.sourceRepo, this.commitId))
             .build();
-    log.info("getSystemInfo returns {}", si);
-    return si;
+    systemInfoETag =
+        "\""
+            + DigestUtils.md5DigestAsHex(systemInfo.toString().getBytes(StandardCharsets.UTF_8))
+            + "\"";
+    log.info("systemInfo={}", systemInfo);
+  }
+
+  /**
+   * This method returns the system information.
+   *
+   * @see edu.ucsb.cs156.example.models.SystemInfo
+   * @return the system information
+   */
+  public SystemInfo getSystemInfo() {
+    return systemInfo;
+  }
+
+  public String getSystemInfoETag() {
+    return systemInfoETag;
   }
 }
@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ucsb.cs156.example.repositories.TableRepository;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that writes all the rows of a table as JSON while it reads them, so that the
+ * memory an export needs does not grow with the size of the table.
+ *
+ * <p>Rows are read through TableRepository.streamAll, a forward-only database cursor, and each row
+ * is detached from the persistence context as soon as it has been written.
+ */
+@Service
+public class TableExporter {
+
+  /** The formats of an export. */
+  @Getter
+  @AllArgsConstructor
+  public enum Format {
+    /** newline-delimited JSON, one row per line */
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+    /** one JSON array */
+    JSON(MediaType.APPLICATION_JSON, "json");
+
+    private final MediaType mediaType;
+    private final String extension;
+  }
+
+  @Autowired private ObjectMapper mapper;
+
+  // resolved on first use, so that the service can be created without a database in tests
+  @Lazy @Autowired private EntityManager entityManager;
+
+  /**
+   * Writes all the rows of a table. The output stream is flushed, but not closed.
+   *
+   * @param <T> the entity type
+   * @param out where to write the rows
+   * @param repository the repository of the table
+   * @param format the format of the export
+   * @throws IOException if the rows cannot be written
+   */
+  @Transactional(readOnly = true)
+  public <T> void write(OutputStream out, TableRepository<T, ?> repository, Format format)
+      throws IOException {
+    // the generator buffers what is written and flushes only when its buffer is full
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (Stream<T> rows = repository.streamAll();
+        JsonGenerator generator = mapper.createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(null);
+      if (format == Format.JSON) {
+        generator.writeStartArray();
+      }
+      for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); ) {
+        T row = iterator.next();
+        writer.writeValue(generator, row);
+        if (format == Format.NDJSON) {
+          generator.writeRaw('\n');
+        }
+        entityManager.detach(row);
+      }
+      if (format == Format.JSON) {
+        generator.writeEndArray();
+      }
+    }
+  }
+}
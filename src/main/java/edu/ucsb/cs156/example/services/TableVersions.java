@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This is a service that keeps a version number for each table, so that a client that already has
+ * the contents of a table can be told that they have not changed without reading the table.
+ *
+ * <p>The versions are kept in the table_versions table, so that every server sends the same ETag
+ * for the same contents. The version of a table is bumped whenever one of its rows is inserted,
+ * updated or deleted (see TableVersionListener). A change made in a transaction bumps the version
+ * after the transaction commits, in a short transaction of its own for each table, so that writers
+ * do not hold the lock on the row of the table's version while they work. A reader takes the ETag
+ * before it reads the table, so at worst it sends new contents with the old ETag, which the next
+ * read replaces. A transaction bumps the version of each table it changes only once.
+ *
+ * <p>A bump sets the version to the current time in milliseconds if that is larger than the next
+ * version, so that a database that is created again (e.g. the in-memory one in development) does
+ * not hand out the ETags of its earlier contents.
+ */
+@Service
+public class TableVersions {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final TransactionTemplate bumpTransaction;
+
+  // the transaction manager needs the entity listeners, which need this, so it is taken lazily
+  public TableVersions(
+      JdbcTemplate jdbcTemplate, @Lazy PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.bumpTransaction = new TransactionTemplate(transactionManager);
+    bumpTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * @param table the entity class of the table
+   * @return the current version of the table
+   */
+  public long getVersion(Class<?> table) {
+    List<Long> version =
+        jdbcTemplate.queryForList(
+            "SELECT VERSION FROM TABLE_VERSIONS WHERE TABLE_NAME = ?",
+            Long.class,
+            table.getSimpleName());
+    return version.isEmpty() ? 0 : version.get(0);
+  }
+
+  /**
+   * @param table the entity class of the table
+   * @return a weak ETag for the current contents of the table
+   */
+  public String getETag(Class<?> table) {
+    return "W/\"%s-%d\"".formatted(table.getSimpleName(), getVersion(table));
+  }
+
+  /**
+   * Records that a row of a table has changed. In a transaction, the version is bumped once the
+   * transaction has committed, and not at all if it rolls back; otherwise it is bumped at once.
+   *
+   * @param table the entity class of the table
+   */
+  public void changed(Class<?> table) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      bump(table);
+      return;
+    }
+    changedTables().add(table);
+  }
+
+  /** Returns the tables changed in the current transaction. */
+  @SuppressWarnings("unchecked")
+  private Set<Class<?>> changedTables() {
+    Set<Class<?>> tables = (Set<Class<?>>) TransactionSynchronizationManager.getResource(this);
+    if (tables != null) {
+      return tables;
+    }
+    Set<Class<?>> changed = new LinkedHashSet<>();
+    TransactionSynchronizationManager.bindResource(this, changed);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            // the resources of the transaction are still bound, so each bump needs its own
+            changed.forEach(table -> bumpTransaction.executeWithoutResult(status -> bump(table)));
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TableVersions.this);
+          }
+        });
+    return changed;
+  }
+
+  private void bump(Class<?> table) {
+    String name = table.getSimpleName();
+    long now = System.currentTimeMillis();
+    int rows =
+        jdbcTemplate.update(
+            "UPDATE TABLE_VERSIONS SET VERSION = GREATEST(VERSION + 1, ?) WHERE TABLE_NAME = ?",
+            now,
+            name);
+    // every table is given a row by its migration; this is for one that was not
+    if (rows == 0) {
+      jdbcTemplate.update(
+          "INSERT INTO TABLE_VERSIONS (TABLE_NAME, VERSION) VALUES (?, ?)", name, now);
+    }
+  }
+}
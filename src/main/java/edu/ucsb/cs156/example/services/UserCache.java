@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This is a service that caches the User of each logged-in user by email, so that looking up the
+ * current user does not query the database on every request.
+ *
+ * <p>An entry is reloaded once it is older than app.users.cache-ttl-ms, and dropped as soon as the
+ * change of the user's row commits (see UserChangedEvent), e.g. when they are made an admin. A user
+ * loaded while a change was committing is returned but not cached, since it may be the old row.
+ *
+ * <p>The cache holds at most app.users.cache-max-size users; when it is full, the expired ones are
+ * dropped, and if that is not enough, the one loaded first.
+ */
+@Service
+public class UserCache {
+
+  @Value("${app.users.cache-ttl-ms:300000}")
+  private long ttlMs;
+
+  @Value("${app.users.cache-max-size:10000}")
+  private int maxSize;
+
+  private record Entry(User user, long loadedNanos) {}
+
+  private final Map<String, Entry> users = new ConcurrentHashMap<>();
+
+  /** Counts the invalidations, so that a load that overlapped one is not cached. */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Returns the cached User for an email, loading it if it is not cached or has expired.
+   *
+   * @param email email address of the user
+   * @param loader loads the user from the database
+   * @return the user
+   */
+  public User get(String email, Supplier<User> loader) {
+    Entry entry = users.get(email);
+    if (isExpired(entry)) {
+      // not computeIfAbsent: loading may save the user, which invalidates this same key
+      long invalidationsBefore = invalidations.get();
+      entry = new Entry(loader.get(), System.nanoTime());
+      if (invalidations.get() == invalidationsBefore) {
+        put(email, entry);
+      }
+    }
+    return entry.user();
+  }
+
+  private void put(String email, Entry entry) {
+    if (users.size() >= maxSize && !users.containsKey(email)) {
+      users.values().removeIf(this::isExpired);
+      if (users.size() >= maxSize) {
+        users.entrySet().stream()
+            .min(Comparator.comparingLong(oldest -> oldest.getValue().loadedNanos()))
+            .ifPresent(oldest -> users.remove(oldest.getKey()));
+      }
+    }
+    users.put(email, entry);
+  }
+
+  /**
+   * Returns the cached User for an email, without loading it.
+   *
+   * @param email email address of the user
+   * @return the user, or empty if it is not cached or has expired
+   */
+  public Optional<User> getIfPresent(String email) {
+    Entry entry = users.get(email);
+    return isExpired(entry) ? Optional.empty() : Optional.of(entry.user());
+  }
+
+  private boolean isExpired(Entry entry) {
+    return entry == null || System.nanoTime() - entry.loadedNanos() >= ttlMs * 1_000_000;
+  }
+
+  /**
+   * @param email email address of a user whose cached User must not be used any more
+   */
+  public void invalidate(String email) {
+    invalidations.incrementAndGet();
+    users.remove(email);
+  }
+
+  public void invalidateAll() {
+    invalidations.incrementAndGet();
+    users.clear();
+  }
+
+  /** Drops a changed user once the change has committed, so that the old row is not reloaded. */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void userChanged(UserChangedEvent event) {
+    invalidate(event.email());
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.services;
+
+/**
+ * This is an application event that is published whenever a row of the users table is inserted,
+ * updated or deleted, so that anything that caches users can drop or update its copy. It is
+ * published before the change commits, so listeners handle it after the commit (see
+ * TransactionalEventListener), and not at all if the change rolls back.
+ *
+ * @param email email address of the user that changed
+ * @param admin whether the user is an admin now; false if the user was deleted
+ * @see edu.ucsb.cs156.example.entities.UserEntityListener
+ */
+public record UserChangedEvent(String email, boolean admin) {}
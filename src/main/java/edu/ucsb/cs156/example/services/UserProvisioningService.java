@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that stores the User of someone who logs in with OAuth2, creating it on their
+ * first login and making them an admin if their email is in app.admin.emails (see
+ * AdminRoleResolver).
+ *
+ * <p>It is called once per login, from the authentication success handler in SecurityConfig, so
+ * that looking up the current user on later requests only reads the database.
+ */
+@Slf4j
+@Service
+public class UserProvisioningService {
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private AdminRoleResolver adminRoleResolver;
+
+  @Autowired private AuthAuditLogger authAuditLogger;
+
+  /**
+   * Creates or updates the User for an OAuth2 user who has just logged in.
+   *
+   * @param oAuthUser the user, as returned by the OAuth2 provider
+   * @return the stored User
+   */
+  public User provision(OAuth2User oAuthUser) {
+    String email = oAuthUser.getAttribute("email");
+    Optional<User> ou = userRepository.findByEmail(email);
+    if (ou.isPresent()) {
+      return promoteIfAdmin(ou.get());
+    }
+
+    User u =
+        User.builder()
+            .googleSub(oAuthUser.getAttribute("sub"))
+            .email(email)
+            .pictureUrl(oAuthUser.getAttribute("picture"))
+            .fullName(oAuthUser.getAttribute("name"))
+            .givenName(oAuthUser.getAttribute("given_name"))
+            .familyName(oAuthUser.getAttribute("family_name"))
+            .emailVerified(Boolean.TRUE.equals(oAuthUser.getAttribute("email_verified")))
+            .locale(oAuthUser.getAttribute("locale"))
+            .hostedDomain(oAuthUser.getAttribute("hd"))
+            .admin(adminRoleResolver.isConfiguredAdmin(email))
+            .build();
+    try {
+      userRepository.save(u);
+      authAuditLogger.record(
+          AuthAuditLogger.Event.USER_CREATED, "email", email, "admin", u.getAdmin());
+      return u;
+    } catch (DataIntegrityViolationException e) {
+      // another login of the same user stored the row first
+      log.info("User {} was created by a concurrent login", email);
+      return promoteIfAdmin(userRepository.findByEmail(email).orElseThrow(() -> e));
+    }
+  }
+
+  private User promoteIfAdmin(User u) {
+    if (adminRoleResolver.isConfiguredAdmin(u.getEmail()) && !u.getAdmin()) {
+      u.setAdmin(true);
+      userRepository.save(u);
+      authAuditLogger.record(AuthAuditLogger.Event.ADMIN_GRANTED, "email", u.getEmail());
+    }
+    return u;
+  }
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * The cancellation state of one job, shared by JobService and the JobContext of the job.
+ *
+ * <p>A job can be stopped while it is queued or while it runs. Stopping a running job interrupts
+ * the thread it runs on, so that blocking calls such as Thread.sleep throw InterruptedException;
+ * jobs that loop without blocking should check JobContext.isCancelled. Once the job has finished,
+ * stopping it has no effect, so the job thread is never interrupted after the job is done.
+ */
+class JobCancellation {
+  private Thread thread;
+  private String status;
+  private boolean finished;
+
+  /**
+   * Stops the job, interrupting its thread if it is running.
+   *
+   * @param status the status the job ends with, "cancelled" or "timeout"
+   * @return false if the job has already finished or been stopped
+   */
+  synchronized boolean stop(String status) {
+    if (finished || this.status != null) {
+      return false;
+    }
+    this.status = status;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    return true;
+  }
+
+  /**
+   * Called on the job thread just before the job runs.
+   *
+   * @return false if the job was stopped before it started, in which case it must not run
+   */
+  synchronized boolean start() {
+    thread = Thread.currentThread();
+    return status == null;
+  }
+
+  /**
+   * Called on the job thread when the job is done. Clears the interrupt that stop may have left on
+   * the thread, so that the thread can go on to save the job.
+   *
+   * @return the status passed to stop, or null if the job was not stopped
+   */
+  synchronized String finish() {
+    finished = true;
+    thread = null;
+    Thread.interrupted();
+    return status;
+  }
+
+  synchronized boolean isStopped() {
+    return status != null;
+  }
+}
@@ -1,20 +1,48 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.entities.JobLogLine;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
+  private final JobLogWriter logWriter;
+  private final Job job;
+  private final JobCancellation cancellation;
+  private int nextLineNumber = 0;
+
+  public JobContext(JobLogWriter logWriter, Job job) {
+    this(logWriter, job, new JobCancellation());
+  }
+
+  JobContext(JobLogWriter logWriter, Job job, JobCancellation cancellation) {
+    this.logWriter = logWriter;
+    this.job = job;
+    this.cancellation = cancellation;
+  }
 
   public void log(String message) {
     log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    JobLogLine line =
+        JobLogLine.builder()
+            .jobId(job.getId())
+            .lineNumber(nextLineNumber++)
+            .message(message)
+            .build();
+    if (logWriter != null) logWriter.append(line);
+  }
+
+  /**
+   * Long-running jobs should check this regularly and return early when it is true. A cancelled job
+   * is also interrupted, so blocking calls throw InterruptedException.
+   *
+   * @return true if the job has been cancelled or has timed out
+   */
+  public boolean isCancelled() {
+    return cancellation.isStopped();
+  }
+
+  int getLineCount() {
+    return nextLineNumber;
   }
 }
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This is a service that pushes the log lines and status changes of running jobs to the clients
+ * that follow them, so that clients do not have to poll the database.
+ *
+ * <p>Events are sent to each client on a virtual thread of its own, so that a client that reads
+ * slowly, or not at all, holds up neither the job nor the other clients.
+ *
+ * @see JobStreamSubscription
+ */
+@Service
+public class JobEventBroadcaster {
+
+  /** Statuses after which a job does not change any more. */
+  public static final Set<String> FINISHED_STATUSES =
+      Set.of("complete", "error", "rejected", "cancelled", "timeout");
+
+  @Value("${app.jobs.stream.timeout-ms:1800000}")
+  private long timeoutMs;
+
+  @Value("${app.jobs.stream.max-queued-events:1000}")
+  private int maxQueuedEvents;
+
+  private final ExecutorService sendExecutor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-stream-", 0).factory());
+
+  private final Map<Long, List<JobStreamSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+  public static boolean isFinished(String status) {
+    return FINISHED_STATUSES.contains(status);
+  }
+
+  /**
+   * Registers a new subscription to the events of a job. The subscription holds back live events
+   * until JobStreamSubscription.goLive is called.
+   *
+   * @param jobId id of the job
+   * @param fromLineNumber number of the first log line to send
+   * @return the subscription
+   */
+  public JobStreamSubscription subscribe(long jobId, int fromLineNumber) {
+    JobStreamSubscription subscription =
+        new JobStreamSubscription(
+            jobId, fromLineNumber, new SseEmitter(timeoutMs), this, sendExecutor, maxQueuedEvents);
+    subscriptions.compute(
+        jobId,
+        (id, list) -> {
+          List<JobStreamSubscription> result = list == null ? new CopyOnWriteArrayList<>() : list;
+          result.add(subscription);
+          return result;
+        });
+    return subscription;
+  }
+
+  void unsubscribe(JobStreamSubscription subscription) {
+    subscriptions.computeIfPresent(
+        subscription.getJobId(),
+        (id, list) -> {
+          list.remove(subscription);
+          return list.isEmpty() ? null : list;
+        });
+  }
+
+  public void lineAppended(JobLogLine line) {
+    subscriptions
+        .getOrDefault(line.getJobId(), List.of())
+        .forEach(subscription -> subscription.lineAppended(line));
+  }
+
+  public void statusChanged(Job job) {
+    subscriptions
+        .getOrDefault(job.getId(), List.of())
+        .forEach(subscription -> subscription.statusChanged(job.getStatus()));
+  }
+
+  /**
+   * @return number of clients following a job
+   */
+  public int getSubscriberCount() {
+    return subscriptions.values().stream().mapToInt(List::size).sum();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sendExecutor.shutdownNow();
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.experimental.UtilityClass;
+
+/** Gzip compression of job logs, used for the logs of old jobs (see Job.logGzip). */
+@UtilityClass
+public class JobLogCompression {
+
+  /**
+   * @param log the log text
+   * @return the log, gzipped
+   */
+  public byte[] compress(String log) {
+    return unchecked(
+        () -> {
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(log.getBytes(StandardCharsets.UTF_8));
+          }
+          return bytes.toByteArray();
+        });
+  }
+
+  /**
+   * @param gzipped a log made by compress
+   * @return the log text
+   * @throws UncheckedIOException if gzipped is not valid gzip data
+   */
+  public String decompress(byte[] gzipped) {
+    return unchecked(
+        () -> {
+          try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+          }
+        });
+  }
+
+  private interface IOSupplier<T> {
+    T get() throws IOException;
+  }
+
+  private <T> T unchecked(IOSupplier<T> supplier) {
+    try {
+      return supplier.get();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
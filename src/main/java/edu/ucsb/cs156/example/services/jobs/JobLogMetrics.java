@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.models.JobLogStats;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the buffered job log writers. One instance is shared by all the writers created by
+ * the JobLogService.
+ */
+public class JobLogMetrics {
+  private final LongAdder linesAppended = new LongAdder();
+  private final LongAdder linesWritten = new LongAdder();
+  private final LongAdder linesDropped = new LongAdder();
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder flushNanos = new LongAdder();
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+
+  private long lastSampleNanos = System.nanoTime();
+  private long lastSampleLines = 0;
+  private volatile double linesPerSecond = 0.0;
+
+  public void lineAppended() {
+    linesAppended.increment();
+  }
+
+  public void linesDropped(int count) {
+    linesDropped.add(count);
+  }
+
+  public void flushed(int lines, long elapsedNanos) {
+    linesWritten.add(lines);
+    flushes.increment();
+    flushNanos.add(elapsedNanos);
+    maxFlushNanos.accumulateAndGet(elapsedNanos, Math::max);
+  }
+
+  /**
+   * Updates the lines per second rate with the number of lines appended since the previous sample.
+   *
+   * @param nowNanos current value of System.nanoTime()
+   */
+  public synchronized void sample(long nowNanos) {
+    long lines = linesAppended.sum();
+    long elapsed = nowNanos - lastSampleNanos;
+    if (elapsed > 0) {
+      linesPerSecond = (lines - lastSampleLines) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+    lastSampleNanos = nowNanos;
+    lastSampleLines = lines;
+  }
+
+  public long getLinesAppended() {
+    return linesAppended.sum();
+  }
+
+  public long getLinesWritten() {
+    return linesWritten.sum();
+  }
+
+  public long getLinesDropped() {
+    return linesDropped.sum();
+  }
+
+  public long getFlushes() {
+    return flushes.sum();
+  }
+
+  public double getLinesPerSecond() {
+    return linesPerSecond;
+  }
+
+  public double getAverageFlushMillis() {
+    long count = flushes.sum();
+    return count == 0 ? 0.0 : flushNanos.sum() / (double) count / 1_000_000.0;
+  }
+
+  public double getMaxFlushMillis() {
+    return maxFlushNanos.get() / 1_000_000.0;
+  }
+
+  /**
+   * Returns a snapshot of the counters.
+   *
+   * @param openWriters number of job log writers that are currently open
+   * @param bufferedLines number of lines waiting to be written
+   * @return the snapshot
+   */
+  public JobLogStats snapshot(int openWriters, int bufferedLines) {
+    return JobLogStats.builder()
+        .openWriters(openWriters)
+        .bufferedLines(bufferedLines)
+        .linesAppended(getLinesAppended())
+        .linesWritten(getLinesWritten())
+        .linesDropped(getLinesDropped())
+        .flushes(getFlushes())
+        .linesPerSecond(getLinesPerSecond())
+        .averageFlushMillis(getAverageFlushMillis())
+        .maxFlushMillis(getMaxFlushMillis())
+        .build();
+  }
+}
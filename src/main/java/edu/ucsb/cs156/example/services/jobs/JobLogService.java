@@ -0,0 +1,155 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobLogStats;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This is a service that creates and flushes the buffered log writers of running jobs.
+ *
+ * @see JobLogWriter
+ */
+@Service
+public class JobLogService {
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobEventBroadcaster jobEventBroadcaster;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.log.batch-size:50}")
+  private int batchSize;
+
+  @Value("${app.jobs.log.buffer-capacity:1000}")
+  private int bufferCapacity;
+
+  @Value("${app.jobs.log.overflow-policy:BLOCK}")
+  private JobLogWriter.OverflowPolicy overflowPolicy;
+
+  private final Map<Long, JobLogWriter> openWriters = new ConcurrentHashMap<>();
+
+  private final JobLogMetrics metrics = new JobLogMetrics();
+
+  private final ExecutorService flushExecutor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "job-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Creates a log writer for a job that is about to run. The writer is flushed periodically until
+   * it is closed.
+   *
+   * @param job the job
+   * @return the writer
+   */
+  public JobLogWriter openWriter(Job job) {
+    JobLogWriter writer =
+        new JobLogWriter(
+            job.getId(),
+            jobLogLinesRepository,
+            metrics,
+            flushExecutor,
+            batchSize,
+            bufferCapacity,
+            overflowPolicy,
+            jobEventBroadcaster::lineAppended);
+    openWriters.put(job.getId(), writer);
+    return writer;
+  }
+
+  /**
+   * Writes the remaining lines of a writer and stops flushing it periodically.
+   *
+   * @param writer the writer
+   */
+  public void closeWriter(JobLogWriter writer) {
+    writer.flush();
+    openWriters.remove(writer.getJobId(), writer);
+  }
+
+  /**
+   * Writes the buffered lines of a job, if it has an open writer. When this returns, every line the
+   * job logged before the call is in the database.
+   *
+   * @param jobId id of the job
+   */
+  public void flush(long jobId) {
+    JobLogWriter writer = openWriters.get(jobId);
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  /**
+   * Passes the stored log lines of a job to a consumer, in order, until the consumer returns false.
+   *
+   * @param jobId id of the job
+   * @param fromLineNumber number of the first line
+   * @param consumer receives each line; returns false to stop reading
+   * @return false if the consumer stopped the reading
+   */
+  @Transactional(readOnly = true)
+  public boolean forEachLine(long jobId, int fromLineNumber, Predicate<JobLogLine> consumer) {
+    try (Stream<JobLogLine> lines =
+        jobLogLinesRepository.streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            jobId, fromLineNumber)) {
+      return lines.allMatch(consumer);
+    }
+  }
+
+  /**
+   * Replaces the log of a finished job, stored in Job.log and job_log_lines, by one gzipped copy in
+   * Job.logGzip, and counts its lines in Job.logLineCount.
+   *
+   * @param job the job
+   * @param log the full log of the job, as returned by JobService.getJobLogs
+   */
+  @Transactional
+  public void storeCompressedLog(Job job, String log) {
+    job.setLogGzip(JobLogCompression.compress(log));
+    job.setLog(null);
+    job.setLogLineCount(log.isEmpty() ? 0 : log.split("\n", -1).length);
+    jobsRepository.save(job);
+    jobLogLinesRepository.deleteByJobId(job.getId());
+  }
+
+  /** Writes the buffered lines of every open writer. */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-interval-ms:1000}")
+  public void flushAll() {
+    openWriters.values().forEach(JobLogWriter::flush);
+    metrics.sample(System.nanoTime());
+  }
+
+  public JobLogMetrics getMetrics() {
+    return metrics;
+  }
+
+  public JobLogStats getStats() {
+    int bufferedLines =
+        openWriters.values().stream().mapToInt(JobLogWriter::getBufferedLines).sum();
+    return metrics.snapshot(openWriters.size(), bufferedLines);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushAll();
+    flushExecutor.shutdown();
+  }
+}
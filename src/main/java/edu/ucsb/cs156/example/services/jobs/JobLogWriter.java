@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffers the log lines of one job and writes them to the database in batches.
+ *
+ * <p>A batch is written in the background once batchSize lines are waiting, whenever the
+ * JobLogService flushes all writers on its timer, and when the job finishes. The buffer is bounded;
+ * when it is full, the overflow policy decides whether the job waits for a flush (BLOCK) or the
+ * line is discarded (DROP).
+ *
+ * <p>A batch that cannot be written is written again one line at a time, so that one bad line does
+ * not take the others with it. Lines that are discarded or still cannot be written leave a gap in
+ * the line numbers; the next flush fills the first line of the gap with a line saying how many
+ * lines are missing, so that readers of the log can see it.
+ *
+ * <p>Lines are passed on to the line listener only once they are written, in line number order, so
+ * that a client following the job never sees a line that is not in the stored log.
+ */
+@Slf4j
+public class JobLogWriter {
+
+  /** What to do with a new line when the buffer is full. */
+  public enum OverflowPolicy {
+    /** Write the buffer on the calling thread, so that a slow database slows down the job. */
+    BLOCK,
+    /** Discard the new line and count it as dropped. */
+    DROP
+  }
+
+  static final String DROPPED_LINES_MESSAGE = "[%d log lines dropped]";
+
+  private final long jobId;
+  private final JobLogLinesRepository jobLogLinesRepository;
+  private final JobLogMetrics metrics;
+  private final Executor flushExecutor;
+  private final int batchSize;
+  private final OverflowPolicy overflowPolicy;
+  private final BlockingQueue<JobLogLine> buffer;
+  private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+  private final Consumer<JobLogLine> lineListener;
+
+  // lines discarded or not written since the last flush, kept apart from the buffer so that the job
+  // does not wait for a flush in progress to record them
+  private final Object droppedLock = new Object();
+  private int droppedLines = 0;
+  private int firstDroppedLineNumber;
+
+  public JobLogWriter(
+      long jobId,
+      JobLogLinesRepository jobLogLinesRepository,
+      JobLogMetrics metrics,
+      Executor flushExecutor,
+      int batchSize,
+      int capacity,
+      OverflowPolicy overflowPolicy,
+      Consumer<JobLogLine> lineListener) {
+    this.jobId = jobId;
+    this.jobLogLinesRepository = jobLogLinesRepository;
+    this.metrics = metrics;
+    this.flushExecutor = flushExecutor;
+    this.batchSize = batchSize;
+    this.overflowPolicy = overflowPolicy;
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+    this.lineListener = lineListener;
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  /**
+   * @return number of lines waiting to be written
+   */
+  public int getBufferedLines() {
+    return buffer.size();
+  }
+
+  /**
+   * Adds a line to the buffer, requesting a background flush if a full batch is waiting.
+   *
+   * @param line the line to add
+   */
+  public void append(JobLogLine line) {
+    metrics.lineAppended();
+    if (!buffer.offer(line)) {
+      if (overflowPolicy == OverflowPolicy.DROP) {
+        metrics.linesDropped(1);
+        dropped(line.getLineNumber(), 1);
+        return;
+      }
+      // a job appends from a single thread, so the buffer has room once it has been flushed
+      flush();
+      buffer.add(line);
+    }
+    if (buffer.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+      flushExecutor.execute(
+          () -> {
+            flushRequested.set(false);
+            flush();
+          });
+    }
+  }
+
+  /**
+   * Writes all buffered lines to the database in one batch, together with a line for any lines that
+   * were dropped since the last flush. Batches of the same writer are written one at a time, in
+   * order. The lines that were written are then passed on to the line listener.
+   */
+  public synchronized void flush() {
+    List<JobLogLine> batch = new ArrayList<>(buffer.size() + 1);
+    buffer.drainTo(batch);
+    JobLogLine droppedLine = null;
+    int droppedCount;
+    synchronized (droppedLock) {
+      droppedCount = droppedLines;
+      if (droppedCount > 0) {
+        droppedLine =
+            JobLogLine.builder()
+                .jobId(jobId)
+                .lineNumber(firstDroppedLineNumber)
+                .message(DROPPED_LINES_MESSAGE.formatted(droppedCount))
+                .build();
+        batch.add(droppedLine);
+        droppedLines = 0;
+      }
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+    long start = System.nanoTime();
+    List<JobLogLine> failed = write(batch);
+    if (failed.size() < batch.size()) {
+      metrics.flushed(batch.size() - failed.size(), System.nanoTime() - start);
+    }
+    for (JobLogLine line : failed) {
+      if (line == droppedLine) {
+        dropped(line.getLineNumber(), droppedCount);
+      } else {
+        metrics.linesDropped(1);
+        dropped(line.getLineNumber(), 1);
+      }
+    }
+    // the line for dropped lines comes last in the batch but may take an earlier line number
+    batch.stream()
+        .filter(line -> !failed.contains(line))
+        .sorted(Comparator.comparingInt(JobLogLine::getLineNumber))
+        .forEach(lineListener);
+  }
+
+  /** Writes a batch, or if that fails, its lines one at a time; returns the lines not written. */
+  private List<JobLogLine> write(List<JobLogLine> batch) {
+    try {
+      jobLogLinesRepository.saveAll(batch);
+      return List.of();
+    } catch (RuntimeException e) {
+      log.warn(
+          "Job {}: could not write {} log lines, writing them one at a time: {}",
+          jobId,
+          batch.size(),
+          e.getMessage());
+    }
+    List<JobLogLine> failed = new ArrayList<>();
+    for (JobLogLine line : batch) {
+      // the failed batch may have given the line an id that was never stored
+      line.setId(0);
+      try {
+        jobLogLinesRepository.save(line);
+      } catch (RuntimeException e) {
+        log.error("Job {}: could not write log line {}", jobId, line.getLineNumber(), e);
+        failed.add(line);
+      }
+    }
+    return failed;
+  }
+
+  private void dropped(int lineNumber, int count) {
+    synchronized (droppedLock) {
+      if (droppedLines == 0 || lineNumber < firstDroppedLineNumber) {
+        firstDroppedLineNumber = lineNumber;
+      }
+      droppedLines += count;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer meters for jobs, exposed at /actuator/prometheus. Every meter is tagged with the type
+ * of the job, i.e. the simple name of its JobContextConsumer class.
+ *
+ * <ul>
+ *   <li>jobs.queue.wait: time from being queued to starting (timer)
+ *   <li>jobs.execution: time from starting to finishing, also tagged with the final status (timer)
+ *   <li>jobs.finished: jobs that reached a final status, tagged with the status (counter)
+ *   <li>jobs.running: jobs running now (gauge)
+ *   <li>jobs.log.lines: lines logged per job (distribution summary)
+ * </ul>
+ */
+@Component
+public class JobMetrics {
+  private final MeterRegistry registry;
+
+  private final Map<String, AtomicInteger> runningJobsByType = new ConcurrentHashMap<>();
+
+  public JobMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * @param jobFunction the work of a job
+   * @return the type tag of the job: the simple class name, without the unique suffix of lambdas
+   */
+  public static String jobType(JobContextConsumer jobFunction) {
+    String name = jobFunction.getClass().getName();
+    name = name.substring(name.lastIndexOf('.') + 1);
+    int lambda = name.indexOf("$$Lambda");
+    return lambda < 0 ? name : name.substring(0, lambda + "$$Lambda".length());
+  }
+
+  /**
+   * Records that a job has started.
+   *
+   * @param type the type of the job
+   * @param queuedNanos System.nanoTime() when the job was queued
+   * @return System.nanoTime() now, to pass to jobFinished
+   */
+  public long jobStarted(String type, long queuedNanos) {
+    long now = System.nanoTime();
+    Timer.builder("jobs.queue.wait")
+        .description("Time jobs spend queued before they start")
+        .tag("type", type)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(now - queuedNanos, TimeUnit.NANOSECONDS);
+    runningJobs(type).incrementAndGet();
+    return now;
+  }
+
+  /**
+   * Records that a job that had started has finished.
+   *
+   * @param type the type of the job
+   * @param status the final status of the job
+   * @param startedNanos the value returned by jobStarted
+   * @param logLines number of lines the job logged
+   */
+  public void jobFinished(String type, String status, long startedNanos, int logLines) {
+    runningJobs(type).decrementAndGet();
+    Timer.builder("jobs.execution")
+        .description("Time jobs spend running")
+        .tags("type", type, "status", status)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("jobs.log.lines")
+        .description("Number of log lines per job")
+        .tag("type", type)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(logLines);
+    statusReached(type, status);
+  }
+
+  /**
+   * Counts a job that reached a final status, whether or not it ran.
+   *
+   * @param type the type of the job
+   * @param status the final status of the job
+   */
+  public void statusReached(String type, String status) {
+    Counter.builder("jobs.finished")
+        .description("Jobs that reached a final status")
+        .tags("type", type, "status", status)
+        .register(registry)
+        .increment();
+  }
+
+  private AtomicInteger runningJobs(String type) {
+    return runningJobsByType.computeIfAbsent(
+        type,
+        t -> {
+          AtomicInteger running = new AtomicInteger();
+          Gauge.builder("jobs.running", running, AtomicInteger::get)
+              .description("Jobs running now")
+              .tag("type", t)
+              .register(registry);
+          return running;
+        });
+  }
+}
@@ -0,0 +1,13 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * Priority of a job waiting in the JobScheduler. Queued jobs of a higher priority always start
+ * before queued jobs of a lower priority.
+ */
+public enum JobPriority {
+  /** Interactive jobs that someone is waiting on. */
+  HIGH,
+  NORMAL,
+  /** Batch work that can wait. */
+  LOW
+}
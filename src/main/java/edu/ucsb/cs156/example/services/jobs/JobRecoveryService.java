@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that finds jobs left "queued" or "running" by a server that stopped, e.g.
+ * during a restart, and either runs them again or marks them "error".
+ *
+ * <p>While a job is queued or running, the server it is on updates its heartbeat every
+ * app.jobs.recovery.heartbeat-interval-ms (see JobService.heartbeat). A job whose heartbeat is
+ * older than app.jobs.recovery.stale-after-ms is an orphan. Orphans are looked for when the
+ * application starts and every app.jobs.recovery.interval-ms after that, at most
+ * app.jobs.recovery.batch-size at a time, so that with several servers, the orphans of one are
+ * picked up by the others. A job that is queued or running on this server is never an orphan, even
+ * if its heartbeat is late.
+ *
+ * <ul>
+ *   <li>A queued orphan that was started with a PersistentJob is queued again here.
+ *   <li>A running orphan is run again from the start if its PersistentJob is idempotent and it has
+ *       been started fewer than app.jobs.recovery.max-attempts times; its old log is discarded.
+ *   <li>Every other orphan is marked "error", with a line in its log saying why.
+ * </ul>
+ */
+@Service
+@Slf4j
+public class JobRecoveryService {
+
+  private static final List<String> ACTIVE_STATUSES = List.of("queued", "running");
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobEventBroadcaster jobEventBroadcaster;
+
+  @Value("${app.jobs.recovery.stale-after-ms:120000}")
+  private long staleAfterMs;
+
+  @Value("${app.jobs.recovery.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.jobs.recovery.batch-size:100}")
+  private int batchSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void recoverOnStartup() {
+    recoverOrphanedJobs();
+  }
+
+  /**
+   * Recovers the jobs whose server has stopped.
+   *
+   * @return a message with the number of jobs queued again and marked "error"
+   */
+  @Scheduled(
+      fixedDelayString = "${app.jobs.recovery.interval-ms:60000}",
+      initialDelayString = "${app.jobs.recovery.interval-ms:60000}")
+  public String recoverOrphanedJobs() {
+    int requeued = 0;
+    int failed = 0;
+    ZonedDateTime now = ZonedDateTime.now();
+    List<Job> jobs =
+        jobsRepository.findStaleJobs(
+            ACTIVE_STATUSES, now.minus(Duration.ofMillis(staleAfterMs)), Limit.of(batchSize));
+    for (Job job : jobs) {
+      // a late heartbeat here means the scheduler was busy, not that the job was left behind
+      if (jobService.isActive(job.getId())) {
+        continue;
+      }
+      // another server may be recovering the same job; only one of them gets it
+      if (jobsRepository.claimStaleJob(job.getId(), job.getHeartbeatAt(), now) == 0) {
+        continue;
+      }
+      job.setHeartbeatAt(now);
+      if (recover(job)) {
+        requeued++;
+      } else {
+        failed++;
+      }
+    }
+    String message = "Requeued %d orphaned jobs, marked %d as error".formatted(requeued, failed);
+    if (requeued + failed > 0) {
+      log.warn("Job recovery: {}", message);
+    }
+    return message;
+  }
+
+  private boolean recover(Job job) {
+    boolean wasRunning = job.getStatus().equals("running");
+    Optional<PersistentJob> jobFunction = jobService.restoreJobFunction(job);
+    String reason;
+    if (jobFunction.isEmpty()) {
+      reason = "it cannot be restarted";
+    } else if (!wasRunning) {
+      jobService.requeue(job, jobFunction.get());
+      return true;
+    } else if (!jobFunction.get().idempotent()) {
+      reason = "it is not safe to run it again";
+    } else if (job.getAttempts() >= maxAttempts) {
+      reason = "it has already been started %d times".formatted(job.getAttempts());
+    } else {
+      jobLogLinesRepository.deleteByJobId(job.getId());
+      jobService.requeue(job, jobFunction.get());
+      return true;
+    }
+    fail(job, "Job was %s when its server stopped, and %s".formatted(job.getStatus(), reason));
+    return false;
+  }
+
+  private void fail(Job job, String message) {
+    log.warn("Job {}: {}", job.getId(), message);
+    int lineNumber = (int) jobLogLinesRepository.countByJobId(job.getId());
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(job.getId()).lineNumber(lineNumber).message(message).build());
+    job.setStatus("error");
+    jobsRepository.save(job);
+    jobEventBroadcaster.statusChanged(job);
+  }
+}
@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that keeps the jobs table from growing without bound. It runs on the schedule
+ * app.jobs.retention.cron and:
+ *
+ * <ol>
+ *   <li>compresses the logs of jobs with a status in app.jobs.retention.statuses once they are
+ *       older than app.jobs.retention.compress-after-days (see Job.logGzip);
+ *   <li>deletes those jobs once they are older than app.jobs.retention.max-age-days, and the oldest
+ *       of them beyond the newest app.jobs.retention.max-jobs;
+ *   <li>deletes jobs with a status in app.jobs.retention.error-statuses once they are older than
+ *       app.jobs.retention.error-max-age-days, which is usually longer, so that failures can still
+ *       be investigated.
+ * </ol>
+ *
+ * <p>Jobs are deleted app.jobs.retention.batch-size at a time, each batch in its own short
+ * transaction, so that the table is never locked for long. Jobs that are queued or running are
+ * never touched.
+ */
+@Service
+@Slf4j
+public class JobRetentionService {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobLogService jobLogService;
+
+  @Value("${app.jobs.retention.statuses:complete,rejected,cancelled}")
+  private List<String> statuses;
+
+  @Value("${app.jobs.retention.max-age-days:30}")
+  private int maxAgeDays;
+
+  @Value("${app.jobs.retention.max-jobs:1000}")
+  private int maxJobs;
+
+  @Value("${app.jobs.retention.error-statuses:error,timeout}")
+  private List<String> errorStatuses;
+
+  @Value("${app.jobs.retention.error-max-age-days:90}")
+  private int errorMaxAgeDays;
+
+  @Value("${app.jobs.retention.compress-after-days:7}")
+  private int compressAfterDays;
+
+  @Value("${app.jobs.retention.batch-size:500}")
+  private int batchSize;
+
+  /**
+   * Runs all retention steps.
+   *
+   * @return a message with the number of logs compressed and jobs deleted
+   */
+  @Scheduled(cron = "${app.jobs.retention.cron:0 30 3 * * *}")
+  public String runRetention() {
+    ZonedDateTime now = ZonedDateTime.now();
+    int compressed = compressLogs(now.minusDays(compressAfterDays));
+    int deleted =
+        deleteInBatches(
+            () ->
+                jobsRepository.findIdsCreatedBefore(
+                    statuses, now.minusDays(maxAgeDays), Limit.of(batchSize)));
+    deleted +=
+        deleteInBatches(
+            () ->
+                jobsRepository.findIdsCreatedBefore(
+                    errorStatuses, now.minusDays(errorMaxAgeDays), Limit.of(batchSize)));
+    deleted += deleteBeyondMaxJobs();
+    String message = "Compressed %d job logs, deleted %d jobs".formatted(compressed, deleted);
+    log.info("Job retention: {}", message);
+    return message;
+  }
+
+  private int compressLogs(ZonedDateTime before) {
+    int compressed = 0;
+    long afterId = 0;
+    List<Job> jobs;
+    do {
+      jobs = jobsRepository.findJobsToCompact(statuses, before, afterId, Limit.of(batchSize));
+      for (Job job : jobs) {
+        afterId = job.getId();
+        try {
+          jobLogService.storeCompressedLog(job, jobService.getJobLogs(job));
+          compressed++;
+        } catch (RuntimeException e) {
+          log.error("Job {}: could not compress log", job.getId(), e);
+        }
+      }
+    } while (jobs.size() == batchSize);
+    return compressed;
+  }
+
+  private int deleteInBatches(Supplier<List<Long>> nextBatch) {
+    int deleted = 0;
+    List<Long> ids;
+    do {
+      ids = nextBatch.get();
+      if (!ids.isEmpty()) {
+        deleted += jobsRepository.deleteByIds(ids);
+      }
+    } while (ids.size() == batchSize);
+    return deleted;
+  }
+
+  private int deleteBeyondMaxJobs() {
+    long excess = jobsRepository.countByStatusIn(statuses) - maxJobs;
+    int deleted = 0;
+    while (excess > 0) {
+      List<Long> ids =
+          jobsRepository.findOldestIds(statuses, Limit.of((int) Math.min(excess, batchSize)));
+      if (ids.isEmpty()) {
+        break;
+      }
+      deleted += jobsRepository.deleteByIds(ids);
+      excess -= ids.size();
+    }
+    return deleted;
+  }
+}
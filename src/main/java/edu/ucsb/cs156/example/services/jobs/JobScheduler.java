@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * This is a service that decides which queued job runs next on the job executor.
+ *
+ * <p>Jobs are started only while fewer than the executor's maximum number of jobs are running. When
+ * a slot is free, the scheduler starts the queued job with the highest priority; among jobs of the
+ * same priority, the job of the user with the fewest running jobs goes first, and after that the
+ * job that was queued first. No user may run more than app.jobs.scheduler.max-running-per-user jobs
+ * at once, so one user launching many jobs cannot starve everyone else.
+ */
+@Service
+@Slf4j
+public class JobScheduler {
+  @Autowired private JobsRepository jobsRepository;
+
+  @Autowired private JobEventBroadcaster jobEventBroadcaster;
+
+  @Autowired
+  @Qualifier(JobExecutorConfig.JOB_EXECUTOR)
+  private ThreadPoolTaskExecutor jobExecutor;
+
+  @Value("${app.jobs.scheduler.max-running-per-user:2}")
+  private int maxRunningPerUser;
+
+  @Value("${app.jobs.executor.virtual-threads:false}")
+  private boolean virtualThreads;
+
+  private final List<QueuedJob> queuedJobs = new ArrayList<>();
+
+  // keyed on the id of the user who created the job; null for jobs without a user
+  private final Map<Long, Integer> runningJobsByUser = new HashMap<>();
+
+  private int runningJobs = 0;
+
+  private long nextSequence = 0;
+
+  private final LongAdder rejectedJobs = new LongAdder();
+
+  private record QueuedJob(
+      Job job, Long userId, JobPriority priority, long sequence, Runnable task) {}
+
+  /**
+   * Queues a job and starts it right away if a slot is free. A job that starts is saved with status
+   * "running" before this method returns.
+   *
+   * @param job the job, saved with status "queued"
+   * @param priority the priority of the job
+   * @param task the work to run on the job executor
+   * @throws TaskRejectedException if app.jobs.executor.queue-capacity jobs are already queued
+   */
+  public void submit(Job job, JobPriority priority, Runnable task) {
+    Long userId = job.getCreatedBy() == null ? null : job.getCreatedBy().getId();
+    synchronized (this) {
+      if (queuedJobs.size() >= jobExecutor.getQueueCapacity()) {
+        rejectedJobs.increment();
+        throw new TaskRejectedException("Job queue is full");
+      }
+      queuedJobs.add(new QueuedJob(job, userId, priority, nextSequence++, task));
+    }
+    dispatch();
+  }
+
+  /**
+   * Takes a job out of the queue, if it has not been started yet.
+   *
+   * @param jobId id of the job
+   * @return true if the job was queued and has been removed
+   */
+  public synchronized boolean remove(long jobId) {
+    return queuedJobs.removeIf(q -> q.job().getId() == jobId);
+  }
+
+  /** Starts queued jobs until no slot is free or every queued job's user is at their limit. */
+  private void dispatch() {
+    List<QueuedJob> toStart = new ArrayList<>();
+    synchronized (this) {
+      while (runningJobs < jobExecutor.getMaxPoolSize()) {
+        QueuedJob next =
+            queuedJobs.stream()
+                .filter(q -> runningJobsOf(q.userId()) < maxRunningPerUser)
+                .min(
+                    Comparator.comparing(QueuedJob::priority)
+                        .thenComparingInt(q -> runningJobsOf(q.userId()))
+                        .thenComparingLong(QueuedJob::sequence))
+                .orElse(null);
+        if (next == null) {
+          break;
+        }
+        queuedJobs.remove(next);
+        runningJobs++;
+        runningJobsByUser.merge(next.userId(), 1, Integer::sum);
+        toStart.add(next);
+      }
+    }
+    toStart.forEach(this::start);
+  }
+
+  private void start(QueuedJob queuedJob) {
+    Job job = queuedJob.job();
+    job.setStatus("running");
+    job.setAttempts(job.getAttempts() + 1);
+    job.setHeartbeatAt(ZonedDateTime.now());
+    jobsRepository.save(job);
+    jobEventBroadcaster.statusChanged(job);
+    try {
+      jobExecutor.execute(
+          () -> {
+            try {
+              queuedJob.task().run();
+            } finally {
+              finished(queuedJob.userId());
+            }
+          });
+    } catch (TaskRejectedException e) {
+      log.warn("Job {} rejected by the job executor", job.getId());
+      rejectedJobs.increment();
+      job.setStatus("rejected");
+      jobsRepository.save(job);
+      jobEventBroadcaster.statusChanged(job);
+      finished(queuedJob.userId());
+    }
+  }
+
+  private void finished(Long userId) {
+    synchronized (this) {
+      runningJobs--;
+      runningJobsByUser.computeIfPresent(userId, (id, count) -> count == 1 ? null : count - 1);
+    }
+    dispatch();
+  }
+
+  private int runningJobsOf(Long userId) {
+    return runningJobsByUser.getOrDefault(userId, 0);
+  }
+
+  public synchronized JobExecutorStatus getStatus() {
+    return JobExecutorStatus.builder()
+        .maxConcurrent(jobExecutor.getMaxPoolSize())
+        .maxRunningPerUser(maxRunningPerUser)
+        .runningJobs(runningJobs)
+        .queueSize(queuedJobs.size())
+        .queueCapacity(jobExecutor.getQueueCapacity())
+        .virtualThreads(virtualThreads)
+        .rejectedJobs(rejectedJobs.sum())
+        .build();
+  }
+}
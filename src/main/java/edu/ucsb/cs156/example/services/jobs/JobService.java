@@ -1,53 +1,337 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import jakarta.annotation.PreDestroy;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Service
+@Slf4j
 public class JobService {
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobLogService jobLogService;
+
+  @Autowired private JobScheduler jobScheduler;
+
+  @Autowired private JobEventBroadcaster jobEventBroadcaster;
+
   @Autowired private CurrentUserService currentUserService;
 
-  @Lazy @Autowired private JobService self;
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private JobMetrics jobMetrics;
+
+  @Value("${app.jobs.default-timeout-ms:3600000}")
+  private long defaultTimeoutMs;
+
+  private record ActiveJob(JobCancellation cancellation, String type) {}
+
+  // jobs that are queued or running, so that they can be cancelled
+  private final Map<Long, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+
+  private final ScheduledExecutorService timeoutExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "job-timeout");
+            thread.setDaemon(true);
+            return thread;
+          });
 
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    return runAsJob(jobFunction, JobPriority.NORMAL);
+  }
 
-    jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+  public Job runAsJob(JobContextConsumer jobFunction, JobPriority priority) {
+    return runAsJob(jobFunction, priority, defaultTimeoutMs);
+  }
+
+  /**
+   * Saves a new job with status "queued" and hands it to the JobScheduler, which runs it on the job
+   * executor when a slot is free. If too many jobs are already queued, the job is not run and is
+   * saved with status "rejected".
+   *
+   * <p>If jobFunction is a PersistentJob, it is saved with the job, so that the job can be run
+   * again after a restart.
+   *
+   * @param jobFunction the work the job does
+   * @param priority the priority of the job in the queue
+   * @param timeoutMs how long the job may run before it is stopped with status "timeout"; 0 for no
+   *     limit
+   * @return the job
+   */
+  public Job runAsJob(JobContextConsumer jobFunction, JobPriority priority, long timeoutMs) {
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status("queued")
+            .priority(priority)
+            .timeoutMs(timeoutMs)
+            .heartbeatAt(ZonedDateTime.now())
+            .build();
+    if (jobFunction instanceof PersistentJob) {
+      job.setJobType(jobFunction.getClass().getName());
+      job.setJobParams(objectMapper.valueToTree(jobFunction).toString());
+    }
 
+    jobsRepository.save(job);
+    queue(job, jobFunction);
     return job;
   }
 
-  @Async
-  public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+  /**
+   * Queues a job again that was queued or running when its server stopped.
+   *
+   * @param job the job
+   * @param jobFunction the work of the job, as returned by restoreJobFunction
+   */
+  void requeue(Job job, PersistentJob jobFunction) {
+    job.setStatus("queued");
+    jobsRepository.save(job);
+    jobEventBroadcaster.statusChanged(job);
+    queue(job, jobFunction);
+  }
+
+  private void queue(Job job, JobContextConsumer jobFunction) {
+    ActiveJob activeJob = new ActiveJob(new JobCancellation(), JobMetrics.jobType(jobFunction));
+    activeJobs.put(job.getId(), activeJob);
+    long queuedNanos = System.nanoTime();
+    try {
+      jobScheduler.submit(
+          job, job.getPriority(), () -> runJob(job, jobFunction, activeJob, queuedNanos));
+    } catch (TaskRejectedException e) {
+      log.warn("Job {} rejected: job queue is full", job.getId());
+      activeJobs.remove(job.getId(), activeJob);
+      job.setStatus("rejected");
+      jobsRepository.save(job);
+      jobEventBroadcaster.statusChanged(job);
+      jobMetrics.statusReached(activeJob.type(), "rejected");
+    }
+  }
+
+  /**
+   * Recreates the work of a job that was started with a PersistentJob.
+   *
+   * @param job the job
+   * @return the work of the job, or empty if the job was not started with a PersistentJob or its
+   *     saved work cannot be read
+   */
+  Optional<PersistentJob> restoreJobFunction(Job job) {
+    if (job.getJobType() == null) {
+      return Optional.empty();
+    }
+    try {
+      Class<? extends PersistentJob> type =
+          Class.forName(job.getJobType()).asSubclass(PersistentJob.class);
+      return Optional.of(objectMapper.readValue(job.getJobParams(), type));
+    } catch (ClassNotFoundException | ClassCastException | JsonProcessingException e) {
+      log.error("Job {}: cannot restore job of type {}", job.getId(), job.getJobType(), e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Keeps the heartbeat of the jobs queued or running here current, so that JobRecoveryService on
+   * this or another server does not take them for orphans.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.recovery.heartbeat-interval-ms:30000}")
+  public void heartbeat() {
+    if (!activeJobs.isEmpty()) {
+      jobsRepository.updateHeartbeats(List.copyOf(activeJobs.keySet()), ZonedDateTime.now());
+    }
+  }
+
+  /**
+   * @param jobId id of a job
+   * @return true if the job is queued or running on this server
+   */
+  boolean isActive(long jobId) {
+    return activeJobs.containsKey(jobId);
+  }
+
+  private void runJob(
+      Job job, JobContextConsumer jobFunction, ActiveJob activeJob, long queuedNanos) {
+    long startedNanos = jobMetrics.jobStarted(activeJob.type(), queuedNanos);
+    JobCancellation cancellation = activeJob.cancellation();
+    long timeoutMs = job.getTimeoutMs();
+    JobLogWriter logWriter = jobLogService.openWriter(job);
+    JobContext context = new JobContext(logWriter, job, cancellation);
+    ScheduledFuture<?> timeout =
+        timeoutMs > 0
+            ? timeoutExecutor.schedule(
+                () -> cancellation.stop("timeout"), timeoutMs, TimeUnit.MILLISECONDS)
+            : null;
 
+    String status = "complete";
     try {
-      jobFunction.accept(context);
+      if (cancellation.start()) {
+        jobFunction.accept(context);
+      }
     } catch (Exception e) {
-      job.setStatus("error");
-      context.log(e.getMessage());
-      return;
+      status = "error";
+      if (!cancellation.isStopped()) {
+        context.log(e.getMessage());
+      }
+    } finally {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      activeJobs.remove(job.getId(), activeJob);
+      // a job that was stopped ends up cancelled or timed out, however it returned
+      String stoppedStatus = cancellation.finish();
+      if (stoppedStatus != null) {
+        status = stoppedStatus;
+        context.log(
+            stoppedStatus.equals("timeout")
+                ? "Job timed out after %d ms".formatted(timeoutMs)
+                : "Job cancelled");
+      }
+      jobLogService.closeWriter(logWriter);
     }
 
-    job.setStatus("complete");
+    job.setStatus(status);
     jobsRepository.save(job);
+    jobEventBroadcaster.statusChanged(job);
+    jobMetrics.jobFinished(activeJob.type(), status, startedNanos, context.getLineCount());
+  }
+
+  /**
+   * Cancels a job that is queued or running. A queued job is taken out of the queue; a running job
+   * is interrupted and ends with status "cancelled" once it returns.
+   *
+   * @param jobId id of the job
+   * @return false if the job is not queued or running
+   */
+  public boolean cancelJob(long jobId) {
+    ActiveJob activeJob = activeJobs.get(jobId);
+    if (activeJob == null || !activeJob.cancellation().stop("cancelled")) {
+      return false;
+    }
+    if (jobScheduler.remove(jobId)) {
+      activeJobs.remove(jobId, activeJob);
+      jobMetrics.statusReached(activeJob.type(), "cancelled");
+      jobsRepository
+          .findById(jobId)
+          .ifPresent(
+              job -> {
+                job.setStatus("cancelled");
+                jobsRepository.save(job);
+                jobEventBroadcaster.statusChanged(job);
+              });
+    }
+    return true;
+  }
+
+  /**
+   * Starts streaming the log and status of a job to a client. Lines from fromLineNumber on that are
+   * already stored are sent first, followed by live lines and status changes until the job
+   * finishes. While the job runs, the database is not read again. Lines are numbered as getJobLogs
+   * orders them, so that the numbers stay the same once the log is compacted.
+   *
+   * @param jobId id of the job
+   * @param fromLineNumber number of the first log line to send
+   * @return the emitter to return from the controller
+   */
+  public SseEmitter streamJob(long jobId, int fromLineNumber) {
+    // subscribe before reading anything, so that no line or status change can fall in between
+    JobStreamSubscription subscription = jobEventBroadcaster.subscribe(jobId, fromLineNumber);
+    Optional<Job> job = jobsRepository.findById(jobId);
+    if (job.isEmpty() || replayStoredLog(job.get(), Math.max(fromLineNumber, 0), subscription)) {
+      subscription.goLive(job.map(Job::getStatus).orElse(null));
+    }
+    return subscription.getEmitter();
+  }
+
+  /**
+   * Replays the stored log of a job from fromLineNumber on: its compacted log, or else the log kept
+   * in the job row followed by its log lines.
+   *
+   * @return false if the subscription stopped the replay
+   */
+  private boolean replayStoredLog(Job job, int fromLineNumber, JobStreamSubscription subscription) {
+    long jobId = job.getId();
+    byte[] logGzip = job.getLogGzip();
+    String text = logGzip != null ? JobLogCompression.decompress(logGzip) : job.getLog();
+    String[] textLines = text == null || text.isEmpty() ? new String[0] : text.split("\n", -1);
+    for (int lineNumber = fromLineNumber; lineNumber < textLines.length; lineNumber++) {
+      if (!subscription.replay(logLine(jobId, lineNumber, textLines[lineNumber]))) {
+        return false;
+      }
+    }
+    if (logGzip != null) {
+      return true;
+    }
+    // the lines of a job with a log in the job row are numbered after that log
+    int offset = textLines.length;
+    jobLogService.flush(jobId);
+    return jobLogService.forEachLine(
+        jobId,
+        Math.max(fromLineNumber - offset, 0),
+        line ->
+            subscription.replay(logLine(jobId, line.getLineNumber() + offset, line.getMessage())));
+  }
+
+  private static JobLogLine logLine(long jobId, int lineNumber, String message) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message(message).build();
   }
 
+  @Transactional(readOnly = true)
   public String getJobLogs(Long jobId) {
     Job job =
         jobsRepository
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    return getJobLogs(job);
+  }
+
+  /**
+   * Reassembles the log of a job by streaming its log lines in order. Jobs that were written before
+   * log lines were stored separately keep their log in the job row; that text is returned first.
+   * Logs that JobRetentionService has compacted are decompressed instead.
+   *
+   * @param job the job
+   * @return the full log of the job, with lines separated by newlines
+   */
+  @Transactional(readOnly = true)
+  public String getJobLogs(Job job) {
+    if (job.getLogGzip() != null) {
+      return JobLogCompression.decompress(job.getLogGzip());
+    }
+    try (Stream<JobLogLine> lines =
+        jobLogLinesRepository.streamByJobIdOrderByLineNumberAsc(job.getId())) {
+      return Stream.concat(Stream.ofNullable(job.getLog()), lines.map(JobLogLine::getMessage))
+          .collect(Collectors.joining("\n"));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timeoutExecutor.shutdownNow();
   }
 }
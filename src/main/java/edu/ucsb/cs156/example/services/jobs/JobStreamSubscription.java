@@ -0,0 +1,216 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One client following the log and status of one job as server-sent events.
+ *
+ * <p>Log lines are sent as "log" events whose id is the line number, so that a client can resume
+ * with the Last-Event-ID header. Status changes are sent as "status" events. The stream ends after
+ * the job reaches a finished status.
+ *
+ * <p>A subscription starts out replaying lines that are already in the database. Live events that
+ * arrive meanwhile are held back and sent once the replay is done; lines that were both replayed
+ * and published live are sent only once. The replay is sent before the emitter is returned, so the
+ * emitter holds it in memory; it is cut off after maxQueuedEvents lines, ending the stream, and the
+ * client resumes with Last-Event-ID from the next line.
+ *
+ * <p>Live events are published on the thread that runs the job or writes its log lines, so they are
+ * not sent there: they are queued and sent in order on sendExecutor. A client that falls more than
+ * maxQueuedEvents behind is disconnected, rather than making the job wait for it; it can resume
+ * with Last-Event-ID.
+ */
+@Slf4j
+public class JobStreamSubscription {
+  private final long jobId;
+  private final SseEmitter emitter;
+  private final JobEventBroadcaster broadcaster;
+  private final Executor sendExecutor;
+  private final int maxQueuedEvents;
+  private final List<Runnable> pendingEvents = new ArrayList<>();
+  // live events waiting to be sent on sendExecutor
+  private final Deque<Runnable> queuedEvents = new ArrayDeque<>();
+  private boolean sending = false;
+  private int replayedLines = 0;
+  private int nextLineNumber;
+  private String lastStatus;
+  private boolean live = false;
+  private volatile boolean closed = false;
+
+  JobStreamSubscription(
+      long jobId,
+      int fromLineNumber,
+      SseEmitter emitter,
+      JobEventBroadcaster broadcaster,
+      Executor sendExecutor,
+      int maxQueuedEvents) {
+    this.jobId = jobId;
+    this.nextLineNumber = fromLineNumber;
+    this.emitter = emitter;
+    this.broadcaster = broadcaster;
+    this.sendExecutor = sendExecutor;
+    this.maxQueuedEvents = maxQueuedEvents;
+    emitter.onCompletion(this::close);
+    emitter.onTimeout(this::close);
+    emitter.onError(e -> close());
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public SseEmitter getEmitter() {
+    return emitter;
+  }
+
+  /**
+   * Sends a line read from the database, on the calling thread. This happens before goLive, on the
+   * thread that subscribed, and without the lock, so that a slow client does not hold up the job
+   * publishing live lines meanwhile.
+   *
+   * @param line the line
+   * @return false if the stream has ended, because the client closed it or because maxQueuedEvents
+   *     lines have been replayed; no more lines should be replayed then, nor goLive called
+   */
+  public boolean replay(JobLogLine line) {
+    if (sendLine(line) && ++replayedLines >= maxQueuedEvents) {
+      log.debug("Job {}: stream closed after replaying {} lines", jobId, replayedLines);
+      close();
+      emitter.complete();
+    }
+    return !closed;
+  }
+
+  /**
+   * Sends the lines published while the replay was running, then the current status of the job, and
+   * from then on sends live events as they are published.
+   *
+   * @param status the status of the job, read after the subscription was registered; null if the
+   *     job no longer exists
+   */
+  public synchronized void goLive(String status) {
+    live = true;
+    pendingEvents.forEach(Runnable::run);
+    pendingEvents.clear();
+    sendStatus(status);
+  }
+
+  synchronized void lineAppended(JobLogLine line) {
+    if (live) {
+      sendLine(line);
+    } else {
+      pendingEvents.add(() -> sendLine(line));
+    }
+  }
+
+  synchronized void statusChanged(String status) {
+    if (live) {
+      sendStatus(status);
+    } else {
+      pendingEvents.add(() -> sendStatus(status));
+    }
+  }
+
+  /** Sends a line, unless it was sent already; returns whether it was sent. */
+  private boolean sendLine(JobLogLine line) {
+    if (closed || line.getLineNumber() < nextLineNumber) {
+      return false;
+    }
+    nextLineNumber = line.getLineNumber() + 1;
+    send(
+        SseEmitter.event()
+            .id(Integer.toString(line.getLineNumber()))
+            .name("log")
+            .data(line.getMessage()));
+    return true;
+  }
+
+  private void sendStatus(String status) {
+    if (closed) {
+      return;
+    }
+    if (status == null) { // the job was deleted
+      finish();
+      return;
+    }
+    if (!status.equals(lastStatus)) {
+      lastStatus = status;
+      send(SseEmitter.event().name("status").data(status));
+    }
+    if (JobEventBroadcaster.isFinished(status)) {
+      finish();
+    }
+  }
+
+  private void finish() {
+    if (!closed) {
+      close();
+      queue(emitter::complete);
+    }
+  }
+
+  /** Sends an event at once while replaying, and queues it once live. */
+  private void send(SseEmitter.SseEventBuilder event) {
+    if (!live) {
+      sendNow(event);
+    } else if (queuedEvents.size() >= maxQueuedEvents) {
+      log.debug("Job {}: stream closed, client is {} events behind", jobId, queuedEvents.size());
+      queuedEvents.clear();
+      close();
+      queue(emitter::complete);
+    } else {
+      queue(() -> sendNow(event));
+    }
+  }
+
+  private void queue(Runnable action) {
+    queuedEvents.add(action);
+    if (!sending) {
+      sending = true;
+      sendExecutor.execute(this::sendQueuedEvents);
+    }
+  }
+
+  /** Runs on sendExecutor; sends the queued events in order, without holding the lock. */
+  private void sendQueuedEvents() {
+    while (true) {
+      Runnable action;
+      synchronized (this) {
+        action = queuedEvents.poll();
+        if (action == null) {
+          sending = false;
+          return;
+        }
+      }
+      action.run();
+    }
+  }
+
+  private void sendNow(SseEmitter.SseEventBuilder event) {
+    try {
+      emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Job {}: stream closed by client", jobId, e);
+      emitter.completeWithError(e);
+      synchronized (this) {
+        queuedEvents.clear();
+        close();
+      }
+    }
+  }
+
+  private synchronized void close() {
+    if (!closed) {
+      closed = true;
+      broadcaster.unsubscribe(this);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * A job whose work can be saved with the job and run again after a restart. JobService stores the
+ * class of the job and its JSON (via Jackson), so implementations must serialize to JSON and back,
+ * e.g. with Lombok's {@code @Builder @Jacksonized @Getter}.
+ *
+ * @see JobRecoveryService
+ */
+public interface PersistentJob extends JobContextConsumer {
+
+  /**
+   * A job that was queued when its server stopped is always queued again. A job that was running is
+   * only run again from the start if doing so is safe; otherwise it is marked "error".
+   *
+   * @return true if running the job again after it stopped part-way is safe
+   */
+  default boolean idempotent() {
+    return false;
+  }
+}
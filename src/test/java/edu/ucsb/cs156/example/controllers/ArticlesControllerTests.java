@@ -3,30 +3,54 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.TableVersions;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +62,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkService bulkService;
+
+  @Autowired TableVersions tableVersions;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -48,9 +76,38 @@ public class ArticlesControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(articleRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
     mockMvc.perform(get("/api/articles/all")).andExpect(status().is(200)); // logged
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_gets_304_without_reading_the_table_when_it_has_not_changed()
+      throws Exception {
+    String eTag = tableVersions.getETag(Article.class);
+
+    mockMvc
+        .perform(get("/api/articles/all").header("If-None-Match", eTag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", eTag));
+
+    verify(articleRepository, never()).findSliceBy(any(Pageable.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_gets_the_table_with_a_new_etag_after_it_changed() throws Exception {
+    when(articleRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
+    String eTag = tableVersions.getETag(Article.class);
+    tableVersions.changed(Article.class);
+
+    mockMvc
+        .perform(get("/api/articles/all").header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", tableVersions.getETag(Article.class)))
+        .andExpect(header().string("Cache-Control", "no-cache, private"));
+  }
+
   @Test
   public void logged_out_users_cannot_get_by_id() throws Exception {
     mockMvc
@@ -100,7 +157,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
     ArrayList<Article> expectedArticles = new ArrayList<>();
     expectedArticles.addAll(Arrays.asList(article1, article2));
 
-    when(articleRepository.findAll()).thenReturn(expectedArticles);
+    when(articleRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedArticles));
 
     // act
     MvcResult response =
@@ -108,7 +166,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(articleRepository, times(1)).findAll();
+    verify(articleRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedArticles);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -173,7 +231,11 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // act
     MvcResult response =
-        mockMvc.perform(get("/api/articles?id=7")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/articles?id=7"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andReturn();
 
     // assert
 
@@ -208,42 +270,74 @@ public class ArticlesControllerTests extends ControllerTestCase {
   public void admin_can_delete_an_article() throws Exception {
     // arrange
 
-    LocalDateTime ldt1 = LocalDateTime.parse("2003-11-03T19:25:00");
+    when(articleRepository.deleteRow(15L, null)).thenReturn(1);
 
-    Article article1 =
-        Article.builder()
-            .title("Christopher Marlowe: the muses' darling")
-            .url("https://www.thearticle.com/christopher-marlowe-the-muses-darling")
-            .explanation(
-                "Many fascinating secrets and mysteries surround the life of Christopher Marlowe")
-            .email("jefreymayers@gmail.com")
-            .dateAdded(ldt1)
-            .build();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/articles?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Article with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_article_whose_version_matches_if_match() throws Exception {
+    // arrange
 
-    when(articleRepository.findById(eq(15L))).thenReturn(Optional.of(article1));
+    when(articleRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
 
     // act
     MvcResult response =
         mockMvc
-            .perform(delete("/api/articles?id=15").with(csrf()))
+            .perform(
+                delete("/api/articles?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
     // assert
-    verify(articleRepository, times(1)).findById(15L);
-    verify(articleRepository, times(1)).delete(any());
+    verify(articleRepository, times(1)).deleteRow(15L, List.of(3L));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_article_whose_version_does_not_match_if_match() throws Exception {
+    // arrange
+
+    when(articleRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/articles?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("Article with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_article_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(articleRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(articleRepository.deleteRow(15L, null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -253,7 +347,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(articleRepository, times(1)).findById(15L);
+    verify(articleRepository, times(1)).deleteRow(15L, null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 not found", json.get("message"));
   }
@@ -263,20 +357,56 @@ public class ArticlesControllerTests extends ControllerTestCase {
   public void admin_can_edit_an_existing_article() throws Exception {
     // arrange
 
-    LocalDateTime ldt1 = LocalDateTime.parse("2025-11-03T19:25:00");
     LocalDateTime ldt2 = LocalDateTime.parse("2003-10-05T19:15:00");
 
-    Article article =
+    Article articleEdited =
         Article.builder()
-            .title("All the right notes: the ENO's 'Dead Man Walking'")
-            .url("https://www.thearticle.com/all-the-right-notes-the-enos-dead-man-walking")
-            .explanation("This harrowing opera is based")
-            .email("markronan@gmail.com")
-            .dateAdded(ldt1)
+            .id(67L)
+            .title(
+                "MSC CRUISES SERVES AS TITLE SPONSOR FOR AUSTIN 2025 GRAND PRIX™, ANNOUNCES CONTINUED PARTNERSHIP WITH FORMULA 1® FOR 2026 SEASON")
+            .url(
+                "https://www.multivu.com/msc-cruises/9301852-en-msc-cruises-title-sponsor-of-austin-grand-prix-2025-2026")
+            .explanation(
+                "One month ahead from the start of year-round sailings from Galveston, MSC Cruises served as title sponsor of FORMULA 1 MSC CRUISES UNITED STATES GRAND PRIX 2025 in Austin")
+            .email("msdc@cruise.com")
+            .dateAdded(ldt2)
             .build();
 
+    String requestBody = mapper.writeValueAsString(articleEdited);
+
+    when(articleRepository.updateRow(articleEdited, null)).thenReturn(1);
+    Article stored = mapper.readValue(requestBody, Article.class);
+    stored.setVersion(4);
+    when(articleRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).updateRow(articleEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_article_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2003-10-05T19:15:00");
+
     Article articleEdited =
         Article.builder()
+            .id(67L)
             .title(
                 "MSC CRUISES SERVES AS TITLE SPONSOR FOR AUSTIN 2025 GRAND PRIX™, ANNOUNCES CONTINUED PARTNERSHIP WITH FORMULA 1® FOR 2026 SEASON")
             .url(
@@ -289,7 +419,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(articleEdited);
 
-    when(articleRepository.findById(eq(67L))).thenReturn(Optional.of(article));
+    when(articleRepository.updateRow(articleEdited, List.of(3L))).thenReturn(1);
+    Article stored = mapper.readValue(requestBody, Article.class);
+    stored.setVersion(4);
+    when(articleRepository.findById(67L)).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -299,17 +432,63 @@ public class ArticlesControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(articleRepository, times(1)).findById(67L);
-    verify(articleRepository, times(1)).save(articleEdited); // should be saved with correct user
+    verify(articleRepository, times(1)).updateRow(articleEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_article_whose_version_does_not_match_if_match() throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2003-10-05T19:15:00");
+
+    Article articleEdited =
+        Article.builder()
+            .id(67L)
+            .title(
+                "MSC CRUISES SERVES AS TITLE SPONSOR FOR AUSTIN 2025 GRAND PRIX™, ANNOUNCES CONTINUED PARTNERSHIP WITH FORMULA 1® FOR 2026 SEASON")
+            .url(
+                "https://www.multivu.com/msc-cruises/9301852-en-msc-cruises-title-sponsor-of-austin-grand-prix-2025-2026")
+            .explanation(
+                "One month ahead from the start of year-round sailings from Galveston, MSC Cruises served as title sponsor of FORMULA 1 MSC CRUISES UNITED STATES GRAND PRIX 2025 in Austin")
+            .email("msdc@cruise.com")
+            .dateAdded(ldt2)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(articleEdited);
+
+    when(articleRepository.updateRow(articleEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).updateRow(any(Article.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("Article with id 67 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_article_that_does_not_exist() throws Exception {
@@ -329,7 +508,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedArticle);
 
-    when(articleRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(articleRepository.updateRow(any(Article.class), isNull())).thenReturn(0);
 
     // act
     MvcResult response =
@@ -344,8 +523,382 @@ public class ArticlesControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(articleRepository, times(1)).findById(67L);
+    verify(articleRepository, times(1)).updateRow(any(Article.class), isNull());
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 67 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/articles/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_articles() throws Exception {
+    // arrange
+
+    when(articleRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/articles/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(articleRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_of_articles_is_sorted_and_filtered_as_requested() throws Exception {
+    // arrange
+
+    when(articleRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(Page.empty());
+
+    // act
+
+    mockMvc
+        .perform(get("/api/articles/page?size=10&sort=title,desc&title=marlowe&email="))
+        .andExpect(status().isOk());
+
+    // assert
+
+    ArgumentCaptor<FieldFilter<Article>> filter = ArgumentCaptor.forClass(FieldFilter.class);
+    verify(articleRepository)
+        .findAll(filter.capture(), eq(PageRequest.of(0, 10, Sort.by(Sort.Order.desc("title")))));
+    assertEquals(Map.of("title", "marlowe"), filter.getValue().getValues());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_of_articles_sorted_by_an_unknown_field_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/page?sort=author"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidPageRequestException", json.get("type"));
+    assertEquals("Unknown field: author", json.get("message"));
+    verify(articleRepository, never()).findAll(any(FieldFilter.class), any(Pageable.class));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_of_articles_filtered_by_an_unknown_field_is_a_bad_request() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/page?author=marlowe"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Unknown field: author", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_articles_are_capped_at_all_max_rows() throws Exception {
+    when(articleRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
+
+    mockMvc
+        .perform(get("/api/articles/all"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(ApiController.TRUNCATED_HEADER));
+
+    verify(articleRepository).findSliceBy(PageRequest.ofSize(1000));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_articles_beyond_all_max_rows_are_marked_truncated() throws Exception {
+    Article article = Article.builder().id(1L).title("Article").build();
+    when(articleRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new SliceImpl<>(List.of(article), PageRequest.ofSize(1), true));
+
+    mockMvc
+        .perform(get("/api/articles/all"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ApiController.TRUNCATED_HEADER, "true"))
+        .andExpect(jsonPath("$[0].id").value(1));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_articles_by_cursor() throws Exception {
+    mockMvc.perform(get("/api/articles/cursor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_page_through_articles_with_cursor() throws Exception {
+    // arrange
+
+    LocalDateTime now = LocalDateTime.parse("2025-10-01T12:00:00");
+    Article article3 = Article.builder().id(3L).title("Article").dateAdded(now).build();
+    Article article2 =
+        Article.builder().id(2L).title("Article").dateAdded(now.minusHours(1)).build();
+    Article article1 =
+        Article.builder().id(1L).title("Article").dateAdded(now.minusHours(1)).build();
+
+    when(articleRepository.findNewest(Limit.of(3)))
+        .thenReturn(List.of(article3, article2, article1));
+    when(articleRepository.findOlderThan(now.minusHours(1), 2L, Limit.of(3)))
+        .thenReturn(List.of(article1));
+
+    // act
+
+    MvcResult firstResponse =
+        mockMvc
+            .perform(get("/api/articles/cursor?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].id").value(3))
+            .andExpect(jsonPath("$.content[1].id").value(2))
+            .andReturn();
+    String nextCursor = (String) responseToJson(firstResponse).get("nextCursor");
+
+    MvcResult secondResponse =
+        mockMvc
+            .perform(get("/api/articles/cursor?size=2&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.content[0].id").value(1))
+            .andReturn();
+
+    // assert
+
+    assertEquals(null, responseToJson(secondResponse).get("nextCursor"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void cursor_page_size_is_capped() throws Exception {
+    // act
+    mockMvc.perform(get("/api/articles/cursor?size=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/articles/cursor?size=0")).andExpect(status().isOk());
+
+    // assert
+    verify(articleRepository).findNewest(Limit.of(101));
+    verify(articleRepository).findNewest(Limit.of(2));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void invalid_cursor_returns_bad_request() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/cursor?cursor=bm90LWEtY3Vyc29y"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidCursorException", json.get("type"));
+    assertEquals("Invalid cursor: bm90LWEtY3Vyc29y", json.get("message"));
+    verify(articleRepository, never()).findOlderThan(any(), any(Long.class), any());
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_articles() throws Exception {
+    mockMvc.perform(get("/api/articles/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_articles() throws Exception {
+    // arrange
+
+    when(articleRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header().string("Content-Disposition", "attachment; filename=\"Article.ndjson\""))
+        .andExpect(content().string(""));
+    verify(articleRepository).streamAll();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void articles_can_be_exported_as_one_json_array() throws Exception {
+    // arrange
+
+    when(articleRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/export?format=JSON"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"Article.json\""))
+        .andExpect(content().string("[]"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void export_in_an_unknown_format_is_a_bad_request() throws Exception {
+    mockMvc.perform(get("/api/articles/export?format=XML")).andExpect(status().isBadRequest());
+    verify(articleRepository, never()).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_articles() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_articles() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_articles() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(any(InputStream.class), eq(Article.class), eq(articleRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_articles() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(any(InputStream.class), eq(Article.class), eq(articleRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_articles() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(any(InputStream.class), eq(Article.class), eq(articleRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
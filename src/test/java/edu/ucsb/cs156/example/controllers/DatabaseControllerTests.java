@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.DatabasePoolStatus;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.DatabasePoolMonitor;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = DatabaseController.class)
+@Import(TestConfig.class)
+public class DatabaseControllerTests extends ControllerTestCase {
+
+  @MockitoBean UserRepository userRepository;
+
+  @MockitoBean DatabasePoolMonitor databasePoolMonitor;
+
+  @Test
+  public void logged_out_users_cannot_get_the_pool_status() throws Exception {
+    mockMvc.perform(get("/api/admin/database/pool")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_the_pool_status() throws Exception {
+    mockMvc.perform(get("/api/admin/database/pool")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_the_pool_status() throws Exception {
+    // arrange
+
+    DatabasePoolStatus poolStatus =
+        DatabasePoolStatus.builder()
+            .poolName("db")
+            .maximumPoolSize(10)
+            .activeConnections(10)
+            .threadsAwaitingConnection(3)
+            .utilization(1.0)
+            .saturated(true)
+            .build();
+    when(databasePoolMonitor.getStatus()).thenReturn(poolStatus);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/database/pool")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(poolStatus), response.getResponse().getContentAsString());
+  }
+}
@@ -1,359 +1,740 @@
-package edu.ucsb.cs156.example.controllers;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
-import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
-
-import edu.ucsb.cs156.example.ControllerTestCase;
-import edu.ucsb.cs156.example.entities.HelpRequest;
-import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
-import edu.ucsb.cs156.example.repositories.UserRepository;
-import edu.ucsb.cs156.example.testconfig.TestConfig;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.Optional;
-import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.context.annotation.Import;
-import org.springframework.http.MediaType;
-import org.springframework.security.test.context.support.WithMockUser;
-import org.springframework.test.web.servlet.MvcResult;
-
-@WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
-public class HelpRequestControllerTests extends ControllerTestCase {
-
-  @MockBean HelpRequestRepository helpRequestRepository;
-
-  @MockBean UserRepository userRepository;
-
-  // Authorization tests for /api/helprequest/admin/all
-
-  @Test
-  public void logged_out_users_cannot_get_all() throws Exception {
-    mockMvc
-        .perform(get("/api/helprequest/all"))
-        .andExpect(status().is(403)); // logged out users can't get all
-  }
-
-  @WithMockUser(roles = {"USER"})
-  @Test
-  public void logged_in_users_can_get_all() throws Exception {
-    mockMvc.perform(get("/api/helprequest/all")).andExpect(status().is(200)); // logged
-  }
-
-  @Test
-  public void logged_out_users_cannot_get_by_id() throws Exception {
-    mockMvc
-        .perform(get("/api/helprequest?id=7"))
-        .andExpect(status().is(403)); // logged out users can't get by id
-  }
-
-  //   Authorization tests for /api/helprequest/post
-  //   (Perhaps should also have these for put and delete)
-
-  @Test
-  public void logged_out_users_cannot_post() throws Exception {
-    mockMvc.perform(post("/api/helprequest/post")).andExpect(status().is(403));
-  }
-
-  @WithMockUser(roles = {"USER"})
-  @Test
-  public void logged_in_regular_users_cannot_post() throws Exception {
-    mockMvc
-        .perform(post("/api/helprequest/post"))
-        .andExpect(status().is(403)); // only admins can post
-  }
-
-  // Tests with mocks for database actions
-
-  @WithMockUser(roles = {"USER"})
-  @Test
-  public void test_that_logged_in_user_can_get_by_id_when_the_id_exists() throws Exception {
-
-    // arrange
-    LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    HelpRequest helpRequest =
-        HelpRequest.builder()
-            .requesterEmail("test@ucsb.edu")
-            .teamId("testId")
-            .tableOrBreakoutRoom("test_table")
-            .requestTime(ldt)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(helpRequest));
-
-    // act
-    MvcResult response =
-        mockMvc.perform(get("/api/helprequest?id=7")).andExpect(status().isOk()).andReturn();
-
-    // assert
-
-    verify(helpRequestRepository, times(1)).findById(eq(7L));
-    String expectedJson = mapper.writeValueAsString(helpRequest);
-    String responseString = response.getResponse().getContentAsString();
-    assertEquals(expectedJson, responseString);
-  }
-
-  @WithMockUser(roles = {"USER"})
-  @Test
-  public void test_that_logged_in_user_can_get_by_id_when_the_id_does_not_exist() throws Exception {
-
-    // arrange
-
-    when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
-
-    // act
-    MvcResult response =
-        mockMvc.perform(get("/api/helprequest?id=7")).andExpect(status().isNotFound()).andReturn();
-
-    // assert
-
-    verify(helpRequestRepository, times(1)).findById(eq(7L));
-    Map<String, Object> json = responseToJson(response);
-    assertEquals("EntityNotFoundException", json.get("type"));
-    assertEquals("HelpRequest with id 7 not found", json.get("message"));
-  }
-
-  @WithMockUser(roles = {"USER"})
-  @Test
-  public void logged_in_user_can_get_all_helprequests() throws Exception {
-
-    // arrange
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    HelpRequest helpRequest1 =
-        HelpRequest.builder()
-            .requesterEmail("test1@ucsb.edu")
-            .teamId("testId1")
-            .tableOrBreakoutRoom("test_table1")
-            .requestTime(ldt1)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    LocalDateTime ldt2 = LocalDateTime.parse("2022-03-11T00:00:00");
-
-    HelpRequest helpRequest2 =
-        HelpRequest.builder()
-            .requesterEmail("test2@ucsb.edu")
-            .teamId("testId2")
-            .tableOrBreakoutRoom("test_table2")
-            .requestTime(ldt2)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    ArrayList<HelpRequest> expectedRequests = new ArrayList<>();
-    expectedRequests.addAll(Arrays.asList(helpRequest1, helpRequest1));
-
-    when(helpRequestRepository.findAll()).thenReturn(expectedRequests);
-
-    // act
-    MvcResult response =
-        mockMvc.perform(get("/api/helprequest/all")).andExpect(status().isOk()).andReturn();
-
-    // assert
-
-    verify(helpRequestRepository, times(1)).findAll();
-    String expectedJson = mapper.writeValueAsString(expectedRequests);
-    String responseString = response.getResponse().getContentAsString();
-    assertEquals(expectedJson, responseString);
-  }
-
-  @WithMockUser(roles = {"ADMIN", "USER"})
-  @Test
-  public void an_admin_user_can_post_a_new_helprequest() throws Exception {
-    // arrange
-
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    HelpRequest helpRequest1 =
-        HelpRequest.builder()
-            .requesterEmail("test1@ucsb.edu")
-            .teamId("testId1")
-            .tableOrBreakoutRoom("test_table1")
-            .requestTime(ldt1)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    when(helpRequestRepository.save(eq(helpRequest1))).thenReturn(helpRequest1);
-
-    // act
-    MvcResult response =
-        mockMvc
-            .perform(
-                post("/api/helprequest/post?requesterEmail=test1@ucsb.edu&teamId=testId1&tableOrBreakoutRoom=test_table1&requestTime=2022-01-03T00:00:00&explanation=This is a test!&solved=true")
-                    .with(csrf()))
-            .andExpect(status().isOk())
-            .andReturn();
-
-    // assert
-    verify(helpRequestRepository, times(1)).save(helpRequest1);
-    String expectedJson = mapper.writeValueAsString(helpRequest1);
-    String responseString = response.getResponse().getContentAsString();
-    assertEquals(expectedJson, responseString);
-  }
-
-  @WithMockUser(roles = {"ADMIN", "USER"})
-  @Test
-  public void admin_can_delete_a_request() throws Exception {
-    // arrange
-
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    HelpRequest helpRequest1 =
-        HelpRequest.builder()
-            .requesterEmail("test1@ucsb.edu")
-            .teamId("testId1")
-            .tableOrBreakoutRoom("test_table1")
-            .requestTime(ldt1)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helpRequest1));
-
-    // act
-    MvcResult response =
-        mockMvc
-            .perform(delete("/api/helprequest?id=15").with(csrf()))
-            .andExpect(status().isOk())
-            .andReturn();
-
-    // assert
-    verify(helpRequestRepository, times(1)).findById(15L);
-    verify(helpRequestRepository, times(1)).delete(any());
-
-    Map<String, Object> json = responseToJson(response);
-    assertEquals("HelpRequest with id 15 deleted", json.get("message"));
-  }
-
-  @WithMockUser(roles = {"ADMIN", "USER"})
-  @Test
-  public void admin_tries_to_delete_non_existant_helprequest_and_gets_right_error_message()
-      throws Exception {
-    // arrange
-
-    when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
-
-    // act
-    MvcResult response =
-        mockMvc
-            .perform(delete("/api/helprequest?id=15").with(csrf()))
-            .andExpect(status().isNotFound())
-            .andReturn();
-
-    // assert
-    verify(helpRequestRepository, times(1)).findById(15L);
-    Map<String, Object> json = responseToJson(response);
-    assertEquals("HelpRequest with id 15 not found", json.get("message"));
-  }
-
-  @WithMockUser(roles = {"ADMIN", "USER"})
-  @Test
-  public void admin_can_edit_an_existing_helprequest() throws Exception {
-    // arrange
-
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
-
-    HelpRequest helpRequestOrig =
-        HelpRequest.builder()
-            .requesterEmail("test1@ucsb.edu")
-            .teamId("testId1")
-            .tableOrBreakoutRoom("test_table1")
-            .requestTime(ldt1)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    HelpRequest helpRequestEdited =
-        HelpRequest.builder()
-            .requesterEmail("test2@ucsb.edu")
-            .teamId("testId2")
-            .tableOrBreakoutRoom("test_table2")
-            .requestTime(ldt2)
-            .explanation("This is a test 2!")
-            .solved(false)
-            .build();
-
-    String requestBody = mapper.writeValueAsString(helpRequestEdited);
-
-    when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
-
-    // act
-    MvcResult response =
-        mockMvc
-            .perform(
-                put("/api/helprequest?id=67")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .characterEncoding("utf-8")
-                    .content(requestBody)
-                    .with(csrf()))
-            .andExpect(status().isOk())
-            .andReturn();
-
-    // assert
-    verify(helpRequestRepository, times(1)).findById(67L);
-    verify(helpRequestRepository, times(1)).save(helpRequestEdited); // should be saved with
-    //   correct user
-    String responseString = response.getResponse().getContentAsString();
-    assertEquals(requestBody, responseString);
-  }
-
-  @WithMockUser(roles = {"ADMIN", "USER"})
-  @Test
-  public void admin_cannot_edit_helprequest_that_does_not_exist() throws Exception {
-    // arrange
-
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-    HelpRequest helpRequestEdited =
-        HelpRequest.builder()
-            .requesterEmail("test1@ucsb.edu")
-            .teamId("testId1")
-            .tableOrBreakoutRoom("test_table1")
-            .requestTime(ldt1)
-            .explanation("This is a test!")
-            .solved(true)
-            .build();
-
-    String requestBody = mapper.writeValueAsString(helpRequestEdited);
-
-    when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
-
-    // act
-    MvcResult response =
-        mockMvc
-            .perform(
-                put("/api/helprequest?id=67")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .characterEncoding("utf-8")
-                    .content(requestBody)
-                    .with(csrf()))
-            .andExpect(status().isNotFound())
-            .andReturn();
-
-    // assert
-    verify(helpRequestRepository, times(1)).findById(67L);
-    Map<String, Object> json = responseToJson(response);
-    assertEquals("HelpRequest with id 67 not found", json.get("message"));
-  }
-}
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = HelpRequestController.class)
+@Import(TestConfig.class)
+public class HelpRequestControllerTests extends ControllerTestCase {
+
+  @MockBean HelpRequestRepository helpRequestRepository;
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean BulkService bulkService;
+
+  // Authorization tests for /api/helprequest/admin/all
+
+  @Test
+  public void logged_out_users_cannot_get_all() throws Exception {
+    mockMvc
+        .perform(get("/api/helprequest/all"))
+        .andExpect(status().is(403)); // logged out users can't get all
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_all() throws Exception {
+    when(helpRequestRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
+    mockMvc.perform(get("/api/helprequest/all")).andExpect(status().is(200)); // logged
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_by_id() throws Exception {
+    mockMvc
+        .perform(get("/api/helprequest?id=7"))
+        .andExpect(status().is(403)); // logged out users can't get by id
+  }
+
+  //   Authorization tests for /api/helprequest/post
+  //   (Perhaps should also have these for put and delete)
+
+  @Test
+  public void logged_out_users_cannot_post() throws Exception {
+    mockMvc.perform(post("/api/helprequest/post")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post() throws Exception {
+    mockMvc
+        .perform(post("/api/helprequest/post"))
+        .andExpect(status().is(403)); // only admins can post
+  }
+
+  // Tests with mocks for database actions
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void test_that_logged_in_user_can_get_by_id_when_the_id_exists() throws Exception {
+
+    // arrange
+    LocalDateTime ldt = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    HelpRequest helpRequest =
+        HelpRequest.builder()
+            .requesterEmail("test@ucsb.edu")
+            .teamId("testId")
+            .tableOrBreakoutRoom("test_table")
+            .requestTime(ldt)
+            .explanation("This is a test!")
+            .solved(true)
+            .build();
+
+    when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(helpRequest));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest?id=7"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1)).findById(eq(7L));
+    String expectedJson = mapper.writeValueAsString(helpRequest);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void test_that_logged_in_user_can_get_by_id_when_the_id_does_not_exist() throws Exception {
+
+    // arrange
+
+    when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequest?id=7")).andExpect(status().isNotFound()).andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1)).findById(eq(7L));
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("EntityNotFoundException", json.get("type"));
+    assertEquals("HelpRequest with id 7 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_all_helprequests() throws Exception {
+
+    // arrange
+    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    HelpRequest helpRequest1 =
+        HelpRequest.builder()
+            .requesterEmail("test1@ucsb.edu")
+            .teamId("testId1")
+            .tableOrBreakoutRoom("test_table1")
+            .requestTime(ldt1)
+            .explanation("This is a test!")
+            .solved(true)
+            .build();
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2022-03-11T00:00:00");
+
+    HelpRequest helpRequest2 =
+        HelpRequest.builder()
+            .requesterEmail("test2@ucsb.edu")
+            .teamId("testId2")
+            .tableOrBreakoutRoom("test_table2")
+            .requestTime(ldt2)
+            .explanation("This is a test!")
+            .solved(true)
+            .build();
+
+    ArrayList<HelpRequest> expectedRequests = new ArrayList<>();
+    expectedRequests.addAll(Arrays.asList(helpRequest1, helpRequest1));
+
+    when(helpRequestRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedRequests));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequest/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(helpRequestRepository, times(1)).findSliceBy(any(Pageable.class));
+    String expectedJson = mapper.writeValueAsString(expectedRequests);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_a_new_helprequest() throws Exception {
+    // arrange
+
+    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    HelpRequest helpRequest1 =
+        HelpRequest.builder()
+            .requesterEmail("test1@ucsb.edu")
+            .teamId("testId1")
+            .tableOrBreakoutRoom("test_table1")
+            .requestTime(ldt1)
+            .explanation("This is a test!")
+            .solved(true)
+            .build();
+
+    when(helpRequestRepository.save(eq(helpRequest1))).thenReturn(helpRequest1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/post?requesterEmail=test1@ucsb.edu&teamId=testId1&tableOrBreakoutRoom=test_table1&requestTime=2022-01-03T00:00:00&explanation=This is a test!&solved=true")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).save(helpRequest1);
+    String expectedJson = mapper.writeValueAsString(helpRequest1);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_a_request() throws Exception {
+    // arrange
+
+    when(helpRequestRepository.deleteRow(15L, null)).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/helprequest?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_help_request_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    when(helpRequestRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_help_request_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    when(helpRequestRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("HelpRequest with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_tries_to_delete_non_existant_helprequest_and_gets_right_error_message()
+      throws Exception {
+    // arrange
+
+    when(helpRequestRepository.deleteRow(15L, null)).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/helprequest?id=15").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteRow(15L, null);
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 15 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_an_existing_helprequest() throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
+
+    HelpRequest helpRequestEdited =
+        HelpRequest.builder()
+            .id(67L)
+            .requesterEmail("test2@ucsb.edu")
+            .teamId("testId2")
+            .tableOrBreakoutRoom("test_table2")
+            .requestTime(ldt2)
+            .explanation("This is a test 2!")
+            .solved(false)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(helpRequestEdited);
+
+    when(helpRequestRepository.updateRow(helpRequestEdited, null)).thenReturn(1);
+    HelpRequest stored = mapper.readValue(requestBody, HelpRequest.class);
+    stored.setVersion(4);
+    when(helpRequestRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).updateRow(helpRequestEdited, null);
+    //   correct user
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_help_request_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
+
+    HelpRequest helpRequestEdited =
+        HelpRequest.builder()
+            .id(67L)
+            .requesterEmail("test2@ucsb.edu")
+            .teamId("testId2")
+            .tableOrBreakoutRoom("test_table2")
+            .requestTime(ldt2)
+            .explanation("This is a test 2!")
+            .solved(false)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(helpRequestEdited);
+
+    when(helpRequestRepository.updateRow(helpRequestEdited, List.of(3L))).thenReturn(1);
+    HelpRequest stored = mapper.readValue(requestBody, HelpRequest.class);
+    stored.setVersion(4);
+    when(helpRequestRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).updateRow(helpRequestEdited, List.of(3L));
+    //   correct user
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_help_request_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
+
+    HelpRequest helpRequestEdited =
+        HelpRequest.builder()
+            .id(67L)
+            .requesterEmail("test2@ucsb.edu")
+            .teamId("testId2")
+            .tableOrBreakoutRoom("test_table2")
+            .requestTime(ldt2)
+            .explanation("This is a test 2!")
+            .solved(false)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(helpRequestEdited);
+
+    when(helpRequestRepository.updateRow(helpRequestEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).updateRow(any(HelpRequest.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("HelpRequest with id 67 does not match If-Match \"3\"", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_helprequest_that_does_not_exist() throws Exception {
+    // arrange
+
+    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    HelpRequest helpRequestEdited =
+        HelpRequest.builder()
+            .requesterEmail("test1@ucsb.edu")
+            .teamId("testId1")
+            .tableOrBreakoutRoom("test_table1")
+            .requestTime(ldt1)
+            .explanation("This is a test!")
+            .solved(true)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(helpRequestEdited);
+
+    when(helpRequestRepository.updateRow(any(HelpRequest.class), isNull())).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).updateRow(any(HelpRequest.class), isNull());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("HelpRequest with id 67 not found", json.get("message"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/helprequest/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_help_requests() throws Exception {
+    // arrange
+
+    when(helpRequestRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/helprequest/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(helpRequestRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_helprequests_by_cursor() throws Exception {
+    mockMvc.perform(get("/api/helprequest/cursor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_page_through_helprequests_with_cursor() throws Exception {
+    // arrange
+
+    LocalDateTime now = LocalDateTime.parse("2025-10-01T12:00:00");
+    HelpRequest helpRequest3 =
+        HelpRequest.builder().id(3L).teamId("s22-5pm-3").requestTime(now).build();
+    HelpRequest helpRequest2 =
+        HelpRequest.builder().id(2L).teamId("s22-5pm-3").requestTime(now.minusHours(1)).build();
+    HelpRequest helpRequest1 =
+        HelpRequest.builder().id(1L).teamId("s22-5pm-3").requestTime(now.minusHours(1)).build();
+
+    when(helpRequestRepository.findNewest(Limit.of(3)))
+        .thenReturn(List.of(helpRequest3, helpRequest2, helpRequest1));
+    when(helpRequestRepository.findOlderThan(now.minusHours(1), 2L, Limit.of(3)))
+        .thenReturn(List.of(helpRequest1));
+
+    // act
+
+    MvcResult firstResponse =
+        mockMvc
+            .perform(get("/api/helprequest/cursor?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].id").value(3))
+            .andExpect(jsonPath("$.content[1].id").value(2))
+            .andReturn();
+    String nextCursor = (String) responseToJson(firstResponse).get("nextCursor");
+
+    MvcResult secondResponse =
+        mockMvc
+            .perform(get("/api/helprequest/cursor?size=2&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.content[0].id").value(1))
+            .andReturn();
+
+    // assert
+
+    assertEquals(null, responseToJson(secondResponse).get("nextCursor"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_help_requests() throws Exception {
+    mockMvc.perform(get("/api/helprequest/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_help_requests() throws Exception {
+    // arrange
+
+    when(helpRequestRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header().string("Content-Disposition", "attachment; filename=\"HelpRequest.ndjson\""))
+        .andExpect(content().string(""));
+    verify(helpRequestRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_help_requests() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_help_requests() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_help_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(
+            any(InputStream.class), eq(HelpRequest.class), eq(helpRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_help_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(
+            any(InputStream.class), eq(HelpRequest.class), eq(helpRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_help_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(
+            any(InputStream.class), eq(HelpRequest.class), eq(helpRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+}
@@ -3,7 +3,6 @@ package edu.ucsb.cs156.example.controllers;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -11,56 +10,99 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.models.JobLogStats;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobEventBroadcaster;
+import edu.ucsb.cs156.example.services.jobs.JobLogCompression;
+import edu.ucsb.cs156.example.services.jobs.JobLogService;
+import edu.ucsb.cs156.example.services.jobs.JobMetrics;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({
+  JobService.class,
+  JobLogService.class,
+  JobScheduler.class,
+  JobEventBroadcaster.class,
+  JobRetentionService.class,
+  JobMetrics.class,
+  SimpleMeterRegistry.class,
+  JobExecutorConfig.class
+})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
   @MockitoBean UserRepository userRepository;
 
   @Autowired JobService jobService;
 
+  @Autowired JobEventBroadcaster jobEventBroadcaster;
+
+  @Autowired JobLogService jobLogService;
+
   @Autowired ObjectMapper objectMapper;
 
+  private JobSummary summary(long id, ZonedDateTime createdAt) {
+    return JobSummary.builder()
+        .id(id)
+        .status("complete")
+        .createdAt(createdAt)
+        .updatedAt(createdAt)
+        .createdById(1L)
+        .logLines(2)
+        .build();
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
-
-    ArrayList<Job> expectedJobs = new ArrayList<>();
-    expectedJobs.addAll(Arrays.asList(job1, job2));
+    ZonedDateTime now = ZonedDateTime.parse("2025-10-01T12:00:00-07:00");
+    List<JobSummary> expectedJobs = List.of(summary(2L, now), summary(1L, now.minusHours(1)));
 
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    when(jobsRepository.findSummaries(eq(Limit.of(21)))).thenReturn(expectedJobs);
 
     // act
     MvcResult response =
@@ -68,12 +110,91 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, atLeastOnce()).findAll();
-    String expectedJson = mapper.writeValueAsString(expectedJobs);
+    verify(jobsRepository, never()).findAll();
+    String expectedJson =
+        mapper.writeValueAsString(
+            CursorPage.builder().content(List.copyOf(expectedJobs)).size(20).build());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_through_jobs_with_cursor() throws Exception {
+
+    // arrange
+
+    ZonedDateTime now = ZonedDateTime.parse("2025-10-01T12:00:00-07:00");
+    JobSummary job3 = summary(3L, now);
+    JobSummary job2 = summary(2L, now.minusHours(1));
+    JobSummary job1 = summary(1L, now.minusHours(2));
+
+    when(jobsRepository.findSummaries(eq(Limit.of(3)))).thenReturn(List.of(job3, job2, job1));
+    when(jobsRepository.findSummariesBefore(eq(now.minusHours(1)), eq(2L), eq(Limit.of(3))))
+        .thenReturn(List.of(job1));
+
+    // act
+
+    MvcResult firstResponse =
+        mockMvc.perform(get("/api/jobs/all?size=2")).andExpect(status().isOk()).andReturn();
+    CursorPage<JobSummary> firstPage =
+        objectMapper.readValue(
+            firstResponse.getResponse().getContentAsString(),
+            new TypeReference<CursorPage<JobSummary>>() {});
+
+    MvcResult secondResponse =
+        mockMvc
+            .perform(get("/api/jobs/all?size=2&cursor=" + firstPage.getNextCursor()))
+            .andExpect(status().isOk())
+            .andReturn();
+    CursorPage<JobSummary> secondPage =
+        objectMapper.readValue(
+            secondResponse.getResponse().getContentAsString(),
+            new TypeReference<CursorPage<JobSummary>>() {});
+
+    // assert
+
+    assertEquals(List.of(3L, 2L), firstPage.getContent().stream().map(JobSummary::getId).toList());
+    assertEquals(List.of(1L), secondPage.getContent().stream().map(JobSummary::getId).toList());
+    assertEquals(null, secondPage.getNextCursor());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void page_size_is_capped() throws Exception {
+
+    // act
+    mockMvc.perform(get("/api/jobs/all?size=5000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/jobs/all?size=0")).andExpect(status().isOk());
+
+    // assert
+    verify(jobsRepository).findSummaries(eq(Limit.of(101)));
+    verify(jobsRepository).findSummaries(eq(Limit.of(2)));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void invalid_cursor_returns_bad_request() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/all?cursor=bm90LWEtY3Vyc29y"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("InvalidCursorException", json.get("type"));
+    assertEquals("Invalid cursor: bm90LWEtY3Vyc29y", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_get_all_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs/all")).andExpect(status().isForbidden());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void api_getJobLogById__admin_logged_in__returns_job_by_id() throws Exception {
@@ -222,33 +343,270 @@ public class JobsControllerTests extends ControllerTestCase {
 
   @WithMockUser(roles = {"ADMIN"})
   @Test
-  public void admin_can_launch_test_job() throws Exception {
+  public void api_getJobLogById__returns_job_with_log_assembled_from_log_lines() throws Exception {
 
     // arrange
 
-    User user = currentUserService.getUser();
+    Job job = Job.builder().id(3L).status("complete").build();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
+    when(jobsRepository.findById(eq(3L))).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamByJobIdOrderByLineNumberAsc(eq(3L)))
+        .thenReturn(
+            Stream.of(
+                JobLogLine.builder().jobId(3L).lineNumber(0).message("line 1").build(),
+                JobLogLine.builder().jobId(3L).lineNumber(1).message("line 2").build()));
+
+    // act
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs?id=3")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals("line 1\nline 2", jobReturned.getLog());
+  }
+
+  /** Waits for a job stream to end, since live events are sent on a thread of their own. */
+  private String streamed(MvcResult response) throws Exception {
+    response.getAsyncResult(5000);
+    return response.getResponse().getContentAsString();
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_log_of_finished_job() throws Exception {
+
+    // arrange
+
+    Job job = Job.builder().id(4L).status("complete").build();
+    when(jobsRepository.existsById(eq(4L))).thenReturn(true);
+    when(jobsRepository.findById(eq(4L))).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(4L), eq(1)))
+        .thenReturn(
+            Stream.of(
+                JobLogLine.builder().jobId(4L).lineNumber(1).message("line 1").build(),
+                JobLogLine.builder().jobId(4L).lineNumber(2).message("line 2").build()));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/4/stream?fromLine=1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    assertEquals(
+        "id:1\nevent:log\ndata:line 1\n\n"
+            + "id:2\nevent:log\ndata:line 2\n\n"
+            + "event:status\ndata:complete\n\n",
+        streamed(response));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_running_job_pushes_live_lines_and_status() throws Exception {
+
+    // arrange
+
+    Job job = Job.builder().id(9L).status("running").build();
+    when(jobsRepository.existsById(eq(9L))).thenReturn(true);
+    when(jobsRepository.findById(eq(9L))).thenReturn(Optional.of(job));
+
+    // act
+
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/9/stream")).andExpect(request().asyncStarted()).andReturn();
+
+    jobEventBroadcaster.lineAppended(
+        JobLogLine.builder().jobId(9L).lineNumber(0).message("live line").build());
+    job.setStatus("complete");
+    jobEventBroadcaster.statusChanged(job);
+
+    // assert
+
+    assertEquals(
+        "event:status\ndata:running\n\n"
+            + "id:0\nevent:log\ndata:live line\n\n"
+            + "event:status\ndata:complete\n\n",
+        streamed(response));
+    assertEquals(0, jobEventBroadcaster.getSubscriberCount());
+    verify(jobsRepository, times(1)).findById(eq(9L));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_compressed_log_replays_decompressed_lines() throws Exception {
+
+    // arrange
 
-    Job jobCompleted =
+    Job job =
         Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
+            .id(10L)
             .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
+            .logGzip(JobLogCompression.compress("line 0\nline 1\nline 2"))
             .build();
+    when(jobsRepository.existsById(eq(10L))).thenReturn(true);
+    when(jobsRepository.findById(eq(10L))).thenReturn(Optional.of(job));
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/10/stream?fromLine=1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    assertEquals(
+        "id:1\nevent:log\ndata:line 1\n\n"
+            + "id:2\nevent:log\ndata:line 2\n\n"
+            + "event:status\ndata:complete\n\n",
+        streamed(response));
+    verify(jobLogLinesRepository, never())
+        .streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(anyLong(), anyInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_run_job_retention() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.findIdsCreatedBefore(any(), any(), any())).thenReturn(List.of());
+    when(jobsRepository.findJobsToCompact(any(), any(), anyLong(), any())).thenReturn(List.of());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/retention").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "Compressed 0 job logs, deleted 0 jobs")),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_run_job_retention() throws Exception {
+    mockMvc.perform(post("/api/jobs/retention").with(csrf())).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_resumes_after_last_event_id() throws Exception {
+
+    // arrange
+
+    Job job = Job.builder().id(5L).status("error").build();
+    when(jobsRepository.existsById(eq(5L))).thenReturn(true);
+    when(jobsRepository.findById(eq(5L))).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(5L), eq(8)))
+        .thenReturn(
+            Stream.of(JobLogLine.builder().jobId(5L).lineNumber(8).message("Fail!").build()));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/5/stream").header("Last-Event-ID", "7"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    assertEquals("id:8\nevent:log\ndata:Fail!\n\nevent:status\ndata:error\n\n", streamed(response));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_of_missing_job_returns_not_found() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(6L))).thenReturn(false);
+
+    // act & assert
+
+    mockMvc.perform(get("/api/jobs/6/stream")).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_stream_job() throws Exception {
+    mockMvc.perform(get("/api/jobs/6/stream")).andExpect(status().isForbidden());
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> savedLogMessages() {
+    ArgumentCaptor<Iterable<JobLogLine>> batchCaptor = ArgumentCaptor.forClass(Iterable.class);
+    verify(jobLogLinesRepository, atLeastOnce()).saveAll(batchCaptor.capture());
+    List<String> messages = new ArrayList<>();
+    batchCaptor.getAllValues().forEach(batch -> batch.forEach(l -> messages.add(l.getMessage())));
+    return messages;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_log_stats() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/logs/metrics")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    JobLogStats stats =
+        objectMapper.readValue(response.getResponse().getContentAsString(), JobLogStats.class);
+    assertEquals(0, stats.getOpenWriters());
+    assertEquals(0, stats.getLinesDropped());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_get_job_log_stats() throws Exception {
+    mockMvc.perform(get("/api/jobs/logs/metrics")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_job_executor_status() throws Exception {
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    JobExecutorStatus executorStatus =
+        objectMapper.readValue(
+            response.getResponse().getContentAsString(), JobExecutorStatus.class);
+    assertEquals(4, executorStatus.getMaxConcurrent());
+    assertEquals(100, executorStatus.getQueueCapacity());
+    assertEquals(0, executorStatus.getQueueSize());
+    assertEquals(0, executorStatus.getRunningJobs());
+    assertEquals(2, executorStatus.getMaxRunningPerUser());
+    assertEquals(false, executorStatus.getVirtualThreads());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_get_job_executor_status() throws Exception {
+    mockMvc.perform(get("/api/jobs/executor")).andExpect(status().isForbidden());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_test_job() throws Exception {
 
     // act
     MvcResult response =
@@ -263,43 +621,44 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
-    await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(() -> verify(jobsRepository, times(3)).save(jobCaptor.capture()));
+    assertEquals("complete", jobCaptor.getValue().getStatus());
+    assertEquals(null, jobCaptor.getValue().getLog());
+
+    assertEquals(
+        List.of("Hello World! from test job!", "Goodbye from test job!"), savedLogMessages());
   }
 
   @WithMockUser(roles = {"ADMIN"})
   @Test
-  public void admin_can_launch_test_job_that_fails() throws Exception {
-
-    // arrange
+  public void admin_can_launch_test_job_with_priority() throws Exception {
 
-    User user = currentUserService.getUser();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/launch/testjob?fail=false&sleepMs=1000&priority=LOW").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
+    // assert
+    Job jobReturned =
+        objectMapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    assertEquals("running", jobReturned.getStatus());
 
-    Job jobFailed =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("error")
-            .log("Hello World! from test job!\nFail!")
-            .build();
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(() -> verify(jobsRepository, times(3)).save(jobCaptor.capture()));
+    assertEquals("complete", jobCaptor.getValue().getStatus());
+  }
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_test_job_that_fails() throws Exception {
 
     // act
     MvcResult response =
@@ -313,12 +672,111 @@ public class JobsControllerTests extends ControllerTestCase {
 
     assertEquals("running", jobReturned.getStatus());
 
+    ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
     await()
-        .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .atMost(10, SECONDS)
+        .untilAsserted(() -> verify(jobsRepository, times(3)).save(jobCaptor.capture()));
+    assertEquals("error", jobCaptor.getValue().getStatus());
+
+    assertEquals(List.of("Hello World! from test job!", "Fail!"), savedLogMessages());
+  }
 
+  // makes jobsRepository.save give new jobs an id, and remembers the last job saved
+  private AtomicReference<Job> saveGivesJobsId(long id) {
+    AtomicReference<Job> saved = new AtomicReference<>();
+    when(jobsRepository.save(any(Job.class)))
+        .thenAnswer(
+            invocation -> {
+              Job job = invocation.getArgument(0);
+              if (job.getId() == 0) {
+                job.setId(id);
+              }
+              saved.set(job);
+              return job;
+            });
+    when(jobsRepository.existsById(id)).thenReturn(true);
+    return saved;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_running_job() throws Exception {
+    // arrange
+    AtomicReference<Job> saved = saveGivesJobsId(42L);
+    long linesAppended = jobLogService.getStats().getLinesAppended();
+    mockMvc
+        .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=10000").with(csrf()))
+        .andExpect(status().isOk());
+    // cancel once the job has logged its first line and gone to sleep
     await()
-        .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .atMost(5, SECONDS)
+        .until(() -> jobLogService.getStats().getLinesAppended() > linesAppended);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/42/cancel").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("message", "Job with id 42 cancelled"),
+        objectMapper.readValue(response.getResponse().getContentAsString(), Map.class));
+    await().atMost(5, SECONDS).until(() -> "cancelled".equals(saved.get().getStatus()));
+    assertEquals(List.of("Hello World! from test job!", "Job cancelled"), savedLogMessages());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_launch_test_job_with_timeout() throws Exception {
+    // arrange
+    AtomicReference<Job> saved = saveGivesJobsId(43L);
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/jobs/launch/testjob?fail=false&sleepMs=10000&timeoutMs=100").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    await().atMost(5, SECONDS).until(() -> "timeout".equals(saved.get().getStatus()));
+    assertEquals(
+        List.of("Hello World! from test job!", "Job timed out after 100 ms"), savedLogMessages());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_finished_job_does_nothing() throws Exception {
+    // arrange
+    when(jobsRepository.existsById(44L)).thenReturn(true);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/44/cancel").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("message", "Job with id 44 is not queued or running"),
+        objectMapper.readValue(response.getResponse().getContentAsString(), Map.class));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_missing_job_returns_not_found() throws Exception {
+    // arrange
+    when(jobsRepository.existsById(45L)).thenReturn(false);
+
+    // act / assert
+    mockMvc.perform(post("/api/jobs/45/cancel").with(csrf())).andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_user_cannot_cancel_jobs() throws Exception {
+    mockMvc.perform(post("/api/jobs/42/cancel").with(csrf())).andExpect(status().isForbidden());
   }
 }
@@ -3,30 +3,48 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -39,6 +57,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkService bulkService;
+
   // get, but not all -> skip
   // get all include,
 
@@ -52,6 +72,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(menuItemReviewRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
     mockMvc.perform(get("/api/menuitemreview/all")).andExpect(status().is(200)); // logged
   }
 
@@ -98,7 +119,8 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     ArrayList<MenuItemReview> expectedReviews = new ArrayList<>();
     expectedReviews.addAll(Arrays.asList(menuItemReview1, menuItemReview2));
 
-    when(menuItemReviewRepository.findAll()).thenReturn(expectedReviews);
+    when(menuItemReviewRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedReviews));
 
     // act
     MvcResult response =
@@ -106,7 +128,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(menuItemReviewRepository, times(1)).findAll();
+    verify(menuItemReviewRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedReviews);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -173,7 +195,11 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     // act
     MvcResult response =
-        mockMvc.perform(get("/api/menuitemreview?id=7")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/menuitemreview?id=7"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andReturn();
 
     // assert
 
@@ -220,20 +246,53 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   public void admin_can_edit_an_existing_menuitemreview() throws Exception {
     // arrange
 
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
     LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-    MenuItemReview menuItemReview1 =
+    MenuItemReview menuItemReviewEdited =
         MenuItemReview.builder()
-            .itemId(10)
-            .reviewerEmail("oyararbas@ucsb.edu")
-            .stars(5)
-            .dateReviewed(ldt1)
-            .comments("bleh")
+            .id(67L)
+            .itemId(1)
+            .reviewerEmail("oyararbas2@ucsb.edu")
+            .stars(4)
+            .dateReviewed(ldt2)
+            .comments("asd")
             .build();
 
+    String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
+
+    when(menuItemReviewRepository.updateRow(menuItemReviewEdited, null)).thenReturn(1);
+    MenuItemReview stored = mapper.readValue(requestBody, MenuItemReview.class);
+    stored.setVersion(4);
+    when(menuItemReviewRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).updateRow(menuItemReviewEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_menu_item_review_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
+
     MenuItemReview menuItemReviewEdited =
         MenuItemReview.builder()
+            .id(67L)
             .itemId(1)
             .reviewerEmail("oyararbas2@ucsb.edu")
             .stars(4)
@@ -243,7 +302,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
 
-    when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuItemReview1));
+    when(menuItemReviewRepository.updateRow(menuItemReviewEdited, List.of(3L))).thenReturn(1);
+    MenuItemReview stored = mapper.readValue(requestBody, MenuItemReview.class);
+    stored.setVersion(4);
+    when(menuItemReviewRepository.findById(67L)).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -253,18 +315,62 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(67L);
-    verify(menuItemReviewRepository, times(1))
-        .save(menuItemReviewEdited); // should be saved with correct user
+    verify(menuItemReviewRepository, times(1)).updateRow(menuItemReviewEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_menu_item_review_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
+
+    MenuItemReview menuItemReviewEdited =
+        MenuItemReview.builder()
+            .id(67L)
+            .itemId(1)
+            .reviewerEmail("oyararbas2@ucsb.edu")
+            .stars(4)
+            .dateReviewed(ldt2)
+            .comments("asd")
+            .build();
+
+    String requestBody = mapper.writeValueAsString(menuItemReviewEdited);
+
+    when(menuItemReviewRepository.updateRow(menuItemReviewEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1))
+        .updateRow(any(MenuItemReview.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("MenuItemReview with id 67 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_menuitemreview_that_does_not_exist() throws Exception {
@@ -283,7 +389,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(menuItemReview1);
 
-    when(menuItemReviewRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(menuItemReviewRepository.updateRow(any(MenuItemReview.class), isNull())).thenReturn(0);
 
     // act
     MvcResult response =
@@ -298,7 +404,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(67L);
+    verify(menuItemReviewRepository, times(1)).updateRow(any(MenuItemReview.class), isNull());
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 67 not found", json.get("message"));
   }
@@ -310,41 +416,79 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   public void admin_can_delete_a_menuitemreview() throws Exception {
     // arrange
 
-    LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+    when(menuItemReviewRepository.deleteRow(15L, null)).thenReturn(1);
 
-    MenuItemReview menuItemReview1 =
-        MenuItemReview.builder()
-            .itemId(10)
-            .reviewerEmail("oyararbas@ucsb.edu")
-            .stars(5)
-            .dateReviewed(ldt1)
-            .comments("bleh")
-            .build();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/menuitemreview?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_menu_item_review_whose_version_matches_if_match() throws Exception {
+    // arrange
 
-    when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.of(menuItemReview1));
+    when(menuItemReviewRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
 
     // act
     MvcResult response =
         mockMvc
-            .perform(delete("/api/menuitemreview?id=15").with(csrf()))
+            .perform(
+                delete("/api/menuitemreview?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(15L);
-    verify(menuItemReviewRepository, times(1)).delete(any());
+    verify(menuItemReviewRepository, times(1)).deleteRow(15L, List.of(3L));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_menu_item_review_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    when(menuItemReviewRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreview?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("MenuItemReview with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_menuitemreview_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(menuItemReviewRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(menuItemReviewRepository.deleteRow(15L, null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -354,8 +498,248 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(menuItemReviewRepository, times(1)).findById(15L);
+    verify(menuItemReviewRepository, times(1)).deleteRow(15L, null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_menu_item_reviews() throws Exception {
+    // arrange
+
+    when(menuItemReviewRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/menuitemreview/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(menuItemReviewRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_menuitemreview_by_cursor() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/cursor")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_page_through_menuitemreview_with_cursor() throws Exception {
+    // arrange
+
+    LocalDateTime now = LocalDateTime.parse("2025-10-01T12:00:00");
+    MenuItemReview review3 = MenuItemReview.builder().id(3L).stars(4).dateReviewed(now).build();
+    MenuItemReview review2 =
+        MenuItemReview.builder().id(2L).stars(4).dateReviewed(now.minusHours(1)).build();
+    MenuItemReview review1 =
+        MenuItemReview.builder().id(1L).stars(4).dateReviewed(now.minusHours(1)).build();
+
+    when(menuItemReviewRepository.findNewest(Limit.of(3)))
+        .thenReturn(List.of(review3, review2, review1));
+    when(menuItemReviewRepository.findOlderThan(now.minusHours(1), 2L, Limit.of(3)))
+        .thenReturn(List.of(review1));
+
+    // act
+
+    MvcResult firstResponse =
+        mockMvc
+            .perform(get("/api/menuitemreview/cursor?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(2))
+            .andExpect(jsonPath("$.content[0].id").value(3))
+            .andExpect(jsonPath("$.content[1].id").value(2))
+            .andReturn();
+    String nextCursor = (String) responseToJson(firstResponse).get("nextCursor");
+
+    MvcResult secondResponse =
+        mockMvc
+            .perform(get("/api/menuitemreview/cursor?size=2&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(1))
+            .andExpect(jsonPath("$.content[0].id").value(1))
+            .andReturn();
+
+    // assert
+
+    assertEquals(null, responseToJson(secondResponse).get("nextCursor"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_menu_item_reviews() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_menu_item_reviews() throws Exception {
+    // arrange
+
+    when(menuItemReviewRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string("Content-Disposition", "attachment; filename=\"MenuItemReview.ndjson\""))
+        .andExpect(content().string(""));
+    verify(menuItemReviewRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_menu_item_reviews() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_menu_item_reviews() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/menuitemreview/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_menu_item_reviews() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(
+            any(InputStream.class), eq(MenuItemReview.class), eq(menuItemReviewRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_menu_item_reviews() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(
+            any(InputStream.class), eq(MenuItemReview.class), eq(menuItemReviewRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_menu_item_reviews() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(
+            any(InputStream.class), eq(MenuItemReview.class), eq(menuItemReviewRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreview/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
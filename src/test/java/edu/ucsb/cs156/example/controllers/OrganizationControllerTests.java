@@ -3,29 +3,46 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -38,6 +55,8 @@ public class OrganizationControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkService bulkService;
+
   // Authorization tests for /api/ucsborganization/admin/all
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
@@ -49,6 +68,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(ucsbOrganizationRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
     mockMvc.perform(get("/api/ucsborganization/all")).andExpect(status().is(200)); // logged
   }
 
@@ -93,7 +113,8 @@ public class OrganizationControllerTests extends ControllerTestCase {
     ArrayList<UCSBOrganization> expectedOrganization = new ArrayList<>();
     expectedOrganization.addAll(Arrays.asList(ab, zpr));
 
-    when(ucsbOrganizationRepository.findAll()).thenReturn(expectedOrganization);
+    when(ucsbOrganizationRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedOrganization));
 
     // act
     MvcResult response =
@@ -101,7 +122,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbOrganizationRepository, times(1)).findAll();
+    verify(ucsbOrganizationRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedOrganization);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -173,6 +194,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
         mockMvc
             .perform(get("/api/ucsborganization?orgCode=AB"))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
             .andReturn();
 
     // assert
@@ -211,14 +233,44 @@ public class OrganizationControllerTests extends ControllerTestCase {
   public void admin_can_edit_an_existing_organization() throws Exception {
     // arrange
 
-    UCSBOrganization WaterPoloClubOrig =
+    UCSBOrganization WaterPoloClubEdited =
         UCSBOrganization.builder()
-            .orgTranslation("Water Polo Club")
+            .orgTranslation("Water Polo")
             .orgCode("WPC")
-            .orgTranslationShort("Water Polo")
-            .inactive(false)
+            .orgTranslationShort("Water P")
+            .inactive(true)
             .build();
 
+    String requestBody = mapper.writeValueAsString(WaterPoloClubEdited);
+
+    when(ucsbOrganizationRepository.updateRow(WaterPoloClubEdited, null)).thenReturn(1);
+    UCSBOrganization stored = mapper.readValue(requestBody, UCSBOrganization.class);
+    stored.setVersion(4);
+    when(ucsbOrganizationRepository.findById("WPC")).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization?orgCode=WPC")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).updateRow(WaterPoloClubEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_organization_whose_version_matches_if_match() throws Exception {
+    // arrange
+
     UCSBOrganization WaterPoloClubEdited =
         UCSBOrganization.builder()
             .orgTranslation("Water Polo")
@@ -229,7 +281,10 @@ public class OrganizationControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(WaterPoloClubEdited);
 
-    when(ucsbOrganizationRepository.findById(eq("WPC"))).thenReturn(Optional.of(WaterPoloClubOrig));
+    when(ucsbOrganizationRepository.updateRow(WaterPoloClubEdited, List.of(3L))).thenReturn(1);
+    UCSBOrganization stored = mapper.readValue(requestBody, UCSBOrganization.class);
+    stored.setVersion(4);
+    when(ucsbOrganizationRepository.findById("WPC")).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -239,18 +294,58 @@ public class OrganizationControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(ucsbOrganizationRepository, times(1)).findById("WPC");
-    verify(ucsbOrganizationRepository, times(1))
-        .save(WaterPoloClubEdited); // should be saved with updated info
+    verify(ucsbOrganizationRepository, times(1)).updateRow(WaterPoloClubEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_organization_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    UCSBOrganization WaterPoloClubEdited =
+        UCSBOrganization.builder()
+            .orgTranslation("Water Polo")
+            .orgCode("WPC")
+            .orgTranslationShort("Water P")
+            .inactive(true)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(WaterPoloClubEdited);
+
+    when(ucsbOrganizationRepository.updateRow(WaterPoloClubEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization?orgCode=WPC")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1))
+        .updateRow(any(UCSBOrganization.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("UCSBOrganization with id WPC does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_organization_that_does_not_exist() throws Exception {
@@ -266,7 +361,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedOrganization);
 
-    when(ucsbOrganizationRepository.findById(eq("SB-Hacks"))).thenReturn(Optional.empty());
+    when(ucsbOrganizationRepository.updateRow(any(UCSBOrganization.class), isNull())).thenReturn(0);
 
     // act
     MvcResult response =
@@ -281,7 +376,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbOrganizationRepository, times(1)).findById("SB-Hacks");
+    verify(ucsbOrganizationRepository, times(1)).updateRow(any(UCSBOrganization.class), isNull());
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id SB-Hacks not found", json.get("message"));
   }
@@ -291,15 +386,7 @@ public class OrganizationControllerTests extends ControllerTestCase {
   public void admin_can_delete_an_organization() throws Exception {
     // arrange
 
-    UCSBOrganization Los_Ingenieros =
-        UCSBOrganization.builder()
-            .orgTranslation("Los-Ingenieros")
-            .orgCode("LI")
-            .orgTranslationShort("Los-Ingenieros")
-            .inactive(false)
-            .build();
-
-    when(ucsbOrganizationRepository.findById(eq("LI"))).thenReturn(Optional.of(Los_Ingenieros));
+    when(ucsbOrganizationRepository.deleteRow("LI", null)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -309,20 +396,69 @@ public class OrganizationControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbOrganizationRepository, times(1)).findById("LI");
-    verify(ucsbOrganizationRepository, times(1)).delete(any());
+    verify(ucsbOrganizationRepository, times(1)).deleteRow("LI", null);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id LI deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_organization_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    when(ucsbOrganizationRepository.deleteRow("LI", List.of(3L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsborganization?orgCode=LI")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).deleteRow("LI", List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("UCSBOrganization with id LI deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_organization_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    when(ucsbOrganizationRepository.deleteRow("LI", List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsborganization?orgCode=LI")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).deleteRow("LI", List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("UCSBOrganization with id LI does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_organization_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(ucsbOrganizationRepository.findById(eq("KS"))).thenReturn(Optional.empty());
+    when(ucsbOrganizationRepository.deleteRow("KS", null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -332,8 +468,201 @@ public class OrganizationControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbOrganizationRepository, times(1)).findById("KS");
+    verify(ucsbOrganizationRepository, times(1)).deleteRow("KS", null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id KS not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_organizations() throws Exception {
+    // arrange
+
+    when(ucsbOrganizationRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/ucsborganization/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(ucsbOrganizationRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_organizations() throws Exception {
+    mockMvc.perform(get("/api/ucsborganization/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_organizations() throws Exception {
+    // arrange
+
+    when(ucsbOrganizationRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string("Content-Disposition", "attachment; filename=\"UCSBOrganization.ndjson\""))
+        .andExpect(content().string(""));
+    verify(ucsbOrganizationRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_organizations() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_organizations() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsborganization/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_organizations() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id("ZPR").build());
+    when(bulkService.create(
+            any(InputStream.class), eq(UCSBOrganization.class), eq(ucsbOrganizationRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"orgCode\":\"ZPR\"}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_organizations() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id("ZPR").build());
+    when(bulkService.update(
+            any(InputStream.class), eq(UCSBOrganization.class), eq(ucsbOrganizationRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"orgCode\":\"ZPR\"}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_organizations() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id("ZPR").build());
+    when(bulkService.delete(
+            any(InputStream.class), eq(UCSBOrganization.class), eq(ucsbOrganizationRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsborganization/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"ZPR\"]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -3,31 +3,47 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -40,6 +56,8 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkService bulkService;
+
   //
   // Tests for GET /api/recommendationrequests/all
   //
@@ -86,7 +104,8 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
     ArrayList<RecommendationRequest> expectedRequests = new ArrayList<>();
     expectedRequests.addAll(Arrays.asList(rr1, rr2));
 
-    when(recommendationRequestRepository.findAll()).thenReturn(expectedRequests);
+    when(recommendationRequestRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedRequests));
 
     // act
     MvcResult response =
@@ -96,7 +115,7 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(recommendationRequestRepository, times(1)).findAll();
+    verify(recommendationRequestRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedRequests);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -220,6 +239,7 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
         mockMvc
             .perform(get("/api/recommendationrequests?id=7"))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
             .andReturn();
 
     // assert
@@ -259,44 +279,79 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
   @Test
   public void admin_can_delete_a_recommendationrequest() throws Exception {
     // arrange
-    LocalDateTime reqDate = LocalDateTime.parse("2025-01-10T12:00:00");
-    LocalDateTime needDate = LocalDateTime.parse("2025-02-01T23:59:00");
+    when(recommendationRequestRepository.deleteRow(15L, null)).thenReturn(1);
 
-    RecommendationRequest rr =
-        RecommendationRequest.builder()
-            .code("CMPSC156-GradLetter")
-            .requesterEmail("student@ucsb.edu")
-            .professorEmail("prof@ucsb.edu")
-            .explanation("Applying to grad school, need letter.")
-            .dateRequested(reqDate)
-            .dateNeeded(needDate)
-            .done(false)
-            .build();
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/recommendationrequests?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
+  }
 
-    when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.of(rr));
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_recommendation_request_whose_version_matches_if_match()
+      throws Exception {
+    // arrange
+    when(recommendationRequestRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
 
     // act
     MvcResult response =
         mockMvc
-            .perform(delete("/api/recommendationrequests?id=15").with(csrf()))
+            .perform(
+                delete("/api/recommendationrequests?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
             .andExpect(status().isOk())
             .andReturn();
 
     // assert
-    verify(recommendationRequestRepository, times(1)).findById(15L);
-    verify(recommendationRequestRepository, times(1)).delete(any());
+    verify(recommendationRequestRepository, times(1)).deleteRow(15L, List.of(3L));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_recommendation_request_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+    when(recommendationRequestRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequests?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "RecommendationRequest with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existent_recommendationrequest_and_gets_404()
       throws Exception {
 
     // arrange
-    when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(recommendationRequestRepository.deleteRow(15L, null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -306,7 +361,7 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(recommendationRequestRepository, times(1)).findById(15L);
+    verify(recommendationRequestRepository, times(1)).deleteRow(15L, null);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
@@ -319,27 +374,73 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_can_edit_an_existing_recommendationrequest() throws Exception {
-    // arrange: original in DB
-    LocalDateTime oldReqDate = LocalDateTime.parse("2025-01-10T12:00:00");
-    LocalDateTime oldNeedDate = LocalDateTime.parse("2025-02-01T23:59:00");
+    // arrange: incoming edited values from client
+    LocalDateTime newReqDate = LocalDateTime.parse("2025-01-15T09:00:00");
+    LocalDateTime newNeedDate = LocalDateTime.parse("2025-02-10T17:00:00");
 
-    RecommendationRequest rrOriginal =
+    RecommendationRequest rrEditedIncoming =
         RecommendationRequest.builder()
-            .code("CMPSC156-GradLetter")
-            .requesterEmail("oldstudent@ucsb.edu")
-            .professorEmail("oldprof@ucsb.edu")
-            .explanation("Old explanation")
-            .dateRequested(oldReqDate)
-            .dateNeeded(oldNeedDate)
-            .done(false)
+            .id(67L)
+            .code("CMPSC156-UpdatedLetter")
+            .requesterEmail("student@ucsb.edu")
+            .professorEmail("prof@ucsb.edu")
+            .explanation("Updated info and deadlines.")
+            .dateRequested(newReqDate)
+            .dateNeeded(newNeedDate)
+            .done(true)
             .build();
 
-    // incoming edited values from client
+    String requestBody = mapper.writeValueAsString(rrEditedIncoming);
+
+    when(recommendationRequestRepository.updateRow(any(RecommendationRequest.class), isNull()))
+        .thenReturn(1);
+    RecommendationRequest stored = mapper.readValue(requestBody, RecommendationRequest.class);
+    stored.setVersion(4);
+    when(recommendationRequestRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequests?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert:
+    ArgumentCaptor<RecommendationRequest> captor =
+        ArgumentCaptor.forClass(RecommendationRequest.class);
+    verify(recommendationRequestRepository, times(1)).updateRow(captor.capture(), isNull());
+
+    RecommendationRequest savedArg = captor.getValue();
+
+    assertEquals("CMPSC156-UpdatedLetter", savedArg.getCode());
+    assertEquals("student@ucsb.edu", savedArg.getRequesterEmail());
+    assertEquals("prof@ucsb.edu", savedArg.getProfessorEmail());
+    assertEquals("Updated info and deadlines.", savedArg.getExplanation());
+    assertEquals(newReqDate, savedArg.getDateRequested());
+    assertEquals(newNeedDate, savedArg.getDateNeeded());
+    assertEquals(true, savedArg.getDone());
+
+    // and response should echo the updated row
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_recommendation_request_whose_version_matches_if_match()
+      throws Exception {
+    // arrange: incoming edited values from client
     LocalDateTime newReqDate = LocalDateTime.parse("2025-01-15T09:00:00");
     LocalDateTime newNeedDate = LocalDateTime.parse("2025-02-10T17:00:00");
 
     RecommendationRequest rrEditedIncoming =
         RecommendationRequest.builder()
+            .id(67L)
             .code("CMPSC156-UpdatedLetter")
             .requesterEmail("student@ucsb.edu")
             .professorEmail("prof@ucsb.edu")
@@ -351,10 +452,12 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(rrEditedIncoming);
 
-    when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(rrOriginal));
-
-    when(recommendationRequestRepository.save(any(RecommendationRequest.class)))
-        .thenReturn(rrEditedIncoming);
+    when(recommendationRequestRepository.updateRow(
+            any(RecommendationRequest.class), eq(List.of(3L))))
+        .thenReturn(1);
+    RecommendationRequest stored = mapper.readValue(requestBody, RecommendationRequest.class);
+    stored.setVersion(4);
+    when(recommendationRequestRepository.findById(67L)).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -364,15 +467,16 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert:
     ArgumentCaptor<RecommendationRequest> captor =
         ArgumentCaptor.forClass(RecommendationRequest.class);
-    verify(recommendationRequestRepository, times(1)).findById(67L);
-    verify(recommendationRequestRepository, times(1)).save(captor.capture());
+    verify(recommendationRequestRepository, times(1)).updateRow(captor.capture(), eq(List.of(3L)));
 
     RecommendationRequest savedArg = captor.getValue();
 
@@ -384,11 +488,60 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
     assertEquals(newNeedDate, savedArg.getDateNeeded());
     assertEquals(true, savedArg.getDone());
 
-    // and response should echo what repo returned
+    // and response should echo the updated row
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_recommendation_request_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange: incoming edited values from client
+    LocalDateTime newReqDate = LocalDateTime.parse("2025-01-15T09:00:00");
+    LocalDateTime newNeedDate = LocalDateTime.parse("2025-02-10T17:00:00");
+
+    RecommendationRequest rrEditedIncoming =
+        RecommendationRequest.builder()
+            .id(67L)
+            .code("CMPSC156-UpdatedLetter")
+            .requesterEmail("student@ucsb.edu")
+            .professorEmail("prof@ucsb.edu")
+            .explanation("Updated info and deadlines.")
+            .dateRequested(newReqDate)
+            .dateNeeded(newNeedDate)
+            .done(true)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(rrEditedIncoming);
+
+    when(recommendationRequestRepository.updateRow(
+            any(RecommendationRequest.class), eq(List.of(3L))))
+        .thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequests?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert:
+    verify(recommendationRequestRepository, times(1))
+        .updateRow(any(RecommendationRequest.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "RecommendationRequest with id 67 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_recommendationrequest_that_does_not_exist() throws Exception {
@@ -409,7 +562,8 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(rrEdited);
 
-    when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(recommendationRequestRepository.updateRow(any(RecommendationRequest.class), isNull()))
+        .thenReturn(0);
 
     // act
     MvcResult response =
@@ -424,9 +578,211 @@ public class RecommendationRequestsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(recommendationRequestRepository, times(1)).findById(67L);
+    verify(recommendationRequestRepository, times(1))
+        .updateRow(any(RecommendationRequest.class), isNull());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_recommendation_requests() throws Exception {
+    // arrange
+
+    when(recommendationRequestRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/recommendationrequests/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(recommendationRequestRepository)
+        .findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_recommendation_requests() throws Exception {
+    mockMvc.perform(get("/api/recommendationrequests/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_recommendation_requests() throws Exception {
+    // arrange
+
+    when(recommendationRequestRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequests/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string(
+                    "Content-Disposition", "attachment; filename=\"RecommendationRequest.ndjson\""))
+        .andExpect(content().string(""));
+    verify(recommendationRequestRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_recommendation_requests() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_recommendation_requests() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/recommendationrequests/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_recommendation_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(
+            any(InputStream.class),
+            eq(RecommendationRequest.class),
+            eq(recommendationRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequests/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_recommendation_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(
+            any(InputStream.class),
+            eq(RecommendationRequest.class),
+            eq(recommendationRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequests/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_recommendation_requests() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(
+            any(InputStream.class),
+            eq(RecommendationRequest.class),
+            eq(recommendationRequestRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequests/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
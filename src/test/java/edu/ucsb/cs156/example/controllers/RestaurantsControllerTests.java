@@ -3,6 +3,8 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,16 +14,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -35,6 +48,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean BulkService bulkService;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -47,6 +62,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(restaurantRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
     mockMvc.perform(get("/api/restaurants/all")).andExpect(status().is(200)); // logged
   }
 
@@ -88,7 +104,11 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // act
     MvcResult response =
-        mockMvc.perform(get("/api/restaurants?id=7")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/restaurants?id=7"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andReturn();
 
     // assert
 
@@ -131,7 +151,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
     expectedRestaurants.addAll(Arrays.asList(restaurant1, restaurant2));
 
-    when(restaurantRepository.findAll()).thenReturn(expectedRestaurants);
+    when(restaurantRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedRestaurants));
 
     // act
     MvcResult response =
@@ -139,7 +160,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(restaurantRepository, times(1)).findAll();
+    verify(restaurantRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedRestaurants);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -173,9 +194,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   public void admin_can_delete_a_restaurant() throws Exception {
     // arrange
 
-    Restaurant restaurant = Restaurant.builder().name("Taco Bell").description("Mexican").build();
-
-    when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.of(restaurant));
+    when(restaurantRepository.deleteRow(15L, null)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -185,20 +204,85 @@ public class RestaurantsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(restaurantRepository, times(1)).findById(15L);
-    verify(restaurantRepository, times(1)).delete(any());
+    verify(restaurantRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Restaurant with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_restaurant_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    when(restaurantRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).deleteRow(15L, List.of(3L));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_restaurant_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    when(restaurantRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants?id=15").header(HttpHeaders.IF_MATCH, "\"3\"").with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("Restaurant with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_restaurant_whose_version_is_one_of_a_list_in_if_match()
+      throws Exception {
+    // arrange
+
+    when(restaurantRepository.deleteRow(15L, List.of(3L, 4L))).thenReturn(1);
+
+    // act
+    mockMvc
+        .perform(
+            delete("/api/restaurants?id=15")
+                .header(HttpHeaders.IF_MATCH, "\"3\", W/\"5\", \"six\", \"4\", \"3\"")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(restaurantRepository, times(1)).deleteRow(15L, List.of(3L, 4L));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_restaurant_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(restaurantRepository.deleteRow(15L, null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -208,7 +292,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(restaurantRepository, times(1)).findById(15L);
+    verify(restaurantRepository, times(1)).deleteRow(15L, null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 not found", json.get("message"));
   }
@@ -218,15 +302,49 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   public void admin_can_edit_an_existing_restaurant() throws Exception {
     // arrange
 
-    Restaurant restaurantOrig =
-        Restaurant.builder().id(67L).name("Chipotle").description("Mexican").build();
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    when(restaurantRepository.updateRow(restaurantEdited, null)).thenReturn(1);
+    Restaurant stored = mapper.readValue(requestBody, Restaurant.class);
+    stored.setVersion(4);
+    when(restaurantRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).updateRow(restaurantEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_restaurant_whose_version_matches_if_match() throws Exception {
+    // arrange
 
     Restaurant restaurantEdited =
         Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
 
     String requestBody = mapper.writeValueAsString(restaurantEdited);
 
-    when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+    when(restaurantRepository.updateRow(restaurantEdited, List.of(3L))).thenReturn(1);
+    Restaurant stored = mapper.readValue(requestBody, Restaurant.class);
+    stored.setVersion(4);
+    when(restaurantRepository.findById(67L)).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -236,18 +354,181 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(restaurantRepository, times(1)).findById(67L);
-    verify(restaurantRepository, times(1))
-        .save(restaurantEdited); // should be saved with correct user
+    verify(restaurantRepository, times(1)).updateRow(restaurantEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_restaurant_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    when(restaurantRepository.updateRow(restaurantEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).updateRow(any(Restaurant.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals("Restaurant with id 67 does not match If-Match \"3\"", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_restaurant_whose_version_is_one_of_a_list_in_if_match()
+      throws Exception {
+    // arrange
+
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    when(restaurantRepository.updateRow(restaurantEdited, List.of(3L, 4L))).thenReturn(1);
+    Restaurant stored = mapper.readValue(requestBody, Restaurant.class);
+    stored.setVersion(5);
+    when(restaurantRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    mockMvc
+        .perform(
+            put("/api/restaurants?id=67")
+                .contentType(MediaType.APPLICATION_JSON)
+                .characterEncoding("utf-8")
+                .content(requestBody)
+                .header(HttpHeaders.IF_MATCH, "\"3\", \"4\"")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+    // assert
+    verify(restaurantRepository, times(1)).updateRow(restaurantEdited, List.of(3L, 4L));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_restaurant_whatever_its_version_if_match_is_any() throws Exception {
+    // arrange
+
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    when(restaurantRepository.updateRow(restaurantEdited, null)).thenReturn(1);
+    Restaurant stored = mapper.readValue(requestBody, Restaurant.class);
+    stored.setVersion(4);
+    when(restaurantRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "*")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).updateRow(restaurantEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_restaurant_if_match_is_not_the_etag_of_a_version()
+      throws Exception {
+    // arrange
+
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, never()).updateRow(any(Restaurant.class), any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Restaurant with id 67 does not match If-Match W/\"3\"", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_edit_of_restaurant_deleted_before_it_is_read_back_is_not_found()
+      throws Exception {
+    // arrange
+
+    Restaurant restaurantEdited =
+        Restaurant.builder().id(67L).name("Taco Bell").description("American").build();
+
+    String requestBody = mapper.writeValueAsString(restaurantEdited);
+
+    when(restaurantRepository.updateRow(restaurantEdited, null)).thenReturn(1);
+    when(restaurantRepository.findById(67L)).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).updateRow(restaurantEdited, null);
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Restaurant with id 67 not found", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_restaurant_that_does_not_exist() throws Exception {
@@ -258,7 +539,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedRestaurant);
 
-    when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(restaurantRepository.updateRow(any(Restaurant.class), isNull())).thenReturn(0);
 
     // act
     MvcResult response =
@@ -273,8 +554,197 @@ public class RestaurantsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(restaurantRepository, times(1)).findById(67L);
+    verify(restaurantRepository, times(1)).updateRow(any(Restaurant.class), isNull());
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/restaurants/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_restaurants() throws Exception {
+    // arrange
+
+    when(restaurantRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/restaurants/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(restaurantRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_restaurants() throws Exception {
+    mockMvc.perform(get("/api/restaurants/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_restaurants() throws Exception {
+    // arrange
+
+    when(restaurantRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header().string("Content-Disposition", "attachment; filename=\"Restaurant.ndjson\""))
+        .andExpect(content().string(""));
+    verify(restaurantRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_restaurants() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_restaurants() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_restaurants() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(any(InputStream.class), eq(Restaurant.class), eq(restaurantRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_restaurants() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(any(InputStream.class), eq(Restaurant.class), eq(restaurantRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_restaurants() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(any(InputStream.class), eq(Restaurant.class), eq(restaurantRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
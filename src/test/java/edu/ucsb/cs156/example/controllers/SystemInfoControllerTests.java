@@ -33,14 +33,35 @@ public class SystemInfoControllerTests extends ControllerTestCase {
             .oauthLogin("/oauth2/authorization/google")
             .build();
     when(mockSystemInfoService.getSystemInfo()).thenReturn(systemInfo);
+    when(mockSystemInfoService.getSystemInfoETag()).thenReturn("\"abc123\"");
     String expectedJson = mapper.writeValueAsString(systemInfo);
 
     // act
     MvcResult response =
-        mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk()).andReturn();
+        mockMvc
+            .perform(get("/api/systemInfo"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"abc123\""))
+            .andExpect(header().string("Cache-Control", "max-age=300, public"))
+            .andReturn();
 
     // assert
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @Test
+  public void systemInfo__matching_if_none_match_gets_304() throws Exception {
+    when(mockSystemInfoService.getSystemInfo())
+        .thenReturn(SystemInfo.builder().oauthLogin("/oauth2/authorization/google").build());
+    when(mockSystemInfoService.getSystemInfoETag()).thenReturn("\"abc123\"");
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/systemInfo").header("If-None-Match", "\"abc123\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    assertEquals("", response.getResponse().getContentAsString());
+  }
 }
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -12,16 +13,27 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -35,6 +47,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @MockitoBean BulkService bulkService;
+
   // Authorization tests for /api/UCSBDiningCommonsMenuItems/admin/all
 
   @Test
@@ -47,6 +61,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(ucsbDiningCommonsRepository.findSliceBy(any(Pageable.class))).thenReturn(Page.empty());
     mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().is(200)); // logged
   }
 
@@ -99,6 +114,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         mockMvc
             .perform(get("/api/ucsbdiningcommons?code=carrillo"))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
             .andReturn();
 
     // assert
@@ -163,7 +179,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     ArrayList<UCSBDiningCommons> expectedCommons = new ArrayList<>();
     expectedCommons.addAll(Arrays.asList(carrillo, dlg));
 
-    when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
+    when(ucsbDiningCommonsRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedCommons));
 
     // act
     MvcResult response =
@@ -171,7 +188,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+    verify(ucsbDiningCommonsRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedCommons);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -227,7 +244,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .longitude(-119.867427)
             .build();
 
-    when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
+    when(ucsbDiningCommonsRepository.deleteRow("portola", null)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -237,20 +254,92 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
-    verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    verify(ucsbDiningCommonsRepository, times(1)).deleteRow("portola", null);
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_dining_commons_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    UCSBDiningCommons portola =
+        UCSBDiningCommons.builder()
+            .name("Portola")
+            .code("portola")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.417723)
+            .longitude(-119.867427)
+            .build();
+
+    when(ucsbDiningCommonsRepository.deleteRow("portola", List.of(3L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons?code=portola")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).deleteRow("portola", List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_dining_commons_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    UCSBDiningCommons portola =
+        UCSBDiningCommons.builder()
+            .name("Portola")
+            .code("portola")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.417723)
+            .longitude(-119.867427)
+            .build();
+
+    when(ucsbDiningCommonsRepository.deleteRow("portola", List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons?code=portola")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).deleteRow("portola", List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "UCSBDiningCommons with id portola does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_commons_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.deleteRow("munger-hall", null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -260,7 +349,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    verify(ucsbDiningCommonsRepository, times(1)).deleteRow("munger-hall", null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
@@ -270,17 +359,47 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
   public void admin_can_edit_an_existing_commons() throws Exception {
     // arrange
 
-    UCSBDiningCommons carrilloOrig =
+    UCSBDiningCommons carrilloEdited =
         UCSBDiningCommons.builder()
-            .name("Carrillo")
+            .name("Carrillo Dining Hall")
             .code("carrillo")
-            .hasSackMeal(false)
-            .hasTakeOutMeal(false)
-            .hasDiningCam(true)
-            .latitude(34.409953)
-            .longitude(-119.85277)
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409954)
+            .longitude(-119.85278)
             .build();
 
+    String requestBody = mapper.writeValueAsString(carrilloEdited);
+
+    when(ucsbDiningCommonsRepository.updateRow(carrilloEdited, null)).thenReturn(1);
+    UCSBDiningCommons stored = mapper.readValue(requestBody, UCSBDiningCommons.class);
+    stored.setVersion(4);
+    when(ucsbDiningCommonsRepository.findById("carrillo")).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons?code=carrillo")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).updateRow(carrilloEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_dining_commons_whose_version_matches_if_match() throws Exception {
+    // arrange
+
     UCSBDiningCommons carrilloEdited =
         UCSBDiningCommons.builder()
             .name("Carrillo Dining Hall")
@@ -294,8 +413,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(carrilloEdited);
 
-    when(ucsbDiningCommonsRepository.findById(eq("carrillo")))
-        .thenReturn(Optional.of(carrilloOrig));
+    when(ucsbDiningCommonsRepository.updateRow(carrilloEdited, List.of(3L))).thenReturn(1);
+    UCSBDiningCommons stored = mapper.readValue(requestBody, UCSBDiningCommons.class);
+    stored.setVersion(4);
+    when(ucsbDiningCommonsRepository.findById("carrillo")).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -305,18 +426,62 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
-    verify(ucsbDiningCommonsRepository, times(1))
-        .save(carrilloEdited); // should be saved with updated info
+    verify(ucsbDiningCommonsRepository, times(1)).updateRow(carrilloEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_edit_dining_commons_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    UCSBDiningCommons carrilloEdited =
+        UCSBDiningCommons.builder()
+            .name("Carrillo Dining Hall")
+            .code("carrillo")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409954)
+            .longitude(-119.85278)
+            .build();
+
+    String requestBody = mapper.writeValueAsString(carrilloEdited);
+
+    when(ucsbDiningCommonsRepository.updateRow(carrilloEdited, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons?code=carrillo")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1))
+        .updateRow(any(UCSBDiningCommons.class), eq(List.of(3L)));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "UCSBDiningCommons with id carrillo does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_cannot_edit_commons_that_does_not_exist() throws Exception {
@@ -335,7 +500,8 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(editedCommons);
 
-    when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.updateRow(any(UCSBDiningCommons.class), isNull()))
+        .thenReturn(0);
 
     // act
     MvcResult response =
@@ -350,8 +516,204 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
             .andReturn();
 
     // assert
-    verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    verify(ucsbDiningCommonsRepository, times(1)).updateRow(any(UCSBDiningCommons.class), isNull());
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_commons() throws Exception {
+    // arrange
+
+    when(ucsbDiningCommonsRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(ucsbDiningCommonsRepository).findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_dining_commons() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommons/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_dining_commons() throws Exception {
+    // arrange
+
+    when(ucsbDiningCommonsRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string("Content-Disposition", "attachment; filename=\"UCSBDiningCommons.ndjson\""))
+        .andExpect(content().string(""));
+    verify(ucsbDiningCommonsRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_dining_commons() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_dining_commons() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_dining_commons() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(
+            BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id("ortega").build());
+    when(bulkService.create(
+            any(InputStream.class), eq(UCSBDiningCommons.class), eq(ucsbDiningCommonsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"code\":\"ortega\"}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_dining_commons() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(
+            BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id("ortega").build());
+    when(bulkService.update(
+            any(InputStream.class), eq(UCSBDiningCommons.class), eq(ucsbDiningCommonsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"code\":\"ortega\"}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_dining_commons() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(
+            BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id("ortega").build());
+    when(bulkService.delete(
+            any(InputStream.class), eq(UCSBDiningCommons.class), eq(ucsbDiningCommonsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[\"ortega\"]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
@@ -3,29 +3,46 @@ package edu.ucsb.cs156.example.controllers;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItems;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.FieldFilter;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -36,6 +53,8 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
   @MockBean UCSBDiningCommonsMenuItemsRepository UCSBDiningCommonsMenuItemsRepository;
   @MockBean UserRepository userRepository;
 
+  @MockBean BulkService bulkService;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -46,6 +65,8 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(UCSBDiningCommonsMenuItemsRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(Page.empty());
     mockMvc
         .perform(get("/api/ucsbdiningcommonsmenuitems/all"))
         .andExpect(status().is(200)); // logged
@@ -85,6 +106,7 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
         mockMvc
             .perform(get("/api/ucsbdiningcommonsmenuitems?id=7"))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
             .andReturn();
 
     // assert
@@ -141,7 +163,8 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     ArrayList<UCSBDiningCommonsMenuItems> expectedItems = new ArrayList<>();
     expectedItems.addAll(Arrays.asList(UCSBDiningCommonsMenuItems1, UCSBDiningCommonsMenuItems2));
 
-    when(UCSBDiningCommonsMenuItemsRepository.findAll()).thenReturn(expectedItems);
+    when(UCSBDiningCommonsMenuItemsRepository.findSliceBy(any(Pageable.class)))
+        .thenReturn(new PageImpl<>(expectedItems));
 
     // act
     MvcResult response =
@@ -152,7 +175,7 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
 
     // assert
 
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findAll();
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findSliceBy(any(Pageable.class));
     String expectedJson = mapper.writeValueAsString(expectedItems);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -194,15 +217,50 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
   public void admin_can_edit_an_existing_UCSBDiningCommonsMenuItems() throws Exception {
     // arrange
 
-    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItemsOrig =
+    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItemsEdited =
         UCSBDiningCommonsMenuItems.builder()
-            .diningCommonsCode("dlg")
-            .name("pizza")
-            .station("american")
+            .id(67L)
+            .diningCommonsCode("ortega")
+            .name("pasta")
+            .station("italian")
             .build();
 
+    String requestBody = mapper.writeValueAsString(UCSBDiningCommonsMenuItemsEdited);
+
+    when(UCSBDiningCommonsMenuItemsRepository.updateRow(UCSBDiningCommonsMenuItemsEdited, null))
+        .thenReturn(1);
+    UCSBDiningCommonsMenuItems stored =
+        mapper.readValue(requestBody, UCSBDiningCommonsMenuItems.class);
+    stored.setVersion(4);
+    when(UCSBDiningCommonsMenuItemsRepository.findById(67L)).thenReturn(Optional.of(stored));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommonsmenuitems?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1))
+        .updateRow(UCSBDiningCommonsMenuItemsEdited, null);
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(requestBody, responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_edit_menu_item_whose_version_matches_if_match() throws Exception {
+    // arrange
+
     UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItemsEdited =
         UCSBDiningCommonsMenuItems.builder()
+            .id(67L)
             .diningCommonsCode("ortega")
             .name("pasta")
             .station("italian")
@@ -210,8 +268,13 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
 
     String requestBody = mapper.writeValueAsString(UCSBDiningCommonsMenuItemsEdited);
 
-    when(UCSBDiningCommonsMenuItemsRepository.findById(eq(67L)))
-        .thenReturn(Optional.of(UCSBDiningCommonsMenuItemsOrig));
+    when(UCSBDiningCommonsMenuItemsRepository.updateRow(
+            UCSBDiningCommonsMenuItemsEdited, List.of(3L)))
+        .thenReturn(1);
+    UCSBDiningCommonsMenuItems stored =
+        mapper.readValue(requestBody, UCSBDiningCommonsMenuItems.class);
+    stored.setVersion(4);
+    when(UCSBDiningCommonsMenuItemsRepository.findById(67L)).thenReturn(Optional.of(stored));
 
     // act
     MvcResult response =
@@ -221,33 +284,37 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
             .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
             .andReturn();
 
     // assert
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findById(67L);
     verify(UCSBDiningCommonsMenuItemsRepository, times(1))
-        .save(UCSBDiningCommonsMenuItemsEdited); // should be saved with correct user
+        .updateRow(UCSBDiningCommonsMenuItemsEdited, List.of(3L));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
 
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
-  public void admin_cannot_edit_UCSBDiningCommonsMenuItems_that_does_not_exist() throws Exception {
+  public void admin_cannot_edit_menu_item_whose_version_does_not_match_if_match() throws Exception {
     // arrange
 
-    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuEditedItems =
+    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItemsEdited =
         UCSBDiningCommonsMenuItems.builder()
+            .id(67L)
             .diningCommonsCode("ortega")
             .name("pasta")
             .station("italian")
             .build();
 
-    String requestBody = mapper.writeValueAsString(UCSBDiningCommonsMenuEditedItems);
+    String requestBody = mapper.writeValueAsString(UCSBDiningCommonsMenuItemsEdited);
 
-    when(UCSBDiningCommonsMenuItemsRepository.findById(eq(67L))).thenReturn(Optional.empty());
+    when(UCSBDiningCommonsMenuItemsRepository.updateRow(
+            UCSBDiningCommonsMenuItemsEdited, List.of(3L)))
+        .thenReturn(0);
 
     // act
     MvcResult response =
@@ -257,30 +324,64 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
                     .contentType(MediaType.APPLICATION_JSON)
                     .characterEncoding("utf-8")
                     .content(requestBody)
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
                     .with(csrf()))
-            .andExpect(status().isNotFound())
+            .andExpect(status().isPreconditionFailed())
             .andReturn();
 
     // assert
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findById(67L);
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1))
+        .updateRow(any(UCSBDiningCommonsMenuItems.class), eq(List.of(3L)));
+
     Map<String, Object> json = responseToJson(response);
-    assertEquals("UCSBDiningCommonsMenuItems with id 67 not found", json.get("message"));
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "UCSBDiningCommonsMenuItems with id 67 does not match If-Match \"3\"", json.get("message"));
   }
 
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
-  public void admin_can_delete_a_item() throws Exception {
+  public void admin_cannot_edit_UCSBDiningCommonsMenuItems_that_does_not_exist() throws Exception {
     // arrange
 
-    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuItems1 =
+    UCSBDiningCommonsMenuItems UCSBDiningCommonsMenuEditedItems =
         UCSBDiningCommonsMenuItems.builder()
             .diningCommonsCode("ortega")
             .name("pasta")
             .station("italian")
             .build();
 
-    when(UCSBDiningCommonsMenuItemsRepository.findById(eq(15L)))
-        .thenReturn(Optional.of(UCSBDiningCommonsMenuItems1));
+    String requestBody = mapper.writeValueAsString(UCSBDiningCommonsMenuEditedItems);
+
+    when(UCSBDiningCommonsMenuItemsRepository.updateRow(
+            any(UCSBDiningCommonsMenuItems.class), isNull()))
+        .thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommonsmenuitems?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1))
+        .updateRow(any(UCSBDiningCommonsMenuItems.class), isNull());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("UCSBDiningCommonsMenuItems with id 67 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_a_item() throws Exception {
+    // arrange
+
+    when(UCSBDiningCommonsMenuItemsRepository.deleteRow(15L, null)).thenReturn(1);
 
     // act
     MvcResult response =
@@ -290,20 +391,70 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
             .andReturn();
 
     // assert
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findById(15L);
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).delete(any());
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).deleteRow(15L, null);
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("UCSBDiningCommonsMenuItems with id 15 deleted", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_menu_item_whose_version_matches_if_match() throws Exception {
+    // arrange
+
+    when(UCSBDiningCommonsMenuItemsRepository.deleteRow(15L, List.of(3L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommonsmenuitems?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).deleteRow(15L, List.of(3L));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItems with id 15 deleted", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_cannot_delete_menu_item_whose_version_does_not_match_if_match()
+      throws Exception {
+    // arrange
+
+    when(UCSBDiningCommonsMenuItemsRepository.deleteRow(15L, List.of(3L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommonsmenuitems?id=15")
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .with(csrf()))
+            .andExpect(status().isPreconditionFailed())
+            .andReturn();
+
+    // assert
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).deleteRow(15L, List.of(3L));
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("PreconditionFailedException", json.get("type"));
+    assertEquals(
+        "UCSBDiningCommonsMenuItems with id 15 does not match If-Match \"3\"", json.get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void admin_tries_to_delete_non_existant_MenuItems_and_gets_right_error_message()
       throws Exception {
     // arrange
 
-    when(UCSBDiningCommonsMenuItemsRepository.findById(eq(15L))).thenReturn(Optional.empty());
+    when(UCSBDiningCommonsMenuItemsRepository.deleteRow(15L, null)).thenReturn(0);
 
     // act
     MvcResult response =
@@ -313,8 +464,211 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
             .andReturn();
 
     // assert
-    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).findById(15L);
+    verify(UCSBDiningCommonsMenuItemsRepository, times(1)).deleteRow(15L, null);
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItems with id 15 not found", json.get("message"));
   }
+
+  @Test
+  public void logged_out_users_cannot_get_a_page() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/page")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_get_a_page_of_menu_items() throws Exception {
+    // arrange
+
+    when(UCSBDiningCommonsMenuItemsRepository.findAll(any(FieldFilter.class), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(), PageRequest.of(1, 5), 5));
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/ucsbdiningcommonsmenuitems/page?page=1&size=5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content").isEmpty())
+        .andExpect(jsonPath("$.page.number").value(1))
+        .andExpect(jsonPath("$.page.totalElements").value(5));
+
+    verify(UCSBDiningCommonsMenuItemsRepository)
+        .findAll(any(FieldFilter.class), eq(PageRequest.of(1, 5)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_export_menu_items() throws Exception {
+    mockMvc.perform(get("/api/ucsbdiningcommonsmenuitems/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_user_can_export_menu_items() throws Exception {
+    // arrange
+
+    when(UCSBDiningCommonsMenuItemsRepository.streamAll()).thenReturn(Stream.empty());
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommonsmenuitems/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(
+            header()
+                .string(
+                    "Content-Disposition",
+                    "attachment; filename=\"UCSBDiningCommonsMenuItems.ndjson\""))
+        .andExpect(content().string(""));
+    verify(UCSBDiningCommonsMenuItemsRepository).streamAll();
+  }
+
+  @Test
+  public void logged_out_users_cannot_bulk_write_dining_commons_menu_items() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_bulk_write_dining_commons_menu_items()
+      throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommonsmenuitems/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_create_dining_commons_menu_items() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.CREATED).id(1L).build());
+    when(bulkService.create(
+            any(InputStream.class),
+            eq(UCSBDiningCommonsMenuItems.class),
+            eq(UCSBDiningCommonsMenuItemsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommonsmenuitems/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{}]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_update_dining_commons_menu_items() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.UPDATED).id(1L).build());
+    when(bulkService.update(
+            any(InputStream.class),
+            eq(UCSBDiningCommonsMenuItems.class),
+            eq(UCSBDiningCommonsMenuItemsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommonsmenuitems/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{\"id\":1}\n"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_bulk_delete_dining_commons_menu_items() throws Exception {
+    // arrange
+
+    List<BulkResult> results =
+        List.of(BulkResult.builder().index(0).status(BulkResult.Status.DELETED).id(1L).build());
+    when(bulkService.delete(
+            any(InputStream.class),
+            eq(UCSBDiningCommonsMenuItems.class),
+            eq(UCSBDiningCommonsMenuItemsRepository)))
+        .thenReturn(results);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommonsmenuitems/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[1]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
 }
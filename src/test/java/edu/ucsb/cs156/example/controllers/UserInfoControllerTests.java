@@ -1,16 +1,21 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserCache;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
@@ -21,6 +26,8 @@ public class UserInfoControllerTests extends ControllerTestCase {
 
   @MockitoBean UserRepository userRepository;
 
+  @Autowired UserCache userCache;
+
   @Test
   public void currentUser__logged_out() throws Exception {
     mockMvc.perform(get("/api/currentUser")).andExpect(status().is(403));
@@ -44,4 +51,77 @@ public class UserInfoControllerTests extends ControllerTestCase {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @Test
+  public void currentUser__cached_user_gets_an_etag_and_a_304_for_a_matching_if_none_match()
+      throws Exception {
+
+    // arrange
+
+    User user = User.builder().id(7L).email("cgaucho@ucsb.edu").build();
+    userCache.get("cgaucho@ucsb.edu", () -> user);
+    var login =
+        oauth2Login()
+            .attributes(attributes -> attributes.put("email", "cgaucho@ucsb.edu"))
+            .authorities(new SimpleGrantedAuthority("ROLE_USER"));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/currentUser").with(login))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Cache-Control", "no-cache, private"))
+            .andReturn();
+    String eTag = response.getResponse().getHeader("ETag");
+
+    // assert
+
+    MvcResult notModified =
+        mockMvc
+            .perform(get("/api/currentUser").with(login).header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", eTag))
+            .andReturn();
+    assertEquals("", notModified.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void currentUser__etag_changes_with_the_roles() throws Exception {
+    userCache.get("cgaucho@ucsb.edu", () -> User.builder().email("cgaucho@ucsb.edu").build());
+    var login = oauth2Login().attributes(attributes -> attributes.put("email", "cgaucho@ucsb.edu"));
+
+    String userETag =
+        mockMvc
+            .perform(
+                get("/api/currentUser")
+                    .with(login.authorities(new SimpleGrantedAuthority("ROLE_USER"))))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    mockMvc
+        .perform(
+            get("/api/currentUser")
+                .with(
+                    login.authorities(
+                        new SimpleGrantedAuthority("ROLE_USER"),
+                        new SimpleGrantedAuthority("ROLE_ADMIN")))
+                .header("If-None-Match", userETag))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"));
+  }
+
+  @Test
+  public void currentUser__user_that_is_not_cached_gets_no_etag() throws Exception {
+    mockMvc
+        .perform(
+            get("/api/currentUser")
+                .with(
+                    oauth2Login()
+                        .attributes(attributes -> attributes.put("email", "ldelplaya@ucsb.edu"))
+                        .authorities(new SimpleGrantedAuthority("ROLE_USER"))))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("ETag"));
+  }
 }
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.services.TableVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class TableVersionListenerTests {
+
+  @Mock private TableVersions tableVersions;
+
+  @InjectMocks private TableVersionListener tableVersionListener;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void changed_row_bumps_the_version_of_its_table() {
+    tableVersionListener.rowChanged(Restaurant.builder().name("Freebirds").build());
+
+    verify(tableVersions).changed(Restaurant.class);
+  }
+}
@@ -0,0 +1,39 @@
+package edu.ucsb.cs156.example.entities;
+
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.services.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class UserEntityListenerTests {
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @InjectMocks private UserEntityListener userEntityListener;
+
+  private final User admin = User.builder().email("cgaucho@ucsb.edu").admin(true).build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void saved_user_is_published_with_its_admin_flag() {
+    userEntityListener.userSaved(admin);
+
+    verify(eventPublisher).publishEvent(new UserChangedEvent("cgaucho@ucsb.edu", true));
+  }
+
+  @Test
+  public void removed_user_is_published_as_not_an_admin() {
+    userEntityListener.userRemoved(admin);
+
+    verify(eventPublisher).publishEvent(new UserChangedEvent("cgaucho@ucsb.edu", false));
+  }
+}
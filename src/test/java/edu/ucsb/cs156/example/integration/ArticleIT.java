@@ -1,10 +1,12 @@
 package edu.ucsb.cs156.example.integration;
 
+import static org.hamcrest.Matchers.contains;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
@@ -13,12 +15,15 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -103,4 +108,203 @@ public class ArticleIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void list_is_not_modified_until_an_article_is_saved() throws Exception {
+    // arrange
+
+    String eTag =
+        mockMvc
+            .perform(get("/api/articles/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/articles/all").header("If-None-Match", eTag))
+        .andExpect(status().isNotModified());
+
+    articleRepository.save(
+        Article.builder()
+            .title("Christopher Marlowe: the muses' darling")
+            .url("https://www.thearticle.com/christopher-marlowe-the-muses-darling")
+            .explanation("Many fascinating secrets")
+            .email("jefreymayers@gmail.com")
+            .dateAdded(LocalDateTime.parse("2003-11-03T19:25:00"))
+            .build());
+
+    mockMvc
+        .perform(get("/api/articles/all").header("If-None-Match", eTag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void page_of_articles_is_filtered_sorted_and_paged_in_the_database() throws Exception {
+    // arrange
+
+    for (String title : new String[] {"Opera C", "OPERA A", "Ballet", "Opera B"}) {
+      articleRepository.save(
+          Article.builder()
+              .title(title)
+              .url("https://www.thearticle.com/" + title)
+              .explanation("A review")
+              .email("markronan@gmail.com")
+              .dateAdded(LocalDateTime.parse("2025-11-03T19:25:00"))
+              .build());
+    }
+
+    // act and assert
+
+    mockMvc
+        .perform(get("/api/articles/page?title=opera&sort=title&size=2&page=0"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content[*].title").value(contains("OPERA A", "Opera B")))
+        .andExpect(jsonPath("$.page.totalElements").value(3))
+        .andExpect(jsonPath("$.page.totalPages").value(2));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void articles_are_scrolled_newest_first_with_cursors() throws Exception {
+    // arrange
+
+    String[][] articles = {
+      {"Oldest", "2025-11-01T10:00:00"},
+      {"Newest", "2025-11-03T10:00:00"},
+      {"Middle 1", "2025-11-02T10:00:00"},
+      {"Undated", null},
+      {"Middle 2", "2025-11-02T10:00:00"}
+    };
+    for (String[] article : articles) {
+      articleRepository.save(
+          Article.builder()
+              .title(article[0])
+              .url("https://www.thearticle.com/" + article[0])
+              .explanation("A review")
+              .email("markronan@gmail.com")
+              .dateAdded(article[1] == null ? null : LocalDateTime.parse(article[1]))
+              .build());
+    }
+
+    // act
+
+    List<String> titles = new ArrayList<>();
+    String cursor = null;
+    do {
+      MvcResult response =
+          mockMvc
+              .perform(
+                  get("/api/articles/cursor?size=2" + (cursor == null ? "" : "&cursor=" + cursor)))
+              .andExpect(status().isOk())
+              .andReturn();
+      JsonNode page = mapper.readTree(response.getResponse().getContentAsString());
+      page.get("content").forEach(article -> titles.add(article.get("title").asText()));
+      cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+    } while (cursor != null);
+
+    // assert
+
+    assertEquals(List.of("Newest", "Middle 2", "Middle 1", "Oldest"), titles);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void articles_are_exported_one_per_line() throws Exception {
+    // arrange
+
+    List<Article> articles = new ArrayList<>();
+    for (String title : new String[] {"Opera", "Ballet"}) {
+      articles.add(
+          articleRepository.save(
+              Article.builder()
+                  .title(title)
+                  .url("https://www.thearticle.com/" + title)
+                  .explanation("A review")
+                  .email("markronan@gmail.com")
+                  .dateAdded(LocalDateTime.parse("2025-11-03T19:25:00"))
+                  .build()));
+    }
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    mockMvc
+        .perform(asyncDispatch(response))
+        .andExpect(status().isOk())
+        .andExpect(
+            content()
+                .string(
+                    mapper.writeValueAsString(articles.get(0))
+                        + "\n"
+                        + mapper.writeValueAsString(articles.get(1))
+                        + "\n"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void articles_are_created_updated_and_deleted_in_bulk() throws Exception {
+    // arrange
+
+    StringBuilder ndjson = new StringBuilder();
+    for (int i = 1; i <= 60; i++) {
+      ndjson.append(
+          "{\"title\":\"Review %d\",\"url\":\"https://www.thearticle.com/%d\",\"explanation\":\"A review\",\"email\":\"markronan@gmail.com\",\"dateAdded\":\"2025-11-03T19:25:00\"}\n"
+              .formatted(i, i));
+    }
+
+    // act
+
+    MvcResult created =
+        mockMvc
+            .perform(
+                post("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(ndjson.toString()))
+            .andExpect(status().isOk())
+            .andReturn();
+    mockMvc
+        .perform(
+            put("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "[{\"id\":1,\"title\":\"Renamed\",\"url\":\"https://www.thearticle.com/1\",\"explanation\":\"A review\",\"email\":\"markronan@gmail.com\",\"dateAdded\":\"2025-11-03T19:25:00\"},"
+                        + " {\"id\":99,\"title\":\"Missing\"}]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].status", contains("UPDATED", "NOT_FOUND")));
+    mockMvc
+        .perform(
+            delete("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2, 3, 99]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].status", contains("DELETED", "DELETED", "NOT_FOUND")));
+
+    // assert
+
+    JsonNode results = mapper.readTree(created.getResponse().getContentAsString());
+    assertEquals(60, results.size());
+    for (int i = 0; i < 60; i++) {
+      assertEquals("CREATED", results.get(i).get("status").asText());
+      // ids come from the sequence in blocks of 50, one block after the other
+      assertEquals(i + 1, results.get(i).get("id").asLong());
+    }
+    assertEquals(58, articleRepository.count());
+    assertEquals("Renamed", articleRepository.findById(1L).get().getTitle());
+  }
 }
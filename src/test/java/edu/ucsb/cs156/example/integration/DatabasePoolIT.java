@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class DatabasePoolIT {
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_sees_the_connections_taken_from_the_pool() throws Exception {
+    // arrange
+
+    restaurantRepository.count();
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/database/pool")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    JsonNode pool = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals("db", pool.get("poolName").asText());
+    assertEquals(10, pool.get("maximumPoolSize").asInt());
+    assertEquals(10000, pool.get("connectionTimeoutMs").asLong());
+    assertEquals(0, pool.get("activeConnections").asInt());
+    assertTrue(pool.get("totalConnections").asInt() > 0);
+    assertEquals(false, pool.get("saturated").asBoolean());
+    assertTrue(pool.get("connectionsAcquired").asLong() > 0);
+  }
+}
@@ -0,0 +1,292 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.CursorPage;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobPriority;
+import edu.ucsb.cs156.example.services.jobs.JobRecoveryService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false) // metrics export is off in tests by default
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobsIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired JobService jobService;
+
+  @Autowired JobRecoveryService jobRecoveryService;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private CursorPage<JobSummary> getPage(String url) throws Exception {
+    MvcResult response = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+    return mapper.readValue(
+        response.getResponse().getContentAsString(),
+        new TypeReference<CursorPage<JobSummary>>() {});
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_page_through_job_summaries_newest_first() throws Exception {
+    // arrange
+
+    Job job1 = jobsRepository.save(Job.builder().status("complete").build());
+    Job job2 = jobsRepository.save(Job.builder().status("error").build());
+    Job job3 = jobsRepository.save(Job.builder().status("running").build());
+    jobLogLinesRepository.saveAll(
+        List.of(
+            JobLogLine.builder().jobId(job2.getId()).lineNumber(0).message("a").build(),
+            JobLogLine.builder().jobId(job2.getId()).lineNumber(1).message("b").build()));
+
+    // act
+
+    CursorPage<JobSummary> firstPage = getPage("/api/jobs/all?size=2");
+    CursorPage<JobSummary> secondPage =
+        getPage("/api/jobs/all?size=2&cursor=" + firstPage.getNextCursor());
+
+    // assert
+
+    assertEquals(
+        List.of(job3.getId(), job2.getId()),
+        firstPage.getContent().stream().map(JobSummary::getId).toList());
+    assertEquals(
+        List.of(job1.getId()), secondPage.getContent().stream().map(JobSummary::getId).toList());
+    assertNull(secondPage.getNextCursor());
+
+    JobSummary summary2 = firstPage.getContent().get(1);
+    assertEquals("error", summary2.getStatus());
+    assertEquals(2, summary2.getLogLines());
+    assertNull(summary2.getCreatedById());
+    assertNotNull(summary2.getCreatedAt());
+    assertEquals(0, secondPage.getContent().get(0).getLogLines());
+  }
+
+  private Job oldJob(String status, int daysOld, String... logLines) {
+    Job job = jobsRepository.save(Job.builder().status(status).build());
+    // auditing sets createdAt on save, so backdate it afterwards
+    jdbcTemplate.update(
+        "update jobs set created_at = ? where id = ?",
+        Timestamp.valueOf(LocalDateTime.now().minusDays(daysOld)),
+        job.getId());
+    for (int i = 0; i < logLines.length; i++) {
+      jobLogLinesRepository.save(
+          JobLogLine.builder().jobId(job.getId()).lineNumber(i).message(logLines[i]).build());
+    }
+    return job;
+  }
+
+  private long countLines(Job job) {
+    return jdbcTemplate.queryForObject(
+        "select count(*) from job_log_lines where job_id = ?", Long.class, job.getId());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void retention_compresses_old_logs_and_deletes_expired_jobs() throws Exception {
+    // arrange
+
+    Job recent = oldJob("complete", 1, "recent");
+    Job compressible = oldJob("complete", 10, "line 1", "line 2");
+    Job expired = oldJob("complete", 40, "expired");
+    Job recentError = oldJob("error", 40, "Fail!");
+    Job expiredError = oldJob("error", 100);
+    Job running = oldJob("running", 100, "still going");
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/retention").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "Compressed 2 job logs, deleted 2 jobs")),
+        response.getResponse().getContentAsString());
+
+    assertTrue(jobsRepository.existsById(recent.getId()));
+    assertTrue(jobsRepository.existsById(compressible.getId()));
+    assertFalse(jobsRepository.existsById(expired.getId()));
+    assertTrue(jobsRepository.existsById(recentError.getId()));
+    assertFalse(jobsRepository.existsById(expiredError.getId()));
+    assertTrue(jobsRepository.existsById(running.getId()));
+
+    assertEquals(1, countLines(recent));
+    assertEquals(0, countLines(compressible));
+    assertEquals(0, countLines(expired));
+    assertEquals(1, countLines(recentError));
+    assertEquals(1, countLines(running));
+
+    MvcResult log =
+        mockMvc
+            .perform(get("/api/jobs/logs/" + compressible.getId()))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertEquals("line 1\nline 2", log.getResponse().getContentAsString());
+
+    // the listing still counts the lines of a compressed log
+    JobSummary summary =
+        jobsRepository.findSummaries(Limit.of(10)).stream()
+            .filter(s -> s.getId() == compressible.getId())
+            .findFirst()
+            .orElseThrow();
+    assertEquals(2, summary.getLogLines());
+  }
+
+  private Job orphan(Job.JobBuilder job, String... logLines) {
+    Job saved =
+        jobsRepository.save(
+            job.status("running")
+                .attempts(1)
+                .priority(JobPriority.NORMAL)
+                .heartbeatAt(ZonedDateTime.now().minusMinutes(10))
+                .build());
+    for (int i = 0; i < logLines.length; i++) {
+      jobLogLinesRepository.save(
+          JobLogLine.builder().jobId(saved.getId()).lineNumber(i).message(logLines[i]).build());
+    }
+    return saved;
+  }
+
+  @Test
+  public void orphaned_jobs_are_run_again_or_marked_error() throws Exception {
+    // arrange
+
+    Job restartable =
+        orphan(
+            Job.builder()
+                .jobType(TestJob.class.getName())
+                .jobParams("{\"fail\":false,\"sleepMs\":0}"),
+            "Hello World! from test job!");
+    Job notRestartable = orphan(Job.builder(), "working");
+    Job alive =
+        jobsRepository.save(
+            Job.builder().status("running").heartbeatAt(ZonedDateTime.now()).build());
+
+    // act
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    // assert
+
+    assertEquals("Requeued 1 orphaned jobs, marked 1 as error", message);
+    await()
+        .atMost(10, SECONDS)
+        .until(
+            () -> jobsRepository.findById(restartable.getId()).get().getStatus(),
+            "complete"::equals);
+    assertEquals(2, jobsRepository.findById(restartable.getId()).get().getAttempts());
+    assertEquals(
+        "Hello World! from test job!\nGoodbye from test job!",
+        jobService.getJobLogs(restartable.getId()));
+
+    assertEquals("error", jobsRepository.findById(notRestartable.getId()).get().getStatus());
+    assertEquals(
+        "working\nJob was running when its server stopped, and it cannot be restarted",
+        jobService.getJobLogs(notRestartable.getId()));
+
+    assertEquals("running", jobsRepository.findById(alive.getId()).get().getStatus());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void job_metrics_are_exposed_for_prometheus() throws Exception {
+    // arrange
+
+    MvcResult launched =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    long jobId = mapper.readValue(launched.getResponse().getContentAsString(), Job.class).getId();
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(jobId).get().getStatus(), "complete"::equals);
+
+    // act
+
+    String metrics =
+        mockMvc
+            .perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    // assert
+
+    assertTrue(metrics.contains("jobs_queue_wait_seconds_count{type=\"TestJob\"} 1"));
+    assertTrue(
+        metrics.contains("jobs_execution_seconds_count{status=\"complete\",type=\"TestJob\"} 1"));
+    assertTrue(metrics.contains("jobs_finished_total{status=\"complete\",type=\"TestJob\"} 1"));
+    assertTrue(metrics.contains("jobs_log_lines_sum{type=\"TestJob\"} 2"));
+    assertTrue(metrics.contains("jobs_running{type=\"TestJob\"} 0"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void job_metrics_are_only_exposed_to_admins() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void job_metrics_are_not_exposed_to_logged_out_users() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+}
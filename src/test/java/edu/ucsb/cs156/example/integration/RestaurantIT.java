@@ -18,6 +18,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -85,4 +87,99 @@ public class RestaurantIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_and_delete_a_restaurant() throws Exception {
+    // arrange
+
+    Restaurant restaurant =
+        restaurantRepository.save(
+            Restaurant.builder().name("Chipotle").description("Mexican").build());
+    Restaurant edited =
+        Restaurant.builder()
+            .id(restaurant.getId())
+            .name("Freebirds")
+            .description("Burritos")
+            .build();
+
+    // act and assert
+
+    mockMvc
+        .perform(
+            put("/api/restaurants?id=" + restaurant.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+        .andExpect(content().json(mapper.writeValueAsString(edited)));
+    // the update added one to the version of the row
+    edited.setVersion(1);
+    assertEquals(edited, restaurantRepository.findById(restaurant.getId()).get());
+
+    mockMvc
+        .perform(delete("/api/restaurants?id=" + restaurant.getId()).with(csrf()))
+        .andExpect(status().isOk());
+    assertEquals(0, restaurantRepository.count());
+
+    mockMvc
+        .perform(delete("/api/restaurants?id=" + restaurant.getId()).with(csrf()))
+        .andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_only_change_a_restaurant_that_no_one_changed_since_it_was_read()
+      throws Exception {
+    // arrange
+
+    Restaurant restaurant =
+        restaurantRepository.save(
+            Restaurant.builder().name("Chipotle").description("Mexican").build());
+    String url = "/api/restaurants?id=" + restaurant.getId();
+
+    // act and assert
+
+    // two admins read version 0
+    mockMvc
+        .perform(get(url))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+    // the first one to update it makes it version 1
+    mockMvc
+        .perform(
+            put(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Freebirds\",\"description\":\"Burritos\"}")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+    // so the other one can neither update nor delete what it read
+    mockMvc
+        .perform(
+            put(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Kazumi\",\"description\":\"Sushi\"}")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .with(csrf()))
+        .andExpect(status().isPreconditionFailed());
+    mockMvc
+        .perform(delete(url).header(HttpHeaders.IF_MATCH, "\"0\"").with(csrf()))
+        .andExpect(status().isPreconditionFailed());
+    assertEquals("Freebirds", restaurantRepository.findById(restaurant.getId()).get().getName());
+
+    // until it reads the row again
+    mockMvc
+        .perform(get(url))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    mockMvc
+        .perform(delete(url).header(HttpHeaders.IF_MATCH, "\"0\", \"1\"").with(csrf()))
+        .andExpect(status().isOk());
+    assertEquals(0, restaurantRepository.count());
+  }
 }
@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import jakarta.servlet.http.Cookie;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "app.session.mode=token",
+      "app.session.token.secret=0123456789abcdef0123456789abcdef"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class SessionTokenIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired SessionTokenService sessionTokenService;
+
+  @Test
+  public void request_with_a_session_token_is_authenticated_without_a_session() throws Exception {
+    // arrange
+
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_USER");
+    OAuth2AuthenticationToken login =
+        new OAuth2AuthenticationToken(
+            new DefaultOAuth2User(
+                authorities, Map.of("sub", "1234", "email", "cgaucho@ucsb.edu"), "sub"),
+            authorities,
+            "my-oauth-provider");
+    Cookie cookie =
+        new Cookie(SessionTokenService.TOKEN_COOKIE, sessionTokenService.issue(user, login));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/currentUser").cookie(cookie))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    JsonNode currentUser = mapper.readTree(response.getResponse().getContentAsString());
+    assertEquals(user.getId(), currentUser.get("user").get("id").asLong());
+    assertEquals("ROLE_USER", currentUser.get("roles").get(0).get("authority").asText());
+    assertNull(response.getRequest().getSession(false));
+  }
+
+  @Test
+  public void request_without_a_session_token_is_not_authenticated() throws Exception {
+    mockMvc.perform(get("/api/currentUser")).andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void login_keeps_the_authorization_request_in_a_cookie() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/oauth2/authorization/my-oauth-provider"))
+            .andExpect(status().is3xxRedirection())
+            .andReturn();
+
+    assertNotNull(
+        response.getResponse().getCookie(SessionTokenService.AUTHORIZATION_REQUEST_COOKIE));
+    assertNull(response.getRequest().getSession(false));
+  }
+}
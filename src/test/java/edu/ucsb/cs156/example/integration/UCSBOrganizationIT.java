@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -101,4 +102,43 @@ public class UCSBOrganizationIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_update_and_delete_an_organization() throws Exception {
+    // arrange
+
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build());
+    UCSBOrganization edited =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZPR")
+            .orgTranslation("ZETA PHI RHO FRATERNITY")
+            .inactive(true)
+            .build();
+
+    // act and assert
+
+    mockMvc
+        .perform(
+            put("/api/ucsborganization?orgCode=ZPR")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    // the update added one to the version of the row
+    edited.setVersion(1);
+    assertEquals(edited, ucsbOrganizationRepository.findById("ZPR").get());
+
+    mockMvc
+        .perform(delete("/api/ucsborganization?orgCode=ZPR").with(csrf()))
+        .andExpect(status().isOk());
+    assertEquals(0, ucsbOrganizationRepository.count());
+  }
 }
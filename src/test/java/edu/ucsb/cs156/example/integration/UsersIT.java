@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminRoleResolver;
+import edu.ucsb.cs156.example.services.UserCache;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UsersIT {
+  @Autowired UserRepository userRepository;
+
+  @Autowired UserCache userCache;
+
+  @Autowired AdminRoleResolver adminRoleResolver;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired EntityManager entityManager;
+
+  private TransactionTemplate transaction;
+
+  @BeforeEach
+  public void setup() {
+    transaction = new TransactionTemplate(transactionManager);
+  }
+
+  @Test
+  public void updating_a_user_drops_it_from_the_user_cache() {
+    // arrange
+
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    assertSame(user, userCache.get("cgaucho@ucsb.edu", () -> user));
+
+    // act
+
+    user.setAdmin(true);
+    userRepository.save(user);
+
+    // assert
+
+    User reloaded = userRepository.findByEmail("cgaucho@ucsb.edu").get();
+    assertSame(reloaded, userCache.get("cgaucho@ucsb.edu", () -> reloaded));
+    assertTrue(reloaded.getAdmin());
+  }
+
+  @Test
+  public void a_second_user_with_the_same_email_cannot_be_stored() {
+    userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.save(User.builder().email("cgaucho@ucsb.edu").build()));
+  }
+
+  @Test
+  public void making_a_user_an_admin_gives_them_the_admin_role_without_a_reload() {
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    assertFalse(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+
+    user.setAdmin(true);
+    userRepository.save(user);
+    assertTrue(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+
+    userRepository.delete(user);
+    assertFalse(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void making_a_user_an_admin_in_a_transaction_that_rolls_back_does_not_give_the_role() {
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+
+    transaction.executeWithoutResult(
+        status -> {
+          user.setAdmin(true);
+          userRepository.save(user);
+          entityManager.flush();
+          status.setRollbackOnly();
+        });
+
+    assertFalse(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+  }
+}
@@ -0,0 +1,110 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+public class FieldFilterTests {
+
+  @Test
+  public void values_are_converted_to_the_types_of_the_fields() {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("name", "Carrillo");
+    parameters.put("hasSackMeal", "true");
+    parameters.put("latitude", "34.4");
+
+    FieldFilter<UCSBDiningCommons> filter = FieldFilter.of(UCSBDiningCommons.class, parameters);
+
+    assertEquals(
+        Map.of("name", "Carrillo", "hasSackMeal", true, "latitude", 34.4), filter.getValues());
+  }
+
+  @Test
+  public void page_parameters_and_empty_values_are_ignored() {
+    FieldFilter<Article> filter =
+        FieldFilter.of(
+            Article.class, Map.of("page", "1", "size", "10", "sort", "title", "title", ""));
+
+    assertEquals(Map.of(), filter.getValues());
+  }
+
+  @Test
+  public void unknown_field_is_rejected() {
+    InvalidPageRequestException e =
+        assertThrows(
+            InvalidPageRequestException.class,
+            () -> FieldFilter.of(Article.class, Map.of("author", "marlowe")));
+    assertEquals("Unknown field: author", e.getMessage());
+  }
+
+  @Test
+  public void field_that_cannot_be_filtered_by_is_rejected() {
+    InvalidPageRequestException e =
+        assertThrows(
+            InvalidPageRequestException.class,
+            () -> FieldFilter.of(Article.class, Map.of("dateAdded", "2025-01-01T00:00:00")));
+    assertEquals("Cannot filter by field: dateAdded", e.getMessage());
+  }
+
+  @Test
+  public void value_that_does_not_fit_the_field_is_rejected() {
+    InvalidPageRequestException e =
+        assertThrows(
+            InvalidPageRequestException.class,
+            () -> FieldFilter.of(UCSBDiningCommons.class, Map.of("latitude", "north")));
+    assertEquals("Invalid value for field latitude: north", e.getMessage());
+  }
+
+  @Test
+  public void sort_by_unknown_field_is_rejected() {
+    FieldFilter.checkSort(Article.class, Sort.by("title", "dateAdded"));
+
+    InvalidPageRequestException e =
+        assertThrows(
+            InvalidPageRequestException.class,
+            () -> FieldFilter.checkSort(Article.class, Sort.by("author")));
+    assertEquals("Unknown field: author", e.getMessage());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void text_fields_match_by_contents_and_other_fields_by_value() {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    parameters.put("name", "50%_De\\La");
+    parameters.put("hasDiningCam", "false");
+    FieldFilter<UCSBDiningCommons> filter = FieldFilter.of(UCSBDiningCommons.class, parameters);
+
+    Root<UCSBDiningCommons> root = mock(Root.class);
+    CriteriaBuilder builder = mock(CriteriaBuilder.class);
+    Path<Object> name = mock(Path.class);
+    Path<Object> hasDiningCam = mock(Path.class);
+    Expression<String> lowerName = mock(Expression.class);
+    Predicate nameMatches = mock(Predicate.class);
+    Predicate hasDiningCamMatches = mock(Predicate.class);
+    Predicate both = mock(Predicate.class);
+    when(root.get("name")).thenReturn(name);
+    when(root.get("hasDiningCam")).thenReturn(hasDiningCam);
+    when(builder.lower((Expression<String>) (Expression<?>) name)).thenReturn(lowerName);
+    when(builder.like(lowerName, "%50\\%\\_de\\\\la%", '\\')).thenReturn(nameMatches);
+    when(builder.equal(hasDiningCam, false)).thenReturn(hasDiningCamMatches);
+    when(builder.and(new Predicate[] {nameMatches, hasDiningCamMatches})).thenReturn(both);
+
+    assertSame(both, filter.toPredicate(root, mock(CriteriaQuery.class), builder));
+  }
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AdminRoleResolverTests {
+
+  @Mock private UserRepository userRepository;
+
+  @InjectMocks private AdminRoleResolver adminRoleResolver;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        adminRoleResolver, "configuredAdminEmails", Set.of("admingaucho@ucsb.edu"));
+    when(userRepository.findAdminEmails()).thenReturn(List.of("cgaucho@ucsb.edu"));
+    adminRoleResolver.loadOnStartup();
+  }
+
+  @Test
+  public void configured_and_stored_admins_are_admins() {
+    assertTrue(adminRoleResolver.isAdmin("admingaucho@ucsb.edu"));
+    assertTrue(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+    assertFalse(adminRoleResolver.isAdmin("ldelplaya@ucsb.edu"));
+  }
+
+  @Test
+  public void only_configured_admins_are_configured_admins() {
+    assertTrue(adminRoleResolver.isConfiguredAdmin("admingaucho@ucsb.edu"));
+    assertFalse(adminRoleResolver.isConfiguredAdmin("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void refresh_reloads_the_stored_admins() {
+    when(userRepository.findAdminEmails()).thenReturn(List.of("ldelplaya@ucsb.edu"));
+
+    adminRoleResolver.refresh();
+
+    assertFalse(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+    assertTrue(adminRoleResolver.isAdmin("ldelplaya@ucsb.edu"));
+  }
+
+  @Test
+  public void changed_users_are_added_and_removed_without_a_reload() {
+    adminRoleResolver.userChanged(new UserChangedEvent("ldelplaya@ucsb.edu", true));
+    adminRoleResolver.userChanged(new UserChangedEvent("cgaucho@ucsb.edu", false));
+
+    assertTrue(adminRoleResolver.isAdmin("ldelplaya@ucsb.edu"));
+    assertFalse(adminRoleResolver.isAdmin("cgaucho@ucsb.edu"));
+  }
+}
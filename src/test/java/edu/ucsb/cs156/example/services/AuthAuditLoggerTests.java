@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import org.slf4j.event.Level;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AuthAuditLoggerTests {
+
+  private final AuthAuditLogger authAuditLogger = new AuthAuditLogger();
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger("audit.auth");
+
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(authAuditLogger, "level", Level.INFO);
+    ReflectionTestUtils.setField(authAuditLogger, "sampleRate", 1.0);
+    ReflectionTestUtils.setField(authAuditLogger, "maxEventsPerMinute", 2);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void teardown() {
+    logger.detachAppender(appender);
+  }
+
+  private List<String> messages() {
+    return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+  }
+
+  @Test
+  public void event_is_logged_with_its_details_as_key_values() {
+    authAuditLogger.record(
+        AuthAuditLogger.Event.LOGIN_SUCCEEDED, "email", "cgaucho@ucsb.edu", "roles", "[ROLE_USER]");
+
+    assertEquals(
+        List.of("event=LOGIN_SUCCEEDED email=cgaucho@ucsb.edu roles=[ROLE_USER]"), messages());
+    ILoggingEvent event = appender.list.get(0);
+    assertEquals(ch.qos.logback.classic.Level.INFO, event.getLevel());
+    assertEquals(
+        List.of("event", "email", "roles"),
+        event.getKeyValuePairs().stream().map(pair -> pair.key).toList());
+  }
+
+  @Test
+  public void events_over_the_rate_limit_are_suppressed_and_counted() {
+    for (int i = 0; i < 5; i++) {
+      authAuditLogger.record(AuthAuditLogger.Event.SESSION_TOKEN_REJECTED);
+    }
+    authAuditLogger.record(AuthAuditLogger.Event.LOGOUT, "email", "cgaucho@ucsb.edu");
+
+    assertEquals(
+        List.of(
+            "event=SESSION_TOKEN_REJECTED",
+            "event=SESSION_TOKEN_REJECTED",
+            "event=LOGOUT email=cgaucho@ucsb.edu"),
+        messages());
+  }
+
+  @Test
+  public void suppressed_events_are_reported_in_the_next_minute() {
+    for (int i = 0; i < 5; i++) {
+      authAuditLogger.record(AuthAuditLogger.Event.SESSION_TOKEN_REJECTED);
+    }
+    // move the start of the current minute back
+    Object window =
+        ((Map<?, ?>) ReflectionTestUtils.getField(authAuditLogger, "windows"))
+            .get(AuthAuditLogger.Event.SESSION_TOKEN_REJECTED);
+    long startNanos = (long) ReflectionTestUtils.getField(window, "startNanos");
+    ReflectionTestUtils.setField(window, "startNanos", startNanos - 61_000_000_000L);
+
+    authAuditLogger.record(AuthAuditLogger.Event.SESSION_TOKEN_REJECTED);
+
+    assertEquals("event=SESSION_TOKEN_REJECTED suppressed=3", messages().get(2));
+    KeyValuePair suppressed = appender.list.get(2).getKeyValuePairs().get(1);
+    assertEquals("suppressed", suppressed.key);
+    assertEquals(3L, suppressed.value);
+  }
+
+  @Test
+  public void events_below_the_logger_level_are_not_logged() {
+    ReflectionTestUtils.setField(authAuditLogger, "level", Level.TRACE);
+
+    authAuditLogger.record(AuthAuditLogger.Event.LOGIN_FAILED, "reason", "denied");
+
+    assertEquals(List.of(), messages());
+  }
+
+  @Test
+  public void sampled_out_events_are_not_logged() {
+    ReflectionTestUtils.setField(authAuditLogger, "sampleRate", 0.0);
+
+    authAuditLogger.record(AuthAuditLogger.Event.LOGIN_FAILED, "reason", "denied");
+
+    assertEquals(List.of(), messages());
+  }
+
+  @Test
+  public void sampled_in_events_are_logged() {
+    ReflectionTestUtils.setField(authAuditLogger, "sampleRate", 0.999999999);
+
+    authAuditLogger.record(AuthAuditLogger.Event.USER_CREATED, "email", "cgaucho@ucsb.edu");
+
+    assertEquals(List.of("event=USER_CREATED email=cgaucho@ucsb.edu"), messages());
+  }
+}
@@ -0,0 +1,334 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkResult.Status;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.TableRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class BulkServiceTests {
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private RestaurantRepository restaurantRepository;
+
+  @Mock private UCSBDiningCommonsRepository diningCommonsRepository;
+
+  @Mock private TableRepository<Row, Long> rowRepository;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks private BulkService bulkService;
+
+  private long nextId;
+
+  /** A table whose generated id is not a primitive. */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Row {
+    @Id @GeneratedValue private Long id;
+    private String name;
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(bulkService, "chunkSize", 2);
+    nextId = 1;
+    // like the database, persist assigns the next id of the sequence
+    doAnswer(
+            invocation -> {
+              Object row = invocation.getArgument(0);
+              if (row instanceof Restaurant restaurant) {
+                restaurant.setId(nextId++);
+              } else if (row instanceof Row r) {
+                r.setId((Long) nextId++);
+              }
+              return null;
+            })
+        .when(entityManager)
+        .persist(any());
+  }
+
+  private static InputStream body(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static BulkResult result(int index, Status status, Object id) {
+    return BulkResult.builder().index(index).status(status).id(id).build();
+  }
+
+  private static BulkResult refused(int index, Status status, String message) {
+    return BulkResult.builder().index(index).status(status).message(message).build();
+  }
+
+  @Test
+  public void create_writes_ndjson_items_one_chunk_per_transaction() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body(
+                """
+                {"name":"Freebirds","description":"Burritos"}
+                {"name":"Kazumi","description":"Sushi"}
+                {"name":"Woodstock's","description":"Pizza"}
+                """),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(
+        List.of(
+            result(0, Status.CREATED, 1L),
+            result(1, Status.CREATED, 2L),
+            result(2, Status.CREATED, 3L)),
+        results);
+    verify(entityManager, times(3)).persist(any(Restaurant.class));
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  public void create_reads_a_json_array() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body("[{\"name\":\"Freebirds\"},{\"name\":\"Kazumi\"}]"),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(List.of(result(0, Status.CREATED, 1L), result(1, Status.CREATED, 2L)), results);
+  }
+
+  @Test
+  public void create_of_an_empty_request_writes_nothing() throws Exception {
+    assertEquals(List.of(), bulkService.create(body(""), Restaurant.class, restaurantRepository));
+    verify(transactionManager, never()).getTransaction(any());
+  }
+
+  @Test
+  public void create_rejects_items_with_a_generated_id() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body("[{\"id\":7,\"name\":\"Freebirds\"},{\"name\":\"Kazumi\"}]"),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(
+        List.of(
+            refused(
+                0, Status.INVALID, "id must not be given; it is assigned when the row is created"),
+            result(1, Status.CREATED, 1L)),
+        results);
+  }
+
+  @Test
+  public void create_requires_ids_that_are_not_generated() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body("[{\"name\":\"Carrillo\"},{\"code\":\"ortega\",\"name\":\"Ortega\"}]"),
+            UCSBDiningCommons.class,
+            diningCommonsRepository);
+
+    assertEquals(
+        List.of(
+            refused(0, Status.INVALID, "id must be given"), result(1, Status.CREATED, "ortega")),
+        results);
+  }
+
+  @Test
+  public void items_that_cannot_be_bound_are_invalid_and_the_rest_are_written() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body(
+                """
+                {"name":"Freebirds","rating":5}
+                {"name":"Kazumi"}
+                """),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(Status.INVALID, results.get(0).getStatus());
+    assertTrue(results.get(0).getMessage().startsWith("Cannot read item: Unrecognized field"));
+    assertEquals(result(1, Status.CREATED, 1L), results.get(1));
+  }
+
+  @Test
+  public void malformed_request_stops_reading_but_keeps_what_was_written() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(
+            body(
+                """
+                {"name":"Freebirds"}
+                {"name":"Kazumi"}
+                {"name":
+                """),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(3, results.size());
+    assertEquals(result(0, Status.CREATED, 1L), results.get(0));
+    assertEquals(result(1, Status.CREATED, 2L), results.get(1));
+    assertEquals(Status.INVALID, results.get(2).getStatus());
+    assertTrue(results.get(2).getMessage().startsWith("Cannot read request: "));
+  }
+
+  @Test
+  public void refused_chunk_is_written_again_one_item_at_a_time() throws Exception {
+    // the chunk fails when it is committed, and so does the second item on its own
+    doThrow(new DataIntegrityViolationException("chunk refused"))
+        .doNothing()
+        .doThrow(new DataIntegrityViolationException("Kazumi refused"))
+        .when(transactionManager)
+        .commit(any());
+
+    List<BulkResult> results =
+        bulkService.create(
+            body("[{\"name\":\"Freebirds\"},{\"name\":\"Kazumi\"}]"),
+            Restaurant.class,
+            restaurantRepository);
+
+    // the ids of the refused chunk (1 and 2) are not reused
+    assertEquals(
+        List.of(result(0, Status.CREATED, 3L), refused(1, Status.FAILED, "Kazumi refused")),
+        results);
+  }
+
+  @Test
+  public void item_refused_when_it_is_written_fails() throws Exception {
+    doThrow(new EntityExistsException("duplicate"))
+        .when(entityManager)
+        .persist(any(UCSBDiningCommons.class));
+
+    List<BulkResult> results =
+        bulkService.create(
+            body("[{\"code\":\"ortega\",\"name\":\"Ortega\"}]"),
+            UCSBDiningCommons.class,
+            diningCommonsRepository);
+
+    assertEquals(List.of(refused(0, Status.FAILED, "duplicate")), results);
+  }
+
+  @Test
+  public void created_rows_with_a_boxed_generated_id_get_new_ids() throws Exception {
+    List<BulkResult> results =
+        bulkService.create(body("[{\"name\":\"first\"}]"), Row.class, rowRepository);
+
+    assertEquals(List.of(result(0, Status.CREATED, 1L)), results);
+  }
+
+  @Test
+  public void update_merges_the_items_whose_rows_exist() throws Exception {
+    Restaurant stored = Restaurant.builder().id(1L).name("Freebirds").version(3L).build();
+    when(restaurantRepository.findAllById(List.of(1L, 5L))).thenReturn(List.of(stored));
+
+    List<BulkResult> results =
+        bulkService.update(
+            body(
+                """
+                {"id":1,"name":"Freebirds World Burrito"}
+                {"id":5,"name":"Kazumi"}
+                {"name":"Woodstock's"}
+                """),
+            Restaurant.class,
+            restaurantRepository);
+
+    assertEquals(
+        List.of(
+            result(0, Status.UPDATED, 1L),
+            result(1, Status.NOT_FOUND, 5L),
+            refused(2, Status.INVALID, "id must be given")),
+        results);
+    ArgumentCaptor<Restaurant> merged = ArgumentCaptor.forClass(Restaurant.class);
+    verify(entityManager).merge(merged.capture());
+    assertEquals("Freebirds World Burrito", merged.getValue().getName());
+    // the item replaces the row whatever its version
+    assertEquals(3L, merged.getValue().getVersion());
+  }
+
+  @Test
+  public void update_merges_items_of_tables_without_versions() throws Exception {
+    when(rowRepository.findAllById(List.of(1L))).thenReturn(List.of(new Row(1L, "first")));
+
+    List<BulkResult> results =
+        bulkService.update(body("[{\"id\":1,\"name\":\"second\"}]"), Row.class, rowRepository);
+
+    assertEquals(List.of(result(0, Status.UPDATED, 1L)), results);
+    verify(entityManager).merge(new Row(1L, "second"));
+  }
+
+  @Test
+  public void update_requires_ids_that_are_objects() throws Exception {
+    List<BulkResult> results =
+        bulkService.update(body("[{\"name\":\"Ortega\"}]"), Row.class, rowRepository);
+
+    assertEquals(List.of(refused(0, Status.INVALID, "id must be given")), results);
+  }
+
+  @Test
+  public void delete_removes_the_rows_that_exist() throws Exception {
+    Restaurant stored = Restaurant.builder().id(1L).name("Freebirds").build();
+    when(restaurantRepository.findAllById(List.of(1L, 5L))).thenReturn(List.of(stored));
+
+    List<BulkResult> results =
+        bulkService.delete(body("[1, 5, \"x\"]"), Restaurant.class, restaurantRepository);
+
+    assertEquals(result(0, Status.DELETED, 1L), results.get(0));
+    assertEquals(result(1, Status.NOT_FOUND, 5L), results.get(1));
+    assertEquals(Status.INVALID, results.get(2).getStatus());
+    verify(entityManager).remove(stored);
+  }
+
+  @Test
+  public void delete_reads_ndjson_ids_of_any_type() throws Exception {
+    when(diningCommonsRepository.findAllById(List.of("ortega"))).thenReturn(List.of());
+
+    List<BulkResult> results =
+        bulkService.delete(body("\"ortega\"\n"), UCSBDiningCommons.class, diningCommonsRepository);
+
+    assertEquals(List.of(result(0, Status.NOT_FOUND, "ortega")), results);
+  }
+
+  @Test
+  public void table_without_an_id_is_refused() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> bulkService.create(body("[]"), String.class, null));
+    assertEquals("class java.lang.String has no @Id field", e.getMessage());
+  }
+}
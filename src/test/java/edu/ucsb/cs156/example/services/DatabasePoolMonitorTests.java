@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import edu.ucsb.cs156.example.models.DatabasePoolStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+public class DatabasePoolMonitorTests {
+
+  @Mock private HikariDataSource dataSource;
+
+  @Mock private HikariPoolMXBean pool;
+
+  @Spy private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks private DatabasePoolMonitor databasePoolMonitor;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(dataSource.getPoolName()).thenReturn("db");
+    when(dataSource.getMaximumPoolSize()).thenReturn(10);
+    when(dataSource.getMinimumIdle()).thenReturn(2);
+    when(dataSource.getConnectionTimeout()).thenReturn(5000L);
+    when(dataSource.getLeakDetectionThreshold()).thenReturn(60000L);
+  }
+
+  private void connections(int active, int idle, int waiting) {
+    when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+    when(pool.getActiveConnections()).thenReturn(active);
+    when(pool.getIdleConnections()).thenReturn(idle);
+    when(pool.getTotalConnections()).thenReturn(active + idle);
+    when(pool.getThreadsAwaitingConnection()).thenReturn(waiting);
+  }
+
+  @Test
+  public void reports_the_connections_in_use_and_how_long_they_took_to_get() {
+    connections(4, 6, 0);
+    Timer acquire = meterRegistry.timer("hikaricp.connections.acquire", "pool", "db");
+    acquire.record(Duration.ofMillis(2));
+    acquire.record(Duration.ofMillis(8));
+    meterRegistry.timer("hikaricp.connections.usage", "pool", "db").record(Duration.ofMillis(30));
+    meterRegistry.counter("hikaricp.connections.timeout", "pool", "db").increment();
+    // the metrics of another pool are left out
+    meterRegistry
+        .timer("hikaricp.connections.acquire", "pool", "other")
+        .record(Duration.ofSeconds(9));
+
+    DatabasePoolStatus status = databasePoolMonitor.getStatus();
+
+    assertEquals(
+        DatabasePoolStatus.builder()
+            .poolName("db")
+            .maximumPoolSize(10)
+            .minimumIdle(2)
+            .connectionTimeoutMs(5000)
+            .leakDetectionThresholdMs(60000)
+            .activeConnections(4)
+            .idleConnections(6)
+            .totalConnections(10)
+            .threadsAwaitingConnection(0)
+            .utilization(0.4)
+            .saturated(false)
+            .connectionsAcquired(2)
+            .acquireMeanMs(5.0)
+            .acquireMaxMs(8.0)
+            .usageMeanMs(30.0)
+            .connectionTimeouts(1)
+            .build(),
+        status);
+  }
+
+  @Test
+  public void pool_is_saturated_when_every_connection_is_in_use() {
+    connections(10, 0, 0);
+
+    DatabasePoolStatus status = databasePoolMonitor.getStatus();
+
+    assertEquals(1.0, status.getUtilization());
+    assertEquals(true, status.getSaturated());
+  }
+
+  @Test
+  public void pool_is_saturated_when_a_thread_waits_for_a_connection() {
+    // connections that are being opened are neither active nor idle
+    connections(8, 0, 2);
+
+    assertEquals(true, databasePoolMonitor.getStatus().getSaturated());
+  }
+
+  @Test
+  public void pool_that_has_not_started_has_no_connections() {
+    DatabasePoolStatus status = databasePoolMonitor.getStatus();
+
+    assertEquals(0, status.getTotalConnections());
+    assertEquals(false, status.getSaturated());
+    assertEquals(0, status.getConnectionsAcquired());
+    assertEquals(0.0, status.getUsageMeanMs());
+    assertEquals(0, status.getConnectionTimeouts());
+  }
+}
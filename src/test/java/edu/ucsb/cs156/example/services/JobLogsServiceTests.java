@@ -5,9 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogCompression;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -16,6 +20,8 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -27,7 +33,7 @@ public class JobLogsServiceTests {
   void test_getJobLogs_with_log() {
     // Arrange
     Long jobId = 1L;
-    Job job = Job.builder().build();
+    Job job = Job.builder().id(jobId).build();
     job.setLog("This is a job log");
     when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
 
@@ -42,7 +48,7 @@ public class JobLogsServiceTests {
   void test_getJobLogs_with_null_log() {
     // Arrange
     Long jobId = 2L;
-    Job job = Job.builder().build();
+    Job job = Job.builder().id(jobId).build();
     job.setLog(null);
     when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
 
@@ -53,6 +59,58 @@ public class JobLogsServiceTests {
     assertEquals("", result);
   }
 
+  @Test
+  void test_getJobLogs_with_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamByJobIdOrderByLineNumberAsc(4L))
+        .thenReturn(
+            Stream.of(
+                JobLogLine.builder().jobId(4L).lineNumber(0).message("line 1").build(),
+                JobLogLine.builder().jobId(4L).lineNumber(1).message("").build(),
+                JobLogLine.builder().jobId(4L).lineNumber(2).message("line 3").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line 1\n\nline 3", result);
+  }
+
+  @Test
+  void test_getJobLogs_with_legacy_log_and_log_lines() {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().id(jobId).log("old line 1\nold line 2").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamByJobIdOrderByLineNumberAsc(5L))
+        .thenReturn(
+            Stream.of(JobLogLine.builder().jobId(5L).lineNumber(0).message("new line").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("old line 1\nold line 2\nnew line", result);
+  }
+
+  @Test
+  void test_getJobLogs_with_compressed_log() {
+    // Arrange
+    Long jobId = 6L;
+    Job job = Job.builder().id(jobId).logGzip(JobLogCompression.compress("line 1\nline 2")).build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line 1\nline 2", result);
+    verify(jobLogLinesRepository, never()).streamByJobIdOrderByLineNumberAsc(anyLong());
+  }
+
   @Test
   void test_getJobLogs_job_not_found() {
     // Arrange
@@ -0,0 +1,231 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import edu.ucsb.cs156.example.entities.User;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SessionTokenServiceTests {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final SessionTokenService sessionTokenService = new SessionTokenService();
+
+  private final User user = User.builder().id(7L).email("cgaucho@ucsb.edu").build();
+
+  private final List<GrantedAuthority> loginAuthorities =
+      AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN", "SCOPE_email");
+
+  private final OAuth2AuthenticationToken login =
+      new OAuth2AuthenticationToken(
+          new DefaultOAuth2User(
+              loginAuthorities,
+              Map.of(
+                  "sub", "1234",
+                  "email", "cgaucho@ucsb.edu",
+                  "name", "Chris Gaucho",
+                  "email_verified", true,
+                  "hd", "ucsb.edu"),
+              "sub"),
+          loginAuthorities,
+          "google");
+
+  private final AdminRoleResolver adminRoleResolver = mock(AdminRoleResolver.class);
+
+  private final OAuth2AuthorizationRequest authorizationRequest =
+      OAuth2AuthorizationRequest.authorizationCode()
+          .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+          .clientId("client")
+          .redirectUri("http://localhost:8080/login/oauth2/code/google")
+          .state("state-1")
+          .build();
+
+  private String token(JwtClaimsSet claims) {
+    return new NimbusJwtEncoder(
+            new ImmutableSecret<>(
+                new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256")))
+        .encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+        .getTokenValue();
+  }
+
+  private SessionTokenService configured(String secret, long ttlMs) {
+    SessionTokenService service = new SessionTokenService();
+    ReflectionTestUtils.setField(service, "adminRoleResolver", adminRoleResolver);
+    ReflectionTestUtils.setField(service, "secret", secret);
+    ReflectionTestUtils.setField(service, "ttlMs", ttlMs);
+    service.init();
+    return service;
+  }
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(sessionTokenService, "adminRoleResolver", adminRoleResolver);
+    ReflectionTestUtils.setField(sessionTokenService, "secret", SECRET);
+    ReflectionTestUtils.setField(sessionTokenService, "ttlMs", 60_000L);
+    sessionTokenService.init();
+  }
+
+  @Test
+  public void issued_token_authenticates_as_the_user_with_their_roles() {
+    when(adminRoleResolver.isAdmin("cgaucho@ucsb.edu")).thenReturn(true);
+    String token = sessionTokenService.issue(user, login);
+
+    OAuth2AuthenticationToken authentication = sessionTokenService.authenticate(token).get();
+
+    assertEquals("google", authentication.getAuthorizedClientRegistrationId());
+    assertEquals("cgaucho@ucsb.edu", authentication.getName());
+    assertEquals(7L, (Long) authentication.getPrincipal().getAttribute("id"));
+    assertEquals(
+        List.of("ROLE_USER", "ROLE_ADMIN"),
+        authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+  }
+
+  @Test
+  public void issued_token_keeps_the_profile_of_the_login() {
+    String token = sessionTokenService.issue(user, login);
+
+    OAuth2User principal = sessionTokenService.authenticate(token).get().getPrincipal();
+
+    assertEquals("1234", principal.getAttribute("sub"));
+    assertEquals("Chris Gaucho", principal.getAttribute("name"));
+    assertEquals(true, principal.getAttribute("email_verified"));
+    assertEquals("ucsb.edu", principal.getAttribute("hd"));
+    assertNull(principal.getAttribute("picture"));
+  }
+
+  @Test
+  public void demoted_admin_loses_the_admin_role_before_the_token_expires() {
+    String token = sessionTokenService.issue(user, login);
+    when(adminRoleResolver.isAdmin("cgaucho@ucsb.edu")).thenReturn(false);
+
+    OAuth2AuthenticationToken authentication = sessionTokenService.authenticate(token).get();
+
+    assertEquals(
+        List.of("ROLE_USER"),
+        authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+  }
+
+  @Test
+  public void token_without_a_profile_authenticates_with_id_and_email() {
+    Instant issuedAt = Instant.now();
+    JwtClaimsSet claims =
+        JwtClaimsSet.builder()
+            .subject("7")
+            .claim("email", "cgaucho@ucsb.edu")
+            .claim("roles", List.of("ROLE_USER"))
+            .claim("registration", "google")
+            .issuedAt(issuedAt)
+            .expiresAt(issuedAt.plus(Duration.ofHours(1)))
+            .build();
+
+    OAuth2User principal = sessionTokenService.authenticate(token(claims)).get().getPrincipal();
+
+    assertEquals(Map.of("id", 7L, "email", "cgaucho@ucsb.edu"), principal.getAttributes());
+  }
+
+  @Test
+  public void token_signed_with_another_secret_is_rejected() {
+    String token = configured("fedcba9876543210fedcba9876543210", 60_000L).issue(user, login);
+
+    assertEquals(Optional.empty(), sessionTokenService.authenticate(token));
+  }
+
+  @Test
+  public void expired_token_is_rejected() {
+    Instant issuedAt = Instant.now().minus(Duration.ofHours(2));
+    JwtClaimsSet claims =
+        JwtClaimsSet.builder()
+            .subject("7")
+            .claim("email", "cgaucho@ucsb.edu")
+            .claim("roles", List.of("ROLE_USER"))
+            .issuedAt(issuedAt)
+            .expiresAt(issuedAt.plus(Duration.ofHours(1)))
+            .build();
+    assertEquals(Optional.empty(), sessionTokenService.authenticate(token(claims)));
+  }
+
+  @Test
+  public void malformed_token_is_rejected() {
+    assertEquals(Optional.empty(), sessionTokenService.authenticate("not-a-token"));
+  }
+
+  @Test
+  public void service_without_secret_is_not_configured() {
+    assertTrue(sessionTokenService.isConfigured());
+    assertFalse(configured("", 60_000L).isConfigured());
+  }
+
+  @Test
+  public void short_secret_is_refused() {
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> configured("too short", 60_000L));
+    assertEquals("app.session.token.secret must be at least 32 bytes long", e.getMessage());
+  }
+
+  @Test
+  public void token_ttl_is_configurable() {
+    assertEquals(Duration.ofMinutes(1), sessionTokenService.getTokenTtl());
+  }
+
+  @Test
+  public void authorization_request_is_read_back_from_its_token() {
+    String token = sessionTokenService.issueAuthorizationRequest(authorizationRequest);
+
+    OAuth2AuthorizationRequest read = sessionTokenService.readAuthorizationRequest(token).get();
+
+    assertEquals("state-1", read.getState());
+    assertEquals(
+        authorizationRequest.getAuthorizationRequestUri(), read.getAuthorizationRequestUri());
+  }
+
+  @Test
+  public void authorization_request_token_with_another_secret_is_rejected() {
+    String token =
+        configured("fedcba9876543210fedcba9876543210", 60_000L)
+            .issueAuthorizationRequest(authorizationRequest);
+
+    assertEquals(Optional.empty(), sessionTokenService.readAuthorizationRequest(token));
+  }
+
+  @Test
+  public void unreadable_authorization_request_throws() {
+    String token =
+        ReflectionTestUtils.invokeMethod(
+            sessionTokenService,
+            "encode",
+            JwtClaimsSet.builder().claim("request", "AAAA"),
+            Duration.ofMinutes(1));
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class, () -> sessionTokenService.readAuthorizationRequest(token));
+    assertEquals("Cannot read OAuth2 authorization request", e.getMessage());
+  }
+}
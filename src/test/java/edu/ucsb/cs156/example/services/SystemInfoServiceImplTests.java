@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
@@ -32,6 +33,12 @@ class SystemInfoServiceImplTests {
     assertTrue(si.getGithubUrl().contains("/commit/"));
   }
 
+  @Test
+  void test_getSystemInfo_is_built_once_with_a_strong_etag() {
+    assertSame(systemInfoService.getSystemInfo(), systemInfoService.getSystemInfo());
+    assertTrue(systemInfoService.getSystemInfoETag().matches("\"[0-9a-f]{32}\""));
+  }
+
   @Test
   void test_githubUrl() {
     assertEquals(
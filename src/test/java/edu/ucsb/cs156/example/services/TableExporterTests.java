@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+public class TableExporterTests {
+
+  @Mock private RestaurantRepository restaurantRepository;
+
+  @Mock private EntityManager entityManager;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @InjectMocks private TableExporter tableExporter;
+
+  private final Restaurant freebirds =
+      Restaurant.builder().id(1L).name("Freebirds").description("Burritos").build();
+
+  private final Restaurant kazumi =
+      Restaurant.builder().id(2L).name("Kazumi").description("Sushi").build();
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  private String output() {
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void ndjson_export_writes_one_row_per_line_and_detaches_each_row() throws Exception {
+    when(restaurantRepository.streamAll()).thenReturn(Stream.of(freebirds, kazumi));
+
+    tableExporter.write(out, restaurantRepository, TableExporter.Format.NDJSON);
+
+    assertEquals(
+        """
+        {"id":1,"name":"Freebirds","description":"Burritos"}
+        {"id":2,"name":"Kazumi","description":"Sushi"}
+        """,
+        output());
+    verify(entityManager).detach(freebirds);
+    verify(entityManager).detach(kazumi);
+  }
+
+  @Test
+  public void json_export_writes_one_array() throws Exception {
+    when(restaurantRepository.streamAll()).thenReturn(Stream.of(freebirds, kazumi));
+
+    tableExporter.write(out, restaurantRepository, TableExporter.Format.JSON);
+
+    assertEquals(
+        "[{\"id\":1,\"name\":\"Freebirds\",\"description\":\"Burritos\"},"
+            + "{\"id\":2,\"name\":\"Kazumi\",\"description\":\"Sushi\"}]",
+        output());
+  }
+
+  @Test
+  public void export_of_an_empty_table() throws Exception {
+    when(restaurantRepository.streamAll()).thenReturn(Stream.empty());
+
+    tableExporter.write(out, restaurantRepository, TableExporter.Format.NDJSON);
+
+    assertEquals("", output());
+  }
+
+  @Test
+  public void export_closes_the_stream_of_rows() throws Exception {
+    AtomicBoolean closed = new AtomicBoolean();
+    when(restaurantRepository.streamAll())
+        .thenReturn(Stream.of(freebirds).onClose(() -> closed.set(true)));
+
+    tableExporter.write(out, restaurantRepository, TableExporter.Format.JSON);
+
+    assertTrue(closed.get());
+  }
+}
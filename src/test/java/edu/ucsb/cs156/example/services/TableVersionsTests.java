@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class TableVersionsTests {
+
+  private final JdbcTemplate jdbcTemplate = TestConfig.tableVersionsDatabase();
+
+  private final DataSourceTransactionManager transactionManager =
+      new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+
+  private final TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+  private final TableVersions tableVersions = new TableVersions(jdbcTemplate, transactionManager);
+
+  @Test
+  public void etag_is_weak_and_names_the_table_and_its_version() {
+    assertEquals("W/\"Article-0\"", tableVersions.getETag(Article.class));
+  }
+
+  @Test
+  public void first_change_of_a_table_starts_its_version_at_the_current_time() {
+    long before = System.currentTimeMillis();
+
+    tableVersions.changed(Article.class);
+
+    assertTrue(tableVersions.getVersion(Article.class) >= before);
+    assertEquals(0, tableVersions.getVersion(Restaurant.class));
+  }
+
+  @Test
+  public void change_outside_a_transaction_bumps_the_version_at_once() {
+    jdbcTemplate.update("INSERT INTO TABLE_VERSIONS VALUES ('Article', ?)", Long.MAX_VALUE - 1);
+    String eTag = tableVersions.getETag(Article.class);
+
+    tableVersions.changed(Article.class);
+
+    assertEquals(Long.MAX_VALUE, tableVersions.getVersion(Article.class));
+    assertNotEquals(eTag, tableVersions.getETag(Article.class));
+  }
+
+  @Test
+  public void version_is_kept_in_the_database_shared_by_every_server() {
+    TableVersions otherServer = new TableVersions(jdbcTemplate, transactionManager);
+    String eTag = otherServer.getETag(Article.class);
+
+    tableVersions.changed(Article.class);
+
+    assertNotEquals(eTag, otherServer.getETag(Article.class));
+    assertEquals(tableVersions.getETag(Article.class), otherServer.getETag(Article.class));
+  }
+
+  @Test
+  public void transaction_bumps_each_table_it_changes_once_after_it_commits() {
+    jdbcTemplate.update("INSERT INTO TABLE_VERSIONS VALUES ('Article', ?)", Long.MAX_VALUE - 2);
+
+    transaction.executeWithoutResult(
+        status -> {
+          tableVersions.changed(Article.class);
+          tableVersions.changed(Article.class);
+          tableVersions.changed(Restaurant.class);
+
+          // the version of the table is not locked while the transaction works
+          assertEquals(Long.MAX_VALUE - 2, tableVersions.getVersion(Article.class));
+          assertEquals(0, tableVersions.getVersion(Restaurant.class));
+        });
+
+    assertEquals(Long.MAX_VALUE - 1, tableVersions.getVersion(Article.class));
+    assertNotEquals(0, tableVersions.getVersion(Restaurant.class));
+
+    // the next transaction bumps it again
+    assertNull(TransactionSynchronizationManager.getResource(tableVersions));
+    transaction.executeWithoutResult(status -> tableVersions.changed(Article.class));
+    assertEquals(Long.MAX_VALUE, tableVersions.getVersion(Article.class));
+  }
+
+  @Test
+  public void transaction_that_rolls_back_does_not_bump_the_version() {
+    transaction.executeWithoutResult(
+        status -> {
+          tableVersions.changed(Article.class);
+          status.setRollbackOnly();
+        });
+
+    assertEquals(0, tableVersions.getVersion(Article.class));
+    assertNull(TransactionSynchronizationManager.getResource(tableVersions));
+  }
+}
@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class UserCacheTests {
+
+  private final UserCache userCache = new UserCache();
+
+  private final User user = User.builder().id(1L).email("cgaucho@ucsb.edu").build();
+
+  @SuppressWarnings("unchecked")
+  private final Supplier<User> loader = mock(Supplier.class);
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(userCache, "ttlMs", 60_000L);
+    ReflectionTestUtils.setField(userCache, "maxSize", 2);
+    when(loader.get()).thenReturn(user);
+  }
+
+  @Test
+  public void user_is_loaded_once_and_then_cached() {
+    assertSame(user, userCache.get("cgaucho@ucsb.edu", loader));
+    assertSame(user, userCache.get("cgaucho@ucsb.edu", loader));
+
+    verify(loader, times(1)).get();
+  }
+
+  @Test
+  public void expired_user_is_loaded_again() {
+    ReflectionTestUtils.setField(userCache, "ttlMs", 0L);
+
+    userCache.get("cgaucho@ucsb.edu", loader);
+    userCache.get("cgaucho@ucsb.edu", loader);
+
+    verify(loader, times(2)).get();
+  }
+
+  @Test
+  public void changed_user_is_loaded_again() {
+    userCache.get("cgaucho@ucsb.edu", loader);
+
+    userCache.userChanged(new UserChangedEvent("cgaucho@ucsb.edu", false));
+    userCache.get("cgaucho@ucsb.edu", loader);
+
+    verify(loader, times(2)).get();
+  }
+
+  @Test
+  public void invalidateAll_empties_the_cache() {
+    userCache.get("cgaucho@ucsb.edu", loader);
+
+    userCache.invalidateAll();
+    userCache.get("cgaucho@ucsb.edu", loader);
+
+    verify(loader, times(2)).get();
+  }
+
+  @Test
+  public void getIfPresent_returns_only_cached_users_that_have_not_expired() {
+    assertEquals(Optional.empty(), userCache.getIfPresent("cgaucho@ucsb.edu"));
+
+    userCache.get("cgaucho@ucsb.edu", loader);
+    assertEquals(Optional.of(user), userCache.getIfPresent("cgaucho@ucsb.edu"));
+
+    ReflectionTestUtils.setField(userCache, "ttlMs", 0L);
+    assertEquals(Optional.empty(), userCache.getIfPresent("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void user_loaded_while_a_change_committed_is_not_cached() {
+    when(loader.get())
+        .thenAnswer(
+            invocation -> {
+              userCache.userChanged(new UserChangedEvent("cgaucho@ucsb.edu", true));
+              return user;
+            })
+        .thenReturn(user);
+
+    assertSame(user, userCache.get("cgaucho@ucsb.edu", loader));
+    assertEquals(Optional.empty(), userCache.getIfPresent("cgaucho@ucsb.edu"));
+
+    userCache.get("cgaucho@ucsb.edu", loader);
+    assertEquals(Optional.of(user), userCache.getIfPresent("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void full_cache_drops_the_user_loaded_first() {
+    userCache.get("first@ucsb.edu", loader);
+    userCache.get("second@ucsb.edu", loader);
+
+    userCache.get("third@ucsb.edu", loader);
+
+    assertEquals(Optional.empty(), userCache.getIfPresent("first@ucsb.edu"));
+    assertEquals(Optional.of(user), userCache.getIfPresent("second@ucsb.edu"));
+    assertEquals(Optional.of(user), userCache.getIfPresent("third@ucsb.edu"));
+  }
+
+  @Test
+  public void full_cache_drops_all_its_expired_users() throws Exception {
+    userCache.get("first@ucsb.edu", loader);
+    userCache.get("second@ucsb.edu", loader);
+    Thread.sleep(20);
+    ReflectionTestUtils.setField(userCache, "ttlMs", 10L);
+
+    userCache.get("third@ucsb.edu", loader);
+
+    assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(userCache, "users")).size());
+    assertEquals(Optional.of(user), userCache.getIfPresent("third@ucsb.edu"));
+  }
+
+  @Test
+  public void full_cache_reloads_an_expired_user_in_place() throws Exception {
+    userCache.get("first@ucsb.edu", loader);
+    userCache.get("second@ucsb.edu", loader);
+    Thread.sleep(20);
+    ReflectionTestUtils.setField(userCache, "ttlMs", 10L);
+
+    userCache.get("first@ucsb.edu", loader);
+
+    assertEquals(2, ((Map<?, ?>) ReflectionTestUtils.getField(userCache, "users")).size());
+    assertEquals(Optional.of(user), userCache.getIfPresent("first@ucsb.edu"));
+  }
+}
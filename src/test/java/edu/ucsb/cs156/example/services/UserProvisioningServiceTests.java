@@ -0,0 +1,150 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+public class UserProvisioningServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private AdminRoleResolver adminRoleResolver;
+
+  @Mock private AuthAuditLogger authAuditLogger;
+
+  @InjectMocks private UserProvisioningService userProvisioningService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(adminRoleResolver.isConfiguredAdmin("admingaucho@ucsb.edu")).thenReturn(true);
+    when(userRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  private OAuth2User oAuthUser(String email) {
+    return new DefaultOAuth2User(
+        AuthorityUtils.createAuthorityList("ROLE_USER"),
+        Map.of(
+            "sub", "1234",
+            "email", email,
+            "picture", "https://example.org/cgaucho.jpg",
+            "name", "Chris Gaucho",
+            "given_name", "Chris",
+            "family_name", "Gaucho",
+            "email_verified", true,
+            "locale", "en",
+            "hd", "ucsb.edu"),
+        "sub");
+  }
+
+  @Test
+  public void first_login_creates_the_user() {
+    User user = userProvisioningService.provision(oAuthUser("cgaucho@ucsb.edu"));
+
+    ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+    verify(userRepository).save(saved.capture());
+    assertSame(saved.getValue(), user);
+    assertEquals(
+        User.builder()
+            .googleSub("1234")
+            .email("cgaucho@ucsb.edu")
+            .pictureUrl("https://example.org/cgaucho.jpg")
+            .fullName("Chris Gaucho")
+            .givenName("Chris")
+            .familyName("Gaucho")
+            .emailVerified(true)
+            .locale("en")
+            .hostedDomain("ucsb.edu")
+            .admin(false)
+            .build(),
+        user);
+    verify(authAuditLogger)
+        .record(AuthAuditLogger.Event.USER_CREATED, "email", "cgaucho@ucsb.edu", "admin", false);
+  }
+
+  @Test
+  public void first_login_of_an_admin_email_creates_an_admin() {
+    User user = userProvisioningService.provision(oAuthUser("admingaucho@ucsb.edu"));
+
+    assertTrue(user.getAdmin());
+  }
+
+  @Test
+  public void later_login_returns_the_stored_user() {
+    User stored = User.builder().id(7L).email("cgaucho@ucsb.edu").build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    assertSame(stored, userProvisioningService.provision(oAuthUser("cgaucho@ucsb.edu")));
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void later_login_of_an_admin_email_makes_the_user_an_admin() {
+    User stored = User.builder().id(7L).email("admingaucho@ucsb.edu").build();
+    when(userRepository.findByEmail("admingaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    User user = userProvisioningService.provision(oAuthUser("admingaucho@ucsb.edu"));
+
+    assertTrue(user.getAdmin());
+    verify(userRepository).save(stored);
+    verify(authAuditLogger)
+        .record(AuthAuditLogger.Event.ADMIN_GRANTED, "email", "admingaucho@ucsb.edu");
+  }
+
+  @Test
+  public void later_login_of_an_admin_does_not_save_the_user() {
+    User stored = User.builder().id(7L).email("admingaucho@ucsb.edu").admin(true).build();
+    when(userRepository.findByEmail("admingaucho@ucsb.edu")).thenReturn(Optional.of(stored));
+
+    assertSame(stored, userProvisioningService.provision(oAuthUser("admingaucho@ucsb.edu")));
+    verify(userRepository, never()).save(any());
+  }
+
+  @Test
+  public void concurrent_first_login_returns_the_user_stored_by_the_other_login() {
+    User stored = User.builder().id(7L).email("cgaucho@ucsb.edu").build();
+    when(userRepository.findByEmail("cgaucho@ucsb.edu"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(stored));
+    when(userRepository.save(any()))
+        .thenThrow(new DataIntegrityViolationException("USERS_EMAIL_UK"));
+
+    User user = userProvisioningService.provision(oAuthUser("cgaucho@ucsb.edu"));
+
+    assertSame(stored, user);
+    assertFalse(user.getAdmin());
+  }
+
+  @Test
+  public void failed_save_is_rethrown_when_no_other_login_stored_the_user() {
+    DataIntegrityViolationException e = new DataIntegrityViolationException("bad row");
+    when(userRepository.save(any())).thenThrow(e);
+
+    assertSame(
+        e,
+        assertThrows(
+            DataIntegrityViolationException.class,
+            () -> userProvisioningService.provision(oAuthUser("cgaucho@ucsb.edu"))));
+  }
+}
@@ -0,0 +1,56 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class JobCancellationTests {
+
+  @Test
+  public void job_stopped_before_it_starts_does_not_run() {
+    JobCancellation cancellation = new JobCancellation();
+
+    assertTrue(cancellation.stop("cancelled"));
+
+    assertFalse(cancellation.start());
+    assertEquals("cancelled", cancellation.finish());
+  }
+
+  @Test
+  public void stopping_a_running_job_interrupts_its_thread() {
+    JobCancellation cancellation = new JobCancellation();
+    assertTrue(cancellation.start());
+
+    assertTrue(cancellation.stop("timeout"));
+
+    assertTrue(Thread.currentThread().isInterrupted());
+    assertTrue(cancellation.isStopped());
+    assertEquals("timeout", cancellation.finish());
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void job_can_only_be_stopped_once() {
+    JobCancellation cancellation = new JobCancellation();
+
+    assertTrue(cancellation.stop("cancelled"));
+    assertFalse(cancellation.stop("timeout"));
+
+    assertEquals("cancelled", cancellation.finish());
+  }
+
+  @Test
+  public void finished_job_cannot_be_stopped() {
+    JobCancellation cancellation = new JobCancellation();
+    assertTrue(cancellation.start());
+    assertNull(cancellation.finish());
+
+    assertFalse(cancellation.stop("timeout"));
+
+    assertFalse(cancellation.isStopped());
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+}
@@ -1,13 +1,22 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class JobContextTests {
   @Test
-  public void when_jobs_repository_is_null_does_not_save() throws Exception {
+  public void when_log_writer_is_null_does_not_save() throws Exception {
 
     // arrange
 
@@ -18,6 +27,41 @@ public class JobContextTests {
     ctx.log("This is a log message");
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void log_appends_numbered_lines_without_rewriting_the_job() throws Exception {
+
+    // arrange
+
+    JobLogWriter logWriter = mock(JobLogWriter.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(logWriter, job1);
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+
+    // assert
+    ArgumentCaptor<JobLogLine> captor = ArgumentCaptor.forClass(JobLogLine.class);
+    verify(logWriter, times(2)).append(captor.capture());
+    List<JobLogLine> lines = captor.getAllValues();
+    assertEquals(
+        JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build(), lines.get(0));
+    assertEquals(
+        JobLogLine.builder().jobId(17L).lineNumber(1).message("second").build(), lines.get(1));
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void isCancelled_reports_whether_the_job_was_stopped() {
+    JobCancellation cancellation = new JobCancellation();
+    JobContext ctx = new JobContext(null, Job.builder().build(), cancellation);
+    assertFalse(ctx.isCancelled());
+
+    cancellation.stop("cancelled");
+
+    assertTrue(ctx.isCancelled());
   }
 }
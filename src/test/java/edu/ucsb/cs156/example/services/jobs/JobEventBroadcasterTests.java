@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobEventBroadcasterTests {
+
+  private final JobEventBroadcaster broadcaster = new JobEventBroadcaster();
+
+  @Test
+  public void subscriptions_are_counted_per_job_until_they_end() {
+    ReflectionTestUtils.setField(broadcaster, "timeoutMs", 60000L);
+    ReflectionTestUtils.setField(broadcaster, "maxQueuedEvents", 10);
+
+    JobStreamSubscription first = broadcaster.subscribe(1L, 0);
+    JobStreamSubscription second = broadcaster.subscribe(1L, 0);
+    JobStreamSubscription other = broadcaster.subscribe(2L, 0);
+    assertEquals(3, broadcaster.getSubscriberCount());
+    assertEquals(60000L, first.getEmitter().getTimeout());
+
+    // events of jobs nobody follows are ignored
+    broadcaster.lineAppended(JobLogLine.builder().jobId(3L).lineNumber(0).message("x").build());
+    broadcaster.statusChanged(Job.builder().id(3L).status("running").build());
+
+    first.goLive("running");
+    second.goLive("running");
+    other.goLive("running");
+    broadcaster.lineAppended(JobLogLine.builder().jobId(1L).lineNumber(0).message("x").build());
+    broadcaster.statusChanged(Job.builder().id(1L).status("complete").build());
+    assertEquals(1, broadcaster.getSubscriberCount());
+
+    broadcaster.unsubscribe(other);
+    broadcaster.unsubscribe(other);
+    assertEquals(0, broadcaster.getSubscriberCount());
+    broadcaster.shutdown();
+  }
+
+  @Test
+  public void finished_statuses() {
+    assertTrue(JobEventBroadcaster.isFinished("complete"));
+    assertTrue(JobEventBroadcaster.isFinished("error"));
+    assertTrue(JobEventBroadcaster.isFinished("rejected"));
+    assertFalse(JobEventBroadcaster.isFinished("queued"));
+    assertFalse(JobEventBroadcaster.isFinished("running"));
+  }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class JobLogCompressionTests {
+
+  @Test
+  public void compressed_log_decompresses_to_the_same_text() {
+    String log = "Hello World! from test job!\n".repeat(1000) + "Goodbye ✓";
+
+    byte[] compressed = JobLogCompression.compress(log);
+
+    assertTrue(compressed.length < log.length() / 10);
+    assertEquals(log, JobLogCompression.decompress(compressed));
+  }
+
+  @Test
+  public void decompressing_data_that_is_not_gzip_fails() {
+    byte[] notGzip = "plain text".getBytes(StandardCharsets.UTF_8);
+
+    assertThrows(UncheckedIOException.class, () -> JobLogCompression.decompress(notGzip));
+  }
+}
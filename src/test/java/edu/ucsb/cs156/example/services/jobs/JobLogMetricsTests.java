@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.models.JobLogStats;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class JobLogMetricsTests {
+
+  @Test
+  public void averages_are_zero_before_any_flush() {
+    JobLogMetrics metrics = new JobLogMetrics();
+    assertEquals(0.0, metrics.getAverageFlushMillis());
+    assertEquals(0.0, metrics.getMaxFlushMillis());
+    assertEquals(0.0, metrics.getLinesPerSecond());
+  }
+
+  @Test
+  public void flush_latency_is_averaged_and_max_is_kept() {
+    JobLogMetrics metrics = new JobLogMetrics();
+    metrics.flushed(10, TimeUnit.MILLISECONDS.toNanos(2));
+    metrics.flushed(5, TimeUnit.MILLISECONDS.toNanos(6));
+    metrics.flushed(1, TimeUnit.MILLISECONDS.toNanos(1));
+
+    assertEquals(16, metrics.getLinesWritten());
+    assertEquals(3, metrics.getFlushes());
+    assertEquals(3.0, metrics.getAverageFlushMillis(), 1e-9);
+    assertEquals(6.0, metrics.getMaxFlushMillis(), 1e-9);
+  }
+
+  @Test
+  public void lines_per_second_is_measured_between_samples() {
+    JobLogMetrics metrics = new JobLogMetrics();
+    long start = System.nanoTime();
+    metrics.sample(start);
+
+    for (int i = 0; i < 30; i++) {
+      metrics.lineAppended();
+    }
+    metrics.sample(start + TimeUnit.SECONDS.toNanos(2));
+    assertEquals(15.0, metrics.getLinesPerSecond(), 1e-9);
+
+    // a sample with no elapsed time leaves the rate unchanged
+    metrics.lineAppended();
+    metrics.sample(start + TimeUnit.SECONDS.toNanos(2));
+    assertEquals(15.0, metrics.getLinesPerSecond(), 1e-9);
+  }
+
+  @Test
+  public void snapshot_reports_all_counters() {
+    JobLogMetrics metrics = new JobLogMetrics();
+    metrics.lineAppended();
+    metrics.lineAppended();
+    metrics.linesDropped(1);
+    metrics.flushed(1, TimeUnit.MILLISECONDS.toNanos(4));
+
+    JobLogStats expected =
+        JobLogStats.builder()
+            .openWriters(3)
+            .bufferedLines(5)
+            .linesAppended(2)
+            .linesWritten(1)
+            .linesDropped(1)
+            .flushes(1)
+            .linesPerSecond(0.0)
+            .averageFlushMillis(4.0)
+            .maxFlushMillis(4.0)
+            .build();
+    assertEquals(expected, metrics.snapshot(3, 5));
+  }
+}
@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.models.JobLogStats;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobLogServiceTests {
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobEventBroadcaster jobEventBroadcaster;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogService jobLogService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobLogService, "batchSize", 50);
+    ReflectionTestUtils.setField(jobLogService, "bufferCapacity", 100);
+    ReflectionTestUtils.setField(
+        jobLogService, "overflowPolicy", JobLogWriter.OverflowPolicy.BLOCK);
+  }
+
+  private JobLogLine line(long jobId, int lineNumber) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message("x").build();
+  }
+
+  @Test
+  public void flushAll_flushes_every_open_writer() {
+    JobLogWriter writer1 = jobLogService.openWriter(Job.builder().id(1L).build());
+    JobLogWriter writer2 = jobLogService.openWriter(Job.builder().id(2L).build());
+    writer1.append(line(1L, 0));
+    writer2.append(line(2L, 0));
+    writer2.append(line(2L, 1));
+
+    JobLogStats before = jobLogService.getStats();
+    assertEquals(2, before.getOpenWriters());
+    assertEquals(3, before.getBufferedLines());
+
+    jobLogService.flushAll();
+
+    verify(jobLogLinesRepository, times(2)).saveAll(any());
+    JobLogStats after = jobLogService.getStats();
+    assertEquals(0, after.getBufferedLines());
+    assertEquals(3, after.getLinesWritten());
+    assertSame(jobLogService.getMetrics(), jobLogService.getMetrics());
+  }
+
+  @Test
+  public void closeWriter_flushes_and_stops_periodic_flushing() {
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(3L).build());
+    writer.append(line(3L, 0));
+
+    jobLogService.closeWriter(writer);
+
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+    assertEquals(0, jobLogService.getStats().getOpenWriters());
+
+    writer.append(line(3L, 1));
+    jobLogService.flushAll();
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+  }
+
+  @Test
+  public void full_batch_is_flushed_in_the_background() {
+    ReflectionTestUtils.setField(jobLogService, "batchSize", 2);
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(5L).build());
+    writer.append(line(5L, 0));
+    writer.append(line(5L, 1));
+
+    await().atMost(5, SECONDS).untilAsserted(() -> verify(jobLogLinesRepository).saveAll(any()));
+    assertEquals(0, writer.getBufferedLines());
+  }
+
+  @Test
+  public void written_lines_are_published() {
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(6L).build());
+    JobLogLine line = line(6L, 0);
+
+    writer.append(line);
+    verify(jobEventBroadcaster, never()).lineAppended(any());
+    jobLogService.flush(6L);
+
+    verify(jobEventBroadcaster).lineAppended(line);
+  }
+
+  @Test
+  public void flush_writes_lines_of_one_job() {
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(7L).build());
+    JobLogWriter other = jobLogService.openWriter(Job.builder().id(8L).build());
+    writer.append(line(7L, 0));
+    other.append(line(8L, 0));
+
+    jobLogService.flush(7L);
+    jobLogService.flush(99L);
+
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+    assertEquals(0, writer.getBufferedLines());
+    assertEquals(1, other.getBufferedLines());
+  }
+
+  @Test
+  public void forEachLine_passes_stored_lines_in_order() {
+    when(jobLogLinesRepository.streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            9L, 1))
+        .thenReturn(Stream.of(line(9L, 1), line(9L, 2)));
+    List<JobLogLine> lines = new ArrayList<>();
+
+    assertTrue(jobLogService.forEachLine(9L, 1, lines::add));
+
+    assertEquals(List.of(line(9L, 1), line(9L, 2)), lines);
+  }
+
+  @Test
+  public void forEachLine_stops_when_the_consumer_returns_false() {
+    when(jobLogLinesRepository.streamByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            9L, 0))
+        .thenReturn(Stream.of(line(9L, 0), line(9L, 1), line(9L, 2)));
+    List<JobLogLine> lines = new ArrayList<>();
+
+    assertFalse(jobLogService.forEachLine(9L, 0, line -> lines.add(line) && lines.size() < 2));
+
+    assertEquals(List.of(line(9L, 0), line(9L, 1)), lines);
+  }
+
+  @Test
+  public void storeCompressedLog_replaces_log_and_lines() {
+    Job job = Job.builder().id(10L).log("legacy").build();
+
+    jobLogService.storeCompressedLog(job, "legacy\nline");
+
+    assertEquals("legacy\nline", JobLogCompression.decompress(job.getLogGzip()));
+    assertEquals(null, job.getLog());
+    assertEquals(2, job.getLogLineCount());
+    verify(jobsRepository).save(job);
+    verify(jobLogLinesRepository).deleteByJobId(10L);
+  }
+
+  @Test
+  public void storeCompressedLog_counts_no_lines_in_an_empty_log() {
+    Job job = Job.builder().id(11L).log("").build();
+
+    jobLogService.storeCompressedLog(job, "");
+
+    assertEquals(0, job.getLogLineCount());
+  }
+
+  @Test
+  public void shutdown_flushes_open_writers() {
+    JobLogWriter writer = jobLogService.openWriter(Job.builder().id(4L).build());
+    writer.append(line(4L, 0));
+
+    jobLogService.shutdown();
+
+    verify(jobLogLinesRepository, times(1)).saveAll(any());
+  }
+}
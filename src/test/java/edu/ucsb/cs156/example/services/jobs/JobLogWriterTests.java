@@ -0,0 +1,279 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+public class JobLogWriterTests {
+
+  private JobLogLinesRepository jobLogLinesRepository;
+  private JobLogMetrics metrics;
+  private List<Runnable> pendingFlushes;
+  private Executor queueingExecutor;
+  private List<JobLogLine> published;
+
+  @BeforeEach
+  public void setup() {
+    jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    metrics = new JobLogMetrics();
+    pendingFlushes = new ArrayList<>();
+    queueingExecutor = pendingFlushes::add;
+    published = new ArrayList<>();
+  }
+
+  private JobLogLine line(int lineNumber) {
+    return JobLogLine.builder()
+        .jobId(7L)
+        .lineNumber(lineNumber)
+        .message("line " + lineNumber)
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<JobLogLine>> savedBatches(int times) {
+    ArgumentCaptor<List<JobLogLine>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jobLogLinesRepository, times(times)).saveAll(captor.capture());
+    return captor.getAllValues();
+  }
+
+  @Test
+  public void lines_are_buffered_until_flush() {
+    JobLogWriter writer =
+        new JobLogWriter(
+            7L,
+            jobLogLinesRepository,
+            metrics,
+            queueingExecutor,
+            10,
+            100,
+            JobLogWriter.OverflowPolicy.BLOCK,
+            published::add);
+
+    writer.append(line(0));
+    writer.append(line(1));
+
+    verify(jobLogLinesRepository, never()).saveAll(any());
+    assertEquals(2, writer.getBufferedLines());
+    assertEquals(7L, writer.getJobId());
+    assertEquals(List.of(), published);
+
+    writer.flush();
+
+    assertEquals(List.of(List.of(line(0), line(1))), savedBatches(1));
+    assertEquals(List.of(line(0), line(1)), published);
+    assertEquals(0, writer.getBufferedLines());
+    assertEquals(2, metrics.getLinesAppended());
+    assertEquals(2, metrics.getLinesWritten());
+    assertEquals(1, metrics.getFlushes());
+  }
+
+  @Test
+  public void flush_of_empty_buffer_does_nothing() {
+    JobLogWriter writer =
+        new JobLogWriter(
+            7L,
+            jobLogLinesRepository,
+            metrics,
+            queueingExecutor,
+            10,
+            100,
+            JobLogWriter.OverflowPolicy.BLOCK,
+            published::add);
+
+    writer.flush();
+
+    verify(jobLogLinesRepository, never()).saveAll(any());
+    assertEquals(0, metrics.getFlushes());
+  }
+
+  @Test
+  public void full_batch_requests_one_background_flush() {
+    JobLogWriter writer =
+        new JobLogWriter(
+            7L,
+            jobLogLinesRepository,
+            metrics,
+            queueingExecutor,
+            2,
+            100,
+            JobLogWriter.OverflowPolicy.BLOCK,
+            published::add);
+
+    writer.append(line(0));
+    assertEquals(0, pendingFlushes.size());
+    writer.append(line(1));
+    writer.append(line(2));
+    assertEquals(1, pendingFlushes.size());
+
+    pendingFlushes.get(0).run();
+    assertEquals(List.of(List.of(line(0), line(1), line(2))), savedBatches(1));
+
+    writer.append(line(3));
+    writer.append(line(4));
+    assertEquals(2, pendingFlushes.size());
+  }
+
+  @Test
+  public void block_policy_flushes_on_the_calling_thread_when_full() {
+    JobLogWriter writer =
+        new JobLogWriter(
+            7L,
+            jobLogLinesRepository,
+            metrics,
+            queueingExecutor,
+            10,
+            2,
+            JobLogWriter.OverflowPolicy.BLOCK,
+            published::add);
+
+    writer.append(line(0));
+    writer.append(line(1));
+    writer.append(line(2));
+
+    assertEquals(List.of(List.of(line(0), line(1))), savedBatches(1));
+    assertEquals(1, writer.getBufferedLines());
+    assertEquals(0, metrics.getLinesDropped());
+  }
+
+  @Test
+  public void drop_policy_discards_lines_when_full() {
+    JobLogWriter writer =
+        new JobLogWriter(
+            7L,
+            jobLogLinesRepository,
+            metrics,
+            queueingExecutor,
+            10,
+            2,
+            JobLogWriter.OverflowPolicy.DROP,
+            published::add);
+
+    writer.append(line(0));
+    writer.append(line(1));
+    writer.append(line(2));
+    writer.flush();
+
+    assertEquals(List.of(List.of(line(0), line(1), droppedLine(2, 1))), savedBatches(1));
+    assertEquals(3, metrics.getLinesAppended());
+    assertEquals(1, metrics.getLinesDropped());
+    assertEquals(List.of(line(0), line(1), droppedLine(2, 1)), published);
+  }
+
+  private JobLogWriter writer(int capacity, JobLogWriter.OverflowPolicy overflowPolicy) {
+    return new JobLogWriter(
+        7L,
+        jobLogLinesRepository,
+        metrics,
+        queueingExecutor,
+        10,
+        capacity,
+        overflowPolicy,
+        published::add);
+  }
+
+  private JobLogLine droppedLine(int lineNumber, int count) {
+    return JobLogLine.builder()
+        .jobId(7L)
+        .lineNumber(lineNumber)
+        .message("[%d log lines dropped]".formatted(count))
+        .build();
+  }
+
+  @Test
+  public void dropped_lines_are_marked_in_the_log_by_the_next_flush() {
+    JobLogWriter writer = writer(2, JobLogWriter.OverflowPolicy.DROP);
+
+    writer.append(line(0));
+    writer.append(line(1));
+    writer.append(line(2));
+    writer.append(line(3));
+    writer.flush();
+    writer.append(line(4));
+    writer.flush();
+
+    assertEquals(
+        List.of(List.of(line(0), line(1), droppedLine(2, 2)), List.of(line(4))), savedBatches(2));
+    assertEquals(List.of(line(0), line(1), droppedLine(2, 2), line(4)), published);
+    assertEquals(2, metrics.getLinesDropped());
+    assertEquals(4, metrics.getLinesWritten());
+  }
+
+  @Test
+  public void failed_batch_is_written_one_line_at_a_time() {
+    when(jobLogLinesRepository.saveAll(any())).thenThrow(new RuntimeException("database down"));
+    JobLogWriter writer = writer(100, JobLogWriter.OverflowPolicy.BLOCK);
+
+    writer.append(line(0));
+    writer.append(line(1));
+    writer.flush();
+
+    verify(jobLogLinesRepository).save(line(0));
+    verify(jobLogLinesRepository).save(line(1));
+    assertEquals(0, metrics.getLinesDropped());
+    assertEquals(2, metrics.getLinesWritten());
+    assertEquals(0, writer.getBufferedLines());
+  }
+
+  @Test
+  public void lines_that_cannot_be_written_are_marked_in_the_log_by_the_next_flush() {
+    when(jobLogLinesRepository.saveAll(any())).thenThrow(new RuntimeException("database down"));
+    when(jobLogLinesRepository.save(any())).thenThrow(new RuntimeException("database down"));
+    JobLogWriter writer = writer(100, JobLogWriter.OverflowPolicy.BLOCK);
+
+    writer.append(line(0));
+    writer.append(line(1));
+    writer.flush();
+
+    assertEquals(2, metrics.getLinesDropped());
+    assertEquals(0, metrics.getLinesWritten());
+    assertEquals(0, metrics.getFlushes());
+    assertEquals(List.of(), published);
+
+    // the line for the dropped lines cannot be written either, so it is kept for the next flush
+    writer.flush();
+    verify(jobLogLinesRepository).save(droppedLine(0, 2));
+    assertEquals(2, metrics.getLinesDropped());
+
+    // once the database is back, the line is written with the next batch
+    reset(jobLogLinesRepository);
+    writer.append(line(2));
+    writer.flush();
+    assertEquals(List.of(List.of(line(2), droppedLine(0, 2))), savedBatches(1));
+    assertEquals(List.of(droppedLine(0, 2), line(2)), published);
+  }
+
+  @Test
+  public void line_for_dropped_lines_takes_the_first_missing_line_number() {
+    JobLogWriter writer = writer(1, JobLogWriter.OverflowPolicy.DROP);
+    when(jobLogLinesRepository.saveAll(any())).thenThrow(new RuntimeException("database down"));
+    // while line 0 is being written, the job goes on and line 2 finds the buffer full
+    when(jobLogLinesRepository.save(any()))
+        .thenAnswer(
+            invocation -> {
+              writer.append(line(1));
+              writer.append(line(2));
+              throw new RuntimeException("database down");
+            });
+
+    writer.append(line(0));
+    writer.flush();
+
+    reset(jobLogLinesRepository);
+    writer.flush();
+    assertEquals(List.of(List.of(line(1), droppedLine(0, 2))), savedBatches(1));
+  }
+}
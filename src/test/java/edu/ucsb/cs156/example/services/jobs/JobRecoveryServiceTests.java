@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobRecoveryServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobService jobService;
+
+  @Mock private JobEventBroadcaster jobEventBroadcaster;
+
+  @InjectMocks private JobRecoveryService jobRecoveryService;
+
+  private final List<String> activeStatuses = List.of("queued", "running");
+
+  private final ZonedDateTime lastHeartbeat = ZonedDateTime.now().minusMinutes(10);
+
+  private final PersistentJob idempotentJob = TestJob.builder().build();
+
+  private final PersistentJob nonIdempotentJob = ctx -> {};
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRecoveryService, "staleAfterMs", 120_000L);
+    ReflectionTestUtils.setField(jobRecoveryService, "maxAttempts", 3);
+    ReflectionTestUtils.setField(jobRecoveryService, "batchSize", 100);
+    when(jobsRepository.claimStaleJob(any(Long.class), eq(lastHeartbeat), any())).thenReturn(1);
+  }
+
+  private Job orphan(long id, String status, int attempts) {
+    Job job =
+        Job.builder()
+            .id(id)
+            .status(status)
+            .attempts(attempts)
+            .priority(JobPriority.NORMAL)
+            .heartbeatAt(lastHeartbeat)
+            .build();
+    when(jobsRepository.findStaleJobs(eq(activeStatuses), any(), eq(Limit.of(100))))
+        .thenReturn(List.of(job));
+    return job;
+  }
+
+  private void assertFailed(Job job, String message) {
+    assertEquals("error", job.getStatus());
+    verify(jobsRepository).save(job);
+    verify(jobEventBroadcaster).statusChanged(job);
+    verify(jobLogLinesRepository)
+        .save(JobLogLine.builder().jobId(job.getId()).lineNumber(2).message(message).build());
+    verify(jobService, never()).requeue(any(), any());
+  }
+
+  @Test
+  public void nothing_to_recover() {
+    assertEquals(
+        "Requeued 0 orphaned jobs, marked 0 as error", jobRecoveryService.recoverOrphanedJobs());
+  }
+
+  @Test
+  public void looks_for_jobs_without_a_recent_heartbeat_on_startup() {
+    jobRecoveryService.recoverOnStartup();
+
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository).findStaleJobs(eq(activeStatuses), before.capture(), eq(Limit.of(100)));
+    assertEquals(2, Duration.between(before.getValue(), ZonedDateTime.now()).toMinutes());
+  }
+
+  @Test
+  public void queued_persistent_job_is_queued_again() {
+    Job job = orphan(1, "queued", 0);
+    when(jobService.restoreJobFunction(job)).thenReturn(Optional.of(nonIdempotentJob));
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    assertEquals("Requeued 1 orphaned jobs, marked 0 as error", message);
+    verify(jobService).requeue(job, nonIdempotentJob);
+    verify(jobLogLinesRepository, never()).deleteByJobId(1);
+  }
+
+  @Test
+  public void running_idempotent_job_is_run_again_from_the_start() {
+    Job job = orphan(2, "running", 1);
+    when(jobService.restoreJobFunction(job)).thenReturn(Optional.of(idempotentJob));
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    assertEquals("Requeued 1 orphaned jobs, marked 0 as error", message);
+    verify(jobLogLinesRepository).deleteByJobId(2);
+    verify(jobService).requeue(job, idempotentJob);
+  }
+
+  @Test
+  public void running_job_that_is_not_idempotent_is_marked_error() {
+    Job job = orphan(3, "running", 1);
+    when(jobService.restoreJobFunction(job)).thenReturn(Optional.of(nonIdempotentJob));
+    when(jobLogLinesRepository.countByJobId(3)).thenReturn(2L);
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    assertEquals("Requeued 0 orphaned jobs, marked 1 as error", message);
+    assertFailed(
+        job, "Job was running when its server stopped, and it is not safe to run it again");
+  }
+
+  @Test
+  public void running_job_is_not_started_more_than_max_attempts_times() {
+    Job job = orphan(4, "running", 3);
+    when(jobService.restoreJobFunction(job)).thenReturn(Optional.of(idempotentJob));
+    when(jobLogLinesRepository.countByJobId(4)).thenReturn(2L);
+
+    jobRecoveryService.recoverOrphanedJobs();
+
+    assertFailed(
+        job, "Job was running when its server stopped, and it has already been started 3 times");
+  }
+
+  @Test
+  public void job_that_cannot_be_restored_is_marked_error() {
+    Job job = orphan(5, "queued", 0);
+    when(jobService.restoreJobFunction(job)).thenReturn(Optional.empty());
+    when(jobLogLinesRepository.countByJobId(5)).thenReturn(2L);
+
+    jobRecoveryService.recoverOrphanedJobs();
+
+    assertFailed(job, "Job was queued when its server stopped, and it cannot be restarted");
+  }
+
+  @Test
+  public void job_claimed_by_another_server_is_left_alone() {
+    Job job = orphan(6, "queued", 0);
+    when(jobsRepository.claimStaleJob(eq(6L), eq(lastHeartbeat), any())).thenReturn(0);
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    assertEquals("Requeued 0 orphaned jobs, marked 0 as error", message);
+    assertEquals(lastHeartbeat, job.getHeartbeatAt());
+    verify(jobService, never()).restoreJobFunction(job);
+  }
+
+  @Test
+  public void job_still_active_on_this_server_is_not_claimed() {
+    Job job = orphan(7, "running", 1);
+    when(jobService.isActive(7)).thenReturn(true);
+
+    String message = jobRecoveryService.recoverOrphanedJobs();
+
+    assertEquals("Requeued 0 orphaned jobs, marked 0 as error", message);
+    verify(jobsRepository, never()).claimStaleJob(any(Long.class), any(), any());
+    verify(jobLogLinesRepository, never()).deleteByJobId(7);
+    verify(jobService, never()).requeue(any(), any());
+    assertEquals("running", job.getStatus());
+  }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobRetentionServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobService jobService;
+
+  @Mock private JobLogService jobLogService;
+
+  @InjectMocks private JobRetentionService jobRetentionService;
+
+  private final List<String> statuses = List.of("complete", "rejected");
+  private final List<String> errorStatuses = List.of("error");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobRetentionService, "statuses", statuses);
+    ReflectionTestUtils.setField(jobRetentionService, "maxAgeDays", 30);
+    ReflectionTestUtils.setField(jobRetentionService, "maxJobs", 100);
+    ReflectionTestUtils.setField(jobRetentionService, "errorStatuses", errorStatuses);
+    ReflectionTestUtils.setField(jobRetentionService, "errorMaxAgeDays", 90);
+    ReflectionTestUtils.setField(jobRetentionService, "compressAfterDays", 7);
+    ReflectionTestUtils.setField(jobRetentionService, "batchSize", 2);
+    when(jobsRepository.findIdsCreatedBefore(any(), any(), any())).thenReturn(List.of());
+    when(jobsRepository.findJobsToCompact(any(), any(), anyLong(), any())).thenReturn(List.of());
+  }
+
+  private static void assertDaysAgo(int days, ZonedDateTime time) {
+    long hours = Duration.between(time, ZonedDateTime.now()).toHours();
+    assertEquals(days * 24L, hours);
+  }
+
+  @Test
+  public void nothing_to_do() {
+    assertEquals("Compressed 0 job logs, deleted 0 jobs", jobRetentionService.runRetention());
+    verify(jobsRepository, never()).deleteByIds(any());
+  }
+
+  @Test
+  public void old_logs_are_compressed_batch_by_batch() {
+    Job job1 = Job.builder().id(1L).build();
+    Job job2 = Job.builder().id(2L).build();
+    Job job3 = Job.builder().id(3L).build();
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    when(jobsRepository.findJobsToCompact(eq(statuses), before.capture(), eq(0L), eq(Limit.of(2))))
+        .thenReturn(List.of(job1, job2));
+    when(jobsRepository.findJobsToCompact(eq(statuses), any(), eq(2L), eq(Limit.of(2))))
+        .thenReturn(List.of(job3));
+    when(jobService.getJobLogs(job1)).thenReturn("log 1");
+    when(jobService.getJobLogs(job2)).thenThrow(new IllegalStateException("broken"));
+    when(jobService.getJobLogs(job3)).thenReturn("log 3");
+
+    String message = jobRetentionService.runRetention();
+
+    assertEquals("Compressed 2 job logs, deleted 0 jobs", message);
+    assertDaysAgo(7, before.getValue());
+    verify(jobLogService).storeCompressedLog(job1, "log 1");
+    verify(jobLogService).storeCompressedLog(job3, "log 3");
+    verify(jobLogService, times(2)).storeCompressedLog(any(), any());
+  }
+
+  @Test
+  public void expired_jobs_are_deleted_in_batches() {
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    when(jobsRepository.findIdsCreatedBefore(eq(statuses), before.capture(), eq(Limit.of(2))))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+    when(jobsRepository.deleteByIds(List.of(3L))).thenReturn(1);
+
+    String message = jobRetentionService.runRetention();
+
+    assertEquals("Compressed 0 job logs, deleted 3 jobs", message);
+    assertDaysAgo(30, before.getAllValues().get(0));
+    verify(jobsRepository, times(2)).deleteByIds(any());
+  }
+
+  @Test
+  public void failed_jobs_are_kept_longer() {
+    ArgumentCaptor<ZonedDateTime> before = ArgumentCaptor.forClass(ZonedDateTime.class);
+    when(jobsRepository.findIdsCreatedBefore(eq(errorStatuses), before.capture(), eq(Limit.of(2))))
+        .thenReturn(List.of(7L));
+    when(jobsRepository.deleteByIds(List.of(7L))).thenReturn(1);
+
+    String message = jobRetentionService.runRetention();
+
+    assertEquals("Compressed 0 job logs, deleted 1 jobs", message);
+    assertDaysAgo(90, before.getValue());
+  }
+
+  @Test
+  public void oldest_jobs_beyond_max_jobs_are_deleted() {
+    when(jobsRepository.countByStatusIn(statuses)).thenReturn(103L);
+    when(jobsRepository.findOldestIds(statuses, Limit.of(2))).thenReturn(List.of(1L, 2L));
+    when(jobsRepository.findOldestIds(statuses, Limit.of(1))).thenReturn(List.of(3L));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+    when(jobsRepository.deleteByIds(List.of(3L))).thenReturn(1);
+
+    String message = jobRetentionService.runRetention();
+
+    assertEquals("Compressed 0 job logs, deleted 3 jobs", message);
+  }
+
+  @Test
+  public void deleting_beyond_max_jobs_stops_when_no_jobs_are_left() {
+    when(jobsRepository.countByStatusIn(statuses)).thenReturn(101L);
+    when(jobsRepository.findOldestIds(statuses, Limit.of(1))).thenReturn(List.of());
+
+    String message = jobRetentionService.runRetention();
+
+    assertEquals("Compressed 0 job logs, deleted 0 jobs", message);
+    verify(jobsRepository, never()).deleteByIds(any());
+  }
+}
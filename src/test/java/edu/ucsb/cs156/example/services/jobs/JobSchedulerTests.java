@@ -0,0 +1,218 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.JobExecutorStatus;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobSchedulerTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private ThreadPoolTaskExecutor jobExecutor;
+
+  @Mock private JobEventBroadcaster jobEventBroadcaster;
+
+  @InjectMocks private JobScheduler jobScheduler;
+
+  // tasks handed to the executor, in order; running one finishes that job
+  private final List<Runnable> executed = new ArrayList<>();
+
+  // ids of the jobs whose task has run
+  private final List<Long> ran = new ArrayList<>();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobScheduler, "maxRunningPerUser", 2);
+    when(jobExecutor.getMaxPoolSize()).thenReturn(2);
+    when(jobExecutor.getQueueCapacity()).thenReturn(3);
+    doAnswer(invocation -> executed.add(invocation.getArgument(0)))
+        .when(jobExecutor)
+        .execute(any(Runnable.class));
+  }
+
+  private Job job(long id, Long userId) {
+    User user = userId == null ? null : User.builder().id(userId).build();
+    return Job.builder().id(id).createdBy(user).status("queued").build();
+  }
+
+  private Job submit(long id, Long userId, JobPriority priority) {
+    Job job = job(id, userId);
+    jobScheduler.submit(job, priority, () -> ran.add(id));
+    return job;
+  }
+
+  /** Runs the task that was handed to the executor index-th, which finishes that job. */
+  private void finish(int index) {
+    executed.get(index).run();
+  }
+
+  @Test
+  public void job_starts_right_away_when_a_slot_is_free() {
+    Job job = submit(1, 10L, JobPriority.NORMAL);
+
+    assertEquals("running", job.getStatus());
+    assertEquals(1, job.getAttempts());
+    assertNotNull(job.getHeartbeatAt());
+    verify(jobEventBroadcaster).statusChanged(job);
+    assertEquals(1, executed.size());
+    assertEquals(1, jobScheduler.getStatus().getRunningJobs());
+
+    finish(0);
+
+    assertEquals(List.of(1L), ran);
+    assertEquals(0, jobScheduler.getStatus().getRunningJobs());
+  }
+
+  @Test
+  public void jobs_without_a_user_are_scheduled_too() {
+    Job job1 = submit(1, null, JobPriority.NORMAL);
+    Job job2 = submit(2, null, JobPriority.NORMAL);
+    Job job3 = submit(3, null, JobPriority.NORMAL);
+
+    assertEquals("running", job1.getStatus());
+    assertEquals("running", job2.getStatus());
+    assertEquals("queued", job3.getStatus());
+
+    finish(0);
+
+    assertEquals("running", job3.getStatus());
+  }
+
+  @Test
+  public void higher_priority_job_starts_first() {
+    submit(1, 10L, JobPriority.NORMAL);
+    submit(2, 11L, JobPriority.NORMAL);
+    Job low = submit(3, 12L, JobPriority.LOW);
+    Job high = submit(4, 13L, JobPriority.HIGH);
+
+    finish(0);
+
+    assertEquals("running", high.getStatus());
+    assertEquals("queued", low.getStatus());
+  }
+
+  @Test
+  public void user_with_fewer_running_jobs_starts_first() {
+    submit(1, 10L, JobPriority.NORMAL);
+    submit(2, 11L, JobPriority.NORMAL);
+    Job busyUsersJob = submit(3, 10L, JobPriority.NORMAL);
+    Job otherUsersJob = submit(4, 12L, JobPriority.NORMAL);
+
+    finish(1);
+
+    assertEquals("running", otherUsersJob.getStatus());
+    assertEquals("queued", busyUsersJob.getStatus());
+  }
+
+  @Test
+  public void jobs_of_the_same_priority_and_share_start_in_order() {
+    submit(1, 10L, JobPriority.NORMAL);
+    submit(2, 11L, JobPriority.NORMAL);
+    Job first = submit(3, 12L, JobPriority.NORMAL);
+    Job second = submit(4, 13L, JobPriority.NORMAL);
+
+    finish(0);
+
+    assertEquals("running", first.getStatus());
+    assertEquals("queued", second.getStatus());
+  }
+
+  @Test
+  public void user_cannot_exceed_running_limit() {
+    ReflectionTestUtils.setField(jobScheduler, "maxRunningPerUser", 1);
+
+    submit(1, 10L, JobPriority.NORMAL);
+    Job second = submit(2, 10L, JobPriority.HIGH);
+    Job otherUsersJob = submit(3, 11L, JobPriority.LOW);
+
+    assertEquals("queued", second.getStatus());
+    assertEquals("running", otherUsersJob.getStatus());
+
+    finish(0);
+
+    assertEquals("running", second.getStatus());
+  }
+
+  @Test
+  public void job_is_rejected_when_queue_is_full() {
+    submit(1, 10L, JobPriority.NORMAL);
+    submit(2, 11L, JobPriority.NORMAL);
+    submit(3, 12L, JobPriority.NORMAL);
+    submit(4, 13L, JobPriority.NORMAL);
+    submit(5, 14L, JobPriority.NORMAL);
+
+    assertThrows(TaskRejectedException.class, () -> submit(6, 15L, JobPriority.HIGH));
+
+    JobExecutorStatus status = jobScheduler.getStatus();
+    assertEquals(2, status.getRunningJobs());
+    assertEquals(3, status.getQueueSize());
+    assertEquals(1, status.getRejectedJobs());
+  }
+
+  @Test
+  public void job_rejected_by_executor_is_marked_rejected_and_frees_its_slot() {
+    doThrow(new TaskRejectedException("shutting down"))
+        .when(jobExecutor)
+        .execute(any(Runnable.class));
+
+    Job job = submit(1, 10L, JobPriority.NORMAL);
+
+    assertEquals("rejected", job.getStatus());
+    verify(jobEventBroadcaster, times(2)).statusChanged(job);
+    JobExecutorStatus status = jobScheduler.getStatus();
+    assertEquals(0, status.getRunningJobs());
+    assertEquals(1, status.getRejectedJobs());
+  }
+
+  @Test
+  public void status_reports_limits() {
+    ReflectionTestUtils.setField(jobScheduler, "virtualThreads", true);
+
+    JobExecutorStatus status = jobScheduler.getStatus();
+
+    assertEquals(2, status.getMaxConcurrent());
+    assertEquals(2, status.getMaxRunningPerUser());
+    assertEquals(3, status.getQueueCapacity());
+    assertEquals(true, status.getVirtualThreads());
+  }
+
+  @Test
+  public void queued_job_can_be_removed_but_running_job_cannot() {
+    submit(1, 10L, JobPriority.NORMAL);
+    submit(2, 11L, JobPriority.NORMAL);
+    Job queued = submit(3, 12L, JobPriority.NORMAL);
+
+    assertFalse(jobScheduler.remove(1));
+    assertTrue(jobScheduler.remove(3));
+    assertEquals(0, jobScheduler.getStatus().getQueueSize());
+
+    finish(0);
+
+    assertEquals("queued", queued.getStatus());
+    assertEquals(2, executed.size());
+  }
+}
@@ -0,0 +1,503 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobLogService jobLogService;
+
+  @Mock private JobScheduler jobScheduler;
+
+  @Mock private JobEventBroadcaster jobEventBroadcaster;
+
+  @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy private JobMetrics jobMetrics = new JobMetrics(meterRegistry);
+
+  @InjectMocks private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void job_is_queued_with_the_requested_priority() {
+    // act
+    Job job = jobService.runAsJob(ctx -> {}, JobPriority.HIGH);
+
+    // assert
+    assertEquals("queued", job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(jobScheduler).submit(eq(job), eq(JobPriority.HIGH), taskCaptor.capture());
+
+    taskCaptor.getValue().run();
+    assertEquals("complete", job.getStatus());
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobEventBroadcaster).statusChanged(job);
+  }
+
+  @Test
+  public void job_is_rejected_when_queue_is_full() {
+    // arrange
+    doThrow(new TaskRejectedException("Job queue is full"))
+        .when(jobScheduler)
+        .submit(any(Job.class), any(JobPriority.class), any(Runnable.class));
+
+    // act
+    Job job = jobService.runAsJob(ctx -> {});
+
+    // assert
+    assertEquals("rejected", job.getStatus());
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobEventBroadcaster).statusChanged(job);
+    verify(jobScheduler).submit(eq(job), eq(JobPriority.NORMAL), any(Runnable.class));
+  }
+
+  private Runnable submittedTask(Job job) {
+    ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(jobScheduler).submit(eq(job), any(JobPriority.class), taskCaptor.capture());
+    return taskCaptor.getValue();
+  }
+
+  @Test
+  public void queued_job_can_be_cancelled() {
+    // arrange
+    Job job = jobService.runAsJob(ctx -> {});
+    when(jobScheduler.remove(job.getId())).thenReturn(true);
+    when(jobsRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+    // act
+    boolean cancelled = jobService.cancelJob(job.getId());
+
+    // assert
+    assertTrue(cancelled);
+    assertEquals("cancelled", job.getStatus());
+    verify(jobsRepository, times(2)).save(job);
+    verify(jobEventBroadcaster).statusChanged(job);
+    assertFalse(jobService.cancelJob(job.getId()));
+  }
+
+  @Test
+  public void job_cancelled_while_being_started_does_not_run() throws Exception {
+    // arrange
+    JobContextConsumer jobFunction = ctx -> ctx.log("should not run");
+    Job job = jobService.runAsJob(jobFunction);
+    Runnable task = submittedTask(job);
+
+    // act: the scheduler has already taken the job out of its queue
+    assertTrue(jobService.cancelJob(job.getId()));
+    assertFalse(jobService.cancelJob(job.getId()));
+    task.run();
+
+    // assert
+    assertEquals("cancelled", job.getStatus());
+    verify(jobsRepository, never()).findById(job.getId());
+    verify(jobEventBroadcaster).statusChanged(job);
+  }
+
+  @Test
+  public void running_job_is_interrupted_when_cancelled() throws Exception {
+    // arrange
+    CountDownLatch started = new CountDownLatch(1);
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(10_000);
+            });
+    Thread thread = new Thread(submittedTask(job));
+    thread.start();
+    started.await();
+
+    // act
+    assertTrue(jobService.cancelJob(job.getId()));
+    thread.join(5_000);
+
+    // assert
+    assertFalse(thread.isAlive());
+    assertEquals("cancelled", job.getStatus());
+    assertFalse(jobService.cancelJob(job.getId()));
+  }
+
+  @Test
+  public void job_that_runs_too_long_times_out() {
+    // arrange
+    Job job = jobService.runAsJob(ctx -> Thread.sleep(10_000), JobPriority.NORMAL, 50);
+
+    // act
+    submittedTask(job).run();
+
+    // assert
+    assertEquals("timeout", job.getStatus());
+    verify(jobEventBroadcaster).statusChanged(job);
+  }
+
+  @Test
+  public void job_that_checks_isCancelled_stops_on_timeout() {
+    // arrange
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              while (!ctx.isCancelled()) {
+                Thread.onSpinWait();
+              }
+            },
+            JobPriority.NORMAL,
+            50);
+
+    // act
+    submittedTask(job).run();
+
+    // assert
+    assertEquals("timeout", job.getStatus());
+  }
+
+  @Test
+  public void job_that_finishes_in_time_completes() {
+    // arrange
+    Job job = jobService.runAsJob(ctx -> {}, JobPriority.NORMAL, 10_000);
+
+    // act
+    submittedTask(job).run();
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    assertFalse(Thread.currentThread().isInterrupted());
+    jobService.shutdown();
+  }
+
+  @Test
+  public void persistent_job_is_saved_with_its_type_and_params() {
+    // act
+    Job job =
+        jobService.runAsJob(TestJob.builder().fail(true).sleepMs(5).build(), JobPriority.LOW, 1000);
+
+    // assert
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":true,\"sleepMs\":5}", job.getJobParams());
+    assertEquals(JobPriority.LOW, job.getPriority());
+    assertEquals(1000, job.getTimeoutMs());
+    assertNotNull(job.getHeartbeatAt());
+  }
+
+  @Test
+  public void job_that_is_not_persistent_has_no_type() {
+    Job job = jobService.runAsJob(ctx -> {});
+
+    assertEquals(null, job.getJobType());
+    assertEquals(Optional.empty(), jobService.restoreJobFunction(job));
+  }
+
+  @Test
+  public void persistent_job_can_be_restored() {
+    // arrange
+    Job job = jobService.runAsJob(TestJob.builder().fail(true).sleepMs(5).build());
+
+    // act
+    TestJob restored = (TestJob) jobService.restoreJobFunction(job).get();
+
+    // assert
+    assertTrue(restored.getFail());
+    assertEquals(5, restored.getSleepMs());
+  }
+
+  @Test
+  public void job_with_unknown_type_or_bad_params_cannot_be_restored() {
+    assertEquals(
+        Optional.empty(),
+        jobService.restoreJobFunction(
+            Job.builder().jobType("edu.ucsb.cs156.example.jobs.NoSuchJob").build()));
+    assertEquals(
+        Optional.empty(),
+        jobService.restoreJobFunction(
+            Job.builder().jobType("java.lang.String").jobParams("\"x\"").build()));
+    assertEquals(
+        Optional.empty(),
+        jobService.restoreJobFunction(
+            Job.builder().jobType(TestJob.class.getName()).jobParams("{").build()));
+  }
+
+  @Test
+  public void recovered_job_is_queued_and_run_again() {
+    // arrange
+    Job job = Job.builder().id(7L).status("running").priority(JobPriority.HIGH).build();
+
+    // act
+    jobService.requeue(job, TestJob.builder().build());
+
+    // assert
+    assertEquals("queued", job.getStatus());
+    verify(jobsRepository).save(job);
+    verify(jobEventBroadcaster).statusChanged(job);
+    submittedTask(job).run();
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  public void heartbeat_touches_the_jobs_that_are_queued_or_running_here() {
+    // nothing queued yet
+    jobService.heartbeat();
+    verify(jobsRepository, never()).updateHeartbeats(any(), any());
+
+    Job job = Job.builder().id(8L).priority(JobPriority.NORMAL).build();
+    jobService.requeue(job, TestJob.builder().build());
+    jobService.heartbeat();
+    verify(jobsRepository).updateHeartbeats(eq(List.of(8L)), any());
+    assertTrue(jobService.isActive(8L));
+
+    submittedTask(job).run();
+    assertFalse(jobService.isActive(8L));
+    jobService.heartbeat();
+    verify(jobsRepository, times(1)).updateHeartbeats(any(), any());
+  }
+
+  @Test
+  public void finished_jobs_are_timed_and_counted_by_type_and_status() {
+    // arrange
+    Job job = jobService.runAsJob(TestJob.builder().fail(true).build(), JobPriority.NORMAL, 0);
+
+    // act
+    submittedTask(job).run();
+
+    // assert
+    assertEquals("error", job.getStatus());
+    assertEquals(1, meterRegistry.get("jobs.queue.wait").tag("type", "TestJob").timer().count());
+    assertEquals(
+        1,
+        meterRegistry
+            .get("jobs.execution")
+            .tags("type", "TestJob", "status", "error")
+            .timer()
+            .count());
+    assertEquals(
+        1.0,
+        meterRegistry
+            .get("jobs.finished")
+            .tags("type", "TestJob", "status", "error")
+            .counter()
+            .count());
+    assertEquals(
+        2.0, meterRegistry.get("jobs.log.lines").tag("type", "TestJob").summary().totalAmount());
+    assertEquals(0.0, meterRegistry.get("jobs.running").tag("type", "TestJob").gauge().value());
+  }
+
+  @Test
+  public void running_jobs_are_counted_by_type() throws Exception {
+    // arrange
+    CountDownLatch started = new CountDownLatch(1);
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              started.countDown();
+              Thread.sleep(10_000);
+            });
+    Thread thread = new Thread(submittedTask(job));
+    thread.start();
+    started.await();
+
+    // act / assert
+    assertEquals(
+        1.0,
+        meterRegistry.get("jobs.running").tag("type", "JobServiceTests$$Lambda").gauge().value());
+    jobService.cancelJob(job.getId());
+    thread.join(5_000);
+    assertEquals(
+        0.0,
+        meterRegistry.get("jobs.running").tag("type", "JobServiceTests$$Lambda").gauge().value());
+  }
+
+  @Test
+  public void rejected_and_cancelled_queued_jobs_are_counted() {
+    // arrange
+    doThrow(new TaskRejectedException("Job queue is full"))
+        .when(jobScheduler)
+        .submit(any(Job.class), any(JobPriority.class), any(Runnable.class));
+    jobService.runAsJob(TestJob.builder().build());
+    doNothing()
+        .when(jobScheduler)
+        .submit(any(Job.class), any(JobPriority.class), any(Runnable.class));
+    Job queued = jobService.runAsJob(TestJob.builder().build());
+    when(jobScheduler.remove(queued.getId())).thenReturn(true);
+
+    // act
+    jobService.cancelJob(queued.getId());
+
+    // assert
+    assertEquals(
+        1.0,
+        meterRegistry
+            .get("jobs.finished")
+            .tags("type", "TestJob", "status", "rejected")
+            .counter()
+            .count());
+    assertEquals(
+        1.0,
+        meterRegistry
+            .get("jobs.finished")
+            .tags("type", "TestJob", "status", "cancelled")
+            .counter()
+            .count());
+  }
+
+  @Test
+  public void stream_replays_compacted_log_from_the_requested_line() {
+    // arrange
+    JobStreamSubscription subscription = mock(JobStreamSubscription.class);
+    when(jobEventBroadcaster.subscribe(4L, 1)).thenReturn(subscription);
+    when(subscription.replay(any())).thenReturn(true);
+    Job job =
+        Job.builder()
+            .id(4L)
+            .status("complete")
+            .logGzip(JobLogCompression.compress("line 0\nline 1\nline 2"))
+            .build();
+    when(jobsRepository.findById(4L)).thenReturn(Optional.of(job));
+
+    // act
+    jobService.streamJob(4L, 1);
+
+    // assert
+    ArgumentCaptor<JobLogLine> replayed = ArgumentCaptor.forClass(JobLogLine.class);
+    verify(subscription, times(2)).replay(replayed.capture());
+    assertEquals(
+        List.of(logLine(4L, 1, "line 1"), logLine(4L, 2, "line 2")), replayed.getAllValues());
+    verify(subscription).goLive("complete");
+    verify(jobLogService, never()).forEachLine(anyLong(), anyInt(), any());
+  }
+
+  @Test
+  public void stream_replays_the_log_in_the_job_row_before_the_log_lines() {
+    // arrange
+    JobStreamSubscription subscription = mock(JobStreamSubscription.class);
+    when(jobEventBroadcaster.subscribe(4L, 1)).thenReturn(subscription);
+    when(subscription.replay(any())).thenReturn(true);
+    Job job = Job.builder().id(4L).status("complete").log("old 0\nold 1").build();
+    when(jobsRepository.findById(4L)).thenReturn(Optional.of(job));
+    when(jobLogService.forEachLine(eq(4L), eq(0), any()))
+        .thenAnswer(
+            invocation ->
+                invocation.<Predicate<JobLogLine>>getArgument(2).test(logLine(4L, 0, "new 0")));
+
+    // act
+    jobService.streamJob(4L, 1);
+
+    // assert
+    ArgumentCaptor<JobLogLine> replayed = ArgumentCaptor.forClass(JobLogLine.class);
+    verify(subscription, times(2)).replay(replayed.capture());
+    assertEquals(
+        List.of(logLine(4L, 1, "old 1"), logLine(4L, 2, "new 0")), replayed.getAllValues());
+    verify(jobLogService).flush(4L);
+    verify(subscription).goLive("complete");
+  }
+
+  @Test
+  public void stream_does_not_go_live_when_the_replay_ended_it() {
+    // arrange
+    JobStreamSubscription subscription = mock(JobStreamSubscription.class);
+    when(jobEventBroadcaster.subscribe(4L, 0)).thenReturn(subscription);
+    when(subscription.replay(any())).thenReturn(false);
+    when(jobsRepository.findById(4L))
+        .thenReturn(
+            Optional.of(
+                Job.builder()
+                    .id(4L)
+                    .status("complete")
+                    .logGzip(JobLogCompression.compress("line 0\nline 1"))
+                    .build()));
+    when(jobsRepository.findById(5L))
+        .thenReturn(Optional.of(Job.builder().id(5L).status("running").build()));
+    when(jobEventBroadcaster.subscribe(5L, 0)).thenReturn(subscription);
+    when(jobLogService.forEachLine(eq(5L), eq(0), any())).thenReturn(false);
+
+    // act
+    jobService.streamJob(4L, 0);
+    jobService.streamJob(5L, 0);
+
+    // assert
+    verify(subscription, times(1)).replay(any());
+    verify(subscription, never()).goLive(any());
+  }
+
+  @Test
+  public void stream_of_empty_compacted_log_replays_no_lines() {
+    // arrange
+    JobStreamSubscription subscription = mock(JobStreamSubscription.class);
+    when(jobEventBroadcaster.subscribe(4L, 0)).thenReturn(subscription);
+    when(jobsRepository.findById(4L))
+        .thenReturn(
+            Optional.of(
+                Job.builder()
+                    .id(4L)
+                    .status("complete")
+                    .logGzip(JobLogCompression.compress(""))
+                    .build()));
+
+    // act
+    jobService.streamJob(4L, 0);
+
+    // assert
+    verify(subscription, never()).replay(any());
+    verify(subscription).goLive("complete");
+  }
+
+  @Test
+  public void stream_of_job_that_is_gone_ends_at_once() {
+    // arrange
+    JobStreamSubscription subscription = mock(JobStreamSubscription.class);
+    when(jobEventBroadcaster.subscribe(4L, 0)).thenReturn(subscription);
+    when(jobsRepository.findById(4L)).thenReturn(Optional.empty());
+
+    // act
+    jobService.streamJob(4L, 0);
+
+    // assert
+    verify(subscription, never()).replay(any());
+    verify(subscription).goLive(null);
+  }
+
+  private JobLogLine logLine(long jobId, int lineNumber, String message) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message(message).build();
+  }
+}
@@ -0,0 +1,245 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobStreamSubscriptionTests {
+
+  private SseEmitter emitter;
+  private JobEventBroadcaster broadcaster;
+
+  @BeforeEach
+  public void setup() {
+    emitter = mock(SseEmitter.class);
+    broadcaster = mock(JobEventBroadcaster.class);
+  }
+
+  /** A subscription that sends its events at once, on the thread that publishes them. */
+  private JobStreamSubscription subscription(int fromLineNumber) {
+    return new JobStreamSubscription(3L, fromLineNumber, emitter, broadcaster, Runnable::run, 10);
+  }
+
+  private JobLogLine line(int lineNumber) {
+    return JobLogLine.builder()
+        .jobId(3L)
+        .lineNumber(lineNumber)
+        .message("line " + lineNumber)
+        .build();
+  }
+
+  /** Renders the events sent to the emitter the way they go over the wire. */
+  private List<String> sentEvents(int times) throws IOException {
+    ArgumentCaptor<SseEmitter.SseEventBuilder> captor =
+        ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+    verify(emitter, times(times)).send(captor.capture());
+    return captor.getAllValues().stream()
+        .map(
+            event ->
+                event.build().stream()
+                    .map(part -> part.getData().toString())
+                    .collect(Collectors.joining()))
+        .toList();
+  }
+
+  @Test
+  public void live_lines_are_held_back_until_replay_is_done_and_sent_once() throws IOException {
+    JobStreamSubscription subscription = subscription(1);
+
+    subscription.lineAppended(line(2));
+    subscription.statusChanged("running");
+    subscription.lineAppended(line(3));
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+
+    subscription.replay(line(1));
+    subscription.replay(line(2));
+    subscription.goLive("running");
+
+    subscription.lineAppended(line(4));
+
+    assertEquals(
+        List.of(
+            "id:1\nevent:log\ndata:line 1\n\n",
+            "id:2\nevent:log\ndata:line 2\n\n",
+            "event:status\ndata:running\n\n",
+            "id:3\nevent:log\ndata:line 3\n\n",
+            "id:4\nevent:log\ndata:line 4\n\n"),
+        sentEvents(5));
+    verify(emitter, never()).complete();
+  }
+
+  @Test
+  public void lines_before_the_requested_line_are_not_sent() throws IOException {
+    JobStreamSubscription subscription = subscription(5);
+
+    subscription.replay(line(4));
+    subscription.replay(line(5));
+
+    assertEquals(List.of("id:5\nevent:log\ndata:line 5\n\n"), sentEvents(1));
+  }
+
+  @Test
+  public void finished_status_ends_the_stream() throws IOException {
+    JobStreamSubscription subscription = subscription(0);
+    subscription.goLive("running");
+
+    subscription.statusChanged("complete");
+    subscription.lineAppended(line(0));
+    subscription.statusChanged("error");
+
+    assertEquals(
+        List.of("event:status\ndata:running\n\n", "event:status\ndata:complete\n\n"),
+        sentEvents(2));
+    verify(emitter, times(1)).complete();
+    verify(broadcaster, times(1)).unsubscribe(subscription);
+  }
+
+  @Test
+  public void stream_of_deleted_job_ends_without_status() throws IOException {
+    JobStreamSubscription subscription = subscription(0);
+
+    subscription.goLive(null);
+
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    verify(emitter).complete();
+    verify(broadcaster).unsubscribe(subscription);
+  }
+
+  @Test
+  public void failed_send_closes_the_stream() throws IOException {
+    IOException broken = new IOException("broken pipe");
+    doThrow(broken).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+    JobStreamSubscription subscription = subscription(0);
+    subscription.goLive("running");
+
+    subscription.lineAppended(line(0));
+
+    verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    verify(emitter).completeWithError(broken);
+    verify(broadcaster, times(1)).unsubscribe(subscription);
+  }
+
+  @Test
+  public void failed_send_of_finished_status_does_not_complete_twice() throws IOException {
+    IOException broken = new IOException("broken pipe");
+    doThrow(broken).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+    JobStreamSubscription subscription = subscription(0);
+
+    subscription.goLive("complete");
+
+    verify(emitter).completeWithError(broken);
+    verify(emitter, never()).complete();
+  }
+
+  @Test
+  public void emitter_callbacks_unsubscribe() {
+    ArgumentCaptor<Runnable> completion = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> timeout = ArgumentCaptor.forClass(Runnable.class);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Consumer<Throwable>> error = ArgumentCaptor.forClass(Consumer.class);
+    JobStreamSubscription subscription = subscription(0);
+    verify(emitter).onCompletion(completion.capture());
+    verify(emitter).onTimeout(timeout.capture());
+    verify(emitter).onError(error.capture());
+
+    error.getValue().accept(new IOException("reset"));
+    timeout.getValue().run();
+    completion.getValue().run();
+
+    verify(broadcaster, times(1)).unsubscribe(subscription);
+    assertEquals(3L, subscription.getJobId());
+    assertEquals(emitter, subscription.getEmitter());
+  }
+
+  @Test
+  public void live_events_are_sent_on_the_send_executor_not_the_publishing_thread()
+      throws IOException {
+    List<Runnable> sendTasks = new ArrayList<>();
+    JobStreamSubscription subscription =
+        new JobStreamSubscription(3L, 0, emitter, broadcaster, sendTasks::add, 10);
+    subscription.goLive("running");
+    subscription.lineAppended(line(0));
+    subscription.statusChanged("complete");
+
+    // one task sends everything queued so far, in order
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    assertEquals(1, sendTasks.size());
+    sendTasks.get(0).run();
+
+    assertEquals(
+        List.of(
+            "event:status\ndata:running\n\n",
+            "id:0\nevent:log\ndata:line 0\n\n",
+            "event:status\ndata:complete\n\n"),
+        sentEvents(3));
+    verify(emitter).complete();
+
+    // nothing is left to send, so the next event starts a new task
+    subscription.lineAppended(line(1));
+    assertEquals(1, sendTasks.size());
+  }
+
+  @Test
+  public void client_that_falls_too_far_behind_is_disconnected() throws IOException {
+    List<Runnable> sendTasks = new ArrayList<>();
+    JobStreamSubscription subscription =
+        new JobStreamSubscription(3L, 0, emitter, broadcaster, sendTasks::add, 2);
+    subscription.goLive("running");
+    subscription.lineAppended(line(0));
+
+    // the job goes on without waiting for the client
+    subscription.lineAppended(line(1));
+    verify(broadcaster).unsubscribe(subscription);
+    subscription.lineAppended(line(2));
+
+    sendTasks.get(0).run();
+    verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    verify(emitter).complete();
+  }
+
+  @Test
+  public void long_replay_ends_the_stream_so_the_client_resumes_after_it() throws IOException {
+    JobStreamSubscription subscription =
+        new JobStreamSubscription(3L, 1, emitter, broadcaster, Runnable::run, 2);
+    subscription.lineAppended(line(3));
+
+    // a line that was already sent does not count
+    assertTrue(subscription.replay(line(0)));
+    assertTrue(subscription.replay(line(1)));
+    assertFalse(subscription.replay(line(2)));
+    assertFalse(subscription.replay(line(3)));
+
+    assertEquals(
+        List.of("id:1\nevent:log\ndata:line 1\n\n", "id:2\nevent:log\ndata:line 2\n\n"),
+        sentEvents(2));
+    verify(emitter).complete();
+    verify(broadcaster).unsubscribe(subscription);
+  }
+
+  @Test
+  public void replay_stops_once_the_client_closed_the_stream() throws IOException {
+    doThrow(new IOException("broken pipe"))
+        .when(emitter)
+        .send(any(SseEmitter.SseEventBuilder.class));
+    JobStreamSubscription subscription = subscription(0);
+
+    assertFalse(subscription.replay(line(0)));
+  }
+}
@@ -1,11 +1,26 @@
 package edu.ucsb.cs156.example.testconfig;
 
 import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.services.AdminRoleResolver;
+import edu.ucsb.cs156.example.services.AuthAuditLogger;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import edu.ucsb.cs156.example.services.TableExporter;
+import edu.ucsb.cs156.example.services.TableVersions;
+import edu.ucsb.cs156.example.services.UserCache;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @TestConfiguration
 @Import(SecurityConfig.class)
@@ -20,4 +35,65 @@ public class TestConfig {
   public GrantedAuthoritiesService grantedAuthoritiesService() {
     return new GrantedAuthoritiesService();
   }
+
+  @Bean
+  public UserCache userCache() {
+    return new UserCache();
+  }
+
+  @Bean
+  public UserProvisioningService userProvisioningService() {
+    return new UserProvisioningService();
+  }
+
+  @Bean
+  public AdminRoleResolver adminRoleResolver() {
+    return new AdminRoleResolver();
+  }
+
+  @Bean
+  public SessionTokenService sessionTokenService() {
+    return new SessionTokenService();
+  }
+
+  @Bean
+  public AuthAuditLogger authAuditLogger() {
+    return new AuthAuditLogger();
+  }
+
+  /**
+   * Integration tests keep table versions in their database; controller tests have none, so they
+   * get an embedded one of their own.
+   */
+  @Bean
+  public TableVersions tableVersions(
+      ObjectProvider<JdbcTemplate> jdbcTemplate,
+      @Lazy PlatformTransactionManager transactionManager) {
+    JdbcTemplate database = jdbcTemplate.getIfAvailable();
+    if (database == null) {
+      database = tableVersionsDatabase();
+      return new TableVersions(
+          database, new DataSourceTransactionManager(database.getDataSource()));
+    }
+    return new TableVersions(database, transactionManager);
+  }
+
+  public static JdbcTemplate tableVersionsDatabase() {
+    return new JdbcTemplate(
+        new EmbeddedDatabaseBuilder()
+            .setType(EmbeddedDatabaseType.H2)
+            .generateUniqueName(true)
+            .addScript("table_versions.sql")
+            .build());
+  }
+
+  @Bean
+  public TableExporter tableExporter() {
+    return new TableExporter();
+  }
+
+  @Bean
+  public BulkService bulkService() {
+    return new BulkService();
+  }
 }
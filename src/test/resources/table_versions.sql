@@ -0,0 +1 @@
+CREATE TABLE TABLE_VERSIONS (TABLE_NAME VARCHAR(255) PRIMARY KEY, VERSION BIGINT NOT NULL);